@@ -1,9 +1,12 @@
 package com.electronwill.nightconfig.core;
 
+import com.electronwill.nightconfig.core.io.ParsingMode;
 import com.electronwill.nightconfig.core.utils.MapSupplier;
 import com.electronwill.nightconfig.core.utils.TransformingMap;
 import com.electronwill.nightconfig.core.utils.TransformingSet;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
@@ -27,6 +30,25 @@ public abstract class AbstractConfig implements Config, Cloneable {
 		this.root = new EntryDataImpl(this);
 	}
 
+	/**
+	 * Creates a config whose storage map is presized for the given number of entries.
+	 */
+	protected AbstractConfig(MapSupplier mapSupplier, int expectedSize) {
+		this.mapSupplier = mapSupplier;
+		this.storage = mapSupplier.get(expectedSize);
+		this.root = new EntryDataImpl(this);
+	}
+
+	/**
+	 * Creates a config that stores its entries in the given map. This allows the subclasses to
+	 * use a special kind of map, for instance one that is shared until it's modified.
+	 */
+	protected AbstractConfig(MapSupplier mapSupplier, Map<String, EntryData> storage) {
+		this.mapSupplier = mapSupplier;
+		this.storage = storage;
+		this.root = new EntryDataImpl(this);
+	}
+
 	protected EntryData findEntry(String[] path, int mode) {
 		return findEntry(path, path.length, mode);
 	}
@@ -176,6 +198,17 @@ public abstract class AbstractConfig implements Config, Cloneable {
 
 	public abstract AbstractConfig createSubConfig();
 
+	/**
+	 * Creates a new sub config that is suited to hold the given number of entries.
+	 * The default implementation ignores the size and calls {@link #createSubConfig()}.
+	 *
+	 * @param expectedSize the expected number of entries
+	 * @return a new sub config
+	 */
+	public AbstractConfig createSubConfig(int expectedSize) {
+		return createSubConfig();
+	}
+
 	public abstract AbstractConfig clone();
 
 	@Override
@@ -197,4 +230,146 @@ public abstract class AbstractConfig implements Config, Cloneable {
 	public String toString() {
 		return getClass().getSimpleName() + ": " + storage;
 	}
-}
+
+	/**
+	 * Constructs the content of a config by putting the entries directly into the storage maps,
+	 * without resolving any path. This is much faster than calling {@code set} for each entry,
+	 * and is intended to be used by the parsers.
+	 * <p>
+	 * The entries of an object are buffered until the end of the object, then a sub config of
+	 * the right size is created with {@link #createSubConfig(int)}. The buffers are reused from
+	 * one object to another, therefore a builder should be used for a whole document. The
+	 * builder is not thread-safe.
+	 * <p>
+	 * Usage:
+	 * <pre>
+	 * Builder builder = new Builder(dst);
+	 * builder.put("a", value);
+	 * builder.beginObject();
+	 * builder.put("b", value);
+	 * builder.put("sub", builder.endObject());
+	 * builder.finish(ParsingMode.MERGE);
+	 * </pre>
+	 */
+	public static final class Builder {
+		private final Config target;
+		private final AbstractConfig template;
+		private String[] keys = new String[16];
+		private Object[] values = new Object[16];
+		private int size;
+		private int[] objectStarts = new int[8];
+		private int depth;
+
+		/**
+		 * Creates a builder that fills the given config. The sub configs are created with the
+		 * target's {@link #createSubConfig(int)} method if it's an AbstractConfig, or are
+		 * {@link MemoryConfig}s otherwise.
+		 *
+		 * @param target the config to fill
+		 */
+		public Builder(Config target) {
+			this.target = target;
+			this.template = (target instanceof AbstractConfig) ? (AbstractConfig)target
+															   : new MemoryConfig();
+		}
+
+		/**
+		 * Starts a new object. Its entries are added with {@link #put(String, Object)} until
+		 * the corresponding call to {@link #endObject()}.
+		 */
+		public void beginObject() {
+			if (depth == objectStarts.length) {
+				objectStarts = Arrays.copyOf(objectStarts, depth * 2);
+			}
+			objectStarts[depth++] = size;
+		}
+
+		/**
+		 * Adds an entry to the current object. If the object already contains the key, the last
+		 * value replaces the previous ones, in the sub configs and in the top-level entries.
+		 *
+		 * @param key   the entry's key, which is not split around dots
+		 * @param value the entry's value
+		 */
+		public void put(String key, Object value) {
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+				values = Arrays.copyOf(values, size * 2);
+			}
+			keys[size] = key;
+			values[size] = value;
+			size++;
+		}
+
+		/**
+		 * Ends the current object.
+		 *
+		 * @return a new config that contains the entries of the object
+		 */
+		public AbstractConfig endObject() {
+			if (depth == 0) {
+				throw new IllegalStateException("No object to end");
+			}
+			final int start = objectStarts[--depth];
+			final AbstractConfig config = template.createSubConfig(size - start);
+			final Map<String, EntryData> storage = config.storage;
+			for (int i = start; i < size; i++) {
+				storage.put(keys[i], new EntryDataImpl(values[i]));
+				keys[i] = null;
+				values[i] = null;
+			}
+			size = start;
+			return config;
+		}
+
+		/**
+		 * Puts the top-level entries into the target config. The existing entries are handled
+		 * according to the parsing mode, like {@link ParsingMode#put(Config, String[], Object)}
+		 * does: their attributes are kept. The parsing mode only applies to the entries that
+		 * existed before: like in the sub configs, a duplicate key keeps its last value.
+		 *
+		 * @param mode how to deal with the existing entries
+		 */
+		public void finish(ParsingMode mode) {
+			if (depth != 0) {
+				throw new IllegalStateException("Unfinished object at depth " + depth);
+			}
+			mode.prepareParsing(target);
+			// With ADD, the keys added by this method, whose duplicates replace the value
+			final Set<String> added = (mode == ParsingMode.ADD) ? new HashSet<>() : null;
+			if (target instanceof AbstractConfig) {
+				final Map<String, EntryData> storage = ((AbstractConfig)target).storage;
+				for (int i = 0; i < size; i++) {
+					final EntryData existing = storage.get(keys[i]);
+					if (existing == null) {
+						storage.put(keys[i], new EntryDataImpl(values[i]));
+						if (added != null) {
+							added.add(keys[i]);
+						}
+					} else if (added != null && !added.contains(keys[i])) {
+						existing.addValue(values[i]);
+					} else {
+						existing.setValue(values[i]);
+					}
+				}
+			} else {
+				for (int i = 0; i < size; i++) {
+					final String[] path = { keys[i] };
+					if (added == null) {
+						mode.put(target, path, values[i]);
+					} else if (added.contains(keys[i])) {
+						target.set(path, values[i]);
+					} else {
+						if (!target.contains(path)) {
+							added.add(keys[i]);
+						}
+						mode.put(target, path, values[i]);
+					}
+				}
+			}
+			Arrays.fill(keys, 0, size, null);
+			Arrays.fill(values, 0, size, null);
+			size = 0;
+		}
+	}
+}
\ No newline at end of file
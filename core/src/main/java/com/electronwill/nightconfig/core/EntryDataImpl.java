@@ -107,7 +107,10 @@ final class EntryDataImpl implements EntryData, Cloneable {
 
 	@Override
 	public boolean equals(Object o) {
-		if (!(o instanceof EntryDataImpl)) return false;
+		if (!(o instanceof EntryDataImpl)) {
+			// lets the wrappers of an EntryDataImpl compare their content
+			return o instanceof EntryData && o.equals(this);
+		}
 		EntryDataImpl entryData = (EntryDataImpl)o;
 		return Objects.equals(value, entryData.value) && Objects.equals(extra, entryData.extra);
 	}
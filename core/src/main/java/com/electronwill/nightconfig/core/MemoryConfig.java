@@ -17,6 +17,13 @@ public final class MemoryConfig extends AbstractConfig {
 		super(mapSupplier);
 	}
 
+	/**
+	 * Creates a MemoryConfig whose map is presized for the given number of entries.
+	 */
+	public MemoryConfig(MapSupplier mapSupplier, int expectedSize) {
+		super(mapSupplier, expectedSize);
+	}
+
 	/**
 	 * Creates a SimpleConfig by copying a config.
 	 */
@@ -37,6 +44,11 @@ public final class MemoryConfig extends AbstractConfig {
 		return new MemoryConfig(mapSupplier);
 	}
 
+	@Override
+	public MemoryConfig createSubConfig(int expectedSize) {
+		return new MemoryConfig(mapSupplier, expectedSize);
+	}
+
 	@Override
 	public MemoryConfig clone() {
 		return new MemoryConfig(this, mapSupplier);
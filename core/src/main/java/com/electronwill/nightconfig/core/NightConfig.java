@@ -4,6 +4,7 @@ import com.electronwill.nightconfig.core.utils.MapSupplier;
 
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * This class stores global NightConfig settings.
@@ -11,8 +12,36 @@ import java.util.LinkedHashMap;
 public final class NightConfig {
 	private NightConfig() {}
 
+	private static final MapSupplier HASH_MAPS = new MapSupplier() {
+		@Override
+		public <K, V> Map<K, V> get() {
+			return new HashMap<>();
+		}
+
+		@Override
+		public <K, V> Map<K, V> get(int expectedSize) {
+			return new HashMap<>(capacityFor(expectedSize));
+		}
+	};
+	private static final MapSupplier LINKED_HASH_MAPS = new MapSupplier() {
+		@Override
+		public <K, V> Map<K, V> get() {
+			return new LinkedHashMap<>();
+		}
+
+		@Override
+		public <K, V> Map<K, V> get(int expectedSize) {
+			return new LinkedHashMap<>(capacityFor(expectedSize));
+		}
+	};
+
 	private static volatile MapSupplier DEFAULT_MAP_SUPPLIER =
-		isInsertionOrderPreserved() ? LinkedHashMap::new : HashMap::new;
+		isInsertionOrderPreserved() ? LINKED_HASH_MAPS : HASH_MAPS;
+
+	/** @return the capacity that avoids resizing a HashMap with the default load factor */
+	private static int capacityFor(int expectedSize) {
+		return expectedSize < 3 ? expectedSize + 1 : (int)(expectedSize / 0.75f + 1f);
+	}
 
 	/**
 	 * Checks if the newly created configs keep the insertion order of their content.
@@ -43,7 +72,7 @@ public final class NightConfig {
 	 */
 	public static void setInsertionOrderPreserved(boolean orderPreserved) {
 		System.setProperty("nightconfig.preserveInsertionOrder", orderPreserved ? "true" : "false");
-		DEFAULT_MAP_SUPPLIER = orderPreserved ? LinkedHashMap::new : HashMap::new;
+		DEFAULT_MAP_SUPPLIER = orderPreserved ? LINKED_HASH_MAPS : HASH_MAPS;
 	}
 
 	/**
@@ -0,0 +1,501 @@
+package com.electronwill.nightconfig.core;
+
+import com.electronwill.nightconfig.core.file.ConfigDiff;
+import com.electronwill.nightconfig.core.file.FileConfig;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A read-only view of several configs, called layers, stacked on top of each other. A value is
+ * taken from the highest layer that contains it, so each layer overrides the ones below it. The
+ * subconfigs of the layers are merged: the value of a subconfig is an OverlayConfig that combines
+ * the subconfigs of all the layers at the same path. A layer hides the layers below it when it
+ * contains a value that isn't a config at the path of their subconfigs.
+ * <p>
+ * Nothing is copied: each lookup goes through the layers, and its result is kept in a cache, so
+ * the next lookups of the same path don't go through the layers again. <b>Therefore the reads
+ * may return stale values:</b> the layers can be modified after their addition to the
+ * OverlayConfig, but the cache must then be invalidated with {@link #invalidate()} or
+ * {@link #invalidate(Collection)}. This is done automatically when a layer is a
+ * {@link FileConfig} that supports {@link FileConfig#addReloadListener(Consumer) reload
+ * listeners}, for instance a layer that is reloaded automatically without affecting the others:
+ * <pre>
+ * FileConfig layer = FileConfig.builder(file).autoreload().atomicReload().build();
+ * overlay.addLayer(layer);// invalidates the changed paths after each reload
+ * </pre>
+ * This class is thread-safe if the layers are thread-safe.
+ *
+ * @author TheElectronWill
+ */
+public final class OverlayConfig implements UnmodifiableConfig {
+	/** Cached result of a path that doesn't exist in any layer */
+	private static final Object MISSING = new Object();
+
+	private final List<UnmodifiableConfig> layers;// from the lowest to the highest precedence
+	private final Map<List<String>, Object> cache;
+	private final AtomicLong version;
+	private final String[] prefix;// path of this config in the root OverlayConfig
+	/** Registered to the layers that support it, invalidates the paths changed by a reload */
+	private final Consumer<ConfigDiff> reloadListener;
+
+	/**
+	 * Creates a new OverlayConfig with the given layers.
+	 *
+	 * @param layers the layers, from the lowest to the highest precedence
+	 */
+	public OverlayConfig(UnmodifiableConfig... layers) {
+		this(Arrays.asList(layers));
+	}
+
+	/**
+	 * Creates a new OverlayConfig with the given layers.
+	 *
+	 * @param layers the layers, from the lowest to the highest precedence
+	 */
+	public OverlayConfig(Collection<? extends UnmodifiableConfig> layers) {
+		for (UnmodifiableConfig layer : layers) {
+			Objects.requireNonNull(layer, "The layers must not be null");
+		}
+		this.layers = new CopyOnWriteArrayList<>();
+		this.cache = new ConcurrentHashMap<>();
+		this.version = new AtomicLong();
+		this.prefix = new String[0];
+		this.reloadListener = diff -> invalidate(diff.changedPaths());
+		for (UnmodifiableConfig layer : layers) {
+			listen(layer);
+			this.layers.add(layer);
+		}
+	}
+
+	/**
+	 * Creates a view of a subconfig of the given OverlayConfig.
+	 */
+	private OverlayConfig(OverlayConfig root, String[] prefix) {
+		this.layers = root.layers;
+		this.cache = root.cache;
+		this.version = root.version;
+		this.prefix = prefix;
+		this.reloadListener = root.reloadListener;
+	}
+
+	// --- LAYERS ---
+	/**
+	 * @return an unmodifiable list of the layers, from the lowest to the highest precedence
+	 */
+	public List<UnmodifiableConfig> layers() {
+		return Collections.unmodifiableList(layers);
+	}
+
+	/**
+	 * Adds a layer on top of the others. It has a higher precedence than all the existing layers.
+	 * <p>
+	 * If the layer is a {@link FileConfig} that supports the
+	 * {@link FileConfig#addReloadListener(Consumer) reload listeners}, a listener is registered
+	 * to invalidate the changed paths after each reload of the layer. Otherwise, the cache must be
+	 * invalidated manually when the layer is modified.
+	 *
+	 * @param layer the layer to add
+	 */
+	public synchronized void addLayer(UnmodifiableConfig layer) {
+		checkRoot();
+		listen(Objects.requireNonNull(layer, "The layer must not be null"));
+		layers.add(layer);
+		invalidate();
+	}
+
+	/**
+	 * Replaces a layer.
+	 *
+	 * @param index the index of the layer, 0 being the lowest precedence
+	 * @param layer the new layer
+	 * @return the previous layer
+	 */
+	public synchronized UnmodifiableConfig setLayer(int index, UnmodifiableConfig layer) {
+		checkRoot();
+		listen(Objects.requireNonNull(layer, "The layer must not be null"));
+		UnmodifiableConfig previous = layers.set(index, layer);
+		unlisten(previous);
+		invalidate();
+		return previous;
+	}
+
+	/**
+	 * Removes a layer.
+	 *
+	 * @param index the index of the layer, 0 being the lowest precedence
+	 * @return the removed layer
+	 */
+	public synchronized UnmodifiableConfig removeLayer(int index) {
+		checkRoot();
+		UnmodifiableConfig removed = layers.remove(index);
+		unlisten(removed);
+		invalidate();
+		return removed;
+	}
+
+	/**
+	 * Registers the reload listener to a layer that is about to be added, if it supports it and
+	 * isn't already a layer. Must be called by the root OverlayConfig, with its lock.
+	 */
+	private void listen(UnmodifiableConfig layer) {
+		if (layer instanceof FileConfig && !isLayer(layer)) {
+			((FileConfig)layer).addReloadListener(reloadListener);
+		}
+	}
+
+	/**
+	 * Unregisters the reload listener from a layer that has been removed, if it isn't a layer
+	 * anymore. Must be called by the root OverlayConfig, with its lock.
+	 */
+	private void unlisten(UnmodifiableConfig layer) {
+		if (layer instanceof FileConfig && !isLayer(layer)) {
+			((FileConfig)layer).removeReloadListener(reloadListener);
+		}
+	}
+
+	private boolean isLayer(UnmodifiableConfig config) {
+		for (UnmodifiableConfig layer : layers) {
+			if (layer == config) {// not equals(), which may compare the values
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void checkRoot() {
+		if (prefix.length != 0) {
+			throw new UnsupportedOperationException(
+				"Cannot modify the layers of a sub-OverlayConfig, use the root OverlayConfig");
+		}
+	}
+
+	// --- CACHE ---
+	/**
+	 * Clears the cache. Must be called when the layers are modified.
+	 */
+	public void invalidate() {
+		version.incrementAndGet();
+		cache.clear();
+	}
+
+	/**
+	 * Removes some paths from the cache, with their parents and their children. Must be called
+	 * when the layers are modified, for instance with the {@link
+	 * com.electronwill.nightconfig.core.file.ConfigDiff#changedPaths() changed paths} of a
+	 * reloaded layer. The paths are relative to the root OverlayConfig.
+	 *
+	 * @param paths the paths that have been modified in one or several layers
+	 */
+	public void invalidate(Collection<? extends List<String>> paths) {
+		version.incrementAndGet();
+		if (paths.isEmpty()) {
+			return;
+		}
+		cache.keySet().removeIf(cached -> {
+			for (List<String> path : paths) {
+				if (startsWith(cached, path) || startsWith(path, cached)) {
+					return true;
+				}
+			}
+			return false;
+		});
+	}
+
+	private static boolean startsWith(List<String> path, List<String> prefix) {
+		int size = prefix.size();
+		return path.size() >= size && path.subList(0, size).equals(prefix);
+	}
+
+	/**
+	 * Resolves a path, relative to the root OverlayConfig, and caches the result.
+	 *
+	 * @return the resolution, or null if the path doesn't exist in any layer
+	 */
+	private Resolution resolve(String[] path) {
+		Object cached = cache.get(Arrays.asList(path));
+		if (cached != null) {
+			return (cached == MISSING) ? null : (Resolution)cached;
+		}
+		long v = version.get();
+		Resolution resolution = computeResolution(path);
+		List<String> key = Arrays.asList(path.clone());
+		cache.put(key, (resolution == null) ? MISSING : resolution);
+		if (version.get() != v) {
+			// A layer has been modified during the resolution: the result may be outdated
+			cache.remove(key);
+		}
+		return resolution;
+	}
+
+	private Resolution computeResolution(String[] path) {
+		int lowestLayer = 0;
+		if (path.length > 1) {
+			Resolution parent = resolve(Arrays.copyOf(path, path.length - 1));
+			if (parent == null || parent.subConfig == null) {
+				return null;
+			}
+			lowestLayer = parent.lowestLayer;
+		}
+		// The layers above the parent's highest layer don't contain the parent: they are skipped
+		// by getData. The layers below lowestLayer are hidden by a value that isn't a config.
+		List<UnmodifiableConfig> currentLayers = layers;
+		for (int i = currentLayers.size() - 1; i >= lowestLayer; i--) {
+			UnmodifiableEntryData data = currentLayers.get(i).getData(path);
+			if (data == null) {
+				continue;
+			}
+			if (!(data.getValue() instanceof UnmodifiableConfig)) {
+				return new Resolution(data, null, lowestLayer);
+			}
+			// Finds the lowest layer that contributes to the merged subconfig
+			int lowestChild = i;
+			while (lowestChild > lowestLayer) {
+				UnmodifiableEntryData below = currentLayers.get(lowestChild - 1).getData(path);
+				if (below != null && !(below.getValue() instanceof UnmodifiableConfig)) {
+					break;
+				}
+				lowestChild--;
+			}
+			return new Resolution(data, new OverlayConfig(this, path.clone()), lowestChild);
+		}
+		return null;
+	}
+
+	private String[] fullPath(String[] path) {
+		if (prefix.length == 0) {
+			return path;
+		}
+		String[] full = Arrays.copyOf(prefix, prefix.length + path.length);
+		System.arraycopy(path, 0, full, prefix.length, path.length);
+		return full;
+	}
+
+	/**
+	 * @return the configs at this OverlayConfig's path in the layers that aren't hidden, from the
+	 * lowest to the highest precedence
+	 */
+	private List<UnmodifiableConfig> visibleConfigs() {
+		if (prefix.length == 0) {
+			return layers;
+		}
+		Resolution resolution = resolve(prefix);
+		if (resolution == null || resolution.subConfig == null) {
+			return Collections.emptyList();// the subconfig has been removed from the layers
+		}
+		List<UnmodifiableConfig> currentLayers = layers;
+		List<UnmodifiableConfig> configs = new ArrayList<>();
+		for (int i = resolution.lowestLayer; i < currentLayers.size(); i++) {
+			Object value = currentLayers.get(i).get(prefix);
+			if (value instanceof UnmodifiableConfig) {
+				configs.add((UnmodifiableConfig)value);
+			}
+		}
+		return configs;
+	}
+
+	/**
+	 * @return the keys of the entries of this OverlayConfig, in the order of the layers
+	 */
+	private Set<String> keys() {
+		Set<String> keys = new LinkedHashSet<>();
+		for (UnmodifiableConfig config : visibleConfigs()) {
+			keys.addAll(config.valueMap().keySet());
+		}
+		return keys;
+	}
+
+	// --- CONFIG METHODS ---
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * <b>The value may be stale.</b> It's taken from the cache if the path has already been
+	 * looked up, so a modification of a layer isn't seen until the cache is invalidated. The
+	 * invalidation is automatic only for the reloads of the layers that support the reload
+	 * listeners, see {@link #addLayer(UnmodifiableConfig)}. After any other modification of a
+	 * layer, {@link #invalidate()} or {@link #invalidate(Collection)} must be called.
+	 */
+	@Override
+	public <T> T get(String[] path) {
+		return UnmodifiableConfig.super.get(path);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * <b>The data may be stale</b>, like the values returned by {@link #get(String[])}.
+	 */
+	@Override
+	public UnmodifiableEntryData getData(String[] path) {
+		if (path.length == 0) {
+			return null;
+		}
+		return resolve(fullPath(path));
+	}
+
+	@Override
+	public boolean contains(String[] path) {
+		return getData(path) != null;
+	}
+
+	@Override
+	public boolean has(AttributeType<?> attribute, String[] path) {
+		UnmodifiableEntryData data = getData(path);
+		return data != null && data.has(attribute);
+	}
+
+	/**
+	 * Returns an unmodifiable map of the values of this OverlayConfig. The map is a snapshot:
+	 * the later modifications of the layers aren't reflected by it.
+	 *
+	 * @return a map of the values
+	 */
+	@Override
+	public Map<String, Object> valueMap() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (Map.Entry<String, UnmodifiableEntryData> entry : dataMap().entrySet()) {
+			map.put(entry.getKey(), entry.getValue().getValue());
+		}
+		return Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * Returns an unmodifiable map of the entries of this OverlayConfig. The map is a snapshot:
+	 * the later modifications of the layers aren't reflected by it.
+	 *
+	 * @return a map of the entries
+	 */
+	@Override
+	public Map<String, UnmodifiableEntryData> dataMap() {
+		Map<String, UnmodifiableEntryData> map = new LinkedHashMap<>();
+		for (String key : keys()) {
+			UnmodifiableEntryData data = getData(new String[] {key});
+			if (data != null) {
+				map.put(key, data);
+			}
+		}
+		return Collections.unmodifiableMap(map);
+	}
+
+	@Override
+	public List<Entry> entries() {
+		List<Entry> entries = new ArrayList<>();
+		for (Map.Entry<String, UnmodifiableEntryData> entry : dataMap().entrySet()) {
+			entries.add(entry.getValue().toConfigEntry(entry.getKey()));
+		}
+		return Collections.unmodifiableList(entries);
+	}
+
+	@Override
+	public int size() {
+		return keys().size();
+	}
+
+	@Override
+	public String toString() {
+		return "OverlayConfig" + valueMap();
+	}
+
+	/**
+	 * The result of a lookup: the entry of the highest layer that contains the path. Its value is
+	 * replaced by an OverlayConfig if it's a subconfig.
+	 */
+	private static final class Resolution implements UnmodifiableEntryData {
+		private final UnmodifiableEntryData data;
+		private final OverlayConfig subConfig;// null if the value isn't a config
+		private final int lowestLayer;// index of the lowest layer that contains the children
+
+		private Resolution(UnmodifiableEntryData data, OverlayConfig subConfig, int lowestLayer) {
+			this.data = data;
+			this.subConfig = subConfig;
+			this.lowestLayer = lowestLayer;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T getValue() {
+			return (subConfig == null) ? data.getValue() : (T)subConfig;
+		}
+
+		@Override
+		public boolean has(AttributeType<?> attribute) {
+			return data.has(attribute);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T get(AttributeType<T> attribute) {
+			if (attribute == StandardAttributes.VALUE) {
+				return getValue();
+			}
+			return data.get(attribute);
+		}
+
+		@Override
+		public Iterable<? extends AttributeEntry<?>> attributes() {
+			return data.attributes();
+		}
+
+		@Override
+		public Config.Entry toConfigEntry(String key) {
+			return new Config.Entry() {
+				@Override
+				public <T> T set(AttributeType<T> attribute, T value) {
+					throw new UnsupportedOperationException("An OverlayConfig is unmodifiable");
+				}
+
+				@Override
+				public Iterable<? extends Config.AttributeEntry<?>> attributes() {
+					List<Config.AttributeEntry<?>> attributes = new ArrayList<>();
+					for (AttributeEntry<?> attribute : data.attributes()) {
+						attributes.add(readOnly(attribute));
+					}
+					return attributes;
+				}
+
+				@Override
+				public String getKey() {
+					return key;
+				}
+
+				@Override
+				public <T> T get(AttributeType<T> attribute) {
+					return Resolution.this.get(attribute);
+				}
+
+				@Override
+				public <T> Optional<T> getOptional(AttributeType<T> attribute) {
+					return Optional.ofNullable(get(attribute));
+				}
+			};
+		}
+
+		private static <T> Config.AttributeEntry<T> readOnly(AttributeEntry<T> attribute) {
+			return new Config.AttributeEntry<T>() {
+				@Override
+				public void set(T value) {
+					throw new UnsupportedOperationException("An OverlayConfig is unmodifiable");
+				}
+
+				@Override
+				public AttributeType<T> attribute() {
+					return attribute.attribute();
+				}
+
+				@Override
+				public T get() {
+					return attribute.get();
+				}
+			};
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <K, V> Map.Entry<K, V> toMapEntry(K key) {
+			return new AbstractMap.SimpleImmutableEntry<>(key, (V)getValue());
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.electronwill.nightconfig.core.file;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The executor that writes the asynchronous FileConfigs to their files. It's shared by all the
+ * configs and has a bounded number of threads and a bounded queue. When the queue is full, the
+ * thread that saves a config writes it itself, which slows down the threads that save faster
+ * than the files can be written.
+ * <p>
+ * Each config has at most one save in the queue: if a config is saved again before its previous
+ * save has started, only the latest data is written. This class provides some metrics about the
+ * saves of all the configs.
+ *
+ * @author TheElectronWill
+ */
+public final class AsyncSaveExecutor {
+	private static final int MAX_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+	private static final int QUEUE_CAPACITY = 1024;
+
+	private static final LongAdder completedSaves = new LongAdder();
+	private static final LongAdder failedSaves = new LongAdder();
+	private static final LongAdder totalLatency = new LongAdder();
+	private static final AtomicLong maxLatency = new AtomicLong();
+
+	private AsyncSaveExecutor() {}
+
+	/**
+	 * @return the number of saves that are waiting for a thread
+	 */
+	public static int queueDepth() {
+		return Holder.EXECUTOR.getQueue().size();
+	}
+
+	/**
+	 * @return the number of saves that are being written right now
+	 */
+	public static int activeSaves() {
+		return Holder.EXECUTOR.getActiveCount();
+	}
+
+	/**
+	 * @return the number of saves that have completed successfully
+	 */
+	public static long completedSaves() {
+		return completedSaves.sum();
+	}
+
+	/**
+	 * @return the number of saves that have failed
+	 */
+	public static long failedSaves() {
+		return failedSaves.sum();
+	}
+
+	/**
+	 * Returns the average latency of the saves, that is, the average time between a call to
+	 * {@link FileConfig#save()} and the end of the corresponding write operation.
+	 *
+	 * @return the average latency of the saves, or zero if there hasn't been any save
+	 */
+	public static Duration averageLatency() {
+		long count = completedSaves.sum() + failedSaves.sum();
+		return (count == 0) ? Duration.ZERO : Duration.ofNanos(totalLatency.sum() / count);
+	}
+
+	/**
+	 * @return the maximum latency of the saves
+	 */
+	public static Duration maxLatency() {
+		return Duration.ofNanos(maxLatency.get());
+	}
+
+	/**
+	 * Resets the counters and the latencies.
+	 */
+	public static void resetMetrics() {
+		completedSaves.reset();
+		failedSaves.reset();
+		totalLatency.reset();
+		maxLatency.set(0);
+	}
+
+	/**
+	 * Submits a save to the executor, or runs it in the current thread if the queue is full.
+	 */
+	static void execute(Runnable save) {
+		Holder.EXECUTOR.execute(save);
+	}
+
+	/**
+	 * Records the end of a save.
+	 *
+	 * @param latencyNanos the time between the call to save() and the end of the save
+	 * @param success      true if the config has been saved, false if the save has failed
+	 */
+	static void record(long latencyNanos, boolean success) {
+		(success ? completedSaves : failedSaves).increment();
+		totalLatency.add(latencyNanos);
+		maxLatency.accumulateAndGet(latencyNanos, Math::max);
+	}
+
+	/**
+	 * Holds the executor. It's created on first use.
+	 */
+	private static final class Holder {
+		static final ThreadPoolExecutor EXECUTOR;
+
+		static {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+				10, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), task -> {
+					Thread thread = new Thread(task, "FileConfig saver");
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+			executor.allowCoreThreadTimeOut(true);// no idle thread when nothing is saved
+			EXECUTOR = executor;
+		}
+	}
+}
\ No newline at end of file
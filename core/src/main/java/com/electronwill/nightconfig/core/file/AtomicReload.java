@@ -0,0 +1,110 @@
+package com.electronwill.nightconfig.core.file;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.io.ConfigParser;
+import com.electronwill.nightconfig.core.io.ParsingException;
+import com.electronwill.nightconfig.core.io.ParsingMode;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Loads a FileConfig atomically: the file is parsed into a new config, which then replaces the
+ * current one in a single operation. Therefore, the threads that read the config during the
+ * load see either the old values or the new ones, never an empty or partially loaded config.
+ * <p>
+ * The modifications made to the config during the load are lost, like with
+ * {@link ParsingMode#REPLACE}. An action can complete each new config after the parsing, before
+ * it replaces the current one, see {@link #afterParse(Consumer)}.
+ *
+ * @author TheElectronWill
+ */
+final class AtomicReload {
+	private final SwappableConfig config;
+	private final Supplier<? extends Config> configSupplier;
+	private final List<Consumer<? super ConfigDiff>> listeners;
+	private volatile Consumer<? super Config> afterParse;
+
+	/**
+	 * @param config         the initial config
+	 * @param configSupplier creates the new configs to parse
+	 * @param listeners      notified of the differences after each load that changes the config
+	 */
+	AtomicReload(Config config, Supplier<? extends Config> configSupplier,
+				 List<Consumer<? super ConfigDiff>> listeners) {
+		this.config = new SwappableConfig(config);
+		this.configSupplier = configSupplier;
+		this.listeners = new CopyOnWriteArrayList<>(listeners);
+	}
+
+	/**
+	 * Sets an action to apply to each new config after the parsing, before it replaces the
+	 * current config.
+	 *
+	 * @param action the action to apply to the parsed configs
+	 */
+	void afterParse(Consumer<? super Config> action) {
+		afterParse = action;
+	}
+
+	/**
+	 * Adds a listener that is notified of the differences after each load that changes the
+	 * config.
+	 *
+	 * @param listener the listener to add
+	 */
+	void addListener(Consumer<? super ConfigDiff> listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a listener.
+	 *
+	 * @param listener the listener to remove
+	 */
+	void removeListener(Consumer<? super ConfigDiff> listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * @return the config that is replaced by each load
+	 */
+	Config config() {
+		return config;
+	}
+
+	/**
+	 * Parses the file into a new config and replaces the current config by the new one.
+	 */
+	void load(ConfigParser parser, Path file, Charset charset, FileNotFoundAction nefAction) {
+		try {
+			if (Files.notExists(file) && !nefAction.run(file, parser.getFormat())) {
+				return;// nothing to parse, keeps the current config
+			}
+		} catch (IOException e) {
+			throw new ParsingException("An I/O error occured", e);
+		}
+		Config newConfig = configSupplier.get();
+		parser.parse(file, charset, newConfig, ParsingMode.REPLACE,
+					 FileNotFoundAction.READ_NOTHING);
+		Consumer<? super Config> action = afterParse;
+		if (action != null) {
+			action.accept(newConfig);
+		}
+		Config oldConfig = config.swap(newConfig);
+		if (!listeners.isEmpty()) {
+			ConfigDiff diff = ConfigDiff.compute(oldConfig, newConfig);
+			if (!diff.isEmpty()) {
+				for (Consumer<? super ConfigDiff> listener : listeners) {
+					listener.accept(diff);
+				}
+			}
+		}
+	}
+}
\ No newline at end of file
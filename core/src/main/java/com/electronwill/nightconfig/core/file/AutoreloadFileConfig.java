@@ -1,25 +1,56 @@
 package com.electronwill.nightconfig.core.file;
 
 import java.io.IOException;
+import java.time.Duration;
 
 /**
+ * A FileConfig that is reloaded when its file is modified. The modifications are debounced by
+ * the {@link FileWatcher}, and the config can skip the reloads when the content of the file
+ * hasn't actually changed, for instance when the file has been saved without modifications.
+ * <p>
+ * The unchanged content is detected with the {@link ContentTracker} of the underlying config,
+ * which remembers what the config has loaded or written. Therefore the config's own saves don't
+ * trigger a reload, which would otherwise replace the modifications made since the save.
+ *
  * @author TheElectronWill
  */
 final class AutoreloadFileConfig extends FileConfigWrapper {
 	private final FileWatcher watcher = FileWatcher.defaultInstance();
+	private final ContentTracker tracker;
+	private final boolean skipUnchanged;
 
-	AutoreloadFileConfig(FileConfig config) {
+	/**
+	 * @param config        the config to reload
+	 * @param tracker       the tracker of the content that the config loads and writes
+	 * @param debounceTime  how long to wait after a modification of the file
+	 * @param skipUnchanged true to skip the reloads when the content of the file hasn't changed
+	 * @param backend       how to detect the modifications of the file
+	 */
+	AutoreloadFileConfig(FileConfig config, ContentTracker tracker, Duration debounceTime,
+						 boolean skipUnchanged, FileWatcher.Backend backend) {
 		super(config);
+		this.tracker = tracker;
+		this.skipUnchanged = skipUnchanged;
 		try {
-			watcher.addWatch(config.getFile(), config::load);
+			watcher.addWatch(config.getNioPath(), this::reload, debounceTime, backend);
 		} catch (IOException e) {
 			throw new RuntimeException("Unable to create the autoreloaded config", e);
 		}
 	}
 
+	/**
+	 * Called by the FileWatcher when the file is modified.
+	 */
+	private void reload() {
+		if (skipUnchanged && tracker.isCurrent()) {
+			return;// same content, no need to parse it again
+		}
+		config.load();
+	}
+
 	@Override
 	public void close() {
-		watcher.removeWatch(config.getFile());
+		watcher.removeWatch(config.getNioPath());
 		config.close();
 	}
 }
\ No newline at end of file
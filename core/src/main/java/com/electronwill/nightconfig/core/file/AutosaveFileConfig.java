@@ -6,62 +6,290 @@ import com.electronwill.nightconfig.core.EntryData;
 import com.electronwill.nightconfig.core.utils.ObservedEntry;
 import com.electronwill.nightconfig.core.utils.ObservedMap;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
+ * A FileConfig that is saved when it's modified.
+ * <p>
+ * Without delay, each modification saves the config. With a delay, the saves are coalesced: the
+ * config is marked as modified, and saved when it hasn't been modified for the quiet period, or
+ * when the oldest unsaved modification reaches the maximum delay. The pending modifications are
+ * saved by {@link #flush()} and {@link #close()}. In both cases, the modifications made by a
+ * {@link #batch(Consumer)} are saved once, at the end of the batch.
+ * <p>
+ * If a save fails, the config stays modified. A delayed save is retried after the maximum delay,
+ * and its exception is given to the exception handler, because there's no caller to report it to.
+ * <p>
+ * With a delay, the config is saved by the "FileConfig autosave" thread, which reads the whole
+ * config while the other threads may still modify it. Unless the underlying config is
+ * thread-safe, a modification made during a delayed save may be partially written, or make the
+ * save fail: in that case, the config should be modified in a {@link #batch(Consumer)} and
+ * saved explicitly with {@link #flush()}.
+ *
  * @author TheElectronWill
  */
 final class AutosaveFileConfig extends FileConfigWrapper {
+	private final long quietNanos, maxDelayNanos;
+	private final Consumer<Exception> exceptionHandler;
+
+	private final Object lock = new Object();
+	// The following fields are guarded by the lock
+	private boolean dirty, closed;
+	private long firstModification, lastModification;
+	private int batchDepth;
+	private ScheduledFuture<?> scheduledSave;
+
+	/**
+	 * Creates an AutosaveFileConfig that saves the config after each modification.
+	 */
 	AutosaveFileConfig(FileConfig config) {
+		this(config, Duration.ZERO, Duration.ZERO, Throwable::printStackTrace);
+	}
+
+	/**
+	 * Creates an AutosaveFileConfig that coalesces the saves.
+	 *
+	 * @param config      the config to save
+	 * @param quietPeriod how long to wait after the last modification, zero to save immediately
+	 * @param maxDelay    how long the modifications may stay unsaved, if the config is
+	 *                    continuously modified
+	 * @param exceptionHandler the handler of the exceptions thrown by the delayed saves
+	 */
+	AutosaveFileConfig(FileConfig config, Duration quietPeriod, Duration maxDelay,
+					   Consumer<Exception> exceptionHandler) {
 		super(config);
+		this.quietNanos = quietPeriod.toNanos();
+		this.maxDelayNanos = Math.max(quietNanos, maxDelay.toNanos());
+		this.exceptionHandler = exceptionHandler;
 	}
 
 	@Override
 	public EntryData getData(String[] path) {
-		return new AutosaveEntryData(config.getData(path));
+		EntryData data = config.getData(path);
+		return (data == null) ? null : new AutosaveEntryData(data);
 	}
 
 	@Override
-	public <T> T set(AttributeType<T> attribute, String path, T value) {
-		return saved(config.set(path, value));
+	public <T> T set(AttributeType<T> attribute, String[] path, T value) {
+		return saved(config.set(attribute, path, value));
 	}
 
 	@Override
-	public <T> T add(AttributeType<T> attribute, String path, T value) {
+	public <T> T add(AttributeType<T> attribute, String[] path, T value) {
 		return saved(config.add(attribute, path, value));
 	}
 
 	@Override
-	public <T> T remove(AttributeType<T> attribute, String path) {
+	public <T> T remove(AttributeType<T> attribute, String[] path) {
 		return saved(config.remove(attribute, path));
 	}
 
 	@Override
-	public <T> T set(String[] path, Object value) {
-		return saved(config.set(path, value));
+	public void clear() {
+		config.clear();
+		modified();
 	}
 
 	@Override
-	public Object add(String[] path, Object value) {
-		return saved(config.add(path, value));
+	public void clearAttributes() {
+		config.clearAttributes();
+		modified();
 	}
 
 	@Override
-	public <T> T remove(String[] path) {
-		return saved(config.remove(path));
+	public void clearComments() {
+		config.clearComments();
+		modified();
 	}
 
 	@Override
 	public Map<String, Object> valueMap() {
-		return new ObservedMap<>(config.valueMap(), this::save);
+		return new ObservedMap<>(config.valueMap(), this::modified);
+	}
+
+	@Override
+	public void save() {
+		synchronized (lock) {
+			markSaved();
+		}
+		try {
+			config.save();
+		} catch (RuntimeException e) {
+			saveFailed();
+			throw e;
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> saveAsync() {
+		synchronized (lock) {
+			markSaved();
+		}
+		return config.saveAsync().whenComplete((result, error) -> {
+			if (error != null) {
+				saveFailed();
+			}
+		});
+	}
+
+	@Override
+	public void flush() {
+		synchronized (lock) {
+			if (!dirty) {
+				return;
+			}
+			markSaved();
+		}
+		try {
+			config.save();
+		} catch (RuntimeException e) {
+			saveFailed();
+			throw e;
+		}
+	}
+
+	@Override
+	public void batch(Consumer<? super FileConfig> modifications) {
+		synchronized (lock) {
+			batchDepth++;
+		}
+		try {
+			modifications.accept(this);
+		} finally {
+			boolean save;
+			synchronized (lock) {
+				save = (--batchDepth == 0) && dirty;
+			}
+			if (save) {
+				flush();
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		flush();
+		synchronized (lock) {
+			closed = true;
+		}
+		config.close();
 	}
 
 	private <T> T saved(T value) {
-		save();
+		modified();
 		return value;
 	}
 
+	/**
+	 * Called after each modification of the config.
+	 */
+	private void modified() {
+		synchronized (lock) {
+			if (closed) {
+				return;// A closed config can't be saved
+			}
+			final long now = System.nanoTime();
+			if (!dirty) {
+				dirty = true;
+				firstModification = now;
+			}
+			lastModification = now;
+			if (batchDepth > 0 || scheduledSave != null) {
+				return;// the config will be saved later
+			}
+			if (quietNanos > 0) {
+				scheduledSave = scheduler().schedule(this::scheduledFlush, quietNanos,
+													 TimeUnit.NANOSECONDS);
+				return;
+			}
+		}
+		flush();
+	}
+
+	/**
+	 * Saves the config if the quiet period or the maximum delay has elapsed, otherwise schedules
+	 * another check.
+	 */
+	private void scheduledFlush() {
+		synchronized (lock) {
+			scheduledSave = null;
+			if (!dirty || closed || batchDepth > 0) {
+				return;
+			}
+			final long now = System.nanoTime();
+			long remaining = Math.min(lastModification - now + quietNanos,
+									  firstModification - now + maxDelayNanos);
+			if (remaining > 0) {// modified during the quiet period
+				scheduledSave = scheduler().schedule(this::scheduledFlush, remaining,
+													 TimeUnit.NANOSECONDS);
+				return;
+			}
+		}
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			exceptionHandler.accept(e);// there's no caller to report the error to
+			synchronized (lock) {
+				if (dirty && !closed && scheduledSave == null) {// retries later
+					scheduledSave = scheduler().schedule(this::scheduledFlush, maxDelayNanos,
+														 TimeUnit.NANOSECONDS);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resets the modification state before a save. Must be called with the lock.
+	 */
+	private void markSaved() {
+		dirty = false;
+		if (scheduledSave != null) {
+			scheduledSave.cancel(false);
+			scheduledSave = null;
+		}
+	}
+
+	/**
+	 * Marks the config as modified again, after a failed save.
+	 */
+	private void saveFailed() {
+		synchronized (lock) {
+			if (!dirty) {
+				dirty = true;
+				firstModification = lastModification = System.nanoTime();
+			}
+		}
+	}
+
+	private static ScheduledExecutorService scheduler() {
+		return Scheduler.INSTANCE;
+	}
+
+	/**
+	 * Holds the thread that saves the configs after their delay. It's created on first use.
+	 */
+	private static final class Scheduler {
+		static final ScheduledExecutorService INSTANCE;
+
+		static {
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+				Thread thread = new Thread(task, "FileConfig autosave");
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.setRemoveOnCancelPolicy(true);
+			INSTANCE = executor;
+		}
+	}
+
 	private class AutosaveEntryData implements EntryData {
 		private final EntryData data;
 
@@ -102,7 +330,7 @@ final class AutosaveFileConfig extends FileConfigWrapper {
 		@Override
 		public void clearExtraAttributes() {
 			data.clearExtraAttributes();
-			save();
+			modified();
 		}
 
 		@Override
@@ -117,7 +345,7 @@ final class AutosaveFileConfig extends FileConfigWrapper {
 
 		@Override
 		public <K, V> Map.Entry<K, V> toMapEntry(K key) {
-			return new ObservedEntry<>(data.toMapEntry(key), AutosaveFileConfig.this::save);
+			return new ObservedEntry<>(data.toMapEntry(key), AutosaveFileConfig.this::modified);
 		}
 
 		@Override
@@ -0,0 +1,334 @@
+package com.electronwill.nightconfig.core.file;
+
+import com.electronwill.nightconfig.core.AttributeType;
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.NullObject;
+import com.electronwill.nightconfig.core.StandardAttributes;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * An append-only log of the modifications of a config. Each record contains an operation, a
+ * path, an attribute and a value, in a compact binary form, preceded by its length and its
+ * CRC32 checksum. A record that has been partially written, for instance because the program
+ * has crashed, is detected and ignored by {@link #replay(Config)}.
+ * <p>
+ * Only the standard attributes and the simple values (null, booleans, numbers, characters,
+ * strings, and lists of simple values) can be recorded. The other modifications must be saved
+ * by rewriting the whole config. This class isn't thread-safe.
+ *
+ * @author TheElectronWill
+ */
+final class ChangeJournal {
+	static final byte SET = 1, ADD = 2, REMOVE = 3, CLEAR = 4, CLEAR_ATTRIBUTES = 5,
+		CLEAR_COMMENTS = 6;
+
+	/** The attributes that can be recorded, identified by their index */
+	private static final AttributeType<?>[] ATTRIBUTES = {
+		StandardAttributes.VALUE, StandardAttributes.COMMENT, StandardAttributes.NUMBER_BASE,
+		StandardAttributes.FORCE_MULTILINE, StandardAttributes.FORCE_SINGLELINE
+	};
+
+	private static final byte NULL = 0, NULL_OBJECT = 1, BOOLEAN = 2, BYTE = 3, SHORT = 4,
+		INT = 5, LONG = 6, FLOAT = 7, DOUBLE = 8, CHAR = 9, STRING = 10, LIST = 11;
+
+	private final Path file;
+	private FileChannel channel;
+	private long size = -1;
+
+	ChangeJournal(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * @return the journal's file
+	 */
+	Path getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the size of the journal, in bytes
+	 */
+	long size() throws IOException {
+		if (size < 0) {
+			size = Files.exists(file) ? Files.size(file) : 0;
+		}
+		return size;
+	}
+
+	/**
+	 * Appends a record to the journal.
+	 *
+	 * @param operation the operation
+	 * @param path      the path of the modified entry
+	 * @param attribute the modified attribute
+	 * @param value     the new value of the attribute
+	 * @return true if the operation has been recorded, false if it can't be recorded
+	 */
+	boolean append(byte operation, String[] path, AttributeType<?> attribute, Object value)
+		throws IOException {
+		int attributeIndex = indexOf(attribute);
+		if (attributeIndex < 0) {
+			return false;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(operation);
+		out.writeInt(path.length);
+		for (String key : path) {
+			writeString(out, key);
+		}
+		out.writeByte(attributeIndex);
+		if (!writeValue(out, value)) {
+			return false;
+		}
+		byte[] payload = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+		record.putInt(payload.length).putInt((int)crc.getValue()).put(payload).flip();
+
+		if (channel == null) {
+			size();
+			channel = FileChannel.open(file, WRITE, CREATE, APPEND);
+		}
+		while (record.hasRemaining()) {
+			channel.write(record);
+		}
+		size += 8 + payload.length;
+		return true;
+	}
+
+	/**
+	 * Applies the recorded operations to a config. If the end of the journal is invalid, it is
+	 * removed from the file.
+	 *
+	 * @param config the config to modify
+	 */
+	void replay(Config config) throws IOException {
+		if (Files.notExists(file)) {
+			size = 0;
+			return;
+		}
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+		int validEnd = 0;
+		while (data.remaining() >= 8) {
+			int length = data.getInt(), checksum = data.getInt();
+			if (length < 0 || length > data.remaining()) {
+				break;// partially written record
+			}
+			byte[] payload = new byte[length];
+			data.get(payload);
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			if ((int)crc.getValue() != checksum) {
+				break;// corrupted record
+			}
+			try {
+				apply(new DataInputStream(new ByteArrayInputStream(payload)), config);
+			} catch (IOException e) {
+				break;// invalid record
+			}
+			validEnd = data.position();
+		}
+		if (validEnd < data.capacity()) {
+			// Removes the invalid records, so that the new ones are appended after the valid ones
+			closeChannel();
+			try (FileChannel truncating = FileChannel.open(file, WRITE)) {
+				truncating.truncate(validEnd);
+			}
+		}
+		size = validEnd;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void apply(DataInputStream in, Config config) throws IOException {
+		byte operation = in.readByte();
+		String[] path = new String[readSize(in)];
+		for (int i = 0; i < path.length; i++) {
+			path[i] = readString(in);
+		}
+		int attributeIndex = in.readByte();
+		if (attributeIndex < 0 || attributeIndex >= ATTRIBUTES.length) {
+			throw new IOException("Invalid attribute " + attributeIndex);
+		}
+		AttributeType<Object> attribute = (AttributeType<Object>)ATTRIBUTES[attributeIndex];
+		Object value = readValue(in);
+		switch (operation) {
+			case SET:
+				config.set(attribute, path, value);
+				break;
+			case ADD:
+				config.add(attribute, path, value);
+				break;
+			case REMOVE:
+				config.remove(attribute, path);
+				break;
+			case CLEAR:
+				config.clear();
+				break;
+			case CLEAR_ATTRIBUTES:
+				config.clearAttributes();
+				break;
+			case CLEAR_COMMENTS:
+				config.clearComments();
+				break;
+			default:
+				throw new IOException("Invalid operation " + operation);
+		}
+	}
+
+	/**
+	 * Removes all the records.
+	 */
+	void clear() throws IOException {
+		if (channel != null) {
+			channel.truncate(0);
+		} else if (Files.exists(file)) {
+			Files.write(file, new byte[0]);
+		}
+		size = 0;
+	}
+
+	/**
+	 * Closes the journal's file, and deletes it if it's empty.
+	 */
+	void close() throws IOException {
+		closeChannel();
+		if (size() == 0) {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private void closeChannel() throws IOException {
+		if (channel != null) {
+			FileChannel c = channel;
+			channel = null;
+			c.close();
+		}
+	}
+
+	private static int indexOf(AttributeType<?> attribute) {
+		for (int i = 0; i < ATTRIBUTES.length; i++) {
+			if (ATTRIBUTES[i] == attribute) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value == NullObject.NULL_OBJECT) {
+			out.writeByte(NULL_OBJECT);
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean)value);
+		} else if (value instanceof Byte) {
+			out.writeByte(BYTE);
+			out.writeByte((Byte)value);
+		} else if (value instanceof Short) {
+			out.writeByte(SHORT);
+			out.writeShort((Short)value);
+		} else if (value instanceof Integer) {
+			out.writeByte(INT);
+			out.writeInt((Integer)value);
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long)value);
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float)value);
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double)value);
+		} else if (value instanceof Character) {
+			out.writeByte(CHAR);
+			out.writeChar((Character)value);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			writeString(out, (String)value);
+		} else if (value instanceof List) {
+			List<?> list = (List<?>)value;
+			out.writeByte(LIST);
+			out.writeInt(list.size());
+			for (Object element : list) {
+				if (!writeValue(out, element)) {
+					return false;
+				}
+			}
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+			case NULL:
+				return null;
+			case NULL_OBJECT:
+				return NullObject.NULL_OBJECT;
+			case BOOLEAN:
+				return in.readBoolean();
+			case BYTE:
+				return in.readByte();
+			case SHORT:
+				return in.readShort();
+			case INT:
+				return in.readInt();
+			case LONG:
+				return in.readLong();
+			case FLOAT:
+				return in.readFloat();
+			case DOUBLE:
+				return in.readDouble();
+			case CHAR:
+				return in.readChar();
+			case STRING:
+				return readString(in);
+			case LIST:
+				int size = readSize(in);
+				List<Object> list = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue(in));
+				}
+				return list;
+			default:
+				throw new IOException("Invalid value type " + type);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readSize(in)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int readSize(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		if (size < 0 || size > in.available()) {
+			throw new IOException("Invalid size " + size);
+		}
+		return size;
+	}
+}
\ No newline at end of file
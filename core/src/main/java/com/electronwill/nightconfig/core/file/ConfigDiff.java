@@ -0,0 +1,123 @@
+package com.electronwill.nightconfig.core.file;
+
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+
+import java.util.*;
+
+/**
+ * The differences between two versions of a config, for instance before and after a reload. A
+ * path is "added" if it exists only in the new config, "removed" if it exists only in the old
+ * config, and "modified" if its value has changed. The subconfigs that exist in both versions are
+ * compared entry by entry, so a modified path is never the path of a subconfig, unless the
+ * subconfig has been replaced by a value that isn't a config, or vice versa.
+ *
+ * @author TheElectronWill
+ */
+public final class ConfigDiff {
+	private final UnmodifiableConfig before, after;
+	private final Set<List<String>> added = new LinkedHashSet<>();
+	private final Set<List<String>> removed = new LinkedHashSet<>();
+	private final Set<List<String>> modified = new LinkedHashSet<>();
+
+	private ConfigDiff(UnmodifiableConfig before, UnmodifiableConfig after) {
+		this.before = before;
+		this.after = after;
+	}
+
+	/**
+	 * Computes the differences between two configs.
+	 *
+	 * @param before the old version of the config
+	 * @param after  the new version of the config
+	 * @return the differences between the two configs
+	 */
+	public static ConfigDiff compute(UnmodifiableConfig before, UnmodifiableConfig after) {
+		ConfigDiff diff = new ConfigDiff(before, after);
+		diff.compare(before, after, new ArrayList<>());
+		return diff;
+	}
+
+	private void compare(UnmodifiableConfig a, UnmodifiableConfig b, List<String> path) {
+		Map<String, Object> valuesA = a.valueMap(), valuesB = b.valueMap();
+		for (Map.Entry<String, Object> entry : valuesA.entrySet()) {
+			String key = entry.getKey();
+			path.add(key);
+			if (!valuesB.containsKey(key)) {
+				removed.add(new ArrayList<>(path));
+			} else {
+				Object valueA = entry.getValue(), valueB = valuesB.get(key);
+				if (valueA instanceof UnmodifiableConfig && valueB instanceof UnmodifiableConfig) {
+					compare((UnmodifiableConfig)valueA, (UnmodifiableConfig)valueB, path);
+				} else if (!Objects.equals(valueA, valueB)) {
+					modified.add(new ArrayList<>(path));
+				}
+			}
+			path.remove(path.size() - 1);
+		}
+		for (String key : valuesB.keySet()) {
+			if (!valuesA.containsKey(key)) {
+				path.add(key);
+				added.add(new ArrayList<>(path));
+				path.remove(path.size() - 1);
+			}
+		}
+	}
+
+	/**
+	 * @return the old version of the config
+	 */
+	public UnmodifiableConfig before() {
+		return before;
+	}
+
+	/**
+	 * @return the new version of the config
+	 */
+	public UnmodifiableConfig after() {
+		return after;
+	}
+
+	/**
+	 * @return the paths that exist only in the new config
+	 */
+	public Set<List<String>> addedPaths() {
+		return Collections.unmodifiableSet(added);
+	}
+
+	/**
+	 * @return the paths that exist only in the old config
+	 */
+	public Set<List<String>> removedPaths() {
+		return Collections.unmodifiableSet(removed);
+	}
+
+	/**
+	 * @return the paths whose value has changed
+	 */
+	public Set<List<String>> modifiedPaths() {
+		return Collections.unmodifiableSet(modified);
+	}
+
+	/**
+	 * @return all the paths that have been added, removed or modified
+	 */
+	public Set<List<String>> changedPaths() {
+		Set<List<String>> all = new LinkedHashSet<>(added);
+		all.addAll(removed);
+		all.addAll(modified);
+		return all;
+	}
+
+	/**
+	 * @return true if the two configs have the same values
+	 */
+	public boolean isEmpty() {
+		return added.isEmpty() && removed.isEmpty() && modified.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "ConfigDiff{added=" + added + ", removed=" + removed + ", modified=" + modified
+			   + '}';
+	}
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.electronwill.nightconfig.core.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Remembers the content of a file after it has been loaded or saved by a FileConfig, in order
+ * to skip the saves that wouldn't modify the file. A save is skipped if the new content has the
+ * same fingerprint as the remembered content, and the file hasn't been modified since then,
+ * according to its modification time and size.
+ * <p>
+ * The fingerprint of a loaded file is only computed when a save needs it, by reading the file
+ * again if it hasn't been modified since the load. The tracker of a FileConfig is also used by
+ * the autoreloading, to skip the reloads of what the config has loaded or written itself.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author TheElectronWill
+ */
+final class ContentTracker {
+	private final Path file;
+	/** The fingerprint of the remembered content, or null if it hasn't been computed */
+	private FileFingerprint content;
+	/** True if the file contains the remembered content, as long as its attributes match */
+	private boolean tracked;
+	private long lastModified, size;
+
+	ContentTracker(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Checks if the file already contains the given data.
+	 *
+	 * @param data the data to write
+	 * @return true if writing the data wouldn't modify the file
+	 */
+	synchronized boolean isUnchanged(FileFingerprint data) {
+		if (!tracked) {
+			return false;
+		}
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			if (attributes.lastModifiedTime().toMillis() != lastModified
+				|| attributes.size() != size) {
+				return false;
+			}
+			if (content == null) {// loaded but not fingerprinted yet
+				if (data.size() != size) {
+					return false;
+				}
+				content = FileFingerprint.of(file);
+			}
+			return content.equals(data);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if the file still contains the content that has been loaded or written last. The
+	 * file is only read if its size is the same but its modification time isn't, to compare its
+	 * content with the remembered one.
+	 *
+	 * @return true if the content of the file hasn't changed since the last load or save
+	 */
+	synchronized boolean isCurrent() {
+		if (!tracked) {
+			return false;
+		}
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			if (attributes.size() != size) {
+				return false;
+			}
+			long modified = attributes.lastModifiedTime().toMillis();
+			if (modified == lastModified) {
+				return true;
+			}
+			if (content != null && content.equals(FileFingerprint.of(file))) {
+				lastModified = modified;// touched but not modified
+				return true;
+			}
+			return false;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Remembers the content of the file, after it has been written.
+	 *
+	 * @param data the written data
+	 */
+	synchronized void written(FileFingerprint data) {
+		content = data;
+		readAttributes();
+	}
+
+	/**
+	 * Remembers the content of the file, before it is loaded. The attributes of the file are read
+	 * before the parsing, so that a modification made during the parsing isn't mistaken for the
+	 * loaded content.
+	 */
+	synchronized void loading() {
+		content = null;
+		readAttributes();
+	}
+
+	/**
+	 * Forgets the content of the file.
+	 */
+	synchronized void reset() {
+		content = null;
+		tracked = false;
+	}
+
+	private void readAttributes() {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			lastModified = attributes.lastModifiedTime().toMillis();
+			size = attributes.size();
+			tracked = true;
+		} catch (IOException e) {
+			reset();
+		}
+	}
+}
\ No newline at end of file
@@ -6,6 +6,8 @@ import com.electronwill.nightconfig.core.ConfigFormat;
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * @author TheElectronWill
@@ -27,11 +29,66 @@ public interface FileConfig extends Config, AutoCloseable {
 	 */
 	void save();
 
+	/**
+	 * Saves this config and returns a future that completes when the config has been written to
+	 * its file, or fails if it can't be written. By default, this method calls {@link #save()}
+	 * and returns a completed future.
+	 *
+	 * @return a future that completes when the config is saved
+	 */
+	default CompletableFuture<Void> saveAsync() {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		try {
+			save();
+			future.complete(null);
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
 	/**
 	 * (Re)loads this config from the file. This method blocks until the read operation completes.
 	 */
 	void load();
 
+	/**
+	 * Saves the modifications that haven't been saved yet, if this config is autosaved with a
+	 * delay. Otherwise, does nothing.
+	 */
+	default void flush() {}
+
+	/**
+	 * Modifies this config with several operations. If this config is autosaved, it's saved once
+	 * at the end of the batch instead of after each operation.
+	 *
+	 * @param modifications the operations to apply to this config
+	 */
+	default void batch(Consumer<? super FileConfig> modifications) {
+		modifications.accept(this);
+	}
+
+	/**
+	 * Adds a listener that is notified of the differences between the old config and the new one
+	 * after each (re)load that changes the config, like the listeners given to
+	 * {@link FileConfigBuilder#onReload(Consumer)}. Only the configs that are loaded atomically
+	 * support the listeners, see {@link FileConfigBuilder#atomicReload()}.
+	 *
+	 * @param listener the listener to add
+	 * @return true if the listener has been added, false if this config doesn't support it
+	 */
+	default boolean addReloadListener(Consumer<? super ConfigDiff> listener) {
+		return false;
+	}
+
+	/**
+	 * Removes a listener added by {@link #addReloadListener(Consumer)}. Does nothing if the
+	 * listener hasn't been added.
+	 *
+	 * @param listener the listener to remove
+	 */
+	default void removeReloadListener(Consumer<? super ConfigDiff> listener) {}
+
 	/**
 	 * Closes this FileConfig, releases its associated resources (if any), and ensure that the
 	 * ongoing saving operations complete.
@@ -13,20 +13,33 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
  * A generic FileConfig/CommentedFileConfig/someOtherFileConfig builder. The default settings are:
  * <ul>
  * <li>Charset: UTF-8 - change it with {@link #charset(Charset)}</li>
- * <li>WritingMode: REPLACE - change it with {@link #writingMode(WritingMode)}</li>
+ * <li>WritingMode: REPLACE - change it with {@link #writingMode(WritingMode)} or
+ * {@link #atomicSave()}</li>
+ * <li>Written data not forced to the storage device - change it with
+ * {@link #atomicSave(boolean)}</li>
  * <li>ParsingMode: REPLACE - change it with {@link #parsingMode(ParsingMode)}</li>
+ * <li>Loaded into the existing config - change it with {@link #atomicReload()} or
+ * {@link #onReload(Consumer)}</li>
  * <li>FileNotFoundAction: CREATE_EMPTY - change it with {@link #onFileNotFound(FileNotFoundAction)}</li>
  * <li>Asynchronous writing, ie config.save() returns quickly and operates in the background -
  * change it with {@link #sync()}</li>
- * <li>Not autosaved - change it with {@link #autosave()}</li>
- * <li>Not autoreloaded - change it with {@link #autoreload()}</li>
+ * <li>Not autosaved - change it with {@link #autosave()} or {@link #autosave(Duration)}</li>
+ * <li>Not journaled - change it with {@link #journaled()} or {@link #journaled(long)}</li>
+ * <li>Not autoreloaded - change it with {@link #autoreload()}. When autoreloaded, the reloads
+ * are debounced for 100 milliseconds and skipped if the content of the file hasn't changed -
+ * change it with {@link #autoreload(Duration, boolean)}. The way the file is watched is chosen
+ * automatically - change it with {@link #autoreloadBackend(FileWatcher.Backend)}</li>
  * <li>Not thread-safe - change it with {@link #concurrent()}</li>
  * <li>Values' insertion order preserved if {@link NightConfig#isInsertionOrderPreserved()}
  * returns true when the builder is constructed.</li>
@@ -42,9 +55,19 @@ public class FileConfigBuilder {
 	protected final ConfigParser parser;
 	protected Charset charset = StandardCharsets.UTF_8;
 	protected WritingMode writingMode = WritingMode.REPLACE;
+	protected boolean forceWrites = false;
 	protected ParsingMode parsingMode = ParsingMode.REPLACE;
+	protected boolean atomicReload = false;
+	protected final List<Consumer<? super ConfigDiff>> reloadListeners = new ArrayList<>();
 	protected FileNotFoundAction nefAction = FileNotFoundAction.CREATE_EMPTY;
 	protected boolean sync = false, autosave = false, autoreload = false, concurrent = false;
+	protected Duration autoreloadDebounce = Duration.ofMillis(100);
+	protected boolean autoreloadSkipUnchanged = true;
+	protected FileWatcher.Backend autoreloadBackend = FileWatcher.Backend.AUTOMATIC;
+	protected Duration autosaveQuietPeriod = Duration.ZERO, autosaveMaxDelay = Duration.ZERO;
+	protected Consumer<Exception> autosaveExceptionHandler = Throwable::printStackTrace;
+	protected boolean journaled = false;
+	protected long journalCompactionThreshold = 64 * 1024;
 	protected Supplier<Config> baseSupplier = MemoryConfig::new;
 
 	public FileConfigBuilder(Path file, ConfigFormat format) {
@@ -74,6 +97,29 @@ public class FileConfigBuilder {
 		return this;
 	}
 
+	/**
+	 * Makes the saves atomic: the config is written to a temporary file, which then replaces the
+	 * config's file. This is a shortcut for {@code writingMode(WritingMode.REPLACE_ATOMIC)}.
+	 *
+	 * @return this builder
+	 */
+	public FileConfigBuilder atomicSave() {
+		return writingMode(WritingMode.REPLACE_ATOMIC);
+	}
+
+	/**
+	 * Makes the saves atomic, and chooses whether to force the data to the storage device before
+	 * replacing the file. Forcing the data guarantees that the file isn't lost if the system
+	 * crashes, but makes the saves slower.
+	 *
+	 * @param force true to force the written data to the storage device
+	 * @return this builder
+	 */
+	public FileConfigBuilder atomicSave(boolean force) {
+		this.forceWrites = force;
+		return atomicSave();
+	}
+
 	/**
 	 * Sets the ParsingMode used for {@link FileConfig#load()}
 	 *
@@ -84,6 +130,33 @@ public class FileConfigBuilder {
 		return this;
 	}
 
+	/**
+	 * Makes {@link FileConfig#load()} atomic: the file is parsed into a new config, supplied by
+	 * the {@link #baseSupplier(Supplier)}, which then replaces the current config in a single
+	 * operation. The threads that read the config during a (re)load see either the old values or
+	 * the new ones, never an empty or partially loaded config. The ParsingMode is ignored, the
+	 * loaded config always replaces the current one.
+	 *
+	 * @return this builder
+	 */
+	public FileConfigBuilder atomicReload() {
+		atomicReload = true;
+		return this;
+	}
+
+	/**
+	 * Adds a listener that is notified of the differences between the old config and the new one
+	 * after each (re)load that changes the config. This makes the loads atomic, see
+	 * {@link #atomicReload()}.
+	 *
+	 * @param listener the listener to notify
+	 * @return this builder
+	 */
+	public FileConfigBuilder onReload(Consumer<? super ConfigDiff> listener) {
+		reloadListeners.add(listener);
+		return atomicReload();
+	}
+
 	/**
 	 * Sets the action to execute when the config's file is not found.
 	 *
@@ -160,6 +233,96 @@ public class FileConfigBuilder {
 		return this;
 	}
 
+	/**
+	 * Makes the configuration "autosaved" with a write-behind delay: the config is saved when it
+	 * hasn't been modified for the given quiet period, and at most 10 times the quiet period
+	 * after the first unsaved modification. This avoids saving the file after each
+	 * modification. The pending modifications are saved by {@link FileConfig#flush()} and
+	 * {@link FileConfig#close()}.
+	 * <p>
+	 * The delayed saves are made by a background thread, which reads the config while it may
+	 * be modified by the other threads. Unless the base config is thread-safe (see
+	 * {@link #baseSupplier(Supplier)}), the modifications should be made in a
+	 * {@link FileConfig#batch(Consumer)} followed by a {@link FileConfig#flush()}. The exceptions
+	 * thrown by the delayed saves are given to the handler set by
+	 * {@link #onAutosaveFailure(Consumer)}, and the failed saves are retried.
+	 *
+	 * @param quietPeriod how long to wait after the last modification
+	 * @return this builder
+	 */
+	public FileConfigBuilder autosave(Duration quietPeriod) {
+		return autosave(quietPeriod, quietPeriod.multipliedBy(10));
+	}
+
+	/**
+	 * Makes the configuration "autosaved" with a write-behind delay.
+	 *
+	 * @param quietPeriod how long to wait after the last modification
+	 * @param maxDelay    how long the modifications may stay unsaved if the config is
+	 *                    continuously modified
+	 * @return this builder
+	 * @see #autosave(Duration)
+	 */
+	public FileConfigBuilder autosave(Duration quietPeriod, Duration maxDelay) {
+		if (quietPeriod.isNegative() || maxDelay.isNegative()) {
+			throw new IllegalArgumentException("Negative autosave delay");
+		}
+		autosave = true;
+		autosaveQuietPeriod = quietPeriod;
+		autosaveMaxDelay = maxDelay;
+		return this;
+	}
+
+	/**
+	 * Sets the handler of the exceptions thrown by the delayed saves of an "autosaved"
+	 * configuration. By default, the exceptions are printed to the standard error.
+	 *
+	 * @param exceptionHandler the handler of the exceptions
+	 * @return this builder
+	 * @see #autosave(Duration)
+	 */
+	public FileConfigBuilder onAutosaveFailure(Consumer<Exception> exceptionHandler) {
+		autosaveExceptionHandler = exceptionHandler;
+		return this;
+	}
+
+	/**
+	 * Makes the configuration "journaled": each modification is appended to a journal, a file
+	 * next to the config's file, instead of rewriting the whole config. The journal is replayed
+	 * by {@link FileConfig#load()}, and compacted into the config's file when it exceeds 64 KiB,
+	 * and by {@link FileConfig#save()} and {@link FileConfig#close()}.
+	 * <p>
+	 * A journaled config is saved after each modification, therefore it isn't autosaved. It is
+	 * loaded atomically, see {@link #atomicReload()}: the journal is replayed into the parsed
+	 * config before it replaces the current one, so that the threads that read the config never
+	 * see it without the journaled modifications. If it's autoreloaded, each reload also replays
+	 * the journal.
+	 *
+	 * @return this builder
+	 */
+	public FileConfigBuilder journaled() {
+		journaled = true;
+		return this;
+	}
+
+	/**
+	 * Makes the configuration "journaled", with the given compaction threshold.
+	 *
+	 * @param compactionThreshold the size of the journal, in bytes, above which the journal is
+	 *                            compacted into the config's file
+	 * @return this builder
+	 *
+	 * @see #journaled()
+	 */
+	public FileConfigBuilder journaled(long compactionThreshold) {
+		if (compactionThreshold <= 0) {
+			throw new IllegalArgumentException("Invalid compaction threshold");
+		}
+		journaled = true;
+		journalCompactionThreshold = compactionThreshold;
+		return this;
+	}
+
 	/**
 	 * Makes the configuration "autoreloaded", that is, its {@link FileConfig#load()} method is
 	 * automatically called when the file is modified.
@@ -171,6 +334,50 @@ public class FileConfigBuilder {
 		return this;
 	}
 
+	/**
+	 * Makes the configuration "autoreloaded", and sets how long to wait after a modification of
+	 * the file before reloading it. The modifications that occur during this time are handled by
+	 * one reload.
+	 *
+	 * @param debounceTime how long to wait after a modification, may be zero
+	 * @return this builder
+	 */
+	public FileConfigBuilder autoreload(Duration debounceTime) {
+		return autoreload(debounceTime, autoreloadSkipUnchanged);
+	}
+
+	/**
+	 * Makes the configuration "autoreloaded", and sets how the modifications of the file are
+	 * handled.
+	 *
+	 * @param debounceTime  how long to wait after a modification, may be zero
+	 * @param skipUnchanged true to skip the reload if the content of the file is the same as the
+	 *                      last loaded or saved content, false to reload on every modification
+	 * @return this builder
+	 */
+	public FileConfigBuilder autoreload(Duration debounceTime, boolean skipUnchanged) {
+		if (debounceTime.isNegative()) {
+			throw new IllegalArgumentException("Negative debounce time: " + debounceTime);
+		}
+		autoreload = true;
+		autoreloadDebounce = debounceTime;
+		autoreloadSkipUnchanged = skipUnchanged;
+		return this;
+	}
+
+	/**
+	 * Sets how the modifications of the file are detected when the configuration is
+	 * "autoreloaded". For instance, {@link FileWatcher.Backend#POLLING} can be used if the file
+	 * is on a filesystem that doesn't notify the modifications reliably.
+	 *
+	 * @param backend the FileWatcher backend to use
+	 * @return this builder
+	 */
+	public FileConfigBuilder autoreloadBackend(FileWatcher.Backend backend) {
+		autoreloadBackend = backend;
+		return this;
+	}
+
 	/**
 	 * Makes the configuration concurrent, that is, thread-safe.
 	 *
@@ -198,7 +405,8 @@ public class FileConfigBuilder {
 	 * <p>
   	 * <b>Warning :</b> if {@link #autoreload()} is called, the config supplier
   	 * must return thread-safe configurations, because the autoreloading system will modify
-  	 * the FileConfig from another thread.
+  	 * the FileConfig from another thread. The same applies to {@link #autosave(Duration)},
+  	 * whose delayed saves read the FileConfig from another thread.
 	 * </p>
 	 * @param supplier supplies the config that will stores the FileConfig's data
 	 * @return this builder
@@ -215,17 +423,33 @@ public class FileConfigBuilder {
 	 */
 	public FileConfig build() {
 		FileConfig fileConfig;
+		if (!sync && autoreload) {
+			concurrent();
+			// Autoreloading is done from a background thread, therefore we need thread-safety
+			// This isn't needed with WriteSyncFileConfig because it synchronizes loads and writes.
+		}
+		// The base config is obtained after concurrent(), which may modify the baseSupplier
+		AtomicReload reload = null;
+		Config base = getConfig();
+		if (atomicReload || journaled) {
+			reload = new AtomicReload(base, baseSupplier, reloadListeners);
+			base = reload.config();
+		}
+		ContentTracker tracker;
 		if (sync) {
-			fileConfig = new WriteSyncFileConfig<>(getConfig(), file, charset, writer, writingMode,
-				parser, parsingMode, nefAction);
+			WriteSyncFileConfig<Config> syncConfig = new WriteSyncFileConfig<>(base, file, charset,
+				writer, writingMode, forceWrites, parser, parsingMode, nefAction, reload);
+			tracker = syncConfig.tracker();
+			fileConfig = syncConfig;
 		} else {
-			if (autoreload) {
-				concurrent();
-				// Autoreloading is done from a background thread, therefore we need thread-safety
-				// This isn't needed with WriteSyncFileConfig because it synchronizes loads and writes.
-			}
-			fileConfig = new WriteAsyncFileConfig<>(getConfig(), file, charset, writer, writingMode,
-				parser, parsingMode, nefAction);
+			WriteAsyncFileConfig<Config> asyncConfig = new WriteAsyncFileConfig<>(base, file,
+				charset, writer, writingMode, forceWrites, parser, parsingMode, nefAction, reload);
+			tracker = asyncConfig.tracker();
+			fileConfig = asyncConfig;
+		}
+		if (journaled) {
+			// Inside the autoreloaded config, so that the reloads replay the journal
+			fileConfig = new JournaledFileConfig(fileConfig, reload, journalCompactionThreshold);
 		}
 		if (autoreload) {
 			if (Files.notExists(file)) {
@@ -238,16 +462,18 @@ public class FileConfigBuilder {
 					);
 				}
 			}
-			fileConfig = new AutoreloadFileConfig<>(fileConfig);
+			fileConfig = new AutoreloadFileConfig(fileConfig, tracker, autoreloadDebounce,
+												  autoreloadSkipUnchanged, autoreloadBackend);
 		}
-		if (autosave) {
+		if (autosave && !journaled) {// a journaled config is already saved on each modification
 			return buildAutosave(fileConfig);
 		}
 		return buildNormal(fileConfig);
 	}
 
 	protected FileConfig buildAutosave(FileConfig chain) {
-		return new AutosaveFileConfig<>(chain);
+		return new AutosaveFileConfig(chain, autosaveQuietPeriod, autosaveMaxDelay,
+									  autosaveExceptionHandler);
 	}
 
 	protected FileConfig buildNormal(FileConfig chain) {
@@ -4,6 +4,8 @@ import com.electronwill.nightconfig.core.utils.ConfigWrapper;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public abstract class FileConfigWrapper extends ConfigWrapper<FileConfig> implements FileConfig {
 
@@ -26,11 +28,36 @@ public abstract class FileConfigWrapper extends ConfigWrapper<FileConfig> implem
 		config.save();
 	}
 
+	@Override
+	public CompletableFuture<Void> saveAsync() {
+		return config.saveAsync();
+	}
+
 	@Override
 	public void load() {
 		config.load();
 	}
 
+	@Override
+	public void flush() {
+		config.flush();
+	}
+
+	@Override
+	public void batch(Consumer<? super FileConfig> modifications) {
+		config.batch(c -> modifications.accept(this));
+	}
+
+	@Override
+	public boolean addReloadListener(Consumer<? super ConfigDiff> listener) {
+		return config.addReloadListener(listener);
+	}
+
+	@Override
+	public void removeReloadListener(Consumer<? super ConfigDiff> listener) {
+		config.removeReloadListener(listener);
+	}
+
 	@Override
 	public void close() {
 		config.close();
@@ -0,0 +1,85 @@
+package com.electronwill.nightconfig.core.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * A cheap summary of the content of a file: its size and the CRC32 checksum of its bytes. Two
+ * files that have different fingerprints have different contents. Two files that have the same
+ * fingerprint have, in all likelihood, the same content.
+ *
+ * @author TheElectronWill
+ */
+final class FileFingerprint {
+	private final long size, checksum;
+
+	private FileFingerprint(long size, long checksum) {
+		this.size = size;
+		this.checksum = checksum;
+	}
+
+	/**
+	 * Reads a file and computes its fingerprint.
+	 *
+	 * @param file the file to read
+	 * @return the fingerprint of the file's current content
+	 */
+	static FileFingerprint of(Path file) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[8192];
+		long size = 0;
+		try (InputStream in = Files.newInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				crc.update(buffer, 0, read);
+				size += read;
+			}
+		}
+		return new FileFingerprint(size, crc.getValue());
+	}
+
+	/**
+	 * Computes the fingerprint of some data. The position of the buffer isn't modified.
+	 *
+	 * @param data the data that is, or will be, the content of a file
+	 * @return the fingerprint of the data
+	 */
+	static FileFingerprint of(ByteBuffer data) {
+		CRC32 crc = new CRC32();
+		crc.update(data.duplicate());
+		return new FileFingerprint(data.remaining(), crc.getValue());
+	}
+
+	/**
+	 * @return the size of the content, in bytes
+	 */
+	long size() {
+		return size;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof FileFingerprint)) {
+			return false;
+		}
+		FileFingerprint that = (FileFingerprint)o;
+		return size == that.size && checksum == that.checksum;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(size) * 31 + Long.hashCode(checksum);
+	}
+
+	@Override
+	public String toString() {
+		return "FileFingerprint{size=" + size + ", checksum=" + Long.toHexString(checksum) + '}';
+	}
+}
\ No newline at end of file
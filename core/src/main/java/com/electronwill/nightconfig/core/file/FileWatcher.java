@@ -3,11 +3,16 @@ package com.electronwill.nightconfig.core.file;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
-import java.util.Iterator;
-import java.util.Map;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
 /**
@@ -16,12 +21,31 @@ import java.util.function.Consumer;
  * New watches are added with the {@link #addWatch(Path, Runnable)} method, which specifies the
  * task to execute when the file is modified.
  * <p>
+ * The FileWatcher uses one {@link WatchService} per {@link FileSystem}, and one thread per
+ * WatchService. The threads block until some watched directories are modified, therefore an idle
+ * FileWatcher doesn't consume any CPU time. Each directory that contains watched files is
+ * registered once, no matter how many files it contains.
+ * <p>
+ * Some filesystems don't notify the WatchService of all the modifications, for instance the
+ * network filesystems. On such filesystems, and when the WatchService of the FileSystem is
+ * itself implemented by polling the files, the FileWatcher polls the modification time and size
+ * of the watched files. See {@link Backend}.
+ * <p>
+ * The modifications are coalesced: the handler of a file is called once for all the events
+ * that occur at the same time, and the watches can be debounced, that is, the handler is called
+ * when the file hasn't been modified for some time. This avoids handling each step of a save,
+ * since the editors often write a file in several operations.
+ * <p>
+ * The handlers are executed by an {@link Executor}, so that a slow handler doesn't delay the
+ * handling of the other files. The handlers of a given file never run concurrently: if the file
+ * is modified while its handler is running, the handler is called again when it completes, and
+ * only once no matter how many modifications occured in the meantime.
+ * <p>
  * This class is thread-safe.
  *
  * @author TheElectronWill
  */
 public final class FileWatcher {
-	private static final long SLEEP_TIME_NANOS = 1000;
 	private static volatile FileWatcher DEFAULT_INSTANCE;
 
 	/**
@@ -36,10 +60,18 @@ public final class FileWatcher {
 		return DEFAULT_INSTANCE;
 	}
 
-	private final Map<Path, WatchedDir> watchedDirs = new ConcurrentHashMap<>();//dir -> watchService & infos
-	private final Map<Path, WatchedFile> watchedFiles = new ConcurrentHashMap<>();//file -> watchKey & handler
-	private final Thread thread = new WatcherThread();
+	/** The types of {@link FileStore} that may not notify the WatchServices of all modifications */
+	private static final Set<String> NETWORK_FILE_STORES = new HashSet<>(Arrays.asList(
+		"nfs", "nfs4", "cifs", "smbfs", "smb3", "9p", "vboxsf", "afs"));
+
+	private final Map<FileSystem, ServiceWatcher> serviceWatchers = new ConcurrentHashMap<>();
+	private PollingWatcher pollingWatcher;// created when needed
+	private final Map<Path, WatchedDir> watchedDirs = new ConcurrentHashMap<>();//dir -> infos
+	private final Map<WatchKey, WatchedDir> watchedKeys = new ConcurrentHashMap<>();//key -> dir
+	private final Map<Path, WatchedFile> watchedFiles = new ConcurrentHashMap<>();//file -> handler
 	private final Consumer<Exception> exceptionHandler;
+	private final Executor executor;
+	private final boolean ownsExecutor;
 	private volatile boolean run = true;
 
 	/**
@@ -53,10 +85,44 @@ public final class FileWatcher {
 	/**
 	 * Creates a new FileWatcher. The watcher is immediately functional, there is no need (and no
 	 * way, actually) to start it manually.
+	 * <p>
+	 * The handlers are executed by virtual threads if they are available (Java 21+), or by a
+	 * pool of daemon threads otherwise.
 	 */
 	public FileWatcher(Consumer<Exception> exceptionHandler) {
+		this(defaultExecutor(), true, exceptionHandler);
+	}
+
+	/**
+	 * Creates a new FileWatcher that executes the change handlers with the given executor. The
+	 * executor isn't shut down by {@link #stop()}. To run the handlers on the thread that watches
+	 * the files, use {@code Runnable::run}.
+	 *
+	 * @param executor         the executor that runs the change handlers
+	 * @param exceptionHandler the handler of the exceptions thrown by the change handlers
+	 */
+	public FileWatcher(Executor executor, Consumer<Exception> exceptionHandler) {
+		this(executor, false, exceptionHandler);
+	}
+
+	private FileWatcher(Executor executor, boolean ownsExecutor,
+						Consumer<Exception> exceptionHandler) {
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
 		this.exceptionHandler = exceptionHandler;
-		thread.start();
+	}
+
+	private static ExecutorService defaultExecutor() {
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+												   .invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "FileWatcher handler");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
 	}
 
 	/**
@@ -76,13 +142,99 @@ public final class FileWatcher {
 	 * @param changeHandler the handler to call when the file is modified
 	 */
 	public void addWatch(Path file, Runnable changeHandler) throws IOException {
+		addWatch(file, changeHandler, Duration.ZERO);
+	}
+
+	/**
+	 * Watches a file, if not already watched by this FileWatcher. The handler is called once the
+	 * file hasn't been modified for the given debounce time.
+	 *
+	 * @param file          the file to watch
+	 * @param changeHandler the handler to call when the file is modified
+	 * @param debounceTime  how long to wait after a modification, zero to call the handler as
+	 *                      soon as possible
+	 */
+	public void addWatch(Path file, Runnable changeHandler, Duration debounceTime)
+		throws IOException {
+		addWatch(file, changeHandler, debounceTime, Backend.AUTOMATIC);
+	}
+
+	/**
+	 * Watches a file with the given backend, if not already watched by this FileWatcher.
+	 *
+	 * @param file          the file to watch
+	 * @param changeHandler the handler to call when the file is modified
+	 * @param debounceTime  how long to wait after a modification, zero to call the handler as
+	 *                      soon as possible
+	 * @param backend       how to detect the modifications of the file
+	 */
+	public synchronized void addWatch(Path file, Runnable changeHandler, Duration debounceTime,
+									  Backend backend) throws IOException {
+		if (!run) {
+			throw new IllegalStateException("Cannot add a watch to a stopped FileWatcher");
+		}
 		file = file.toAbsolutePath();// Ensures that the Path is absolute
+		if (watchedFiles.containsKey(file)) {
+			return;
+		}
 		Path dir = file.getParent();
-		WatchedDir watchedDir = watchedDirs.computeIfAbsent(dir, k -> new WatchedDir(dir));
-		WatchKey watchKey = dir.register(watchedDir.watchService,
-										 StandardWatchEventKinds.ENTRY_MODIFY);
-		watchedFiles.computeIfAbsent(file,
-									 k -> new WatchedFile(watchedDir, watchKey, changeHandler));
+		boolean polled = (backend == Backend.POLLING)
+						 || (backend == Backend.AUTOMATIC && needsPolling(dir));
+		WatchedFile watchedFile = new WatchedFile(file, changeHandler, debounceTime, polled);
+		if (polled) {
+			if (pollingWatcher == null) {
+				pollingWatcher = new PollingWatcher();
+				pollingWatcher.start();
+			}
+			watchedFile.updateAttributes();
+			pollingWatcher.files.add(watchedFile);
+		} else {
+			WatchedDir watchedDir = watchedDirs.get(dir);
+			if (watchedDir == null) {
+				ServiceWatcher serviceWatcher = serviceWatcher(dir.getFileSystem());
+				// Some editors replace the file instead of modifying it, hence ENTRY_CREATE
+				WatchKey watchKey = dir.register(serviceWatcher.watchService,
+												 StandardWatchEventKinds.ENTRY_MODIFY,
+												 StandardWatchEventKinds.ENTRY_CREATE);
+				watchedDir = new WatchedDir(dir, watchKey);
+				watchedDirs.put(dir, watchedDir);
+				watchedKeys.put(watchKey, watchedDir);
+			}
+			watchedDir.watchedFileCount++;
+		}
+		watchedFiles.put(file, watchedFile);
+	}
+
+	private ServiceWatcher serviceWatcher(FileSystem fileSystem) throws IOException {
+		ServiceWatcher serviceWatcher = serviceWatchers.get(fileSystem);
+		if (serviceWatcher == null) {
+			serviceWatcher = new ServiceWatcher(fileSystem.newWatchService());
+			serviceWatchers.put(fileSystem, serviceWatcher);
+			serviceWatcher.start();
+		}
+		return serviceWatcher;
+	}
+
+	/**
+	 * Checks if the modifications of the files of a directory must be detected by polling.
+	 */
+	private boolean needsPolling(Path dir) throws IOException {
+		if (watchedDirs.containsKey(dir)) {
+			return false;// already watched by a WatchService
+		}
+		try {
+			String storeType = Files.getFileStore(dir).type().toLowerCase(Locale.ROOT);
+			if (NETWORK_FILE_STORES.contains(storeType) || storeType.startsWith("fuse")) {
+				return true;
+			}
+		} catch (IOException | SecurityException e) {
+			// Unknown type, the WatchService is tried
+		}
+		try {
+			return serviceWatcher(dir.getFileSystem()).isPolling;
+		} catch (UnsupportedOperationException e) {
+			return true;// the FileSystem doesn't provide any WatchService
+		}
 	}
 
 	/**
@@ -104,12 +256,27 @@ public final class FileWatcher {
 	 * @param changeHandler the handler to call when the file is modified
 	 */
 	public void setWatch(Path file, Runnable changeHandler) throws IOException {
+		setWatch(file, changeHandler, Duration.ZERO);
+	}
+
+	/**
+	 * Watches a file. If the file is already watched by this FileWatcher, its changeHandler and
+	 * debounce time are replaced.
+	 *
+	 * @param file          the file to watch
+	 * @param changeHandler the handler to call when the file is modified
+	 * @param debounceTime  how long to wait after a modification, zero to call the handler as
+	 *                      soon as possible
+	 */
+	public synchronized void setWatch(Path file, Runnable changeHandler, Duration debounceTime)
+		throws IOException {
 		file = file.toAbsolutePath();// Ensures that the Path is absolute
 		WatchedFile watchedFile = watchedFiles.get(file);
 		if (watchedFile == null) {
-			addWatch(file, changeHandler);
+			addWatch(file, changeHandler, debounceTime);
 		} else {
 			watchedFile.changeHandler = changeHandler;
+			watchedFile.debounceNanos = debounceTime.toNanos();
 		}
 	}
 
@@ -127,17 +294,23 @@ public final class FileWatcher {
 	 *
 	 * @param file the file to stop watching
 	 */
-	public void removeWatch(Path file) {
+	public synchronized void removeWatch(Path file) {
 		file = file.toAbsolutePath();// Ensures that the Path is absolute
+		WatchedFile watchedFile = watchedFiles.remove(file);
+		if (watchedFile == null) {
+			return;// not watched
+		}
+		if (watchedFile.polled) {
+			pollingWatcher.files.remove(watchedFile);
+			return;
+		}
 		Path dir = file.getParent();
 		WatchedDir watchedDir = watchedDirs.get(dir);
-		int remainingChildCount = watchedDir.watchedFileCount.decrementAndGet();
-		if (remainingChildCount == 0) {
+		if (--watchedDir.watchedFileCount == 0) {
+			// The directory is no longer needed
+			watchedDir.watchKey.cancel();
 			watchedDirs.remove(dir);
-		}
-		WatchedFile watchedFile = watchedFiles.remove(file);
-		if (watchedFile != null) {
-			watchedFile.watchKey.cancel();
+			watchedKeys.remove(watchedDir.watchKey);
 		}
 	}
 
@@ -145,62 +318,214 @@ public final class FileWatcher {
 	 * Stops this FileWatcher. The underlying ressources (ie the WatchServices) are closed, and
 	 * the file modification handlers won't be called anymore.
 	 */
-	public void stop() throws IOException {
+	public synchronized void stop() throws IOException {
 		run = false;
+		// Closes the WatchServices, which wakes up the threads
+		for (ServiceWatcher serviceWatcher : serviceWatchers.values()) {
+			try {
+				serviceWatcher.watchService.close();
+			} catch (IOException e) {
+				exceptionHandler.accept(e);
+			}
+		}
+		if (pollingWatcher != null) {
+			pollingWatcher.interrupt();
+			pollingWatcher = null;
+		}
+		if (ownsExecutor) {
+			((ExecutorService)executor).shutdown();
+		}
+		// Clears the maps
+		serviceWatchers.clear();
+		watchedDirs.clear();
+		watchedKeys.clear();
+		watchedFiles.clear();
+	}
+
+	/**
+	 * How the FileWatcher detects the modifications of a file.
+	 */
+	public enum Backend {
+		/**
+		 * Uses the WatchService of the file's FileSystem, unless it's implemented by polling, or
+		 * the file is on a network filesystem, in which case {@link #POLLING} is used.
+		 */
+		AUTOMATIC,
+		/**
+		 * Uses the WatchService of the file's FileSystem.
+		 */
+		NATIVE,
+		/**
+		 * Polls the modification time and size of the file. The polling interval is short after
+		 * a modification, and increases when the watched files aren't modified.
+		 */
+		POLLING
 	}
 
-	private final class WatcherThread extends Thread {
-		{
+	/**
+	 * A thread that detects the modifications of some files and calls their handlers, after their
+	 * debounce time.
+	 */
+	private abstract class WatcherThread extends Thread {
+		/** The modified files and the time (in nanoseconds) when their handler must be called */
+		private final Map<WatchedFile, Long> pending = new LinkedHashMap<>();
+		private long nextDeadline;
+
+		WatcherThread(String name) {
+			super(name);
 			setDaemon(true);
 		}
 
+		/**
+		 * @return true if some handlers must be called later
+		 */
+		final boolean hasPending() {
+			return !pending.isEmpty();
+		}
+
+		/**
+		 * @return the time to wait before calling the next pending handlers, in nanoseconds
+		 */
+		final long pendingDelay() {
+			return Math.max(0, nextDeadline - System.nanoTime());
+		}
+
+		/**
+		 * Schedules the call of a file's handler. If the call is already scheduled, it's delayed.
+		 */
+		final void schedule(WatchedFile watchedFile) {
+			pending.put(watchedFile, System.nanoTime() + watchedFile.debounceNanos);
+		}
+
+		/**
+		 * Calls the handlers of the pending files whose debounce time has elapsed.
+		 */
+		final void callHandlers() {
+			final long now = System.nanoTime();
+			long minDelay = Long.MAX_VALUE;
+			for (Iterator<Map.Entry<WatchedFile, Long>> it = pending.entrySet().iterator();
+				 it.hasNext() && run; ) {
+				Map.Entry<WatchedFile, Long> entry = it.next();
+				long delay = entry.getValue() - now;
+				if (delay > 0) {
+					minDelay = Math.min(minDelay, delay);
+					continue;
+				}
+				it.remove();
+				entry.getKey().dispatch();
+			}
+			nextDeadline = now + minDelay;// only used if there are pending files
+		}
+	}
+
+	/**
+	 * Takes the events of a WatchService and calls the handlers of the modified files.
+	 */
+	private final class ServiceWatcher extends WatcherThread {
+		final WatchService watchService;
+		/** True if the WatchService is the JDK's fallback, which polls the files */
+		final boolean isPolling;
+
+		ServiceWatcher(WatchService watchService) {
+			super("FileWatcher");
+			this.watchService = watchService;
+			this.isPolling = watchService.getClass().getName().endsWith(".PollingWatchService");
+		}
+
 		@Override
 		public void run() {
 			while (run) {
-				boolean allNull = true;
-				dirsIter:
-				for (Iterator<WatchedDir> it = watchedDirs.values().iterator(); it.hasNext() && run; ) {
-					WatchedDir watchedDir = it.next();
-					WatchKey key = watchedDir.watchService.poll();
-					if (key == null) {
-						continue;
+				final WatchKey key;
+				try {
+					if (hasPending()) {
+						key = watchService.poll(pendingDelay(), TimeUnit.NANOSECONDS);
+					} else {
+						key = watchService.take();// blocks until an event occurs
 					}
-					allNull = false;
-					for (WatchEvent<?> event : key.pollEvents()) {
-						if (!run) {
-							break dirsIter;
-						}
-						if (event.kind() != StandardWatchEventKinds.ENTRY_MODIFY || event.count() > 1) {
-							continue;
-						}
-						Path childPath = ((WatchEvent<Path>)event).context();
-						Path filePath = watchedDir.dir.resolve(childPath);
-						WatchedFile watchedFile = watchedFiles.get(filePath);
-						if (watchedFile != null) {
-							try {
-								watchedFile.changeHandler.run();
-							} catch (Exception e) {
-								exceptionHandler.accept(e);
-							}
+				} catch (InterruptedException | ClosedWatchServiceException e) {
+					break;// the FileWatcher has been stopped
+				}
+				if (key != null) {
+					pollEvents(key);
+				}
+				callHandlers();
+			}
+		}
+
+		/**
+		 * Adds the files modified according to the key's events to the pending files.
+		 */
+		private void pollEvents(WatchKey key) {
+			WatchedDir watchedDir = watchedKeys.get(key);
+			if (watchedDir == null) {
+				// The directory has been removed, or is being added: addWatch registers the
+				// directory before putting its key in watchedKeys. The key must be reset in the
+				// latter case, otherwise it would never be signalled again.
+				key.pollEvents();
+				key.reset();// no effect if the key has been cancelled
+				return;
+			}
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					// Some events have been lost: any file of the directory may have been modified
+					for (WatchedFile watchedFile : watchedFiles.values()) {
+						Path dir = watchedFile.file.getParent();
+						if (!watchedFile.polled && dir.equals(watchedDir.dir)) {
+							schedule(watchedFile);
 						}
 					}
-					key.reset();
-				}
-				if (allNull) {
-					LockSupport.parkNanos(SLEEP_TIME_NANOS);
+				} else {
+					// A repeated event (count > 1) calls the handler once
+					Path childPath = ((WatchEvent<Path>)event).context();
+					WatchedFile watchedFile = watchedFiles.get(watchedDir.dir.resolve(childPath));
+					if (watchedFile != null) {
+						schedule(watchedFile);
+					}
 				}
 			}
-			// Closes the WatchServices
-			for (WatchedDir watchedDir : watchedDirs.values()) {
+			key.reset();
+		}
+	}
+
+	/**
+	 * Polls the attributes of the files that can't be watched by a WatchService. All the files
+	 * are checked at once, with one system call per file, then the thread sleeps. The sleep time
+	 * is short after a modification, and doubles each time nothing is modified.
+	 */
+	private final class PollingWatcher extends WatcherThread {
+		private static final long MIN_INTERVAL_NANOS = 100_000_000L;// 100 ms
+		private static final long MAX_INTERVAL_NANOS = 2_000_000_000L;// 2 s
+
+		final Set<WatchedFile> files = ConcurrentHashMap.newKeySet();
+
+		PollingWatcher() {
+			super("FileWatcher polling");
+		}
+
+		@Override
+		public void run() {
+			long interval = MIN_INTERVAL_NANOS;
+			while (run) {
+				long delay = hasPending() ? Math.min(interval, pendingDelay()) : interval;
 				try {
-					watchedDir.watchService.close();
-				} catch (IOException e) {
-					exceptionHandler.accept(e);
+					TimeUnit.NANOSECONDS.sleep(delay);
+				} catch (InterruptedException e) {
+					break;// the FileWatcher has been stopped
+				}
+				boolean modified = false;
+				for (WatchedFile watchedFile : files) {
+					if (watchedFile.updateAttributes()) {
+						schedule(watchedFile);
+						modified = true;
+					}
+				}
+				callHandlers();
+				if (modified) {
+					interval = MIN_INTERVAL_NANOS;
+				} else {
+					interval = Math.min(interval * 2, MAX_INTERVAL_NANOS);
 				}
 			}
-			// Clears the maps
-			watchedDirs.clear();
-			watchedFiles.clear();
 		}
 	}
 
@@ -209,30 +534,101 @@ public final class FileWatcher {
 	 */
 	private static final class WatchedDir {
 		final Path dir;
-		final WatchService watchService;
-		final AtomicInteger watchedFileCount = new AtomicInteger();
+		final WatchKey watchKey;
+		int watchedFileCount;// guarded by the FileWatcher
 
-		private WatchedDir(Path dir) {
+		private WatchedDir(Path dir, WatchKey watchKey) {
 			this.dir = dir;
-			try {
-				this.watchService = dir.getFileSystem().newWatchService();
-			} catch (IOException e) {
-				throw new RuntimeException(e);
-			}
+			this.watchKey = watchKey;
 		}
 	}
 
 	/**
 	 * Informations about a watched file, with an associated handler.
 	 */
-	private static final class WatchedFile {
-		final WatchKey watchKey;
+	private final class WatchedFile {
+		private static final int IDLE = 0, RUNNING = 1, RUNNING_AND_PENDING = 2;
+
+		final Path file;
+		final boolean polled;
 		volatile Runnable changeHandler;
+		volatile long debounceNanos;
+		private final AtomicInteger state = new AtomicInteger(IDLE);
 
-		private WatchedFile(WatchedDir watchedDir, WatchKey watchKey, Runnable changeHandler) {
-			this.watchKey = watchKey;
+		/** The last polled attributes, used by the PollingWatcher only */
+		private long lastModified = -1, size = -1;
+
+		private WatchedFile(Path file, Runnable changeHandler, Duration debounceTime,
+							boolean polled) {
+			this.file = file;
 			this.changeHandler = changeHandler;
-			watchedDir.watchedFileCount.getAndIncrement();
+			this.debounceNanos = debounceTime.toNanos();
+			this.polled = polled;
+		}
+
+		/**
+		 * Reads the modification time and size of the file.
+		 *
+		 * @return true if the file exists and has been modified since the last call
+		 */
+		boolean updateAttributes() {
+			long newLastModified, newSize;
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(file,
+																	  BasicFileAttributes.class);
+				newLastModified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+				newSize = attributes.size();
+			} catch (IOException e) {
+				lastModified = size = -1;// the file doesn't exist (or is being replaced)
+				return false;
+			}
+			boolean modified = (newLastModified != lastModified || newSize != size);
+			lastModified = newLastModified;
+			size = newSize;
+			return modified;
+		}
+
+		/**
+		 * Executes the handler, or schedules another execution if it's already running.
+		 */
+		void dispatch() {
+			while (true) {
+				int current = state.get();
+				if (current == IDLE) {
+					if (state.compareAndSet(IDLE, RUNNING)) {
+						try {
+							executor.execute(this::runHandler);
+						} catch (RejectedExecutionException e) {
+							state.set(IDLE);
+							exceptionHandler.accept(e);
+						}
+						return;
+					}
+				} else if (current == RUNNING) {
+					if (state.compareAndSet(RUNNING, RUNNING_AND_PENDING)) {
+						return;// runHandler will run the handler again
+					}
+				} else {
+					return;// already pending: the modifications are handled together
+				}
+			}
+		}
+
+		private void runHandler() {
+			do {
+				if (run && watchedFiles.get(file) == this) {// still watched
+					try {
+						changeHandler.run();
+					} catch (Exception e) {
+						exceptionHandler.accept(e);
+					}
+				}
+				if (state.compareAndSet(RUNNING, IDLE)) {
+					return;
+				}
+				// The file has been modified during the execution of the handler
+				state.set(RUNNING);
+			} while (true);
 		}
 	}
 }
\ No newline at end of file
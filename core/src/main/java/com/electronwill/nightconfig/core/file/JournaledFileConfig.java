@@ -0,0 +1,385 @@
+package com.electronwill.nightconfig.core.file;
+
+import com.electronwill.nightconfig.core.AttributeType;
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.EntryData;
+import com.electronwill.nightconfig.core.StandardAttributes;
+import com.electronwill.nightconfig.core.io.ParsingException;
+import com.electronwill.nightconfig.core.io.WritingException;
+import com.electronwill.nightconfig.core.utils.ObservedEntry;
+import com.electronwill.nightconfig.core.utils.ObservedMap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.electronwill.nightconfig.core.file.ChangeJournal.*;
+
+/**
+ * A FileConfig that records each modification in a journal, that is, a file next to the config's
+ * file, with the ".journal" extension. Each modification costs one small append to the journal,
+ * instead of a rewrite of the whole config. The journal is replayed by {@link #load()}, after
+ * the config's file has been parsed and before the parsed config replaces the current one, with
+ * an {@link AtomicReload}. Therefore the threads that read the config never see it without the
+ * journaled modifications.
+ * <p>
+ * The journal is compacted when it exceeds a size threshold, and by {@link #save()} and
+ * {@link #close()}: the config is written to its file, in its format, then the journal is
+ * cleared. The modifications that can't be recorded (see {@link ChangeJournal}) and those that
+ * are made via {@link #valueMap()} also trigger a compaction. If the program stops between the
+ * write of the config and the clearing of the journal, the journal is replayed again by the next
+ * load, which gives the same result.
+ *
+ * @author TheElectronWill
+ */
+final class JournaledFileConfig extends FileConfigWrapper {
+	private final ChangeJournal journal;
+	private final long compactionThreshold;
+
+	private final Object lock = new Object();
+	private boolean closed;// guarded by the lock
+
+	/**
+	 * @param config              the config to save
+	 * @param reload              the atomic reload of the config, that replays the journal
+	 * @param compactionThreshold the size of the journal, in bytes, above which it is compacted
+	 */
+	JournaledFileConfig(FileConfig config, AtomicReload reload, long compactionThreshold) {
+		super(config);
+		Path file = config.getNioPath();
+		this.journal = new ChangeJournal(file.resolveSibling(file.getFileName() + ".journal"));
+		this.compactionThreshold = compactionThreshold;
+		reload.afterParse(this::replay);
+	}
+
+	@Override
+	public EntryData getData(String[] path) {
+		EntryData data = config.getData(path);
+		return (data == null) ? null : new JournaledEntryData(path.clone(), data);
+	}
+
+	@Override
+	public <T> T set(AttributeType<T> attribute, String[] path, T value) {
+		synchronized (lock) {
+			T previous = config.set(attribute, path, value);
+			record(SET, path, attribute, value);
+			return previous;
+		}
+	}
+
+	@Override
+	public <T> T add(AttributeType<T> attribute, String[] path, T value) {
+		synchronized (lock) {
+			T previous = config.add(attribute, path, value);
+			record(ADD, path, attribute, value);
+			return previous;
+		}
+	}
+
+	@Override
+	public <T> T remove(AttributeType<T> attribute, String[] path) {
+		synchronized (lock) {
+			T previous = config.remove(attribute, path);
+			record(REMOVE, path, attribute, null);
+			return previous;
+		}
+	}
+
+	@Override
+	public void clear() {
+		synchronized (lock) {
+			config.clear();
+			record(CLEAR);
+		}
+	}
+
+	@Override
+	public void clearAttributes() {
+		synchronized (lock) {
+			config.clearAttributes();
+			record(CLEAR_ATTRIBUTES);
+		}
+	}
+
+	@Override
+	public void clearComments() {
+		synchronized (lock) {
+			config.clearComments();
+			record(CLEAR_COMMENTS);
+		}
+	}
+
+	@Override
+	public Map<String, Object> valueMap() {
+		return new ObservedMap<>(config.valueMap(), this::compact);
+	}
+
+	@Override
+	public void save() {
+		synchronized (lock) {
+			if (closed) {
+				throw new IllegalStateException("Cannot save a closed FileConfig");
+			}
+			compactLocked();
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> saveAsync() {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		try {
+			save();
+			future.complete(null);
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	@Override
+	public void load() {
+		synchronized (lock) {
+			config.load();// replays the journal, see replay(Config)
+		}
+	}
+
+	/**
+	 * Replays the journal into a parsed config, before it replaces the current config. Called by
+	 * the AtomicReload, during {@link #load()}.
+	 */
+	private void replay(Config parsed) {
+		try {
+			journal.replay(parsed);
+		} catch (IOException e) {
+			throw new ParsingException("Error while reading the journal " + journal.getFile(), e);
+		}
+	}
+
+	@Override
+	public void close() {
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			try {
+				if (journal.size() > 0) {
+					compactLocked();
+				}
+				journal.close();
+			} catch (IOException e) {
+				throw new WritingException(
+					"Error while closing the journal " + journal.getFile(), e);
+			} finally {
+				closed = true;
+			}
+		}
+		config.close();
+	}
+
+	private void record(byte operation) {
+		record(operation, new String[0], StandardAttributes.VALUE, null);
+	}
+
+	/**
+	 * Records a modification, or compacts the journal if the modification can't be recorded or
+	 * if the journal is too big. Must be called with the lock.
+	 */
+	private void record(byte operation, String[] path, AttributeType<?> attribute, Object value) {
+		if (closed) {
+			return;// A closed config can't be saved
+		}
+		try {
+			if (!journal.append(operation, path, attribute, value)
+				|| journal.size() >= compactionThreshold) {
+				compactLocked();
+			}
+		} catch (IOException e) {
+			throw new WritingException("Error while writing the journal " + journal.getFile(), e);
+		}
+	}
+
+	/**
+	 * Compacts the journal, after a modification that can't be recorded.
+	 */
+	private void compact() {
+		synchronized (lock) {
+			if (!closed) {
+				compactLocked();
+			}
+		}
+	}
+
+	/**
+	 * Writes the whole config to its file, and clears the journal. Must be called with the lock.
+	 */
+	private void compactLocked() {
+		try {
+			config.saveAsync().join();// the journal must not be cleared before the config is saved
+		} catch (CompletionException e) {
+			throw new WritingException("Error while saving the FileConfig to " + getNioPath(),
+									   e.getCause());
+		}
+		try {
+			journal.clear();
+		} catch (IOException e) {
+			throw new WritingException("Error while clearing the journal " + journal.getFile(), e);
+		}
+	}
+
+	private class JournaledEntryData implements EntryData {
+		private final String[] path;
+		private final EntryData data;
+
+		private JournaledEntryData(String[] path, EntryData data) {
+			this.path = path;
+			this.data = data;
+		}
+
+		@Override
+		public <T> T addValue(Object value) {
+			synchronized (lock) {
+				T previous = data.addValue(value);
+				record(ADD, path, StandardAttributes.VALUE, value);
+				return previous;
+			}
+		}
+
+		@Override
+		public <T> T setValue(Object value) {
+			synchronized (lock) {
+				T previous = data.setValue(value);
+				record(SET, path, StandardAttributes.VALUE, value);
+				return previous;
+			}
+		}
+
+		@Override
+		public <T> T set(AttributeType<T> attribute, T value) {
+			synchronized (lock) {
+				T previous = data.set(attribute, value);
+				record(SET, path, attribute, value);
+				return previous;
+			}
+		}
+
+		@Override
+		public <T> T add(AttributeType<T> attribute, T value) {
+			synchronized (lock) {
+				T previous = data.add(attribute, value);
+				record(ADD, path, attribute, value);
+				return previous;
+			}
+		}
+
+		@Override
+		public <T> T remove(AttributeType<T> attribute) {
+			synchronized (lock) {
+				T previous = data.remove(attribute);
+				record(REMOVE, path, attribute, null);
+				return previous;
+			}
+		}
+
+		@Override
+		public <T> Optional<T> getOptional(AttributeType<T> attribute) {
+			return data.getOptional(attribute);
+		}
+
+		@Override
+		public void clearExtraAttributes() {
+			data.clearExtraAttributes();
+			compact();
+		}
+
+		@Override
+		public Iterable<? extends Config.AttributeEntry<?>> attributes() {
+			return data.attributes();
+		}
+
+		@Override
+		public Config.Entry toConfigEntry(String key) {
+			return new JournaledConfigEntry(path, data.toConfigEntry(key));
+		}
+
+		@Override
+		public <K, V> Map.Entry<K, V> toMapEntry(K key) {
+			return new ObservedEntry<>(data.toMapEntry(key), JournaledFileConfig.this::compact);
+		}
+
+		@Override
+		public <T> T getValue() {
+			return data.getValue();
+		}
+
+		@Override
+		public boolean has(AttributeType<?> attribute) {
+			return data.has(attribute);
+		}
+
+		@Override
+		public <T> T get(AttributeType<T> attribute) {
+			return data.get(attribute);
+		}
+
+		@Override
+		public int hashCode() {
+			return data.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return data.equals(obj);
+		}
+	}
+
+	private class JournaledConfigEntry implements Config.Entry {
+		private final String[] path;
+		private final Config.Entry entry;
+
+		private JournaledConfigEntry(String[] path, Config.Entry entry) {
+			this.path = path;
+			this.entry = entry;
+		}
+
+		@Override
+		public <T> T set(AttributeType<T> attribute, T value) {
+			synchronized (lock) {
+				T previous = entry.set(attribute, value);
+				record(SET, path, attribute, value);
+				return previous;
+			}
+		}
+
+		@Override
+		public <T> T setValue(Object value) {
+			synchronized (lock) {
+				T previous = entry.setValue(value);
+				record(SET, path, StandardAttributes.VALUE, value);
+				return previous;
+			}
+		}
+
+		@Override
+		public Iterable<? extends Config.AttributeEntry<?>> attributes() {
+			return entry.attributes();
+		}
+
+		@Override
+		public String getKey() {
+			return entry.getKey();
+		}
+
+		@Override
+		public <T> T get(AttributeType<T> attribute) {
+			return entry.get(attribute);
+		}
+
+		@Override
+		public <T> Optional<T> getOptional(AttributeType<T> attribute) {
+			return entry.getOptional(attribute);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.electronwill.nightconfig.core.file;
+
+import com.electronwill.nightconfig.core.AttributeType;
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.EntryData;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A Config that delegates all its operations to another config, which can be replaced at any
+ * time by {@link #swap(Config)}. The replacement is atomic: each operation sees either the old
+ * config or the new one, never a partially loaded config.
+ *
+ * @author TheElectronWill
+ */
+final class SwappableConfig implements Config {
+	private volatile Config config;
+
+	SwappableConfig(Config config) {
+		this.config = Objects.requireNonNull(config, "The wrapped config must not be null");
+	}
+
+	/**
+	 * @return the current config
+	 */
+	Config current() {
+		return config;
+	}
+
+	/**
+	 * Replaces the current config.
+	 *
+	 * @param newConfig the new config
+	 * @return the previous config
+	 */
+	Config swap(Config newConfig) {
+		Config previous = config;
+		config = Objects.requireNonNull(newConfig, "The new config must not be null");
+		return previous;
+	}
+
+	@Override
+	public EntryData getData(String[] path) {
+		return config.getData(path);
+	}
+
+	@Override
+	public boolean has(AttributeType<?> attribute, String[] path) {
+		return config.has(attribute, path);
+	}
+
+	@Override
+	public boolean contains(String[] path) {
+		return config.contains(path);
+	}
+
+	@Override
+	public <T> T set(AttributeType<T> attribute, String[] path, T value) {
+		return config.set(attribute, path, value);
+	}
+
+	@Override
+	public <T> T add(AttributeType<T> attribute, String[] path, T value) {
+		return config.add(attribute, path, value);
+	}
+
+	@Override
+	public <T> T remove(AttributeType<T> attribute, String[] path) {
+		return config.remove(attribute, path);
+	}
+
+	@Override
+	public Map<String, Object> valueMap() {
+		return config.valueMap();
+	}
+
+	@Override
+	public Map<String, EntryData> dataMap() {
+		return config.dataMap();
+	}
+
+	@Override
+	public Set<Config.Entry> entries() {
+		return config.entries();
+	}
+
+	@Override
+	public int size() {
+		return config.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return config.isEmpty();
+	}
+
+	@Override
+	public void clear() {
+		config.clear();
+	}
+
+	@Override
+	public void clearAttributes() {
+		config.clearAttributes();
+	}
+
+	@Override
+	public void clearComments() {
+		config.clearComments();
+	}
+
+	@Override
+	public Config createSubConfig() {
+		return config.createSubConfig();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return config.equals(obj);
+	}
+
+	@Override
+	public int hashCode() {
+		return config.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "SwappableConfig(" + config + ')';
+	}
+}
\ No newline at end of file
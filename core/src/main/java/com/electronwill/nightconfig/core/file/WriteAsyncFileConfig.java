@@ -1,7 +1,8 @@
 package com.electronwill.nightconfig.core.file;
 
 import com.electronwill.nightconfig.core.Config;
-import com.electronwill.nightconfig.core.impl.Charray;
+import com.electronwill.nightconfig.core.impl.CharacterOutput;
+import com.electronwill.nightconfig.core.impl.CharrayWriter;
 import com.electronwill.nightconfig.core.io.*;
 import com.electronwill.nightconfig.core.utils.ConfigWrapper;
 
@@ -9,53 +10,77 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
-import java.nio.channels.AsynchronousFileChannel;
-import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.nio.file.OpenOption;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
-import static java.nio.file.StandardOpenOption.*;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 /**
+ * A FileConfig whose {@link #save()} method writes the file asynchronously, with the
+ * {@link AsyncSaveExecutor}. The config is serialized by the thread that saves it, and only the
+ * latest data is written if the config is saved several times before the write begins.
+ * <p>
+ * Unless the {@link WritingMode} is REPLACE_ATOMIC, the file stays open between the saves, and
+ * is closed by {@link #close()}. Unless the WritingMode is APPEND, the save is skipped if the
+ * file already contains the data to write.
+ *
  * @author TheElectronWill
  */
 final class WriteAsyncFileConfig<C extends Config> extends ConfigWrapper<C> implements FileConfig {
 	private final Path nioPath;
 	private final Charset charset;
+
+	private final ConfigWriter writer;
+	private final WritingMode writingMode;
+	private final boolean forceWrites;
+	private final ContentTracker tracker;
+
+	private final ConfigParser parser;
+	private final FileNotFoundAction nefAction;
+	private final ParsingMode parsingMode;
+	private final AtomicReload atomicReload;
+
 	/**
-	 * True if this nioPath config has been closed.
-	 */
-	private final AtomicBoolean closed = new AtomicBoolean();
-	/**
-	 * The channel used to write asynchronously to the nioPath.
-	 */
-	private AsynchronousFileChannel channel;
-	/**
-	 * Guards the channel to prevent it from being used and closed at the same time.
+	 * Guards the state of the saves.
 	 */
-	private final Object channelGuard = new Object();
+	private final Object lock = new Object();
+	// The following fields are guarded by the lock
+	private boolean closed;
+	/** True if a save is in the executor's queue or is running */
+	private boolean scheduled;
+	/** The latest data to write, not written yet, or null if there's nothing to write */
+	private ByteBuffer pendingData;
+	/** The future of the pending data, and the time of the oldest save it represents */
+	private CompletableFuture<Void> pendingFuture;
+	private long pendingSince;
+	/** The future of the latest save */
+	private CompletableFuture<Void> lastFuture;
+
 	/**
 	 * True if there is a write operation in progress.
 	 */
-	private final AtomicBoolean currentlyWriting = new AtomicBoolean();
+	private volatile boolean currentlyWriting;
+
 	/**
-	 * True if the config has changed during the write operation, and thus must be written again.
+	 * The channel used to write to the nioPath, and the fileKey of the file when it was opened.
+	 * Only used by the saves, which don't run concurrently.
 	 */
-	private final AtomicBoolean mustWriteAgain = new AtomicBoolean();
-
-	private final ConfigWriter writer;
-	private final WriteCompletedHandler writeCompletedHandler;
-	private final OpenOption[] openOptions;
-
-	private final ConfigParser parser;
-	private final FileNotFoundAction nefAction;
-	private final ParsingMode parsingMode;
+	private FileChannel channel;
+	private Object channelFileKey;
 
 	WriteAsyncFileConfig(C config, Path nioPath, Charset charset, ConfigWriter writer,
-						 WritingMode writingMode, ConfigParser parser,
-						 ParsingMode parsingMode, FileNotFoundAction nefAction) {
+						 WritingMode writingMode, boolean forceWrites, ConfigParser parser,
+						 ParsingMode parsingMode, FileNotFoundAction nefAction,
+						 AtomicReload atomicReload) {
 		super(config);
 		this.nioPath = nioPath;
 		this.charset = charset;
@@ -63,12 +88,17 @@ final class WriteAsyncFileConfig<C extends Config> extends ConfigWrapper<C> impl
 		this.parser = parser;
 		this.parsingMode = parsingMode;
 		this.nefAction = nefAction;
-		if (writingMode == WritingMode.APPEND) {
-			this.openOptions = new OpenOption[]{WRITE, CREATE};
-		} else {
-			this.openOptions = new OpenOption[]{WRITE, CREATE, TRUNCATE_EXISTING};
-		}
-		this.writeCompletedHandler = new WriteCompletedHandler();
+		this.atomicReload = atomicReload;
+		this.writingMode = writingMode;
+		this.forceWrites = forceWrites;
+		this.tracker = new ContentTracker(nioPath);
+	}
+
+	/**
+	 * @return the tracker of the content that this config loads and writes
+	 */
+	ContentTracker tracker() {
+		return tracker;
 	}
 
 	@Override
@@ -83,88 +113,225 @@ final class WriteAsyncFileConfig<C extends Config> extends ConfigWrapper<C> impl
 
 	@Override
 	public void save() {
-		if (closed.get()) {
-			throw new IllegalStateException("Cannot save a closed FileConfig");
-		}
-		save(true);
+		saveAsync();
 	}
 
 	@Override
-	public void close() {
-		if (closed.compareAndSet(false, true)) {// The content of this block is called only once
-			synchronized (channelGuard) {
-				while (currentlyWriting.get()) {// Writing in progres
-					// Waits for the operation to complete, to ensure that the data is written:
-					try {
-						channelGuard.wait();
-					} catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
-						break;// Exits from the loop and returns from the method
-					}
+	public CompletableFuture<Void> saveAsync() {
+		// Writes the config data to a ByteBuffer
+		CharrayWriter chars = new CharrayWriter();
+		writer.write(config, (CharacterOutput)chars);
+		ByteBuffer data = charset.encode(CharBuffer.wrap(chars.getCharray()));
+
+		// Replaces the pending data, if any, and schedules the write
+		CompletableFuture<Void> future;
+		boolean submit;
+		synchronized (lock) {
+			if (closed) {
+				throw new IllegalStateException("Cannot save a closed FileConfig");
+			}
+			if (pendingFuture == null) {
+				pendingFuture = new CompletableFuture<>();
+				pendingSince = System.nanoTime();
+			}
+			pendingData = data;
+			future = lastFuture = pendingFuture;
+			submit = !scheduled;
+			scheduled = true;
+		}
+		if (submit) {
+			AsyncSaveExecutor.execute(this::runSave);
+		}
+		return future;
+	}
+
+	/**
+	 * Writes the pending data. Runs in the AsyncSaveExecutor, and never concurrently for the same
+	 * config.
+	 */
+	private void runSave() {
+		ByteBuffer data;
+		CompletableFuture<Void> future;
+		long since;
+		synchronized (lock) {
+			data = pendingData;
+			future = pendingFuture;
+			since = pendingSince;
+			pendingData = null;
+			pendingFuture = null;
+			currentlyWriting = true;
+		}
+		Throwable failure = null;
+		try {
+			write(data);
+		} catch (IOException e) {
+			failure = new WritingException("Error while saving the FileConfig to " + nioPath, e);
+		} catch (RuntimeException | Error e) {
+			failure = e;
+		}
+		AsyncSaveExecutor.record(System.nanoTime() - since, failure == null);
+
+		boolean again;
+		synchronized (lock) {
+			currentlyWriting = false;
+			again = (pendingFuture != null);
+			scheduled = again;
+			if (!again) {
+				if (closed) {
+					closeChannelQuietly();// close() may have been interrupted
+				}
+				lock.notifyAll();// Notifies the waiter (if any). See method close()
+			}
+		}
+		if (failure == null) {
+			future.complete(null);
+		} else {
+			future.completeExceptionally(failure);
+		}
+		if (again) {// saved during the write: queues the next write after the other configs'
+			AsyncSaveExecutor.execute(this::runSave);
+		}
+	}
+
+	private void write(ByteBuffer data) throws IOException {
+		FileFingerprint fingerprint = null;
+		if (writingMode != WritingMode.APPEND) {
+			fingerprint = FileFingerprint.of(data);
+			if (tracker.isUnchanged(fingerprint)) {
+				return;// the file already contains the data
+			}
+		}
+		if (writingMode == WritingMode.REPLACE_ATOMIC) {
+			closeChannel();// the file will be replaced
+			AtomicFiles.write(nioPath, data, forceWrites);
+		} else {
+			FileChannel channel = channel();
+			long position = (writingMode == WritingMode.APPEND) ? channel.size() : 0;
+			while (data.hasRemaining()) {
+				position += channel.write(data, position);
+			}
+			if (writingMode != WritingMode.APPEND) {
+				channel.truncate(position);
+			}
+			if (forceWrites) {
+				channel.force(true);
+			}
+		}
+		if (fingerprint == null) {
+			tracker.reset();
+		} else {
+			tracker.written(fingerprint);
+		}
+	}
+
+	/**
+	 * Returns the channel to write to the nioPath. The channel is reopened if the file has been
+	 * deleted or replaced since the channel was opened.
+	 */
+	private FileChannel channel() throws IOException {
+		if (channel != null) {
+			try {
+				if (Objects.equals(channelFileKey, fileKey())) {
+					return channel;
 				}
+			} catch (NoSuchFileException e) {
+				// The file has been deleted: creates a new one
 			}
+			closeChannel();
+		}
+		channel = FileChannel.open(nioPath, WRITE, CREATE);
+		channelFileKey = fileKey();
+		return channel;
+	}
+
+	private Object fileKey() throws IOException {
+		return Files.readAttributes(nioPath, BasicFileAttributes.class).fileKey();
+	}
+
+	private void closeChannel() throws IOException {
+		if (channel != null) {
+			FileChannel c = channel;
+			channel = null;
+			channelFileKey = null;
+			c.close();
 		}
 	}
 
-	private void save(boolean saveLaterIfWriting) {
-		// atomically sets to true if false:
-		boolean canSaveNow = currentlyWriting.compareAndSet(false, true);
-		if (canSaveNow) {// no writing is in progress: start one immediately
-			// Writes the config data to a ByteBuffer
-			Charray.Builder builder = new Charray.Builder(512);
-			writer.write(config, builder);
-			CharBuffer chars = CharBuffer.wrap(builder.build());
-			ByteBuffer buffer = charset.encode(chars);
+	private void closeChannelQuietly() {
+		try {
+			closeChannel();
+		} catch (IOException e) {
+			// The data has been written, the channel is only released
+		}
+	}
 
-			// Writes the ByteBuffer to the nioPath, asynchronously
-			synchronized (channelGuard) {
+	@Override
+	public void close() {
+		CompletableFuture<Void> last;
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			while (scheduled) {// Writing in progress
+				// Waits for the operation to complete, to ensure that the data is written:
 				try {
-					channel = AsynchronousFileChannel.open(nioPath, openOptions);
-					channel.write(buffer, channel.size(), null, writeCompletedHandler);
-				} catch (IOException e) {
-					writeCompletedHandler.failed(e, null);
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;// The last write will close the channel, see runSave()
 				}
 			}
-		} else if (saveLaterIfWriting) {// there is a writing in progress: start one later
-			mustWriteAgain.set(true);
+			last = lastFuture;
+			try {
+				closeChannel();
+			} catch (IOException e) {
+				throw new WritingException("Error while closing the FileConfig's file " + nioPath,
+										   e);
+			}
+		}
+		if (last != null) {
+			try {
+				last.join();
+			} catch (CompletionException e) {
+				// Reports the failure of the last save, since nothing may have checked it
+				throw new WritingException("Error while saving the FileConfig to " + nioPath,
+										   e.getCause());
+			}
 		}
 	}
 
 	@Override
-	public void load() {
-		if (closed.get()) {
-			throw new IllegalStateException("Cannot (re)load a closed FileConfig");
+	public boolean addReloadListener(Consumer<? super ConfigDiff> listener) {
+		if (atomicReload == null) {
+			return false;// the loads don't compute the differences
 		}
-		if (!currentlyWriting.get()) { // Skips load when writing
-			parser.parse(nioPath, config, parsingMode, nefAction);//blocking read, not async
+		atomicReload.addListener(listener);
+		return true;
+	}
+
+	@Override
+	public void removeReloadListener(Consumer<? super ConfigDiff> listener) {
+		if (atomicReload != null) {
+			atomicReload.removeListener(listener);
 		}
 	}
 
-	private final class WriteCompletedHandler implements CompletionHandler<Integer, Object> {
-		@Override
-		public void completed(Integer result, Object attachment) {
-			currentlyWriting.set(false);// Resets currentlyWriting
-			if (mustWriteAgain.getAndSet(false)) {// Gets and resets mustWriteAgain
-				save(false);// Saves the config without setting mustWriteAgain to true if canSaveNow is false
-			} else {
-				/* All operations have completed and we don't need to start a new one. Therefore
-				the channel may be closed. */
-				synchronized (channelGuard) {
-					try {
-						channel.close();
-						channel = null;
-					} catch (IOException e) {
-						failed(e, null);
-					} finally {
-						channelGuard.notify();// Notifies the waiter (if any). See method close()
-					}
-				}
+	@Override
+	public void load() {
+		synchronized (lock) {
+			if (closed) {
+				throw new IllegalStateException("Cannot (re)load a closed FileConfig");
 			}
 		}
-
-		@Override
-		public void failed(Throwable exc, Object attachment) {
-			throw new WritingException("Error while saving the FileConfig to " + nioPath, exc);
+		if (!currentlyWriting) { // Skips load when writing
+			// Blocking read, not async
+			tracker.loading();
+			if (atomicReload == null) {
+				parser.parse(nioPath, charset, config, parsingMode, nefAction);
+			} else {
+				atomicReload.load(parser, nioPath, charset, nefAction);
+			}
 		}
 	}
 }
\ No newline at end of file
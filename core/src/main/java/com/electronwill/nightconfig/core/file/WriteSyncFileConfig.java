@@ -1,17 +1,29 @@
 package com.electronwill.nightconfig.core.file;
 
 import com.electronwill.nightconfig.core.Config;
-import com.electronwill.nightconfig.core.io.ConfigParser;
-import com.electronwill.nightconfig.core.io.ConfigWriter;
-import com.electronwill.nightconfig.core.io.ParsingMode;
-import com.electronwill.nightconfig.core.io.WritingMode;
+import com.electronwill.nightconfig.core.impl.CharacterOutput;
+import com.electronwill.nightconfig.core.impl.CharrayWriter;
+import com.electronwill.nightconfig.core.io.*;
 import com.electronwill.nightconfig.core.utils.ConfigWrapper;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardOpenOption.*;
 
 /**
+ * A FileConfig whose {@link #save()} method blocks until the write operation completes.
+ * <p>
+ * Unless the {@link WritingMode} is APPEND, the save is skipped if the file already contains
+ * the data to write, for instance if the config hasn't been modified since the last load or save.
+ *
  * @author TheElectronWill
  */
 final class WriteSyncFileConfig<C extends Config> extends ConfigWrapper<C> implements FileConfig {
@@ -21,16 +33,20 @@ final class WriteSyncFileConfig<C extends Config> extends ConfigWrapper<C> imple
 
 	private final ConfigWriter writer;
 	private final WritingMode writingMode;
+	private final boolean forceWrites;
+	private final ContentTracker tracker;
 
 	private final ConfigParser parser;
 	private final FileNotFoundAction nefAction;
 	private final ParsingMode parsingMode;
+	private final AtomicReload atomicReload;
 
 	private volatile boolean currentlyWriting = false;
 
 	WriteSyncFileConfig(C config, Path nioPath, Charset charset, ConfigWriter writer,
-						 WritingMode writingMode, ConfigParser parser,
-						 ParsingMode parsingMode, FileNotFoundAction nefAction) {
+						WritingMode writingMode, boolean forceWrites, ConfigParser parser,
+						ParsingMode parsingMode, FileNotFoundAction nefAction,
+						AtomicReload atomicReload) {
 		super(config);
 		this.nioPath = nioPath;
 		this.charset = charset;
@@ -38,7 +54,17 @@ final class WriteSyncFileConfig<C extends Config> extends ConfigWrapper<C> imple
 		this.parser = parser;
 		this.parsingMode = parsingMode;
 		this.nefAction = nefAction;
+		this.atomicReload = atomicReload;
 		this.writingMode = writingMode;
+		this.forceWrites = forceWrites;
+		this.tracker = new ContentTracker(nioPath);
+	}
+
+	/**
+	 * @return the tracker of the content that this config loads and writes
+	 */
+	ContentTracker tracker() {
+		return tracker;
 	}
 
 	@Override
@@ -57,9 +83,67 @@ final class WriteSyncFileConfig<C extends Config> extends ConfigWrapper<C> imple
 			if (closed) {
 				throw new IllegalStateException("Cannot save a closed FileConfig");
 			}
+			CharrayWriter chars = new CharrayWriter();
+			writer.write(config, (CharacterOutput)chars);
+			ByteBuffer data = charset.encode(CharBuffer.wrap(chars.getCharray()));
+			FileFingerprint fingerprint = null;
+			if (writingMode != WritingMode.APPEND) {
+				fingerprint = FileFingerprint.of(data);
+				if (tracker.isUnchanged(fingerprint)) {
+					return;// the file already contains the data
+				}
+			}
 			currentlyWriting = true;
-			writer.write(config, nioPath, writingMode, charset);
-			currentlyWriting = false;
+			try {
+				write(data);
+				// Remembered before currentlyWriting is reset, so that the reloads triggered by
+				// the write see that the file contains the written data.
+				if (fingerprint == null) {
+					tracker.reset();
+				} else {
+					tracker.written(fingerprint);
+				}
+			} finally {
+				currentlyWriting = false;
+			}
+		}
+	}
+
+	private void write(ByteBuffer data) {
+		try {
+			if (writingMode == WritingMode.REPLACE_ATOMIC) {
+				AtomicFiles.write(nioPath, data, forceWrites);
+				return;
+			}
+			OpenOption[] options = (writingMode == WritingMode.APPEND)
+								   ? new OpenOption[] { WRITE, CREATE, APPEND }
+								   : new OpenOption[] { WRITE, CREATE, TRUNCATE_EXISTING };
+			try (FileChannel channel = FileChannel.open(nioPath, options)) {
+				while (data.hasRemaining()) {
+					channel.write(data);
+				}
+				if (forceWrites) {
+					channel.force(true);
+				}
+			}
+		} catch (IOException e) {
+			throw new WritingException("Error while saving the FileConfig to " + nioPath, e);
+		}
+	}
+
+	@Override
+	public boolean addReloadListener(Consumer<? super ConfigDiff> listener) {
+		if (atomicReload == null) {
+			return false;// the loads don't compute the differences
+		}
+		atomicReload.addListener(listener);
+		return true;
+	}
+
+	@Override
+	public void removeReloadListener(Consumer<? super ConfigDiff> listener) {
+		if (atomicReload != null) {
+			atomicReload.removeListener(listener);
 		}
 	}
 
@@ -70,7 +154,12 @@ final class WriteSyncFileConfig<C extends Config> extends ConfigWrapper<C> imple
 				if (closed) {
 					throw new IllegalStateException("Cannot (re)load a closed FileConfig");
 				}
-				parser.parse(nioPath, config, parsingMode, nefAction);
+				tracker.loading();
+				if (atomicReload == null) {
+					parser.parse(nioPath, charset, config, parsingMode, nefAction);
+				} else {
+					atomicReload.load(parser, nioPath, charset, nefAction);
+				}
 			}
 		}
 	}
@@ -66,6 +66,6 @@ public interface CharacterOutput {
 	 * @param length the number of characters to write
 	 */
 	default void write(Charray cha, int offset, int length) {
-		write(cha.chars, cha.offset + offset, cha.offset + length);
+		write(cha.chars, cha.offset + offset, length);
 	}
 }
\ No newline at end of file
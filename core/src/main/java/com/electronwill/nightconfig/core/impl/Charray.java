@@ -110,6 +110,15 @@ public final class Charray implements CharSequence, Cloneable, Appendable {
 		return limit == offset;
 	}
 
+	/**
+	 * Removes all the characters of this Charray. The underlying array is kept, so that the
+	 * Charray can be reused without allocating a new array.
+	 */
+	public void clear() {
+		offset = 0;
+		limit = 0;
+	}
+
 	@Override
 	public int length() {
 		return limit - offset;
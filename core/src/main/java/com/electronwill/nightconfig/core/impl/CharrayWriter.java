@@ -77,12 +77,12 @@ public final class CharrayWriter extends Writer implements CharacterOutput {
 
 	@Override
 	public void write(Charray cha) {
-		cha.append(cha);
+		this.cha.append(cha);
 	}
 
 	@Override
 	public void write(Charray cha, int offset, int length) {
-		cha.append(cha, offset, length);
+		this.cha.append(cha, offset, offset + length);
 	}
 
 	@Override
@@ -0,0 +1,227 @@
+package com.electronwill.nightconfig.core.impl;
+
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.UnmodifiableEntryData;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Helps the writers to serialize large objects and arrays in parallel.
+ * <p>
+ * The elements of a large object or array are split in consecutive segments of about
+ * {@code threshold} values. Each segment is written by a separate task into its own buffer, then
+ * the buffers are copied to the output in the order of the segments. As long as each segment is
+ * written exactly like the sequential writer would write it, the result is the same.
+ * <p>
+ * The buffers are reused from one segment to another. A ParallelWriting object may be shared by
+ * several writers and threads.
+ */
+public final class ParallelWriting {
+	/** Default number of values above which an object or array is written in parallel */
+	public static final int DEFAULT_THRESHOLD = 8192;
+
+	/** Buffers bigger than this aren't kept in the pool, to avoid retaining too much memory */
+	private static final int MAX_POOLED_CAPACITY = 1 << 20;
+
+	private final ForkJoinPool pool;
+	private final int threshold;
+	private final Queue<CharrayWriter> buffers = new ConcurrentLinkedQueue<>();
+	private final int maxPooledBuffers;
+
+	/**
+	 * @param pool      the pool that executes the writing tasks
+	 * @param threshold the minimal number of values (counted recursively) of a segment
+	 */
+	public ParallelWriting(ForkJoinPool pool, int threshold) {
+		if (threshold <= 0) {
+			throw new IllegalArgumentException("Invalid threshold " + threshold + ": must be > 0");
+		}
+		this.pool = pool;
+		this.threshold = threshold;
+		this.maxPooledBuffers = pool.getParallelism() * 2;
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Checks if a value (object or array) is large enough to be written in parallel, that is, if
+	 * it contains at least two thresholds of values.
+	 * <p>
+	 * The values contained in a value that isn't large aren't large either. The writers should
+	 * write them sequentially without calling this method again, otherwise the sizes of the
+	 * nested values would be estimated again and again, at each level.
+	 *
+	 * @param value the value
+	 * @return true if the value should be split, false to write it sequentially
+	 */
+	public boolean isLarge(Object value) {
+		final int limit = (threshold > Integer.MAX_VALUE / 2) ? Integer.MAX_VALUE : threshold * 2;
+		return estimateSize(value, limit) >= limit;
+	}
+
+	/**
+	 * Splits the elements of an object or array in segments that are big enough to be written
+	 * in parallel.
+	 *
+	 * @param values the elements' values
+	 * @return the bounds of the segments: segment i contains the elements from bounds[i]
+	 * (inclusive) to bounds[i+1] (exclusive). Returns null if there are less than two segments,
+	 * in which case the elements should be written sequentially.
+	 */
+	public int[] split(Object[] values) {
+		final int n = values.length;
+		if (n < 2) {
+			return null;
+		}
+		int[] bounds = new int[Math.min(n, 16) + 1];
+		int count = 0, segmentSize = 0;
+		for (int i = 0; i < n; i++) {
+			segmentSize += estimateSize(values[i], threshold - segmentSize);
+			if (segmentSize >= threshold && i < n - 1) {
+				if (count + 2 >= bounds.length) {
+					bounds = Arrays.copyOf(bounds, bounds.length * 2);
+				}
+				bounds[++count] = i + 1;// the next segment starts after this element
+				segmentSize = 0;
+			}
+		}
+		if (count == 0) {
+			return null;// only one segment
+		}
+		bounds[++count] = n;
+		return Arrays.copyOf(bounds, count + 1);
+	}
+
+	/**
+	 * Writes the segments in parallel, and copies them to the output in the right order.
+	 * The first segment is written directly to the output by the current thread. If the writing
+	 * of a segment fails, the other tasks are cancelled or awaited before the exception is
+	 * rethrown, so that no task keeps running after this method and all the buffers are released.
+	 *
+	 * @param bounds      the bounds returned by {@link #split(Object[])}
+	 * @param rangeWriter writes the elements from {@code from} (inclusive) to {@code to}
+	 *                    (exclusive), exactly like the sequential writer would. It's called
+	 *                    concurrently by several threads.
+	 * @param output      where to write
+	 */
+	public void write(int[] bounds, RangeWriter rangeWriter, CharacterOutput output) {
+		final int segments = bounds.length - 1;
+		final SegmentTask[] tasks = new SegmentTask[segments];
+		int copied = 1;// the next segment to copy to the output
+		try {
+			for (int i = 1; i < segments; i++) {
+				SegmentTask task = new SegmentTask(rangeWriter, bounds[i], bounds[i + 1]);
+				if (ForkJoinTask.getPool() == pool) {
+					task.fork();
+				} else {
+					pool.execute(task);
+				}
+				tasks[i] = task;
+			}
+			rangeWriter.write(bounds[0], bounds[1], output);
+			for (; copied < segments; copied++) {
+				CharrayWriter buffer = tasks[copied].join();
+				Charray cha = buffer.getCharray();
+				output.write(cha.chars, cha.offset, cha.limit - cha.offset);
+				release(buffer);
+			}
+		} catch (RuntimeException | Error e) {
+			for (int i = copied; i < segments && tasks[i] != null; i++) {
+				tasks[i].cancel(false);// the tasks that haven't started won't run
+			}
+			for (int i = copied; i < segments && tasks[i] != null; i++) {
+				SegmentTask task = tasks[i];
+				task.quietlyJoin();
+				if (task.isCompletedNormally()) {// the failed tasks release their buffer
+					release(task.getRawResult());
+				}
+			}
+			throw e;
+		}
+	}
+
+	private CharrayWriter acquire() {
+		CharrayWriter buffer = buffers.poll();
+		return (buffer == null) ? new CharrayWriter(4096) : buffer;
+	}
+
+	private void release(CharrayWriter buffer) {
+		Charray cha = buffer.getCharray();
+		if (cha.chars.length <= MAX_POOLED_CAPACITY && buffers.size() < maxPooledBuffers) {
+			cha.clear();
+			buffers.offer(buffer);
+		}
+	}
+
+	/**
+	 * Estimates the size of a value: the number of values it contains, recursively.
+	 * The counting stops when the limit is reached.
+	 *
+	 * @param value the value
+	 * @param limit the maximum size to compute
+	 * @return the estimated size, at least 1
+	 */
+	public static int estimateSize(Object value, int limit) {
+		int size = 1;
+		if (value instanceof UnmodifiableConfig) {
+			UnmodifiableConfig config = (UnmodifiableConfig)value;
+			for (UnmodifiableEntryData data : config.dataMap().values()) {
+				if (size >= limit) {
+					break;
+				}
+				size += estimateSize(data.getValue(), limit - size);
+			}
+		} else if (value instanceof Collection) {
+			for (Object element : (Collection<?>)value) {
+				if (size >= limit) {
+					break;
+				}
+				size += estimateSize(element, limit - size);
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Writes a range of elements of an object or array.
+	 */
+	@FunctionalInterface
+	public interface RangeWriter {
+		void write(int from, int to, CharacterOutput output);
+	}
+
+	private final class SegmentTask extends RecursiveTask<CharrayWriter> {
+		private final RangeWriter rangeWriter;
+		private final int from, to;
+
+		SegmentTask(RangeWriter rangeWriter, int from, int to) {
+			this.rangeWriter = rangeWriter;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected CharrayWriter compute() {
+			CharrayWriter buffer = acquire();
+			try {
+				rangeWriter.write(from, to, buffer);
+			} catch (RuntimeException | Error e) {
+				release(buffer);
+				throw e;
+			}
+			return buffer;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.electronwill.nightconfig.core.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Utilities to replace files atomically. The data is written to a temporary file in the same
+ * directory as the target file, then the temporary file is moved to the target. Therefore, the
+ * target file always contains either its old content or its new content, even if the program
+ * crashes during the write.
+ *
+ * @author TheElectronWill
+ */
+public final class AtomicFiles {
+	private AtomicFiles() {}
+
+	/**
+	 * Replaces the content of a file atomically.
+	 *
+	 * @param file  the file to replace
+	 * @param data  the new content of the file
+	 * @param force true to force the data to the storage device before replacing the file, which
+	 *              guarantees that the new content isn't lost if the system crashes
+	 */
+	public static void write(Path file, ByteBuffer data, boolean force) throws IOException {
+		Path temp = createTempFile(file);
+		try {
+			try (FileChannel channel = FileChannel.open(temp, WRITE)) {
+				while (data.hasRemaining()) {
+					channel.write(data);
+				}
+				if (force) {
+					channel.force(true);
+				}
+			}
+			replace(temp, file);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates a temporary file to write the new content of a file. The temporary file is in the
+	 * same directory, so that it can be moved atomically, and it has the same permissions as the
+	 * file, if it exists.
+	 *
+	 * @param file the file to replace
+	 * @return a new, empty temporary file
+	 */
+	public static Path createTempFile(Path file) throws IOException {
+		file = file.toAbsolutePath();
+		Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+		if (Files.exists(file)) {
+			try {
+				PosixFileAttributeView posix =
+					Files.getFileAttributeView(file, PosixFileAttributeView.class);
+				if (posix != null) {
+					Files.setPosixFilePermissions(temp, posix.readAttributes().permissions());
+				}
+			} catch (IOException | UnsupportedOperationException e) {
+				// Keeps the default permissions of the temporary file
+			}
+		}
+		return temp;
+	}
+
+	/**
+	 * Replaces a file by a temporary file. The move is atomic if the filesystem supports it.
+	 *
+	 * @param temp the temporary file, created by {@link #createTempFile(Path)}
+	 * @param file the file to replace
+	 */
+	public static void replace(Path temp, Path file) throws IOException {
+		try {
+			Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
\ No newline at end of file
@@ -8,6 +8,7 @@ import com.electronwill.nightconfig.core.impl.WriterOutput;
 import java.io.*;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -73,12 +74,25 @@ public interface ConfigWriter {
 
 	/**
 	 * Writes a configuration using the specified encoding.
+	 * <p>
+	 * With {@link WritingMode#REPLACE_ATOMIC}, the config is written to memory, then to a
+	 * temporary file which is forced to the storage device before replacing the file.
 	 *
 	 * @param config the config to write
 	 * @param file where to write
 	 * @throws WritingException if an error occurs
 	 */
 	default void write(UnmodifiableConfig config, Path file, Charset cs, WritingMode mode) {
+		if (mode == WritingMode.REPLACE_ATOMIC) {
+			CharrayWriter writer = new CharrayWriter();
+			write(config, (CharacterOutput)writer);
+			try {
+				AtomicFiles.write(file, cs.encode(CharBuffer.wrap(writer.getCharray())), true);
+			} catch (IOException e) {
+				throw new WritingException("An I/O error occured", e);
+			}
+			return;
+		}
 		StandardOpenOption[] options;
 		if (mode == WritingMode.APPEND) {
 			options = new StandardOpenOption[] { WRITE, CREATE, APPEND };
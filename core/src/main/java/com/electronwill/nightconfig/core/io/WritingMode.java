@@ -9,6 +9,14 @@ public enum WritingMode {
 	 */
 	REPLACE,
 
+	/**
+	 * Replaces the existing file atomically: the config is written to a temporary file, which
+	 * then replaces the existing file. If the write fails, the existing file is left untouched.
+	 *
+	 * @see AtomicFiles
+	 */
+	REPLACE_ATOMIC,
+
 	/**
 	 * Appends the config at the end of the file.
 	 */
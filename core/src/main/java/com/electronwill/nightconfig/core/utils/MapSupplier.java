@@ -5,4 +5,15 @@ import java.util.Map;
 @FunctionalInterface
 public interface MapSupplier {
 	<K, V> Map<K, V> get();
+
+	/**
+	 * Creates a new map that is suited to hold the given number of entries. The default
+	 * implementation ignores the size and calls {@link #get()}.
+	 *
+	 * @param expectedSize the expected number of entries
+	 * @return a new map
+	 */
+	default <K, V> Map<K, V> get(int expectedSize) {
+		return get();
+	}
 }
@@ -163,7 +163,11 @@ public final class StringUtils {
 
 			private void findNextEnd() {
 				lineEnd = str.indexOf('\n', lineStart);
-				if (lineEnd >= 1 && str.charAt(lineEnd - 1) == '\r') {
+				if (lineEnd == -1) {
+					// The last line has no separator
+					lineEnd = str.length();
+					sepSize = 1;
+				} else if (lineEnd >= 1 && str.charAt(lineEnd - 1) == '\r') {
 					// Handle CRLF
 					lineEnd -= 1;
 					sepSize = 2;
@@ -175,11 +179,14 @@ public final class StringUtils {
 
 			@Override
 			public boolean hasNext() {
-				return lineEnd != -1;
+				return lineStart <= str.length();
 			}
 
 			@Override
 			public String next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
 				String line = str.substring(lineStart, lineEnd);
 				lineStart = lineEnd + sepSize;
 				findNextEnd();
@@ -1,5 +1,7 @@
 package com.electronwill.nightconfig.core;
 
+import com.electronwill.nightconfig.core.io.ParsingMode;
+import com.electronwill.nightconfig.core.utils.ConfigWrapper;
 import com.electronwill.nightconfig.core.utils.StringUtils;
 
 import java.util.ArrayList;
@@ -192,6 +194,73 @@ public class AbstractConfigTest {
 		assertThrows(AssertionFailedError.class, ()->testNestedValuesOrder(Config.inMemory()));
 	}
 
+	@Test
+	public void builderTest() {
+		MemoryConfig config = new MemoryConfig();
+		config.set("a", 1);
+		config.set("b", 2);
+		config.set(StandardAttributes.COMMENT, new String[] { "b" }, "comment");
+
+		AbstractConfig.Builder builder = new AbstractConfig.Builder(config);
+		builder.put("b", 20);
+		builder.beginObject();
+		builder.put("x", "x");
+		builder.beginObject();
+		builder.put("y", "y");
+		builder.put("inner", builder.endObject());
+		builder.put("sub", builder.endObject());
+		builder.finish(ParsingMode.MERGE);
+
+		assertEquals(1, (int)config.get("a"));
+		assertEquals(20, (int)config.get("b"));
+		assertEquals("comment", config.get(StandardAttributes.COMMENT, new String[] { "b" }));
+		assertEquals("x", config.get("sub.x"));
+		assertEquals("y", config.get("sub.inner.y"));
+		assertTrue(config.get("sub") instanceof MemoryConfig);
+
+		builder.put("a", 10);
+		builder.put("c", 3);
+		builder.finish(ParsingMode.ADD);
+		assertEquals(1, (int)config.get("a"));
+		assertEquals(3, (int)config.get("c"));
+
+		builder.put("d", 4);
+		builder.finish(ParsingMode.REPLACE);
+		assertEquals(1, config.size());
+		assertEquals(4, (int)config.get("d"));
+
+		builder.beginObject();
+		assertThrows(IllegalStateException.class, () -> builder.finish(ParsingMode.REPLACE));
+	}
+
+	@Test
+	public void builderDuplicateKeys() {
+		// The last value of a duplicate key is kept, at all levels and in all parsing modes
+		for (ParsingMode mode : ParsingMode.values()) {
+			// The wrapper isn't an AbstractConfig, its entries are put with the ParsingMode
+			Config wrapper = new ConfigWrapper<Config>(new MemoryConfig()) {};
+			for (Config config : Arrays.asList(new MemoryConfig(), wrapper)) {
+				config.set("existing", 0);
+				AbstractConfig.Builder builder = new AbstractConfig.Builder(config);
+				builder.put("a", 1);
+				builder.put("a", 2);
+				builder.put("existing", 1);
+				builder.put("existing", 2);
+				builder.beginObject();
+				builder.put("b", 1);
+				builder.put("b", 2);
+				builder.put("sub", builder.endObject());
+				builder.finish(mode);
+
+				String message = mode + " " + config.getClass().getSimpleName();
+				assertEquals(2, (int)config.get("a"), message);
+				assertEquals(2, (int)config.get("sub.b"), message);
+				int existing = (mode == ParsingMode.ADD) ? 0 : 2;
+				assertEquals(existing, (int)config.get("existing"), message);
+			}
+		}
+	}
+
 	private void testValuesOrder(Config config) {
 		LinkedHashMap<String, String> mappings = new LinkedHashMap<>();
 		for (int i = 25; i >= 0; i--) {
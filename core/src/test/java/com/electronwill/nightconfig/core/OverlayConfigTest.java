@@ -0,0 +1,107 @@
+package com.electronwill.nightconfig.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author TheElectronWill
+ */
+public class OverlayConfigTest {
+
+	@Test
+	public void precedence() {
+		Config defaults = new MemoryConfig();
+		defaults.set("a", 1);
+		defaults.set("b", 1);
+		defaults.set("sub.x", 1);
+		defaults.set("sub.y", 1);
+		defaults.setComment("a", "comment");
+		Config file = new MemoryConfig();
+		file.set("b", 2);
+		file.set("sub.y", 2);
+		file.set("sub.z", 2);
+		OverlayConfig overlay = new OverlayConfig(defaults, file);
+
+		assertEquals(1, overlay.<Integer>get("a"));
+		assertEquals("comment", overlay.getComment("a"));
+		assertEquals(2, overlay.<Integer>get("b"));
+		assertEquals(1, overlay.<Integer>get("sub.x"));
+		assertEquals(2, overlay.<Integer>get("sub.y"));
+		assertEquals(2, overlay.<Integer>get("sub.z"));
+		assertNull(overlay.get("c"));
+		assertFalse(overlay.contains("sub.c"));
+
+		// The subconfigs are merged
+		UnmodifiableConfig sub = overlay.get("sub");
+		assertEquals(1, sub.<Integer>get("x"));
+		assertEquals(2, sub.<Integer>get("y"));
+		assertEquals(3, sub.size());
+		assertEquals(new LinkedHashSet<>(Arrays.asList("x", "y", "z")), sub.valueMap().keySet());
+		assertEquals(3, overlay.size());
+
+		// A layer hides the subconfigs of the layers below it
+		Config overrides = new MemoryConfig();
+		overrides.set("sub", "hidden");
+		overrides.set("a", 3);
+		overlay.addLayer(overrides);
+		assertEquals("hidden", overlay.get("sub"));
+		assertNull(overlay.get("sub.x"));
+		assertEquals(3, overlay.<Integer>get("a"));
+		assertNull(overlay.getComment("a"));
+
+		Config top = new MemoryConfig();
+		top.set("sub.w", 4);
+		overlay.addLayer(top);
+		assertNull(overlay.get("sub.x"));
+		assertEquals(4, overlay.<Integer>get("sub.w"));
+		assertEquals(Collections.singleton("w"), overlay.<UnmodifiableConfig>get("sub")
+			.valueMap().keySet());
+
+		overlay.removeLayer(3);
+		overlay.removeLayer(2);
+		assertEquals(1, overlay.<Integer>get("sub.x"));
+		assertThrows(UnsupportedOperationException.class,
+			() -> overlay.getData("a").toConfigEntry("a").setValue(0));
+	}
+
+	@Test
+	public void invalidation() {
+		Config defaults = new MemoryConfig();
+		defaults.set("a", 1);
+		defaults.set("sub.x", 1);
+		Config file = new MemoryConfig();
+		OverlayConfig overlay = new OverlayConfig(defaults, file);
+		assertEquals(1, overlay.<Integer>get("a"));
+		assertEquals(1, overlay.<Integer>get("sub.x"));
+
+		// The results are cached until the cache is invalidated
+		file.set("a", 2);
+		file.set("sub.x", 2);
+		assertEquals(1, overlay.<Integer>get("a"));
+		assertEquals(1, overlay.<Integer>get("sub.x"));
+
+		overlay.invalidate(Collections.singleton(Collections.singletonList("a")));
+		assertEquals(2, overlay.<Integer>get("a"));
+		assertEquals(1, overlay.<Integer>get("sub.x"));
+
+		List<String> sub = Collections.singletonList("sub");
+		overlay.invalidate(Collections.singleton(sub));
+		assertEquals(2, overlay.<Integer>get("sub.x"));
+
+		file.set("sub.y", 3);
+		overlay.invalidate(Collections.singleton(Arrays.asList("sub", "y")));
+		assertEquals(3, overlay.<Integer>get("sub.y"));
+
+		assertNull(overlay.get("b"));
+		file.set("b", 4);
+		assertNull(overlay.get("b"));
+		overlay.invalidate();
+		assertEquals(4, overlay.<Integer>get("b"));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,165 @@
+package com.electronwill.nightconfig.core.file;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.ConfigFormat;
+import com.electronwill.nightconfig.core.MemoryConfig;
+import com.electronwill.nightconfig.core.OverlayConfig;
+import com.electronwill.nightconfig.core.impl.CharacterInput;
+import com.electronwill.nightconfig.core.io.ConfigParser;
+import com.electronwill.nightconfig.core.io.ParsingMode;
+import com.electronwill.nightconfig.core.io.WritingMode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author TheElectronWill
+ */
+public class AtomicReloadTest {
+
+	/**
+	 * Parses lines like "a.b=1", slowly.
+	 */
+	private static final ConfigParser PARSER = new ConfigParser() {
+		@Override
+		public ConfigFormat getFormat() {
+			return null;
+		}
+
+		@Override
+		public void parse(CharacterInput input, Config dst, ParsingMode mode) {
+			mode.prepareParsing(dst);
+			StringBuilder line = new StringBuilder();
+			int c;
+			while ((c = input.read()) != -1) {
+				if (c != '\n') {
+					line.append((char)c);
+					continue;
+				}
+				int eq = line.indexOf("=");
+				dst.set(line.substring(0, eq), Integer.parseInt(line.substring(eq + 1)));
+				line.setLength(0);
+				Thread.yield();
+			}
+		}
+	};
+
+	@Test
+	public void reload() throws Exception {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		file.toFile().deleteOnExit();
+		write(file, "a=1\nb.c=2\n");
+
+		List<ConfigDiff> diffs = new ArrayList<>();
+		AtomicReload reload = new AtomicReload(new MemoryConfig(), MemoryConfig::new,
+											   Collections.singletonList(diffs::add));
+		FileConfig config = new WriteSyncFileConfig<>(reload.config(), file,
+			StandardCharsets.UTF_8, (cfg, output) -> {}, WritingMode.REPLACE, false, PARSER,
+			ParsingMode.REPLACE, FileNotFoundAction.READ_NOTHING, reload);
+		config.load();
+		assertEquals(1, config.<Integer>get("a"));
+		assertEquals(2, config.<Integer>get("b.c"));
+		assertEquals(1, diffs.size());
+		assertEquals(paths("a", "b"), diffs.get(0).addedPaths());
+
+		// The readers never see an empty or partially loaded config
+		AtomicBoolean stop = new AtomicBoolean();
+		AtomicInteger missing = new AtomicInteger();
+		Thread reader = new Thread(() -> {
+			while (!stop.get()) {
+				if (config.get("a") == null || config.get("b.c") == null) {
+					missing.incrementAndGet();
+				}
+			}
+		});
+		reader.start();
+		for (int i = 0; i < 500; i++) {
+			config.load();
+		}
+		stop.set(true);
+		reader.join();
+		assertEquals(0, missing.get());
+		assertEquals(1, diffs.size(), "Unchanged loads must not notify the listeners");
+
+		// Diff of the changed paths
+		write(file, "a=1\nb.c=3\nb.d=4\ne=5\n");
+		config.load();
+		ConfigDiff diff = diffs.get(1);
+		assertEquals(paths("b.d", "e"), diff.addedPaths());
+		assertEquals(paths("b.c"), diff.modifiedPaths());
+		assertTrue(diff.removedPaths().isEmpty());
+		assertEquals(2, diff.before().<Integer>get("b.c"));
+		assertEquals(3, diff.after().<Integer>get("b.c"));
+
+		write(file, "b=0\ne=5\n");
+		config.load();
+		diff = diffs.get(2);
+		assertEquals(paths("a"), diff.removedPaths());
+		assertEquals(paths("b"), diff.modifiedPaths());// subconfig replaced by a value
+		assertEquals(paths("a", "b"), diff.changedPaths());
+
+		// Missing file: nothing to read, the config is kept
+		Files.delete(file);
+		config.load();
+		assertEquals(5, config.<Integer>get("e"));
+		assertEquals(3, diffs.size());
+	}
+
+	@Test
+	public void overlayLayer() throws Exception {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		file.toFile().deleteOnExit();
+		write(file, "a=1\nb.c=2\n");
+
+		AtomicReload reload = new AtomicReload(new MemoryConfig(), MemoryConfig::new,
+											   Collections.emptyList());
+		FileConfig layer = new WriteSyncFileConfig<>(reload.config(), file,
+			StandardCharsets.UTF_8, (cfg, output) -> {}, WritingMode.REPLACE, false, PARSER,
+			ParsingMode.REPLACE, FileNotFoundAction.READ_NOTHING, reload);
+		layer.load();
+		Config defaults = new MemoryConfig();
+		defaults.set("a", 0);
+		defaults.set("d", 0);
+		OverlayConfig overlay = new OverlayConfig(defaults);
+		overlay.addLayer(layer);
+		assertEquals(1, overlay.<Integer>get("a"));
+		assertEquals(2, overlay.<Integer>get("b.c"));
+		assertNull(overlay.get("d.e"));
+
+		// The reloads of the layer invalidate the changed paths automatically
+		write(file, "a=3\nb.c=4\nd=5\n");
+		layer.load();
+		assertEquals(3, overlay.<Integer>get("a"));
+		assertEquals(4, overlay.<Integer>get("b.c"));
+		assertEquals(5, overlay.<Integer>get("d"));
+
+		// A removed layer doesn't invalidate the cache anymore
+		overlay.removeLayer(1);
+		assertEquals(0, overlay.<Integer>get("a"));
+		assertNull(overlay.get("x"));
+		defaults.set("x", 6);
+		write(file, "x=7\n");
+		layer.load();
+		assertNull(overlay.get("x"), "Invalidated by a removed layer");
+	}
+
+	private static Set<List<String>> paths(String... paths) {
+		Set<List<String>> set = new HashSet<>();
+		for (String path : paths) {
+			set.add(Arrays.asList(path.split("\\.")));
+		}
+		return set;
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.electronwill.nightconfig.core.file;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.MemoryConfig;
+import com.electronwill.nightconfig.core.io.WritingException;
+import com.electronwill.nightconfig.core.utils.ConfigWrapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author TheElectronWill
+ */
+public class AutosaveFileConfigTest {
+
+	@Test
+	public void immediateSaves() {
+		CountingFileConfig counting = new CountingFileConfig();
+		FileConfig config = new AutosaveFileConfig(counting);
+		config.set("a", 1);
+		config.set("b.c", 2);
+		config.valueMap().put("a", 3);
+		assertEquals(3, counting.saves.get());
+
+		config.batch(c -> {
+			for (int i = 0; i < 1000; i++) {
+				c.set("key" + i, i);
+			}
+		});
+		assertEquals(4, counting.saves.get());
+		assertEquals(999, config.<Integer>get("key999"));
+
+		// Nested batches: saved once, at the end of the outer batch
+		config.batch(c -> {
+			c.set("a", 10);
+			c.batch(c2 -> c2.set("b.c", 20));
+			assertEquals(4, counting.saves.get());
+		});
+		assertEquals(5, counting.saves.get());
+	}
+
+	@Test
+	public void writeBehind() throws InterruptedException {
+		CountingFileConfig counting = new CountingFileConfig();
+		FileConfig config = new AutosaveFileConfig(counting, Duration.ofMillis(100),
+												   Duration.ofMillis(400), e -> fail(e));
+		for (int i = 0; i < 10_000; i++) {
+			config.set("key" + i, i);
+		}
+		assertEquals(0, counting.saves.get());
+		Thread.sleep(300);
+		assertEquals(1, counting.saves.get());
+
+		// Continuous modifications: saved after the maximum delay
+		long end = System.nanoTime() + 700_000_000L;
+		while (System.nanoTime() < end) {
+			config.set("value", System.nanoTime());
+			Thread.sleep(20);
+		}
+		int saves = counting.saves.get();
+		assertTrue(saves >= 2 && saves <= 4, "Wrong number of saves: " + saves);
+
+		// Explicit flush
+		Thread.sleep(300);
+		saves = counting.saves.get();
+		config.set("a", 1);
+		config.flush();
+		assertEquals(saves + 1, counting.saves.get());
+		config.flush();// nothing to save
+		Thread.sleep(300);
+		assertEquals(saves + 1, counting.saves.get());
+
+		// Pending modifications are saved by close()
+		config.set("a", 2);
+		config.close();
+		assertEquals(saves + 2, counting.saves.get());
+		assertTrue(counting.closed);
+		config.set("a", 3);
+		Thread.sleep(300);
+		assertEquals(saves + 2, counting.saves.get());
+	}
+
+	@Test
+	public void failedSaves() throws InterruptedException {
+		// Immediate save: the exception is thrown to the caller
+		CountingFileConfig counting = new CountingFileConfig();
+		FileConfig config = new AutosaveFileConfig(counting);
+		counting.failures.set(1);
+		assertThrows(WritingException.class, () -> config.set("a", 1));
+		assertEquals(0, counting.saves.get());
+		config.flush();// still modified
+		assertEquals(1, counting.saves.get());
+
+		// Delayed save: the exception is handled, and the save is retried
+		CountingFileConfig counting2 = new CountingFileConfig();
+		List<Exception> errors = new CopyOnWriteArrayList<>();
+		FileConfig delayed = new AutosaveFileConfig(counting2, Duration.ofMillis(50),
+													Duration.ofMillis(100), errors::add);
+		counting2.failures.set(1);
+		delayed.set("a", 1);
+		Thread.sleep(500);
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0) instanceof WritingException);
+		assertEquals(1, counting2.saves.get());
+		delayed.flush();// nothing to save
+		assertEquals(1, counting2.saves.get());
+	}
+
+	/**
+	 * A FileConfig that counts its saves, without any file.
+	 */
+	private static final class CountingFileConfig extends ConfigWrapper<Config>
+		implements FileConfig {
+		final AtomicInteger saves = new AtomicInteger();
+		final AtomicInteger failures = new AtomicInteger();
+		volatile boolean closed;
+
+		CountingFileConfig() {
+			super(new MemoryConfig());
+		}
+
+		@Override
+		public File getFile() {
+			return getNioPath().toFile();
+		}
+
+		@Override
+		public Path getNioPath() {
+			return Paths.get("counting.conf");
+		}
+
+		@Override
+		public void save() {
+			if (closed) {
+				throw new IllegalStateException("Cannot save a closed FileConfig");
+			}
+			if (failures.getAndDecrement() > 0) {
+				throw new WritingException("Simulated failure");
+			}
+			saves.incrementAndGet();
+		}
+
+		@Override
+		public void load() {}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.electronwill.nightconfig.core.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author TheElectronWill
+ */
+public class ContentTrackerTest {
+
+	@Test
+	public void writtenContent() throws IOException {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		file.toFile().deleteOnExit();
+		ContentTracker tracker = new ContentTracker(file);
+		assertFalse(tracker.isCurrent());
+
+		FileFingerprint data = write(file, "a=1\n", 1_000_000);
+		tracker.written(data);
+		assertTrue(tracker.isCurrent());
+		assertTrue(tracker.isUnchanged(data));
+
+		// Touched without modification: the content is compared
+		Files.setLastModifiedTime(file, FileTime.fromMillis(2_000_000));
+		assertTrue(tracker.isCurrent());
+
+		// Modified by someone else, with the same size or not
+		write(file, "a=2\n", 3_000_000);
+		assertFalse(tracker.isCurrent());
+		assertFalse(tracker.isUnchanged(data));
+		write(file, "a=1\nb=2\n", 4_000_000);
+		assertFalse(tracker.isCurrent());
+
+		tracker.written(write(file, "a=1\n", 5_000_000));
+		tracker.reset();
+		assertFalse(tracker.isCurrent());
+	}
+
+	@Test
+	public void loadedContent() throws IOException {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		file.toFile().deleteOnExit();
+		ContentTracker tracker = new ContentTracker(file);
+		FileFingerprint data = write(file, "a=1\n", 1_000_000);
+
+		// The content of a loaded file is fingerprinted by the first save that needs it
+		tracker.loading();
+		assertTrue(tracker.isCurrent());
+		assertFalse(tracker.isUnchanged(fingerprint("a=2\n")));
+		assertTrue(tracker.isUnchanged(data));
+
+		// Modified during the parsing: the file doesn't contain the loaded content anymore
+		tracker.loading();
+		write(file, "a=2\n", 2_000_000);
+		assertFalse(tracker.isCurrent());
+		assertFalse(tracker.isUnchanged(fingerprint("a=2\n")));
+
+		// Missing file: nothing is remembered
+		Files.delete(file);
+		tracker.loading();
+		assertFalse(tracker.isCurrent());
+	}
+
+	private static FileFingerprint write(Path file, String content, long lastModified)
+		throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+		return fingerprint(content);
+	}
+
+	private static FileFingerprint fingerprint(String content) {
+		return FileFingerprint.of(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,236 @@
+package com.electronwill.nightconfig.core.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author TheElectronWill
+ */
+public class FileWatcherTest {
+
+	@Test
+	public void manyFiles() throws IOException, InterruptedException {
+		final int dirCount = 200, filesPerDir = 5;
+		Path root = Files.createTempDirectory("nightconfig-test");
+		root.toFile().deleteOnExit();
+		List<Path> files = new ArrayList<>(dirCount * filesPerDir);
+		for (int i = 0; i < dirCount; i++) {
+			Path dir = Files.createDirectory(root.resolve("dir" + i));
+			dir.toFile().deleteOnExit();
+			for (int j = 0; j < filesPerDir; j++) {
+				Path file = Files.createFile(dir.resolve("file" + j + ".conf"));
+				file.toFile().deleteOnExit();
+				files.add(file);
+			}
+		}
+
+		FileWatcher watcher = new FileWatcher();
+		try {
+			CountDownLatch[] latches = new CountDownLatch[files.size()];
+			for (int i = 0; i < files.size(); i++) {
+				CountDownLatch latch = latches[i] = new CountDownLatch(1);
+				watcher.addWatch(files.get(i), latch::countDown);
+			}
+
+			// An idle FileWatcher must not consume any CPU time
+			long cpuBefore = watcherCpuTime();
+			Thread.sleep(1000);
+			long idleCpu = watcherCpuTime() - cpuBefore;
+			assertTrue(idleCpu < 50_000_000, "Idle CPU time too high: " + idleCpu + " ns");
+
+			// Modifications of several files, in different directories
+			for (int i : new int[] {0, 499, files.size() - 1}) {
+				Files.write(files.get(i), "modified = true".getBytes());
+				assertTrue(latches[i].await(10, TimeUnit.SECONDS), "No event for file " + i);
+			}
+			assertEquals(1, latches[1].getCount(), "Unmodified file notified");
+
+			// Removed watch
+			watcher.removeWatch(files.get(1));
+			watcher.setWatch(files.get(2), latches[1]::countDown);
+			Files.write(files.get(1), "modified = true".getBytes());
+			Files.write(files.get(2), "modified = true".getBytes());
+			assertTrue(latches[1].await(10, TimeUnit.SECONDS), "No event for the new handler");
+			assertEquals(1, latches[2].getCount(), "Replaced handler called");
+		} finally {
+			watcher.stop();
+		}
+	}
+
+	@Test
+	public void debouncing() throws IOException, InterruptedException {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		file.toFile().deleteOnExit();
+		FileWatcher watcher = new FileWatcher();
+		try {
+			final long debounceNanos = 1_000_000_000L;
+			BlockingQueue<Long> calls = new LinkedBlockingQueue<>();
+			watcher.addWatch(file, () -> calls.add(System.nanoTime()),
+							 Duration.ofNanos(debounceNanos));
+
+			// Several writes in a short time: the handler is called once, after the last one
+			long lastWrite = 0;
+			for (int i = 0; i < 5; i++) {
+				Thread.sleep(20);
+				lastWrite = System.nanoTime();
+				Files.write(file, ("value = " + i).getBytes());
+			}
+			Long call = calls.poll(10, TimeUnit.SECONDS);
+			assertNotNull(call, "Handler not called");
+			assertTrue(call - lastWrite >= debounceNanos,
+					   "Handler called before the end of the debounce time");
+
+			// Replacing the file is a modification too
+			Path replacement = Files.createTempFile(file.getParent(), "nightconfig-test", ".tmp");
+			Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING);
+			assertNotNull(calls.poll(10, TimeUnit.SECONDS), "Handler not called");
+		} finally {
+			watcher.stop();
+		}
+	}
+
+	@Test
+	public void executorDispatch() throws IOException, InterruptedException {
+		Path slowFile = Files.createTempFile("nightconfig-test", ".conf");
+		Path fastFile = Files.createTempFile("nightconfig-test", ".conf");
+		slowFile.toFile().deleteOnExit();
+		fastFile.toFile().deleteOnExit();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		FileWatcher watcher = new FileWatcher(executor, Throwable::printStackTrace);
+		CountDownLatch slowReleased = new CountDownLatch(1);
+		try {
+			AtomicInteger slowCalls = new AtomicInteger(), running = new AtomicInteger();
+			AtomicInteger maxRunning = new AtomicInteger();
+			CountDownLatch slowStarted = new CountDownLatch(1), slowDone = new CountDownLatch(2);
+			CountDownLatch fastDone = new CountDownLatch(1);
+			watcher.addWatch(slowFile, () -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				slowCalls.incrementAndGet();
+				slowStarted.countDown();
+				await(slowReleased);
+				running.decrementAndGet();
+				slowDone.countDown();
+			});
+			watcher.addWatch(fastFile, fastDone::countDown);
+
+			Files.write(slowFile, "value = 0".getBytes());
+			assertTrue(slowStarted.await(10, TimeUnit.SECONDS), "Slow handler not called");
+			// Modifications during the slow handler: they are handled by one more call
+			for (int i = 1; i <= 5; i++) {
+				Files.write(slowFile, ("value = " + i).getBytes());
+			}
+			// The slow handler doesn't delay the other files: the fast handler completes while
+			// the slow one is blocked. Its event comes after the slow file's ones.
+			Files.write(fastFile, "value = 1".getBytes());
+			assertTrue(fastDone.await(10, TimeUnit.SECONDS), "Fast handler delayed");
+			assertEquals(1, slowCalls.get());
+
+			slowReleased.countDown();
+			assertTrue(slowDone.await(10, TimeUnit.SECONDS), "Modifications not handled");
+			assertEquals(2, slowCalls.get());
+			assertEquals(1, maxRunning.get(), "Concurrent handlers for the same file");
+		} finally {
+			slowReleased.countDown();
+			watcher.stop();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void polling() throws IOException, InterruptedException {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		Path other = Files.createTempFile("nightconfig-test", ".conf");
+		file.toFile().deleteOnExit();
+		other.toFile().deleteOnExit();
+		FileWatcher watcher = new FileWatcher(Runnable::run, Throwable::printStackTrace);
+		try {
+			AtomicInteger calls = new AtomicInteger();
+			watcher.addWatch(file, calls::incrementAndGet, Duration.ZERO,
+							 FileWatcher.Backend.POLLING);
+			Thread.sleep(3000);// lets the polling interval increase
+			assertEquals(0, calls.get(), "Unmodified file notified");
+
+			// A poll may see the file truncated before it's written, hence "at least"
+			Files.write(file, "value = 1".getBytes());
+			awaitCalls(calls, 1);
+			int count = calls.get();
+			Files.write(file, "value = 10".getBytes());
+			awaitCalls(calls, count + 1);
+
+			// A file that is deleted and created again is modified
+			Files.delete(file);
+			Thread.sleep(300);
+			count = calls.get();
+			Files.write(file, "value = 100".getBytes());
+			awaitCalls(calls, count + 1);
+
+			// All the files are polled together: once the other file's modification is seen,
+			// the removed one's would have been seen too
+			count = calls.get();
+			CountDownLatch otherModified = new CountDownLatch(1);
+			watcher.addWatch(other, otherModified::countDown, Duration.ZERO,
+							 FileWatcher.Backend.POLLING);
+			watcher.removeWatch(file);
+			Files.write(file, "value = 1000".getBytes());
+			Files.write(other, "value = 1".getBytes());
+			assertTrue(otherModified.await(10, TimeUnit.SECONDS), "Other file not notified");
+			assertEquals(count, calls.get(), "Removed file notified");
+		} finally {
+			watcher.stop();
+		}
+	}
+
+	/**
+	 * Waits until the handler has been called at least the given number of times.
+	 */
+	private static void awaitCalls(AtomicInteger calls, int expected)
+		throws InterruptedException {
+		long start = System.nanoTime();
+		while (calls.get() < expected) {
+			long elapsed = (System.nanoTime() - start) / 1_000_000;
+			assertTrue(elapsed < 10_000, "Not detected after " + elapsed + " ms");
+			Thread.sleep(10);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return the CPU time consumed by all the FileWatcher threads, in nanoseconds
+	 */
+	private static long watcherCpuTime() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		long total = 0;
+		for (ThreadInfo info : bean.getThreadInfo(bean.getAllThreadIds())) {
+			if (info != null && info.getThreadName().equals("FileWatcher")) {
+				total += Math.max(0, bean.getThreadCpuTime(info.getThreadId()));
+			}
+		}
+		return total;
+	}
+}
\ No newline at end of file
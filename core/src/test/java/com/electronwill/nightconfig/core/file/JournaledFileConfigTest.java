@@ -0,0 +1,278 @@
+package com.electronwill.nightconfig.core.file;
+
+import com.electronwill.nightconfig.core.AttributeType;
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.ConfigFormat;
+import com.electronwill.nightconfig.core.MemoryConfig;
+import com.electronwill.nightconfig.core.check.ConfigChecker;
+import com.electronwill.nightconfig.core.impl.CharacterInput;
+import com.electronwill.nightconfig.core.io.ConfigParser;
+import com.electronwill.nightconfig.core.io.ConfigWriter;
+import com.electronwill.nightconfig.core.io.ParsingMode;
+import com.electronwill.nightconfig.core.io.WritingMode;
+import com.electronwill.nightconfig.core.utils.WriterSupplier;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author TheElectronWill
+ */
+public class JournaledFileConfigTest {
+
+	/**
+	 * Writes the top-level entries as lines like "a=1".
+	 */
+	private static final ConfigWriter WRITER = (config, output) -> {
+		for (Map.Entry<String, Object> entry : config.valueMap().entrySet()) {
+			output.write(entry.getKey() + "=" + entry.getValue() + "\n");
+		}
+	};
+
+	/**
+	 * Parses lines like "a=1", the values are integers.
+	 */
+	private static final ConfigParser PARSER = new ConfigParser() {
+		@Override
+		public ConfigFormat getFormat() {
+			return null;
+		}
+
+		@Override
+		public void parse(CharacterInput input, Config dst, ParsingMode mode) {
+			mode.prepareParsing(dst);
+			StringBuilder line = new StringBuilder();
+			int c;
+			while ((c = input.read()) != -1) {
+				if (c != '\n') {
+					line.append((char)c);
+					continue;
+				}
+				int eq = line.indexOf("=");
+				dst.set(line.substring(0, eq), Integer.parseInt(line.substring(eq + 1)));
+				line.setLength(0);
+			}
+		}
+	};
+
+	/**
+	 * The format of {@link #WRITER} and {@link #PARSER}, for the FileConfigBuilder.
+	 */
+	private static final ConfigFormat FORMAT = new ConfigFormat() {
+		@Override
+		public ConfigWriter writer() {
+			return WRITER;
+		}
+
+		@Override
+		public ConfigParser parser() {
+			return PARSER;
+		}
+
+		@Override
+		public ConfigChecker checker() {
+			return (attribute, path, oldValue, newValue) -> {};
+		}
+
+		@Override
+		public boolean supportsAttribute(AttributeType<?> attribute) {
+			return true;
+		}
+
+		@Override
+		public boolean supportsComments() {
+			return false;
+		}
+
+		@Override
+		public boolean supportsValue(Object value) {
+			return value instanceof Integer;
+		}
+
+		@Override
+		public boolean supportsType(Class<?> type) {
+			return type == Integer.class;
+		}
+
+		@Override
+		public void initEmptyFile(WriterSupplier ws) throws IOException {
+			ws.get().close();
+		}
+	};
+
+	@Test
+	public void journal() throws IOException {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		Path journalFile = file.resolveSibling(file.getFileName() + ".journal");
+		file.toFile().deleteOnExit();
+		journalFile.toFile().deleteOnExit();
+
+		// Each modification is appended to the journal, the config's file isn't written
+		FileConfig config = newConfig(file, 1024);
+		config.load();
+		for (int i = 0; i < 20; i++) {
+			config.set("a", i);
+		}
+		config.setComment("a", "comment");
+		config.set("list", Arrays.asList(1L, "two", null));
+		assertEquals("", read(file));
+		long journalSize = Files.size(journalFile);
+		assertTrue(journalSize > 0 && journalSize < 1024, "Wrong journal size: " + journalSize);
+
+		// The journal is replayed after the config's file
+		FileConfig reloaded = newConfig(file, 1024);
+		reloaded.load();
+		assertEquals(19, reloaded.<Integer>get("a"));
+		assertEquals("comment", reloaded.getComment("a"));
+		assertEquals(Arrays.asList(1L, "two", null), reloaded.<List<Object>>get("list"));
+
+		// A partially written record is ignored and removed
+		Files.write(journalFile, new byte[] {0, 0, 1}, StandardOpenOption.APPEND);
+		reloaded = newConfig(file, 1024);
+		reloaded.load();
+		assertEquals(19, reloaded.<Integer>get("a"));
+		assertEquals(journalSize, Files.size(journalFile));
+		reloaded.set("b", 1);
+		reloaded = newConfig(file, 1024);
+		reloaded.load();
+		assertEquals(1, reloaded.<Integer>get("b"));
+		reloaded.set("list", 0);
+
+		// The journal is compacted into the config's file when it exceeds the threshold
+		for (int i = 0; i < 100; i++) {
+			reloaded.set("c", i);
+		}
+		assertTrue(Files.size(journalFile) < 1024);
+		assertTrue(read(file).contains("b=1\n"));
+		assertTrue(read(file).contains("list=0\n"));
+
+		// close() compacts the journal and deletes it
+		reloaded.set("c", 100);
+		reloaded.close();
+		assertFalse(Files.exists(journalFile));
+		assertTrue(read(file).contains("c=100\n"));
+		reloaded = newConfig(file, 1024);
+		reloaded.load();
+		assertEquals(100, reloaded.<Integer>get("c"));
+		assertEquals(19, reloaded.<Integer>get("a"));
+	}
+
+	@Test
+	public void unrecordedModifications() throws IOException {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		Path journalFile = file.resolveSibling(file.getFileName() + ".journal");
+		file.toFile().deleteOnExit();
+		journalFile.toFile().deleteOnExit();
+
+		FileConfig config = newConfig(file, 1024);
+		config.set("a", 1);
+		assertEquals("", read(file));
+
+		// A value that can't be recorded: the whole config is saved
+		config.set("b", new StringBuilder("text"));
+		assertTrue(read(file).contains("b=text\n"));
+		assertEquals(0, Files.size(journalFile));
+
+		// A modification via the valueMap: the whole config is saved
+		config.set("b", 3);
+		config.valueMap().put("a", 2);
+		assertTrue(read(file).contains("a=2\n"));
+		assertTrue(read(file).contains("b=3\n"));
+		assertEquals(0, Files.size(journalFile));
+		config.close();
+	}
+
+	@Test
+	public void autoreload() throws IOException, InterruptedException {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		Path journalFile = file.resolveSibling(file.getFileName() + ".journal");
+		file.toFile().deleteOnExit();
+		journalFile.toFile().deleteOnExit();
+
+		CountDownLatch reloaded = new CountDownLatch(1);
+		Consumer<ConfigDiff> listener = diff -> reloaded.countDown();
+		FileConfig config = new FileConfigBuilder(file, FORMAT).sync()
+															   .journaled()
+															   .autoreload(Duration.ZERO)
+															   .onReload(listener)
+															   .build();
+		try {
+			config.load();
+			config.set("a", 1);
+			assertEquals("", read(file));
+
+			// The file is modified by another program: the reload replays the journal
+			Files.write(file, "b=2\n".getBytes(StandardCharsets.UTF_8));
+			assertTrue(reloaded.await(10, TimeUnit.SECONDS), "Not reloaded");
+			assertEquals(2, config.<Integer>get("b"));
+			assertEquals(1, config.<Integer>get("a"));
+		} finally {
+			config.close();
+		}
+	}
+
+	@Test
+	public void replayBeforePublishing() throws Exception {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		Path journalFile = file.resolveSibling(file.getFileName() + ".journal");
+		file.toFile().deleteOnExit();
+		journalFile.toFile().deleteOnExit();
+		Files.write(file, "a=0\nb=0\n".getBytes(StandardCharsets.UTF_8));
+
+		FileConfig config = newConfig(file, 1024);
+		config.load();
+		config.set("a", 1);
+
+		// The readers never see the parsed file without the journaled modification
+		AtomicBoolean stop = new AtomicBoolean();
+		AtomicInteger stale = new AtomicInteger();
+		Thread reader = new Thread(() -> {
+			while (!stop.get()) {
+				if (config.<Integer>get("a") != 1) {
+					stale.incrementAndGet();
+				}
+			}
+		});
+		reader.start();
+		try {
+			for (int i = 0; i < 500; i++) {
+				config.load();
+			}
+		} finally {
+			stop.set(true);
+			reader.join();
+		}
+		assertEquals(0, stale.get());
+		assertEquals(0, config.<Integer>get("b"));
+		config.close();
+	}
+
+	private static FileConfig newConfig(Path file, long compactionThreshold) {
+		AtomicReload reload = new AtomicReload(new MemoryConfig(), MemoryConfig::new,
+											   Collections.emptyList());
+		FileConfig config = new WriteSyncFileConfig<>(reload.config(), file,
+			StandardCharsets.UTF_8, WRITER, WritingMode.REPLACE, false, PARSER,
+			ParsingMode.REPLACE, FileNotFoundAction.CREATE_EMPTY, reload);
+		return new JournaledFileConfig(config, reload, compactionThreshold);
+	}
+
+	private static String read(Path file) throws IOException {
+		return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+	}
+}
\ No newline at end of file
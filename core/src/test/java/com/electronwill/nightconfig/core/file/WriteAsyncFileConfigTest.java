@@ -0,0 +1,97 @@
+package com.electronwill.nightconfig.core.file;
+
+import com.electronwill.nightconfig.core.MemoryConfig;
+import com.electronwill.nightconfig.core.io.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author TheElectronWill
+ */
+public class WriteAsyncFileConfigTest {
+
+	private static final ConfigWriter WRITER = (config, output) -> {
+		for (Map.Entry<String, Object> entry : config.valueMap().entrySet()) {
+			output.write(entry.getKey() + "=" + entry.getValue() + "\n");
+		}
+	};
+
+	@Test
+	public void latestWins() throws Exception {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		file.toFile().deleteOnExit();
+		FileConfig config = newConfig(file, WritingMode.REPLACE);
+
+		AsyncSaveExecutor.resetMetrics();
+		CompletableFuture<Void> last = null;
+		for (int i = 0; i < 10_000; i++) {
+			config.set("a", i);
+			last = config.saveAsync();
+		}
+		last.get(5, TimeUnit.SECONDS);
+		assertEquals("a=9999\n", read(file));
+		long saves = AsyncSaveExecutor.completedSaves();
+		assertTrue(saves >= 1 && saves < 10_000, "The saves weren't coalesced: " + saves);
+		assertEquals(0, AsyncSaveExecutor.failedSaves());
+		Duration average = AsyncSaveExecutor.averageLatency();
+		assertTrue(average.compareTo(Duration.ZERO) > 0);
+		assertTrue(AsyncSaveExecutor.maxLatency().compareTo(average) >= 0);
+
+		// The file stays open between the saves, and shorter data truncates it
+		config.set("a", 1);
+		config.saveAsync().get(5, TimeUnit.SECONDS);
+		assertEquals("a=1\n", read(file));
+
+		// The file is replaced by someone else: the new file is written
+		Files.delete(file);
+		Files.write(file, "other".getBytes(StandardCharsets.UTF_8));
+		config.set("a", 2);
+		config.saveAsync().get(5, TimeUnit.SECONDS);
+		assertEquals("a=2\n", read(file));
+
+		// close() waits for the pending save
+		config.set("a", 3);
+		config.save();
+		config.close();
+		assertEquals("a=3\n", read(file));
+		assertThrows(IllegalStateException.class, config::save);
+	}
+
+	@Test
+	public void failure() throws IOException {
+		Path dir = Files.createTempDirectory("nightconfig-test");
+		dir.toFile().deleteOnExit();
+		Path file = dir.resolve("missing").resolve("config.conf");// parent doesn't exist
+		FileConfig config = newConfig(file, WritingMode.REPLACE_ATOMIC);
+		config.set("a", 1);
+
+		ExecutionException e = assertThrows(ExecutionException.class,
+			() -> config.saveAsync().get(5, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof WritingException);
+		assertTrue(AsyncSaveExecutor.failedSaves() > 0);
+
+		// The failure of the last save is reported by close()
+		assertThrows(WritingException.class, config::close);
+		config.close();// already closed, no effect
+	}
+
+	private static FileConfig newConfig(Path file, WritingMode writingMode) {
+		return new WriteAsyncFileConfig<>(new MemoryConfig(), file, StandardCharsets.UTF_8, WRITER,
+			writingMode, false, null, ParsingMode.REPLACE, FileNotFoundAction.CREATE_EMPTY, null);
+	}
+
+	private static String read(Path file) throws IOException {
+		return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+	}
+}
\ No newline at end of file
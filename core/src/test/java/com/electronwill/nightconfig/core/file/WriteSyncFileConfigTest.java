@@ -0,0 +1,122 @@
+package com.electronwill.nightconfig.core.file;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.ConfigFormat;
+import com.electronwill.nightconfig.core.MemoryConfig;
+import com.electronwill.nightconfig.core.impl.CharacterInput;
+import com.electronwill.nightconfig.core.io.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author TheElectronWill
+ */
+public class WriteSyncFileConfigTest {
+
+	private static final ConfigWriter WRITER = (config, output) -> {
+		for (Map.Entry<String, Object> entry : config.valueMap().entrySet()) {
+			output.write(entry.getKey() + "=" + entry.getValue() + "\n");
+		}
+	};
+
+	private static final ConfigParser PARSER = new ConfigParser() {
+		@Override
+		public ConfigFormat getFormat() {
+			return null;
+		}
+
+		@Override
+		public void parse(CharacterInput input, Config dst, ParsingMode mode) {}
+	};
+
+	@Test
+	public void atomicSave() throws IOException {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		file.toFile().deleteOnExit();
+		boolean posix = Files.getFileAttributeView(file, PosixFileAttributeView.class) != null;
+		Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+		if (posix) {
+			Files.setPosixFilePermissions(file, permissions);
+		}
+
+		FileConfig config = new WriteSyncFileConfig<>(new MemoryConfig(), file,
+			StandardCharsets.UTF_8, WRITER, WritingMode.REPLACE_ATOMIC, true, PARSER,
+			ParsingMode.REPLACE, FileNotFoundAction.CREATE_EMPTY, null);
+		config.set("a", 1);
+		config.save();
+		assertEquals("a=1\n", read(file));
+		Object fileKey = fileKey(file);
+
+		// Same content: the save is skipped and the file isn't replaced
+		config.save();
+		config.set("a", 1);
+		config.save();
+		assertEquals(fileKey, fileKey(file));
+
+		// New content: the file is replaced
+		config.set("a", 2);
+		config.save();
+		assertEquals("a=2\n", read(file));
+		assertNotEquals(fileKey, fileKey(file));
+		if (posix) {
+			assertEquals(permissions, Files.getPosixFilePermissions(file));
+		}
+
+		// External modification: the save isn't skipped
+		Files.write(file, "modified".getBytes(StandardCharsets.UTF_8));
+		config.save();
+		assertEquals("a=2\n", read(file));
+
+		// No temporary file is left in the directory
+		String prefix = file.getFileName().toString();
+		try (Stream<Path> files = Files.list(file.getParent())) {
+			assertEquals(1, files.filter(p -> p.getFileName().toString().startsWith(prefix))
+								 .count());
+		}
+	}
+
+	@Test
+	public void skipAfterLoad() throws IOException {
+		Path file = Files.createTempFile("nightconfig-test", ".conf");
+		file.toFile().deleteOnExit();
+		Files.write(file, "a=1\n".getBytes(StandardCharsets.UTF_8));
+
+		Config base = new MemoryConfig();
+		base.set("a", 1);
+		FileConfig config = new WriteSyncFileConfig<>(base, file, StandardCharsets.UTF_8, WRITER,
+			WritingMode.REPLACE, false, PARSER, ParsingMode.MERGE, FileNotFoundAction.CREATE_EMPTY,
+			null);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000));
+		config.load();
+		config.save();// skipped: the file already contains the data
+		assertEquals(1_000_000, Files.getLastModifiedTime(file).toMillis());
+
+		// The file is touched by someone else: the save isn't skipped
+		Files.setLastModifiedTime(file, FileTime.fromMillis(2_000_000));
+		config.save();
+		assertNotEquals(2_000_000, Files.getLastModifiedTime(file).toMillis());
+		assertEquals("a=1\n", read(file));
+	}
+
+	private static String read(Path file) throws IOException {
+		return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+	}
+
+	private static Object fileKey(Path file) throws IOException {
+		return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+package com.electronwill.nightconfig.hocon;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.EntryData;
+import com.electronwill.nightconfig.core.io.ParsingException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.electronwill.nightconfig.core.StandardAttributes.COMMENT;
+
+/**
+ * An unresolved concatenation of values, like {@code ${a} " and " ${b}}, that contains at least
+ * one substitution. It's replaced by its value once the substitutions are resolved.
+ * <p>
+ * This class also contains the rules of the HOCON concatenation, which are used by the parser
+ * for the concatenations that don't need to be resolved: simple values are joined into a string,
+ * arrays are joined into one array, and objects are merged.
+ *
+ * @author TheElectronWill
+ */
+final class Concatenation {
+	final List<Object> parts;
+
+	Concatenation(List<Object> parts) {
+		this.parts = parts;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Object part : parts) {
+			sb.append(part);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Checks if a value needs to be resolved.
+	 */
+	static boolean isUnresolved(Object value) {
+		return value instanceof Substitution || value instanceof Concatenation;
+	}
+
+	/**
+	 * Concatenates resolved values.
+	 *
+	 * @param values the values to concatenate, not empty
+	 * @return the result of the concatenation
+	 */
+	static Object join(List<Object> values) {
+		final Object first = values.get(0);
+		if (values.size() == 1) {
+			return first;
+		}
+		if (first instanceof Config) {
+			Config result = ((Config)first).createSubConfig();
+			for (Object value : values) {
+				if (value instanceof Config) {
+					mergeCopy(result, (Config)value);
+				} else if (!isBlank(value)) {
+					throw new ParsingException("Cannot concatenate an object and " + value);
+				}
+			}
+			return result;
+		}
+		if (first instanceof List) {
+			List<Object> result = new ArrayList<>();
+			for (Object value : values) {
+				if (value instanceof List) {
+					result.addAll((List<?>)value);
+				} else if (!isBlank(value)) {
+					throw new ParsingException("Cannot concatenate an array and " + value);
+				}
+			}
+			return result;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (Object value : values) {
+			if (value instanceof Config || value instanceof List) {
+				throw new ParsingException("Cannot concatenate " + value + " and a string");
+			}
+			sb.append(value);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The whitespace between the objects or arrays of a concatenation is ignored.
+	 */
+	private static boolean isBlank(Object value) {
+		return value instanceof String && ((String)value).trim().isEmpty();
+	}
+
+	/**
+	 * Merges an object into another one: the values of {@code from} replace the values of
+	 * {@code to}, except when both are objects, in which case they are merged recursively.
+	 * The objects of {@code from} are put in {@code to} without being copied.
+	 */
+	static void merge(Config to, Config from) {
+		for (Map.Entry<String, EntryData> entry : from.dataMap().entrySet()) {
+			final String[] key = {entry.getKey()};
+			final Object value = entry.getValue().getValue();
+			final Object existing = get(to, key[0]);
+			if (value instanceof Config && existing instanceof Config) {
+				merge((Config)existing, (Config)value);
+			} else if (value instanceof Config && isUnresolved(existing)) {
+				List<Object> parts = new ArrayList<>(2);
+				parts.add(existing);
+				parts.add(value);
+				to.set(key, new Concatenation(parts));
+			} else {
+				if (value instanceof Substitution && existing != Substitution.MISSING
+					&& ((Substitution)value).previous == Substitution.MISSING) {
+					((Substitution)value).previous = existing;
+				}
+				to.set(key, value);
+			}
+			final String comment = entry.getValue().get(COMMENT);
+			if (comment != null) {
+				to.setComment(key, comment);
+			}
+		}
+	}
+
+	/**
+	 * Merges an object into another one, like {@link #merge(Config, Config)}, but copies the
+	 * objects and arrays of {@code from} instead of sharing them.
+	 */
+	static void mergeCopy(Config to, Config from) {
+		for (Map.Entry<String, EntryData> entry : from.dataMap().entrySet()) {
+			final String[] key = {entry.getKey()};
+			final Object value = entry.getValue().getValue();
+			final Object existing = get(to, key[0]);
+			if (value instanceof Config && existing instanceof Config) {
+				mergeCopy((Config)existing, (Config)value);
+			} else {
+				to.set(key, copy(value));
+			}
+			final String comment = entry.getValue().get(COMMENT);
+			if (comment != null) {
+				to.setComment(key, comment);
+			}
+		}
+	}
+
+	/**
+	 * Copies an object or an array recursively. The other values are immutable and returned as is.
+	 */
+	static Object copy(Object value) {
+		if (value instanceof Config) {
+			Config config = (Config)value;
+			Config copy = config.createSubConfig();
+			mergeCopy(copy, config);
+			return copy;
+		}
+		if (value instanceof List) {
+			List<?> list = (List<?>)value;
+			List<Object> copy = new ArrayList<>(list.size());
+			for (Object element : list) {
+				copy.add(copy(element));
+			}
+			return copy;
+		}
+		return value;
+	}
+
+	/**
+	 * @return the value associated to the key, or {@link Substitution#MISSING}
+	 */
+	static Object get(Config config, String key) {
+		EntryData data = config.dataMap().get(key);
+		return (data == null) ? Substitution.MISSING : data.getValue();
+	}
+}
\ No newline at end of file
@@ -1,20 +1,24 @@
 package com.electronwill.nightconfig.hocon;
 
-import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.AttributeType;
 import com.electronwill.nightconfig.core.ConfigFormat;
+import com.electronwill.nightconfig.core.NullObject;
+import com.electronwill.nightconfig.core.StandardAttributes;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.check.ConfigChecker;
+import com.electronwill.nightconfig.core.check.IncorrectUpdateException;
 import com.electronwill.nightconfig.core.file.FormatDetector;
-import com.electronwill.nightconfig.core.io.ConfigParser;
-import com.electronwill.nightconfig.core.io.ConfigWriter;
+import com.electronwill.nightconfig.core.utils.WriterSupplier;
 
-import java.util.Map;
-import java.util.function.Supplier;
+import java.io.IOException;
+import java.util.Collection;
 
 /**
  * Represents the Hocon config format.
  *
  * @author TheElectronWill
  */
-public final class HoconFormat implements ConfigFormat<CommentedConfig> {
+public final class HoconFormat implements ConfigFormat {
 	private static final HoconFormat INSTANCE = new HoconFormat();
 
 	/**
@@ -24,27 +28,6 @@ public final class HoconFormat implements ConfigFormat<CommentedConfig> {
 		return INSTANCE;
 	}
 
-	/**
-	 * @return a new config with the hocon format
-	 */
-	public static CommentedConfig newConfig() {
-		return INSTANCE.createConfig();
-	}
-
-	/**
-	 * @return a new config with the given map creator
-	 */
-	public static CommentedConfig newConfig(Supplier<Map<String, Object>> s) {
-		return INSTANCE.createConfig(s);
-	}
-
-	/**
-	 * @return a new thread-safe config with the hocon format
-	 */
-	public static CommentedConfig newConcurrentConfig() {
-		return INSTANCE.createConfig();
-	}
-
 	static {
 		FormatDetector.registerExtension("hocon", INSTANCE);
 		FormatDetector.registerExtension("conf", INSTANCE);
@@ -53,22 +36,51 @@ public final class HoconFormat implements ConfigFormat<CommentedConfig> {
 	private HoconFormat() {}
 
 	@Override
-	public ConfigWriter writer() {
+	public HoconWriter writer() {
 		return new HoconWriter();
 	}
 
 	@Override
-	public ConfigParser<CommentedConfig> parser() {
+	public HoconParser parser() {
 		return new HoconParser();
 	}
 
 	@Override
-	public CommentedConfig createConfig(Supplier<Map<String, Object>> mapCreator) {
-		return CommentedConfig.of(mapCreator, this);
+	public ConfigChecker checker() {
+		return (attribute, path, oldValue, newValue) -> {
+			if (attribute == StandardAttributes.VALUE && !supportsValue(newValue)) {
+				throw new IncorrectUpdateException(path, attribute, newValue);
+			}
+		};
+	}
+
+	@Override
+	public boolean supportsAttribute(AttributeType<?> attribute) {
+		return attribute == StandardAttributes.VALUE || attribute == StandardAttributes.COMMENT;
 	}
 
 	@Override
 	public boolean supportsComments() {
 		return true;
 	}
+
+	@Override
+	public boolean supportsValue(Object value) {
+		return value == null || value == NullObject.NULL_OBJECT || supportsType(value.getClass());
+	}
+
+	@Override
+	public boolean supportsType(Class<?> type) {
+		return type == String.class
+			   || type == Boolean.class
+			   || Number.class.isAssignableFrom(type)
+			   || Enum.class.isAssignableFrom(type)
+			   || Collection.class.isAssignableFrom(type)
+			   || UnmodifiableConfig.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public void initEmptyFile(WriterSupplier ws) throws IOException {
+		ws.get().close();// an empty HOCON file is an empty object
+	}
 }
\ No newline at end of file
@@ -1,104 +1,166 @@
 package com.electronwill.nightconfig.hocon;
 
-import com.electronwill.nightconfig.core.CommentedConfig;
 import com.electronwill.nightconfig.core.Config;
 import com.electronwill.nightconfig.core.ConfigFormat;
+import com.electronwill.nightconfig.core.EntryData;
+import com.electronwill.nightconfig.core.MemoryConfig;
+import com.electronwill.nightconfig.core.file.FileNotFoundAction;
+import com.electronwill.nightconfig.core.impl.CharacterInput;
+import com.electronwill.nightconfig.core.impl.ReaderInput;
 import com.electronwill.nightconfig.core.io.ConfigParser;
 import com.electronwill.nightconfig.core.io.ParsingException;
 import com.electronwill.nightconfig.core.io.ParsingMode;
-import com.typesafe.config.*;
 
-import java.io.Reader;
-import java.util.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
 
-import static com.electronwill.nightconfig.core.NullObject.NULL_OBJECT;
+import static com.electronwill.nightconfig.core.StandardAttributes.COMMENT;
 
 /**
- * A HOCON parser that uses the typesafehub config library.
+ * A HOCON parser that builds the configurations directly, without any intermediate tree.
+ * <p>
+ * It supports the HOCON syntax: unquoted strings, '=' and ':' separators, path expressions as
+ * keys, object merging, value concatenation, {@code +=}, substitutions {@code ${path}} and
+ * {@code ${?path}}, and includes of files and classpath resources. The includes of URLs aren't
+ * supported. The relative includes of a file are resolved against the directory of that file.
+ * The comments that precede a field are stored as its
+ * {@link com.electronwill.nightconfig.core.StandardAttributes#COMMENT}.
+ * <p>
+ * The included files are cached: they are parsed again only if they have been modified since the
+ * last parsing operation, which makes the reloading of a document that includes many files much
+ * faster. The cache is the only state kept between two parsing operations, and it's thread-safe:
+ * once configured, one instance can be used by several threads at the same time.
  *
  * @author TheElectronWill
- * @see <a href="https://github.com/typesafehub/config/blob/master/HOCON.md">HOCON spec by
- * typesafehub</a>
+ * @see <a href="https://github.com/lightbend/config/blob/master/HOCON.md">HOCON specification</a>
  */
-public final class HoconParser implements ConfigParser<CommentedConfig> {
-	private static final ConfigParseOptions OPTIONS = ConfigParseOptions.defaults()
-																		.setAllowMissing(false)
-																		.setSyntax(ConfigSyntax.CONF);
+public final class HoconParser implements ConfigParser {
+	private Path includeDirectory;
+	private IncludeCache includeCache = new IncludeCache();
 
 	@Override
-	public ConfigFormat<CommentedConfig> getFormat() {
+	public ConfigFormat getFormat() {
 		return HoconFormat.instance();
 	}
 
 	@Override
-	public CommentedConfig parse(Reader reader) {
-		CommentedConfig config = HoconFormat.instance().createConfig();
-		parse(reader, config, ParsingMode.MERGE);
+	public void parse(CharacterInput input, Config destination, ParsingMode parsingMode) {
+		Path directory = (includeDirectory == null) ? Paths.get("") : includeDirectory;
+		parse(input, destination, parsingMode, directory);
+	}
+
+	@Override
+	public Config parse(Path path, Charset cs, FileNotFoundAction notFoundAction) {
+		Config config = new MemoryConfig();
+		parse(path, cs, config, ParsingMode.REPLACE, notFoundAction);
 		return config;
 	}
 
 	@Override
-	public void parse(Reader reader, Config destination, ParsingMode parsingMode) {
+	public void parse(Path path, Charset cs, Config destination, ParsingMode parsingMode,
+					  FileNotFoundAction notFoundAction) {
 		try {
-			ConfigObject parsed = ConfigFactory.parseReader(reader, OPTIONS).resolve().root();
-			parsingMode.prepareParsing(destination);
-			if (destination instanceof CommentedConfig) {
-				put(parsed, (CommentedConfig)destination, parsingMode);
-			} else {
-				put(parsed, destination, parsingMode);
+			if (Files.notExists(path) && !notFoundAction.run(path, getFormat())) {
+				return;// nothing to parse
+			}
+			try (BufferedReader reader = Files.newBufferedReader(path, cs)) {
+				CharacterInput input = new ReaderInput(reader);
+				if (cs == StandardCharsets.UTF_8) {
+					int first = input.read();// skips the BOM
+					if (first != -1 && first != '\uFEFF') {
+						input.pushBack((char)first);
+					}
+				}
+				// The relative includes are resolved against the directory of the file
+				Path directory = path.toAbsolutePath().getParent();
+				parse(input, destination, parsingMode, directory);
 			}
-		} catch (Exception e) {
-			throw new ParsingException("HOCON parsing failed", e);
+		} catch (IOException e) {
+			throw ParsingException.readFailed(e);
 		}
 	}
 
-	private static void put(ConfigObject typesafeConfig, Config destination,
-							ParsingMode parsingMode) {
-		for (Map.Entry<String, ConfigValue> entry : typesafeConfig.entrySet()) {
-			List<String> path = ConfigUtil.splitPath(entry.getKey());
-			parsingMode.put(destination, path, unwrap(entry.getValue().unwrapped()));
+	private void parse(CharacterInput input, Config destination, ParsingMode parsingMode,
+					   Path directory) {
+		Config root = destination.createSubConfig();
+		new HoconReader(input, directory, root, Collections.emptyList(), includeCache, null)
+			.readDocument(root);
+		new SubstitutionResolver(root).resolveAll();
+
+		parsingMode.prepareParsing(destination);
+		for (Map.Entry<String, EntryData> entry : root.dataMap().entrySet()) {
+			final String[] key = {entry.getKey()};
+			final Object value = entry.getValue().getValue();
+			parsingMode.put(destination, key, value);
+			final String comment = entry.getValue().get(COMMENT);
+			if (comment != null && destination.get(key) == value) {
+				destination.setComment(key, comment);
+			}
 		}
 	}
 
-	private static void put(ConfigObject typesafeConfig, CommentedConfig destination,
-							ParsingMode parsingMode) {
-		for (Map.Entry<String, ConfigValue> entry : typesafeConfig.entrySet()) {
-			List<String> path = Collections.singletonList(entry.getKey());
-			ConfigValue value = entry.getValue();
-			if (value instanceof ConfigObject) {
-				CommentedConfig subConfig = destination.createSubConfig();
-				put((ConfigObject)value, subConfig, parsingMode);
-				parsingMode.put(destination, path, subConfig);
-			} else {
-				parsingMode.put(destination, path, unwrap(value.unwrapped()));
-			}
-			List<String> comments = value.origin().comments();
-			if (!comments.isEmpty()) {
-				destination.setComment(path, String.join("\n", value.origin().comments()));
-			}
+	/**
+	 * @return the directory of the files included by the parsed data, or null to use the
+	 * working directory
+	 */
+	public Path getIncludeDirectory() {
+		return includeDirectory;
+	}
+
+	/**
+	 * Sets the directory in which the files included by the parsed data are searched, when that
+	 * data doesn't come from a file. The files included by a file, parsed with
+	 * {@link #parse(Path, Charset, Config, ParsingMode, FileNotFoundAction)} or included by
+	 * another file, are always searched in the directory of that file. By default (null), the
+	 * includes of the data that doesn't come from a file are relative to the working directory.
+	 *
+	 * @param includeDirectory the directory of the included files, or null
+	 * @return this parser
+	 */
+	public HoconParser setIncludeDirectory(Path includeDirectory) {
+		this.includeDirectory = includeDirectory;
+		return this;
+	}
+
+	/**
+	 * @return true if the included files are cached, false otherwise
+	 */
+	public boolean isCachingIncludes() {
+		return includeCache != null;
+	}
+
+	/**
+	 * Enables or disables the cache of the included files. When enabled (by default), an included
+	 * file is parsed again only if it, or one of the files it includes, has been modified since it
+	 * was last parsed. The modifications are detected with the last modification time of the
+	 * files. The includes of classpath resources aren't cached.
+	 *
+	 * @param cachingIncludes true to cache the included files, false to read them at each include
+	 * @return this parser
+	 */
+	public HoconParser setCachingIncludes(boolean cachingIncludes) {
+		if (!cachingIncludes) {
+			includeCache = null;
+		} else if (includeCache == null) {
+			includeCache = new IncludeCache();
 		}
+		return this;
 	}
 
-	private static Object unwrap(Object o) {
-		if (o instanceof Map) {
-			Map<String, ?> map = (Map)o;
-			Map<String, Object> unwrappedMap = new HashMap<>(map.size());
-			for (Map.Entry<String, ?> entry : map.entrySet()) {
-				unwrappedMap.put(entry.getKey(), unwrap(entry.getValue()));
-			}
-			return Config.wrap(unwrappedMap, HoconFormat.instance());
-		} else if (o instanceof List) {
-			List<?> list = (List<?>)o;
-			if (!list.isEmpty() && list.get(0) instanceof Map) {
-				List<Config> configList = new ArrayList<>();
-				for (Object element : list) {
-					configList.add((Config)unwrap(element));
-				}
-				return configList;
-			}
-		} else if (o == null) {
-			return NULL_OBJECT;
+	/**
+	 * Removes all the included files from the cache, so that they are parsed again by the next
+	 * parsing operation.
+	 */
+	public void clearIncludeCache() {
+		if (includeCache != null) {
+			includeCache.clear();
 		}
-		return o;
 	}
 }
\ No newline at end of file
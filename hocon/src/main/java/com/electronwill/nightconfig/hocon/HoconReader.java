@@ -0,0 +1,938 @@
+package com.electronwill.nightconfig.hocon;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.EntryData;
+import com.electronwill.nightconfig.core.impl.CharacterInput;
+import com.electronwill.nightconfig.core.impl.Charray;
+import com.electronwill.nightconfig.core.impl.ReaderInput;
+import com.electronwill.nightconfig.core.io.ParsingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.electronwill.nightconfig.core.StandardAttributes.COMMENT;
+
+/**
+ * Reads a HOCON document and builds the configuration directly. The substitutions are kept as
+ * {@link Substitution} and {@link Concatenation} objects, to be resolved once the whole document
+ * has been read.
+ * <p>
+ * A HoconReader is created for each parsing operation, and for each included file. When an
+ * {@link IncludeCache} is used, the included files are read as standalone fragments, which are
+ * copied at the location of each include.
+ *
+ * @author TheElectronWill
+ * @see <a href="https://github.com/lightbend/config/blob/master/HOCON.md">HOCON specification</a>
+ */
+final class HoconReader {
+	/** The chars that end an unquoted string */
+	private static final Charray UNQUOTED_END = new Charray("$\"{}[]:=,+#`^?!@*&\\ \t\n\r");
+
+	/**
+	 * The chars that end a part of a key (the '.' separates the parts of a path). The spaces don't
+	 * end a key, but the ones at its end are ignored.
+	 */
+	private static final Charray KEY_END = new Charray("$\"{}[]:=,+#`^?!@*&\\\n\r.");
+
+	private final CharacterInput input;
+	private final Path directory;
+	private final Config root;
+
+	/** The path of the value being read, from the root of the main document */
+	private final List<String> path;
+
+	/**
+	 * The path of the included document in the main document. The substitutions of an included
+	 * document are relative to it.
+	 */
+	private final List<String> prefix;
+
+	/** The cache of the included files, or null to read them at each include */
+	private final IncludeCache cache;
+
+	/**
+	 * The files read by the fragment being read, for the {@link IncludeCache}. Null if the
+	 * document isn't a cached fragment.
+	 */
+	private final Map<Path, FileTime> files;
+
+	/**
+	 * The files and resources that are being included, from the outermost one, to detect the
+	 * cyclic includes. Shared by the readers of the included documents.
+	 */
+	private final List<String> includes;
+
+	private final Charray comment = new Charray();
+	private boolean hasComment;
+
+	/**
+	 * @param input     the data to read
+	 * @param directory the directory that contains the document, to find the included files
+	 * @param root      the root of the document
+	 * @param prefix    the path of the document in the main document, empty for the main one
+	 * @param cache     the cache of the included files, or null
+	 * @param files     where to record the files read by a cached fragment, or null
+	 */
+	HoconReader(CharacterInput input, Path directory, Config root, List<String> prefix,
+				IncludeCache cache, Map<Path, FileTime> files) {
+		this(input, directory, root, prefix, cache, files, new ArrayList<>(2));
+	}
+
+	private HoconReader(CharacterInput input, Path directory, Config root, List<String> prefix,
+						IncludeCache cache, Map<Path, FileTime> files, List<String> includes) {
+		this.input = input;
+		this.directory = directory;
+		this.root = root;
+		this.prefix = prefix;
+		this.path = new ArrayList<>(prefix);
+		this.cache = cache;
+		this.files = files;
+		this.includes = includes;
+	}
+
+	/**
+	 * Reads a whole document, which may or may not be enclosed in braces, and puts its fields in
+	 * the given object.
+	 *
+	 * @param object where to put the fields
+	 */
+	void readDocument(Config object) {
+		int c = skipBlank();
+		if (c == '{') {
+			input.read();
+			readObjectContent(object, true);
+			if (skipBlank() != -1) {
+				throw error("Invalid data after the end of the root object");
+			}
+		} else if (c == '[') {
+			throw error("Invalid HOCON document: the root must be an object, not an array");
+		} else {
+			readObjectContent(object, false);
+		}
+	}
+
+	// --- Objects ---
+	/**
+	 * Reads the fields of an object, until its closing brace if it has one.
+	 */
+	private void readObjectContent(Config object, boolean braces) {
+		while (true) {
+			int c = skipBlank();
+			if (c == -1) {
+				if (braces) {
+					throw error("Missing '}' at the end of an object");
+				}
+				return;
+			}
+			if (c == '}') {
+				if (!braces) {
+					throw error("Unexpected '}'");
+				}
+				input.read();
+				consumeComment();// a comment before '}' isn't associated to any field
+				return;
+			}
+			if (isInclude()) {
+				consumeComment();
+				readInclude(object);
+			} else {
+				readField(object);
+			}
+			// Separator: ',' or newline, optionally preceded by a comment
+			c = skipSpaces();
+			if (c == '#' || (c == '/' && input.peekAfter(1) == '/')) {
+				skipComment();// a comment after a value isn't associated to it
+				c = input.peek();
+			}
+			if (c == ',') {
+				input.read();
+			} else if (c != '\n' && c != '}' && c != -1) {
+				throw error("Invalid character '" + (char)c + "' after a field");
+			}
+		}
+	}
+
+	/**
+	 * Reads a field: a key, followed by '=', ':', '+=' or nothing if the value is an object.
+	 * A key like {@code a.b.c} creates the objects {@code a} and {@code a.b} if needed.
+	 */
+	private void readField(Config object) {
+		final String comment = consumeComment();
+		final List<String> key = readPath(false);
+		boolean append = false;
+		int c = skipSpaces();
+		if (c == '=' || c == ':') {
+			input.read();
+		} else if (c == '+' && input.peekAfter(1) == '=') {
+			input.read();
+			input.read();
+			append = true;
+		} else if (c != '{') {
+			throw error("Invalid field " + key + ": expected '=', ':', '+=' or '{' after the key");
+		}
+		Config parent = object;
+		final int last = key.size() - 1;
+		for (int i = 0; i < last; i++) {
+			path.add(key.get(i));
+			parent = subObject(parent, key.get(i));
+		}
+		path.add(key.get(last));
+		skipSpaces();
+		Object value = readValue();
+		setField(parent, key.get(last), value, append, comment);
+		for (int i = 0; i <= last; i++) {
+			path.remove(path.size() - 1);
+		}
+	}
+
+	/**
+	 * Gets the object that is the value of the key, and creates it if needed.
+	 */
+	private Config subObject(Config parent, String key) {
+		Object existing = Concatenation.get(parent, key);
+		if (existing instanceof Config) {
+			return (Config)existing;
+		}
+		Config sub = parent.createSubConfig();
+		if (Concatenation.isUnresolved(existing)) {// merges the new fields with the substitution
+			parent.set(new String[] {key}, new Concatenation(Arrays.asList(existing, sub)));
+		} else {
+			parent.set(new String[] {key}, sub);
+		}
+		return sub;
+	}
+
+	private void setField(Config parent, String key, Object value, boolean append,
+						  String comment) {
+		final String[] keyPath = {key};
+		final Object existing = Concatenation.get(parent, key);
+		if (append) {// a += b is like a = ${?a} [b]
+			List<Object> parts = new ArrayList<>(2);
+			List<Object> list = new ArrayList<>(1);
+			list.add(value);
+			if (existing == Substitution.MISSING && files != null) {
+				// In a fragment, the field may exist at the location of the include
+				Substitution self = new Substitution(path.toArray(new String[0]), true);
+				self.selfReference = true;
+				parts.add(self);
+				parts.add(list);
+				value = new Concatenation(parts);
+			} else if (existing == Substitution.MISSING) {
+				value = list;
+			} else {
+				parts.add(existing);
+				parts.add(list);
+				value = Concatenation.isUnresolved(existing) ? new Concatenation(parts)
+															: Concatenation.join(parts);
+			}
+		} else if (value instanceof Config && existing instanceof Config) {
+			Concatenation.merge((Config)existing, (Config)value);
+			value = existing;
+		} else if (value instanceof Config && Concatenation.isUnresolved(existing)) {
+			value = new Concatenation(Arrays.asList(existing, value));
+		} else if (value instanceof Substitution && existing != Substitution.MISSING
+				   && ((Substitution)value).previous == Substitution.MISSING) {
+			((Substitution)value).previous = existing;
+		}
+		parent.set(keyPath, value);
+		if (comment != null) {
+			parent.setComment(keyPath, comment);
+		}
+	}
+
+	// --- Includes ---
+	private static final char[] INCLUDE = "include".toCharArray();
+
+	/**
+	 * Checks if the next chars are the keyword {@code include} followed by a quoted name or by
+	 * file(, classpath(, etc. Otherwise "include" is a normal key.
+	 */
+	private boolean isInclude() {
+		int i = 0;
+		for (; i < INCLUDE.length; i++) {
+			if (input.peekAfter(i) != INCLUDE[i]) {
+				return false;
+			}
+		}
+		int next = input.peekAfter(i);
+		if (next != ' ' && next != '\t') {
+			return false;
+		}
+		while ((next = input.peekAfter(++i)) == ' ' || next == '\t');
+		return next == '"' || (next >= 'a' && next <= 'z');
+	}
+
+	/**
+	 * Reads an include statement: {@code include "name"}, {@code include file("name")},
+	 * {@code include classpath("name")}, and their {@code required(...)} versions.
+	 */
+	private void readInclude(Config object) {
+		for (int i = 0; i < INCLUDE.length; i++) {
+			input.read();
+		}
+		skipSpaces();
+		String kind = readIncludeKind();
+		final boolean required = "required".equals(kind);
+		if (required) {
+			skipSpaces();
+			kind = readIncludeKind();
+		}
+		skipSpaces();
+		if (input.read() != '"') {
+			throw error("Invalid include: expected a quoted resource name");
+		}
+		final String name = readQuotedString();
+		if (kind != null) {
+			expectClosingParenthesis();
+		}
+		if (required) {
+			expectClosingParenthesis();
+		}
+		if ("url".equals(kind)) {
+			throw error("Unsupported include of an URL: " + name);
+		}
+		include(object, name, "classpath".equals(kind), required);
+	}
+
+	/**
+	 * Reads {@code file(}, {@code classpath(}, {@code url(} or {@code required(}.
+	 *
+	 * @return the kind of include, or null if there's no parenthesis
+	 */
+	private String readIncludeKind() {
+		if (input.peek() == '"') {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder(9);
+		int c;
+		while ((c = input.read()) >= 'a' && c <= 'z') {
+			sb.append((char)c);
+		}
+		String kind = sb.toString();
+		if (c != '(' || !(kind.equals("file") || kind.equals("classpath") || kind.equals("url")
+						  || kind.equals("required"))) {
+			throw error("Invalid include: " + kind);
+		}
+		return kind;
+	}
+
+	private void expectClosingParenthesis() {
+		if (skipSpaces() != ')') {
+			throw error("Invalid include: missing ')'");
+		}
+		input.read();
+	}
+
+	/**
+	 * Reads an included file and merges it into the current object. A missing file is ignored,
+	 * unless the include is required.
+	 */
+	private void include(Config object, String name, boolean classpath, boolean required) {
+		if (cache != null && !classpath) {
+			includeCached(object, name, required);
+			return;
+		}
+		Reader reader;
+		Path includedDirectory = directory;
+		String source = "classpath:" + name;
+		try {
+			if (classpath) {
+				InputStream stream = HoconReader.class.getClassLoader().getResourceAsStream(name);
+				reader = (stream == null) ? null
+										  : new InputStreamReader(stream, StandardCharsets.UTF_8);
+			} else {
+				Path file = findIncludedFile(name);
+				if (file == null) {
+					reader = null;
+				} else {
+					file = file.toAbsolutePath().normalize();
+					source = file.toString();
+					reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+					includedDirectory = file.getParent();
+				}
+			}
+		} catch (IOException e) {
+			throw ParsingException.readFailed(e);
+		}
+		if (reader == null) {
+			if (required) {
+				throw error("Missing required include: " + name);
+			}
+			return;
+		}
+		try (Reader r = reader) {
+			enterInclude(source);
+			try {
+				CharacterInput includedInput = new ReaderInput(r);
+				List<String> includePath = new ArrayList<>(path);
+				new HoconReader(includedInput, includedDirectory, root, includePath, null, null,
+								includes).readDocument(object);
+			} finally {
+				exitInclude();
+			}
+		} catch (IOException e) {
+			throw ParsingException.readFailed(e);
+		}
+	}
+
+	/**
+	 * Includes a file with the {@link IncludeCache}: the file is parsed as a standalone fragment,
+	 * unless it hasn't changed since the last time, and the fragment is copied here.
+	 */
+	private void includeCached(Config object, String name, boolean required) {
+		final Path file = findIncludedFile(name);
+		if (file == null) {
+			if (required) {
+				throw error("Missing required include: " + name);
+			}
+			return;
+		}
+		final String source = file.toAbsolutePath().normalize().toString();
+		final IncludeCache.Fragment fragment;
+		enterInclude(source);
+		try {
+			fragment = cache.get(file, this::readFragment);
+		} finally {
+			exitInclude();
+		}
+		if (files != null) {
+			files.putAll(fragment.files);
+		}
+		Config content = (Config)instantiate(fragment.content, path, new ArrayList<>(path));
+		Concatenation.merge(object, content);
+	}
+
+	/**
+	 * Reads an included file as a standalone fragment, whose substitutions are relative to it.
+	 */
+	private IncludeCache.Fragment readFragment(Path file) {
+		final Map<Path, FileTime> fragmentFiles = new HashMap<>();
+		// Before reading, so that a modification during the reading isn't missed
+		fragmentFiles.put(file, IncludeCache.lastModified(file));
+		final Config content = root.createSubConfig();
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			new HoconReader(new ReaderInput(reader), file.getParent(), content,
+							Collections.emptyList(), cache, fragmentFiles, includes)
+				.readDocument(content);
+		} catch (IOException e) {
+			throw ParsingException.readFailed(e);
+		}
+		return new IncludeCache.Fragment(content, fragmentFiles);
+	}
+
+	/**
+	 * Copies a value of a cached fragment to the location of an include. The substitutions of the
+	 * fragment are relative to it, therefore they are prefixed by the location of the include.
+	 *
+	 * @param value       the value to copy
+	 * @param includePath the location of the include in the main document
+	 * @param valuePath   the location of the value in the main document
+	 * @return the copy
+	 */
+	private Object instantiate(Object value, List<String> includePath, List<String> valuePath) {
+		if (value instanceof Config) {
+			final Config object = (Config)value;
+			final Config copy = root.createSubConfig();
+			for (Map.Entry<String, EntryData> entry : object.dataMap().entrySet()) {
+				final String[] key = {entry.getKey()};
+				valuePath.add(key[0]);
+				copy.set(key, instantiate(entry.getValue().getValue(), includePath, valuePath));
+				valuePath.remove(valuePath.size() - 1);
+				final String comment = entry.getValue().get(COMMENT);
+				if (comment != null) {
+					copy.setComment(key, comment);
+				}
+			}
+			return copy;
+		}
+		if (value instanceof List) {
+			final List<?> list = (List<?>)value;
+			final List<Object> copy = new ArrayList<>(list.size());
+			for (Object element : list) {
+				copy.add(instantiate(element, includePath, valuePath));
+			}
+			return copy;
+		}
+		if (value instanceof Concatenation) {
+			final List<Object> parts = ((Concatenation)value).parts;
+			final List<Object> copy = new ArrayList<>(parts.size());
+			for (Object part : parts) {
+				copy.add(instantiate(part, includePath, valuePath));
+			}
+			return new Concatenation(copy);
+		}
+		if (value instanceof Substitution) {
+			final Substitution substitution = (Substitution)value;
+			final String[] absolutePath = new String[includePath.size() + substitution.path.length];
+			for (int i = 0; i < includePath.size(); i++) {
+				absolutePath[i] = includePath.get(i);
+			}
+			System.arraycopy(substitution.path, 0, absolutePath, includePath.size(),
+							 substitution.path.length);
+			final Substitution copy = new Substitution(absolutePath, substitution.optional);
+			if (!includePath.isEmpty()) {
+				final String[] unprefixed = substitution.unprefixedPath;
+				copy.unprefixedPath = (unprefixed == null) ? substitution.path : unprefixed;
+			}
+			copy.selfReference = substitution.selfReference;
+			if (substitution.previous != Substitution.MISSING) {
+				copy.previous = instantiate(substitution.previous, includePath, valuePath);
+			} else if (substitution.selfReference) {// refers to the value before the include
+				copy.previous = lookup(valuePath);
+			}
+			return copy;
+		}
+		return value;
+	}
+
+	/**
+	 * Marks a file or resource as being included, and checks that it isn't already being
+	 * included: a document that includes itself, directly or not, would be read forever.
+	 *
+	 * @param source the absolute path of the file, or the name of the classpath resource
+	 */
+	private void enterInclude(String source) {
+		if (includes.contains(source)) {
+			StringBuilder cycle = new StringBuilder();
+			for (String include : includes.subList(includes.indexOf(source), includes.size())) {
+				cycle.append(include).append(" -> ");
+			}
+			throw error("Cyclic include: " + cycle + source);
+		}
+		includes.add(source);
+	}
+
+	private void exitInclude() {
+		includes.remove(includes.size() - 1);
+	}
+
+	/**
+	 * Finds an included file. If it doesn't exist and its name has no extension, tries with the
+	 * ".conf" extension, like the reference implementation. The files that are tried are recorded
+	 * in {@link #files}, because they may be created later.
+	 *
+	 * @return the file, or null if not found
+	 */
+	private Path findIncludedFile(String name) {
+		Path file = directory.resolve(name);
+		if (Files.isRegularFile(file)) {
+			return file;
+		}
+		recordMissing(file);
+		if (file.getFileName().toString().indexOf('.') == -1) {
+			Path conf = directory.resolve(name + ".conf");
+			if (Files.isRegularFile(conf)) {
+				return conf;
+			}
+			recordMissing(conf);
+		}
+		return null;
+	}
+
+	private void recordMissing(Path file) {
+		if (files != null) {
+			files.put(file.toAbsolutePath().normalize(), null);
+		}
+	}
+
+	// --- Values ---
+	/**
+	 * Reads a value, which may be a concatenation of several values, until the end of the line,
+	 * a ',' or the end of the enclosing object or array.
+	 *
+	 * @return the value
+	 */
+	private Object readValue() {
+		List<Object> parts = new ArrayList<>(1);
+		String space = null;// the spaces before the next part
+		boolean unquoted = false, unresolved = false;
+		loop:
+		while (true) {
+			final int c = input.peek();
+			final Object part;
+			switch (c) {
+				case ' ':
+				case '\t':
+				case '\r':
+					space = readSpaces();
+					continue;
+				case -1:
+				case '\n':
+				case ',':
+				case '}':
+				case ']':
+				case '#':
+					break loop;
+				case '"':
+					input.read();
+					part = readQuotedString();
+					unquoted = false;
+					break;
+				case '{': {
+					input.read();
+					Config object = root.createSubConfig();
+					readObjectContent(object, true);
+					part = object;
+					break;
+				}
+				case '[':
+					input.read();
+					part = readArray();
+					break;
+				case '$':
+					if (input.peekAfter(1) != '{') {
+						throw error("Invalid character '$' in an unquoted string");
+					}
+					input.read();
+					input.read();
+					part = readSubstitution();
+					unresolved = true;
+					break;
+				case '/':
+					if (input.peekAfter(1) == '/') {
+						break loop;// comment
+					}
+					// fall through: the '/' is part of an unquoted string
+				default:
+					part = readUnquoted();
+					unquoted = true;
+			}
+			if (space != null && !parts.isEmpty()) {
+				parts.add(space);
+			}
+			space = null;
+			parts.add(part);
+		}
+		if (parts.isEmpty()) {
+			throw error("Missing value");
+		}
+		if (parts.size() == 1) {
+			Object value = parts.get(0);
+			return unquoted ? convertUnquoted((String)value) : value;
+		}
+		return unresolved ? new Concatenation(parts) : Concatenation.join(parts);
+	}
+
+	private List<Object> readArray() {
+		List<Object> list = new ArrayList<>();
+		while (true) {
+			int c = skipBlank();
+			consumeComment();// the comments of the elements aren't kept
+			if (c == ']') {
+				input.read();
+				return list;
+			}
+			if (c == -1) {
+				throw error("Missing ']' at the end of an array");
+			}
+			list.add(readValue());
+			c = skipSpaces();
+			if (c == '#' || (c == '/' && input.peekAfter(1) == '/')) {
+				skipComment();
+				c = input.peek();
+			}
+			if (c == ',') {
+				input.read();
+			} else if (c != '\n' && c != ']') {
+				throw error("Invalid character '" + (char)c + "' in an array");
+			}
+		}
+	}
+
+	/**
+	 * Reads a substitution, after its "${".
+	 */
+	private Substitution readSubstitution() {
+		boolean optional = false;
+		if (input.peek() == '?') {
+			input.read();
+			optional = true;
+		}
+		List<String> relativePath = readPath(true);
+		if (input.read() != '}') {
+			throw error("Invalid substitution: missing '}'");
+		}
+		List<String> absolutePath = new ArrayList<>(prefix.size() + relativePath.size());
+		absolutePath.addAll(prefix);
+		absolutePath.addAll(relativePath);
+		Substitution substitution = new Substitution(absolutePath.toArray(new String[0]),
+													 optional);
+		if (!prefix.isEmpty()) {
+			substitution.unprefixedPath = relativePath.toArray(new String[0]);
+		}
+		if (absolutePath.equals(path)) {// self-reference: refers to the previous value
+			substitution.selfReference = true;
+			substitution.previous = lookup(absolutePath);
+		}
+		return substitution;
+	}
+
+	/**
+	 * Gets a value that has already been read, without resolving it.
+	 */
+	private Object lookup(List<String> valuePath) {
+		Object current = root;
+		for (String key : valuePath) {
+			if (!(current instanceof Config)) {
+				return Substitution.MISSING;
+			}
+			current = Concatenation.get((Config)current, key);
+		}
+		return current;
+	}
+
+	/**
+	 * Reads a path expression, like {@code a.b."c.d"}. The spaces inside an unquoted key are kept,
+	 * like in {@code foo bar = 1}, and the ones at the end of the path are ignored.
+	 *
+	 * @param substitution true to read the path of a substitution, false for a key
+	 */
+	private List<String> readPath(boolean substitution) {
+		List<String> keys = new ArrayList<>(2);
+		StringBuilder key = new StringBuilder();
+		boolean empty = true;
+		while (true) {
+			int c = input.peek();
+			if (c == ' ' || c == '\t') {
+				String spaces = readSpaces();// kept only if the path continues after them
+				c = input.peek();
+				if (c != '.' && c != '"' && (c == -1 || KEY_END.contains((char)c)
+								 || (c == '/' && input.peekAfter(1) == '/'))) {
+					break;
+				}
+				key.append(spaces);
+			} else if (c == '"') {
+				input.read();
+				key.append(readQuotedString());
+				empty = false;
+			} else if (c == '.') {
+				input.read();
+				if (empty) {
+					throw error("Invalid path: empty key before '.'");
+				}
+				keys.add(key.toString());
+				key.setLength(0);
+				empty = true;
+			} else if (c == -1 || KEY_END.contains((char)c)
+					   || (c == '/' && input.peekAfter(1) == '/')) {
+				break;
+			} else {
+				key.append((char)input.read());
+				empty = false;
+			}
+		}
+		if (empty) {
+			throw error(substitution ? "Invalid substitution: empty path" : "Missing key");
+		}
+		keys.add(key.toString());
+		return keys;
+	}
+
+	/**
+	 * Reads an unquoted string, which stops at the first space or forbidden char.
+	 */
+	private String readUnquoted() {
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = input.peek()) != -1 && !UNQUOTED_END.contains((char)c)
+			   && !(c == '/' && input.peekAfter(1) == '/')) {
+			sb.append((char)input.read());
+		}
+		if (sb.length() == 0) {
+			throw error("Invalid character '" + (char)c + "' at the beginning of a value");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Converts an unquoted value to a boolean, null or number if possible.
+	 */
+	private static Object convertUnquoted(String value) {
+		switch (value) {
+			case "true":
+				return Boolean.TRUE;
+			case "false":
+				return Boolean.FALSE;
+			case "null":
+				return null;
+		}
+		final char first = value.charAt(0);
+		if ((first < '0' || first > '9') && first != '-') {
+			return value;
+		}
+		try {
+			long l = Long.parseLong(value);
+			return (l == (int)l) ? (Object)(int)l : (Object)l;
+		} catch (NumberFormatException e) {
+			// not an integer
+		}
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			return value;// not a number
+		}
+	}
+
+	/**
+	 * Reads a quoted string, after its first quote. Handles the triple-quoted strings, which
+	 * contain no escape sequences.
+	 */
+	private String readQuotedString() {
+		if (input.peek() == '"' && input.peekAfter(1) == '"') {// """multiline"""
+			input.read();
+			input.read();
+			StringBuilder sb = new StringBuilder();
+			int c;
+			while ((c = input.read()) != -1) {
+				if (c == '"' && input.peek() == '"' && input.peekAfter(1) == '"') {
+					while (input.peekAfter(2) == '"') {// """a"""" is a" followed by """
+						sb.append('"');
+						input.read();
+					}
+					input.read();
+					input.read();
+					return sb.toString();
+				}
+				sb.append((char)c);
+			}
+			throw error("Missing \"\"\" at the end of a multiline string");
+		}
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = input.read()) != '"') {
+			if (c == -1 || c == '\n') {
+				throw error("Missing '\"' at the end of a string");
+			}
+			if (c == '\\') {
+				sb.append(readEscape());
+			} else {
+				sb.append((char)c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private char readEscape() {
+		int c = input.read();
+		switch (c) {
+			case '"':
+			case '\\':
+			case '/':
+				return (char)c;
+			case 'b':
+				return '\b';
+			case 'f':
+				return '\f';
+			case 'n':
+				return '\n';
+			case 'r':
+				return '\r';
+			case 't':
+				return '\t';
+			case 'u':
+				Charray hex = input.readExactly(4);
+				try {
+					return (char)Integer.parseInt(hex.toString(), 16);
+				} catch (NumberFormatException e) {
+					throw error("Invalid escape sequence \\u" + hex);
+				}
+			default:
+				throw error("Invalid escape sequence \\" + (char)c);
+		}
+	}
+
+	// --- Spaces and comments ---
+	/**
+	 * Skips the spaces, newlines and comments. The comments are kept to be associated to the next
+	 * field.
+	 *
+	 * @return the next char, which hasn't been read, or -1 if there's no more data
+	 */
+	private int skipBlank() {
+		while (true) {
+			int c = input.peek();
+			if (c == '#' || (c == '/' && input.peekAfter(1) == '/')) {
+				readComment();
+			} else if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\uFEFF') {
+				input.read();
+			} else {
+				return c;
+			}
+		}
+	}
+
+	/**
+	 * Skips the spaces, but not the newlines.
+	 *
+	 * @return the next char, which hasn't been read, or -1 if there's no more data
+	 */
+	private int skipSpaces() {
+		int c;
+		while ((c = input.peek()) == ' ' || c == '\t' || c == '\r') {
+			input.read();
+		}
+		return c;
+	}
+
+	private String readSpaces() {
+		StringBuilder sb = new StringBuilder(1);
+		int c;
+		while ((c = input.peek()) == ' ' || c == '\t' || c == '\r') {
+			sb.append((char)input.read());
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Reads a comment, without its prefix "#" or "//", and adds it to the current comment.
+	 */
+	private void readComment() {
+		if (input.read() == '/') {
+			input.read();// second '/' of the "//" prefix
+		}
+		if (hasComment) {
+			comment.append('\n');
+		}
+		int c;
+		while ((c = input.peek()) != -1 && c != '\n') {
+			input.read();
+			if (c != '\r') {
+				comment.append((char)c);
+			}
+		}
+		hasComment = true;
+	}
+
+	private void skipComment() {
+		int c;
+		while ((c = input.peek()) != -1 && c != '\n') {
+			input.read();
+		}
+	}
+
+	private String consumeComment() {
+		if (!hasComment) {
+			return null;
+		}
+		String result = comment.toString();
+		comment.clear();
+		hasComment = false;
+		return result;
+	}
+
+	private ParsingException error(String message) {
+		return new ParsingException(message + " (line " + input.line() + ")");
+	}
+}
\ No newline at end of file
@@ -1,21 +1,21 @@
 package com.electronwill.nightconfig.hocon;
 
-import com.electronwill.nightconfig.core.UnmodifiableCommentedConfig;
 import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.UnmodifiableEntryData;
 import com.electronwill.nightconfig.core.impl.CharacterOutput;
+import com.electronwill.nightconfig.core.impl.ParallelWriting;
 import com.electronwill.nightconfig.core.impl.Utils;
-import com.electronwill.nightconfig.core.impl.WriterOutput;
 import com.electronwill.nightconfig.core.io.*;
-import com.electronwill.nightconfig.core.utils.FakeUnmodifiableCommentedConfig;
 import com.electronwill.nightconfig.core.utils.StringUtils;
 
-import java.io.Writer;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
 
 import static com.electronwill.nightconfig.core.NullObject.NULL_OBJECT;
+import static com.electronwill.nightconfig.core.StandardAttributes.COMMENT;
 
 /**
  * A configurable HOCON writer.
@@ -45,22 +45,48 @@ public final class HoconWriter implements ConfigWriter {
 	private char[] indent = IndentStyle.TABS.chars;
 	private char[] kvSeparator = KeyValueSeparatorStyle.COLON.chars;
 	private char[] commentPrefix = CommentStyle.HASH.chars;
+	private ParallelWriting parallelWriting;// null to write sequentially
 	private int currentIndentLevel;
 
+	public HoconWriter() {}
+
+	/**
+	 * Creates a writer with the same settings as another one, to write a part of a config in
+	 * parallel.
+	 */
+	private HoconWriter(HoconWriter settings, int indentLevel) {
+		this.indentObjectElementsPredicate = settings.indentObjectElementsPredicate;
+		this.indentArrayElementsPredicate = settings.indentArrayElementsPredicate;
+		this.newlineAfterObjectStart = settings.newlineAfterObjectStart;
+		this.newline = settings.newline;
+		this.indent = settings.indent;
+		this.kvSeparator = settings.kvSeparator;
+		this.commentPrefix = settings.commentPrefix;
+		this.parallelWriting = settings.parallelWriting;
+		this.currentIndentLevel = indentLevel;
+	}
+
+	/**
+	 * Returns a writer that writes the values of a small object or array sequentially. These
+	 * values are small too, so their size doesn't need to be estimated again.
+	 */
+	private HoconWriter sequentialWriter() {
+		if (parallelWriting == null) {
+			return this;
+		}
+		HoconWriter writer = new HoconWriter(this, currentIndentLevel);
+		writer.parallelWriting = null;
+		return writer;
+	}
+
 	// --- Writer's methods ---
 	@Override
-	public void write(UnmodifiableConfig config, Writer writer) {
+	public void write(UnmodifiableConfig config, CharacterOutput output) {
 		currentIndentLevel = -1;
-		UnmodifiableCommentedConfig commentedConfig;
-		if (config instanceof UnmodifiableCommentedConfig) {
-			commentedConfig = (UnmodifiableCommentedConfig)config;
-		} else {
-			commentedConfig = new FakeUnmodifiableCommentedConfig(config);
-		}
-		writeObject(commentedConfig, new WriterOutput(writer), true);
+		writeObject(config, output, true);
 	}
 
-	private void writeObject(UnmodifiableCommentedConfig config, CharacterOutput output, boolean root) {
+	private void writeObject(UnmodifiableConfig config, CharacterOutput output, boolean root) {
 		if (config.isEmpty()) {
 			output.write(EMPTY_OBJECT);
 			return;
@@ -71,40 +97,43 @@ public final class HoconWriter implements ConfigWriter {
 		if (newlineAfterObjectStart) {
 			output.write(newline);
 		}
-		final Iterator<? extends UnmodifiableCommentedConfig.Entry> it = config.entrySet().iterator();
 		final boolean indentElements = indentObjectElementsPredicate.test(config);
 		if (indentElements) {
 			output.write(newline);
 			increaseIndentLevel();
 		}
-		do {
-			final UnmodifiableCommentedConfig.Entry entry = it.next();
-			final String key = entry.getKey();
-			final Object value = entry.getValue();
-			final List<String> comments = StringUtils.splitLines(entry.getComment());
-			for (String comment : comments) {
-				writeIndent(output);
-				output.write(commentPrefix);
-				output.write(comment);
-				output.write(newline);
-			}
-			if (indentElements) {
-				writeIndent(output);// Indents the line
+		final Map<String, ? extends UnmodifiableEntryData> dataMap = config.dataMap();
+		if (parallelWriting != null && parallelWriting.isLarge(config)) {
+			final int size = dataMap.size();
+			final String[] keys = new String[size];
+			final UnmodifiableEntryData[] entries = new UnmodifiableEntryData[size];
+			final Object[] values = new Object[size];
+			int i = 0;
+			for (Map.Entry<String, ? extends UnmodifiableEntryData> entry : dataMap.entrySet()) {
+				keys[i] = entry.getKey();
+				entries[i] = entry.getValue();
+				values[i] = entries[i].getValue();
+				i++;
 			}
-			writeString(key, output);// key
-			if (value instanceof UnmodifiableConfig) {
-				output.write(' ');
+			int[] bounds = parallelWriting.split(values);
+			final int level = currentIndentLevel;
+			ParallelWriting.RangeWriter rangeWriter = (from, to, out) -> {
+				HoconWriter segmentWriter = new HoconWriter(this, level);
+				for (int j = from; j < to; j++) {
+					segmentWriter.writeEntry(keys[j], entries[j], out, indentElements);
+				}
+			};
+			if (bounds != null) {
+				parallelWriting.write(bounds, rangeWriter, output);
 			} else {
-				output.write(kvSeparator);
-				// HOCON allows to omit the separator if the value is a config
+				rangeWriter.write(0, size, output);
 			}
-			writeValue(value, output);// value
-			if (indentElements) {
-				output.write(newline);
-			} else {
-				output.write(',');
+		} else {
+			final HoconWriter writer = sequentialWriter();
+			for (Map.Entry<String, ? extends UnmodifiableEntryData> entry : dataMap.entrySet()) {
+				writer.writeEntry(entry.getKey(), entry.getValue(), output, indentElements);
 			}
-		} while (it.hasNext());
+		}
 		if (indentElements) {
 			decreaseIndentLevel();
 			writeIndent(output);
@@ -114,6 +143,40 @@ public final class HoconWriter implements ConfigWriter {
 		}
 	}
 
+	/**
+	 * Writes an entry of a HOCON object, with its comments, followed by a separator.
+	 */
+	private void writeEntry(String key, UnmodifiableEntryData data, CharacterOutput output,
+							boolean indentElements) {
+		final Object value = data.getValue();
+		final String comment = data.get(COMMENT);
+		if (comment != null) {
+			for (String line : StringUtils.split(comment, '\n')) {
+				int end = line.endsWith("\r") ? line.length() - 1 : line.length();
+				writeIndent(output);
+				output.write(commentPrefix);
+				output.write(line, 0, end);
+				output.write(newline);
+			}
+		}
+		if (indentElements) {
+			writeIndent(output);// Indents the line
+		}
+		writeString(key, output);// key
+		if (value instanceof UnmodifiableConfig) {
+			output.write(' ');
+		} else {
+			output.write(kvSeparator);
+			// HOCON allows to omit the separator if the value is a config
+		}
+		writeValue(value, output);// value
+		if (indentElements) {
+			output.write(newline);
+		} else {
+			output.write(',');
+		}
+	}
+
 	private void writeValue(Object v, CharacterOutput output) {
 		if (v == null || v == NULL_OBJECT) {
 			output.write(NULL_CHARS);
@@ -123,13 +186,13 @@ public final class HoconWriter implements ConfigWriter {
 			writeString(((Enum<?>)v).name(), output);
 		} else if (v instanceof Number) {
 			output.write(v.toString());
-		} else if (v instanceof UnmodifiableCommentedConfig) {
-			writeObject((UnmodifiableCommentedConfig)v, output, false);
 		} else if (v instanceof UnmodifiableConfig) {
-			writeObject(new FakeUnmodifiableCommentedConfig((UnmodifiableConfig)v), output, false);
+			writeObject((UnmodifiableConfig)v, output, false);
 		} else if (v instanceof Collection) {
 			writeArray((Collection<?>)v, output);
-		} else if (v instanceof Boolean) { writeBoolean((boolean)v, output); } else {
+		} else if (v instanceof Boolean) {
+			writeBoolean((boolean)v, output);
+		} else {
 			throw new WritingException("Unsupported value type: " + v.getClass());
 		}
 	}
@@ -143,29 +206,33 @@ public final class HoconWriter implements ConfigWriter {
 		if (newlineAfterObjectStart) {
 			output.write(newline);
 		}
-		final Iterator<?> it = collection.iterator();
 		final boolean indentElements = indentArrayElementsPredicate.test(collection);
 		if (indentElements) {
 			output.write(newline);
 			increaseIndentLevel();
 		}
-		while (true) {
-			Object value = it.next();
-			if (indentElements) {
-				writeIndent(output);
-			}
-			writeValue(value, output);
-			if (it.hasNext()) {
-				output.write(VALUE_SEPARATOR);
-				if (indentElements) {
-					output.write(newline);
+		if (parallelWriting != null && parallelWriting.isLarge(collection)) {
+			final Object[] values = collection.toArray();
+			final int size = values.length;
+			int[] bounds = parallelWriting.split(values);
+			final int level = currentIndentLevel;
+			ParallelWriting.RangeWriter rangeWriter = (from, to, out) -> {
+				HoconWriter segmentWriter = new HoconWriter(this, level);
+				for (int j = from; j < to; j++) {
+					segmentWriter.writeElement(values[j], out, indentElements, j == size - 1);
 				}
+			};
+			if (bounds != null) {
+				parallelWriting.write(bounds, rangeWriter, output);
 			} else {
-				if (indentElements) {
-					output.write(newline);
-				}
-				break;// Nothing else to write
+				rangeWriter.write(0, size, output);
 			}
+		} else {
+			final HoconWriter writer = sequentialWriter();
+			final Iterator<?> it = collection.iterator();
+			do {
+				writer.writeElement(it.next(), output, indentElements, !it.hasNext());
+			} while (it.hasNext());
 		}
 		if (indentElements) {
 			decreaseIndentLevel();
@@ -174,6 +241,23 @@ public final class HoconWriter implements ConfigWriter {
 		output.write(']');// Closes the array
 	}
 
+	/**
+	 * Writes an element of a HOCON array, followed by a separator if it's not the last one.
+	 */
+	private void writeElement(Object value, CharacterOutput output, boolean indentElements,
+							  boolean last) {
+		if (indentElements) {
+			writeIndent(output);
+		}
+		writeValue(value, output);
+		if (!last) {
+			output.write(VALUE_SEPARATOR);
+		}
+		if (indentElements) {
+			output.write(newline);
+		}
+	}
+
 	private void writeBoolean(boolean b, CharacterOutput output) {
 		if (b) {
 			output.write(TRUE_CHARS);
@@ -255,6 +339,32 @@ public final class HoconWriter implements ConfigWriter {
 		return this;
 	}
 
+	/**
+	 * Enables or disables the parallel writing. When enabled, the large objects and arrays are
+	 * split in segments that are written concurrently, then concatenated in the right order.
+	 * The result is the same as the one of the sequential writing.
+	 *
+	 * @param pool      the pool that executes the writing tasks, or null to write sequentially
+	 * @param threshold the approximate number of values (counted recursively) per task
+	 * @return this writer
+	 */
+	public HoconWriter setParallelWriting(ForkJoinPool pool, int threshold) {
+		this.parallelWriting = (pool == null) ? null : new ParallelWriting(pool, threshold);
+		return this;
+	}
+
+	/**
+	 * Enables or disables the parallel writing on the common pool, with the default threshold.
+	 *
+	 * @param parallel true to write the large objects and arrays in parallel
+	 * @return this writer
+	 * @see #setParallelWriting(ForkJoinPool, int)
+	 */
+	public HoconWriter setParallelWriting(boolean parallel) {
+		ForkJoinPool pool = parallel ? ForkJoinPool.commonPool() : null;
+		return setParallelWriting(pool, ParallelWriting.DEFAULT_THRESHOLD);
+	}
+
 	public HoconWriter setNewline(NewlineStyle newlineStyle) {
 		this.newline = newlineStyle.chars;
 		return this;
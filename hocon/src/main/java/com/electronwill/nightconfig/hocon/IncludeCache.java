@@ -0,0 +1,96 @@
+package com.electronwill.nightconfig.hocon;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.io.ParsingException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps the included files that have already been parsed, so that they aren't read again by the
+ * next parsing operations while they haven't been modified.
+ * <p>
+ * A parsed file is a {@link Fragment}, whose substitutions haven't been resolved: they're
+ * relative to the fragment, and are adapted to the location of each include. The fragments are
+ * never modified, therefore the cache can be used by several threads at the same time.
+ *
+ * @author TheElectronWill
+ */
+final class IncludeCache {
+	private final Map<Path, Fragment> fragments = new ConcurrentHashMap<>();
+
+	/**
+	 * Gets the fragment of a file. Parses the file if it isn't in the cache, or if it (or one of
+	 * the files it includes) has been modified since the last time it was parsed.
+	 *
+	 * The parser must detect the cyclic includes: a file that includes itself, directly or not,
+	 * isn't in the cache while it's being parsed.
+	 *
+	 * @param file   the file to get, which exists
+	 * @param parser parses the file
+	 * @return the fragment of the file
+	 */
+	Fragment get(Path file, Function<Path, Fragment> parser) {
+		Path key = file.toAbsolutePath().normalize();
+		Fragment fragment = fragments.get(key);
+		if (fragment == null || !fragment.isUpToDate()) {
+			// Not computeIfAbsent: the parser may include other files, and therefore call get()
+			fragment = parser.apply(key);
+			fragments.put(key, fragment);
+		}
+		return fragment;
+	}
+
+	void clear() {
+		fragments.clear();
+	}
+
+	/**
+	 * @return the last modification time of the file, or null if it doesn't exist
+	 */
+	static FileTime lastModified(Path file) {
+		try {
+			return Files.getLastModifiedTime(file);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			throw ParsingException.readFailed(e);
+		}
+	}
+
+	/**
+	 * An included file, parsed but not resolved.
+	 */
+	static final class Fragment {
+		/** the content of the file */
+		final Config content;
+
+		/**
+		 * The file and all the files it includes, directly or not, with their last modification
+		 * time when the fragment was parsed. The includes of missing files are also there, with a
+		 * null time, because they may be created later.
+		 */
+		final Map<Path, FileTime> files;
+
+		Fragment(Config content, Map<Path, FileTime> files) {
+			this.content = content;
+			this.files = files;
+		}
+
+		boolean isUpToDate() {
+			for (Map.Entry<Path, FileTime> entry : files.entrySet()) {
+				FileTime time = lastModified(entry.getKey());
+				if (time == null ? entry.getValue() != null : !time.equals(entry.getValue())) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.electronwill.nightconfig.hocon;
+
+/**
+ * An unresolved substitution {@code ${path}} or {@code ${?path}}. The substitutions are kept in
+ * the parsed configuration until the whole document has been read, and then replaced by their
+ * values by the {@link SubstitutionResolver}.
+ *
+ * @author TheElectronWill
+ */
+final class Substitution {
+	/** Marks the absence of a value */
+	static final Object MISSING = new Object();
+
+	final String[] path;
+	final boolean optional;
+
+	/**
+	 * The path as written in an included document, which is tried if {@link #path} (relative to
+	 * the location of the include) doesn't exist. Null if the substitution isn't in an included
+	 * document.
+	 */
+	String[] unprefixedPath;
+
+	/**
+	 * True if the substitution refers to the field that contains it, like in
+	 * {@code path = ${path}":/usr/bin"}. In that case it's replaced by the previous value.
+	 */
+	boolean selfReference;
+
+	/**
+	 * The value that the field had before being set to this substitution, or {@link #MISSING}.
+	 * It's used by the self-references, and by the optional substitutions that are undefined.
+	 */
+	Object previous = MISSING;
+
+	Substitution(String[] path, boolean optional) {
+		this.path = path;
+		this.optional = optional;
+	}
+
+	@Override
+	public String toString() {
+		return (optional ? "${?" : "${") + String.join(".", path) + '}';
+	}
+}
\ No newline at end of file
@@ -0,0 +1,219 @@
+package com.electronwill.nightconfig.hocon;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.EntryData;
+import com.electronwill.nightconfig.core.io.ParsingException;
+
+import java.util.*;
+
+/**
+ * Replaces the substitutions of a parsed HOCON document by their values.
+ * <p>
+ * A substitution is resolved by looking up its path in the document. If the path doesn't exist,
+ * the environment variable with the same name is used. The undefined optional substitutions are
+ * removed: a field whose value is undefined isn't created, or keeps its previous value.
+ * <p>
+ * The values are resolved at most once: when a substitution needs a value that isn't resolved
+ * yet, the value is resolved and replaced in the document, and the result of the lookup is
+ * memoized. Therefore a document where many substitutions refer to the same path, or to chains of
+ * substitutions, is resolved in linear time.
+ * <p>
+ * When a field that overrides a previous value is part of a cycle, like {@code bar} in
+ * {@code bar = ${baz}, bar = ${foo}, foo = ${bar}}, the field uses its previous value instead,
+ * like a self-reference. The other cycles are errors.
+ *
+ * @author TheElectronWill
+ */
+final class SubstitutionResolver {
+	/** Marks the value of an undefined optional substitution */
+	private static final Object UNDEFINED = new Object();
+
+	/** Marks a path that hasn't been looked up yet */
+	private static final Object NOT_CACHED = new Object();
+
+	private final Config root;
+
+	/** The substitutions being resolved, in order, to detect and report the cycles */
+	private final List<Substitution> resolving = new ArrayList<>();
+
+	/** The memoized results of {@link #lookup(String[])} */
+	private final Map<List<String>, Object> resolvedPaths = new HashMap<>();
+
+	SubstitutionResolver(Config root) {
+		this.root = root;
+	}
+
+	/**
+	 * Resolves all the substitutions of the document.
+	 */
+	void resolveAll() {
+		resolveObject(root);
+	}
+
+	private void resolveObject(Config object) {
+		Iterator<Map.Entry<String, EntryData>> it = object.dataMap().entrySet().iterator();
+		while (it.hasNext()) {
+			EntryData data = it.next().getValue();
+			Object value = data.getValue();
+			if (Concatenation.isUnresolved(value)) {
+				Object resolved = resolve(value);
+				if (resolved == UNDEFINED) {
+					it.remove();
+				} else {
+					data.setValue(resolved);
+				}
+			} else if (value instanceof Config) {
+				resolveObject((Config)value);
+			} else if (value instanceof List) {
+				resolveList((List<?>)value);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void resolveList(List<?> list) {
+		ListIterator<Object> it = ((List<Object>)list).listIterator();
+		while (it.hasNext()) {
+			Object resolved = resolve(it.next());
+			if (resolved == UNDEFINED) {
+				it.remove();
+			} else {
+				it.set(resolved);
+			}
+		}
+	}
+
+	/**
+	 * Resolves a value recursively.
+	 *
+	 * @return the resolved value, or {@link #UNDEFINED}
+	 */
+	private Object resolve(Object value) {
+		if (value instanceof Substitution) {
+			return resolveSubstitution((Substitution)value);
+		}
+		if (value instanceof Concatenation) {
+			List<Object> parts = ((Concatenation)value).parts;
+			List<Object> resolvedParts = new ArrayList<>(parts.size());
+			for (Object part : parts) {
+				Object resolved = resolve(part);
+				if (resolved != UNDEFINED) {
+					resolvedParts.add(resolved);
+				}
+			}
+			return resolvedParts.isEmpty() ? UNDEFINED : Concatenation.join(resolvedParts);
+		}
+		if (value instanceof Config) {
+			resolveObject((Config)value);
+		} else if (value instanceof List) {
+			resolveList((List<?>)value);
+		}
+		return value;
+	}
+
+	private Object resolveSubstitution(Substitution substitution) {
+		final int index = resolving.indexOf(substitution);// Substitution uses the identity
+		if (index != -1) {
+			throw new CycleException(new ArrayList<>(resolving.subList(index, resolving.size())),
+									 substitution);
+		}
+		resolving.add(substitution);
+		try {
+			Object value;
+			if (substitution.selfReference) {
+				value = substitution.previous;
+			} else {
+				value = lookup(substitution.path);
+				if (value == Substitution.MISSING && substitution.unprefixedPath != null) {
+					value = lookup(substitution.unprefixedPath);
+				}
+			}
+			if (value != Substitution.MISSING) {
+				// Copies the objects and arrays, which may be modified independently
+				return Concatenation.copy(resolve(value));
+			}
+			String[] name = (substitution.unprefixedPath == null) ? substitution.path
+																 : substitution.unprefixedPath;
+			String variable = System.getenv(String.join(".", name));
+			if (variable != null) {
+				return variable;
+			}
+			if (!substitution.optional) {
+				throw new ParsingException("Unresolved substitution " + substitution);
+			}
+			if (!substitution.selfReference && substitution.previous != Substitution.MISSING) {
+				return resolve(substitution.previous);
+			}
+			return UNDEFINED;
+		} catch (CycleException e) {
+			if (substitution.selfReference || substitution.previous == Substitution.MISSING
+				|| !e.cycle.contains(substitution)) {
+				throw e;
+			}
+			// The field overrides a previous value: looks through to that value
+			return Concatenation.copy(resolve(substitution.previous));
+		} finally {
+			resolving.remove(resolving.size() - 1);
+		}
+	}
+
+	/**
+	 * Gets the value at the given path. The values on the path are resolved if needed, and
+	 * replaced by their resolved value in the document. The result is memoized.
+	 *
+	 * @return the resolved value, or {@link Substitution#MISSING} if there is no such value
+	 */
+	private Object lookup(String[] path) {
+		final List<String> key = Arrays.asList(path);
+		final Object cached = resolvedPaths.getOrDefault(key, NOT_CACHED);
+		if (cached != NOT_CACHED) {
+			return cached;
+		}
+		Object current = root;
+		for (String part : path) {
+			if (!(current instanceof Config)) {
+				current = Substitution.MISSING;
+				break;
+			}
+			EntryData data = ((Config)current).dataMap().get(part);
+			if (data == null) {
+				current = Substitution.MISSING;
+				break;
+			}
+			current = data.getValue();
+			if (Concatenation.isUnresolved(current)) {
+				current = resolve(current);
+				if (current == UNDEFINED) {
+					// Not removed here, because the object may be iterated by resolveObject
+					current = Substitution.MISSING;
+					break;
+				}
+				data.setValue(current);
+			}
+		}
+		resolvedPaths.put(key, current);
+		return current;
+	}
+
+	/**
+	 * Thrown when a substitution refers to itself through other substitutions.
+	 */
+	private static final class CycleException extends ParsingException {
+		/** The substitutions of the cycle */
+		final List<Substitution> cycle;
+
+		CycleException(List<Substitution> cycle, Substitution last) {
+			super("Cycle in the substitutions: " + describe(cycle, last));
+			this.cycle = cycle;
+		}
+
+		private static String describe(List<Substitution> cycle, Substitution last) {
+			StringJoiner joiner = new StringJoiner(" -> ");
+			for (Substitution s : cycle) {
+				joiner.add(s.toString());
+			}
+			joiner.add(last.toString());
+			return joiner.toString();
+		}
+	}
+}
\ No newline at end of file
@@ -1,10 +1,17 @@
 package com.electronwill.nightconfig.hocon;
 
-import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.Config;
 import com.electronwill.nightconfig.core.file.FileNotFoundAction;
+import com.electronwill.nightconfig.core.io.ParsingException;
+import com.typesafe.config.ConfigFactory;
 import java.io.File;
+import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,7 +24,7 @@ class HoconParserTest {
 	@Test
 	public void readWriteReadAgain() {
 		File file = new File("test.hocon");
-		CommentedConfig parsed = new HoconParser().parse(file, FileNotFoundAction.THROW_ERROR);
+		Config parsed = new HoconParser().parse(file, FileNotFoundAction.THROW_ERROR);
 
 		System.out.println("--- parsed --- \n" + parsed);
 		System.out.println("--------------------------------------------");
@@ -27,9 +34,223 @@ class HoconParserTest {
 		System.out.println("--- written --- \n" + sw);
 		System.out.println("--------------------------------------------");
 
-		CommentedConfig reparsed = new HoconParser().parse(new StringReader(sw.toString()));
+		Config reparsed = new HoconParser().parse(new StringReader(sw.toString()));
 		System.out.println("--- reparsed --- \n" + reparsed);
 		assertEquals(parsed, reparsed);
 	}
 
+	@Test
+	public void syntax() {
+		Config config = new HoconParser().parse("# Comment\n"
+												+ "// second line\n"
+												+ "a = 1\n"
+												+ "b: \"quoted\\tstring\"\n"
+												+ "c = unquoted string, d = 10 seconds\n"
+												+ "e = [1, 2\n 3.5, true, null]\n"
+												+ "obj { k = v }\n"
+												+ "obj { k2 = v2 }\n"
+												+ "obj.nested.key = 42\n"
+												+ "\"quoted.key\" = q\n"
+												+ "ml = \"\"\"multi\nline\"\"\"");
+		assertEquals(1, config.<Integer>get("a"));
+		assertEquals(" Comment\n second line", config.getComment("a"));
+		assertEquals("quoted\tstring", config.get("b"));
+		assertEquals("unquoted string", config.get("c"));
+		assertEquals("10 seconds", config.get("d"));
+		assertEquals(Arrays.asList(1, 2, 3.5, true, null), config.get("e"));
+		assertEquals("v", config.get("obj.k"));
+		assertEquals("v2", config.get("obj.k2"));
+		assertEquals(42, config.<Integer>get("obj.nested.key"));
+		assertEquals("q", config.get(new String[] {"quoted.key"}));
+		assertEquals("multi\nline", config.get("ml"));
+	}
+
+	@Test
+	public void unquotedKeysWithSpaces() {
+		Config config = new HoconParser().parse("foo bar = 1\n"
+												+ "trailing  \t: 2\n"
+												+ "a b.c d = 3\n"
+												+ "x y { z = 4 }\n"
+												+ "k \"quoted\" = 5\n"
+												+ "ref = ${foo bar}");
+		assertEquals(1, config.<Integer>get(new String[] {"foo bar"}));
+		assertEquals(2, config.<Integer>get("trailing"));
+		assertEquals(3, config.<Integer>get(new String[] {"a b", "c d"}));
+		assertEquals(4, config.<Integer>get(new String[] {"x y", "z"}));
+		assertEquals(5, config.<Integer>get(new String[] {"k quoted"}));
+		assertEquals(1, config.<Integer>get("ref"));
+	}
+
+	@Test
+	public void substitutions() {
+		Config config = new HoconParser().parse("base { x = 1, y = 2 }\n"
+												+ "copy = ${base} { z = 3 }\n"
+												+ "text = ${base.x} apples\n"
+												+ "path = \"/usr\"\n"
+												+ "path = ${path}\":/bin\"\n"
+												+ "list = [1]\n"
+												+ "list += 2\n"
+												+ "kept = 1\n"
+												+ "kept = ${?undefined}\n"
+												+ "absent = ${?undefined}");
+		assertEquals(1, config.<Integer>get("copy.x"));
+		assertEquals(3, config.<Integer>get("copy.z"));
+		assertFalse(config.contains("base.z"));
+		assertEquals("1 apples", config.get("text"));
+		assertEquals("/usr:/bin", config.get("path"));
+		assertEquals(Arrays.asList(1, 2), config.get("list"));
+		assertEquals(1, config.<Integer>get("kept"));
+		assertFalse(config.contains("absent"));
+
+		// The override of bar refers back to bar: bar keeps its previous value
+		Config overridden = new HoconParser().parse("foo = ${bar}\n"
+													+ "bar = ${baz}\n"
+													+ "baz = 7\n"
+													+ "bar = ${foo}");
+		assertEquals(7, overridden.<Integer>get("foo"));
+		assertEquals(7, overridden.<Integer>get("bar"));
+		assertEquals(7, overridden.<Integer>get("baz"));
+
+		HoconParser parser = new HoconParser();
+		assertThrows(ParsingException.class, () -> parser.parse("a = ${b}\nb = ${a}"));
+		assertThrows(ParsingException.class, () -> parser.parse("a = ${undefined}"));
+	}
+
+	@Test
+	public void substitutionChains() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 999; i > 0; i--) {
+			sb.append('v').append(i).append(" = ${v").append(i - 1).append("}\n");
+		}
+		sb.append("v0 = end");
+		Config config = new HoconParser().parse(sb.toString());
+		assertEquals("end", config.get("v999"));
+		assertEquals("end", config.get("v500"));
+
+		String cycle = "a = ${b}\nb = ${c}\nc = ${a}";
+		ParsingException e = assertThrows(ParsingException.class,
+										  () -> new HoconParser().parse(cycle));
+		assertTrue(e.getMessage().contains("${a}"));
+		assertTrue(e.getMessage().contains("${b}"));
+		assertTrue(e.getMessage().contains("${c}"));
+	}
+
+	@Test
+	public void includeCache() throws IOException {
+		Path dir = Files.createTempDirectory("nightconfig-test");
+		Path common = dir.resolve("common.conf");
+		Path leaf = dir.resolve("leaf.conf");
+		Files.write(common, "timeout = 10\nurl = \"http://\"${host}\nlist += 2".getBytes());
+		Files.write(dir.resolve("nested.conf"), "include \"leaf\"".getBytes());
+		Files.write(leaf, "value = 1".getBytes());
+		for (Path file : Arrays.asList(common, leaf, dir.resolve("nested.conf"), dir)) {
+			file.toFile().deleteOnExit();
+		}
+		String document = "host = example.com\n"
+						  + "list = [1]\n"
+						  + "include \"common\"\n"
+						  + "service { include \"common\" }\n"
+						  + "nested { include \"nested\" }";
+		HoconParser parser = new HoconParser().setIncludeDirectory(dir);
+
+		Config config = parser.parse(document);
+		assertEquals(10, config.<Integer>get("timeout"));
+		assertEquals("http://example.com", config.get("url"));
+		assertEquals(Arrays.asList(1, 2), config.get("list"));
+		assertEquals(10, config.<Integer>get("service.timeout"));
+		assertEquals("http://example.com", config.get("service.url"));
+		assertEquals(Arrays.asList(2), config.get("service.list"));
+		assertEquals(1, config.<Integer>get("nested.value"));
+		assertEquals(config, parser.parse(document));
+
+		// Same modification time: the cached fragment is used
+		FileTime time = Files.getLastModifiedTime(common);
+		Files.write(common, "timeout = 20".getBytes());
+		Files.setLastModifiedTime(common, time);
+		assertEquals(10, parser.parse(document).<Integer>get("timeout"));
+
+		// Modified file included by an included file
+		Files.write(leaf, "value = 2".getBytes());
+		Files.setLastModifiedTime(leaf, FileTime.fromMillis(time.toMillis() + 10_000));
+		config = parser.parse(document);
+		assertEquals(2, config.<Integer>get("nested.value"));
+		assertEquals(10, config.<Integer>get("timeout"));
+
+		Files.setLastModifiedTime(common, FileTime.fromMillis(time.toMillis() + 10_000));
+		config = parser.parse(document);
+		assertEquals(20, config.<Integer>get("timeout"));
+		assertFalse(config.contains("url"));
+		assertEquals(config, new HoconParser().setIncludeDirectory(dir)
+											  .setCachingIncludes(false)
+											  .parse(document));
+	}
+
+	@Test
+	public void includesRelativeToTheFile() throws IOException {
+		Path dir = Files.createTempDirectory("nightconfig-test");
+		Path sub = Files.createDirectory(dir.resolve("sub"));
+		Path main = sub.resolve("main.conf");
+		Path included = sub.resolve("included.conf");
+		Files.write(main, "a = 1\ninclude \"included\"".getBytes());
+		Files.write(included, "b = 2".getBytes());
+		for (Path file : Arrays.asList(main, included, sub, dir)) {
+			file.toFile().deleteOnExit();
+		}
+		// The include directory only applies to the data that isn't read from a file
+		HoconParser parser = new HoconParser().setIncludeDirectory(dir);
+		Config config = parser.parse(main, FileNotFoundAction.THROW_ERROR);
+		assertEquals(1, config.<Integer>get("a"));
+		assertEquals(2, config.<Integer>get("b"));
+		assertEquals(config, parser.parse(main.toFile(), FileNotFoundAction.THROW_ERROR));
+		assertFalse(parser.parse("include \"included\"").contains("b"));
+		assertEquals(2, parser.setIncludeDirectory(sub)
+							  .parse("include \"included\"")
+							  .<Integer>get("b"));
+	}
+
+	@Test
+	public void cyclicIncludes() throws IOException {
+		Path dir = Files.createTempDirectory("nightconfig-test");
+		Path a = dir.resolve("a.conf");
+		Path b = dir.resolve("b.conf");
+		Files.write(a, "a = 1\ninclude \"b\"".getBytes());
+		Files.write(b, "b = 2\nsub { include \"a\" }".getBytes());
+		for (Path file : Arrays.asList(a, b, dir)) {
+			file.toFile().deleteOnExit();
+		}
+		for (boolean cache : new boolean[] {true, false}) {
+			HoconParser parser = new HoconParser().setIncludeDirectory(dir)
+												  .setCachingIncludes(cache);
+			ParsingException e = assertThrows(ParsingException.class,
+											  () -> parser.parse("include \"a\""));
+			assertTrue(e.getMessage().contains("Cyclic include"));
+			assertTrue(e.getMessage().contains("a.conf -> "));
+			assertTrue(e.getMessage().contains("b.conf -> "));
+		}
+	}
+
+	@Test
+	public void sameResultAsTypesafe() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			sb.append("# object ").append(i).append('\n');
+			sb.append("object").append(i).append(" {\n");
+			sb.append("  name = \"object ").append(i).append("\"\n");
+			sb.append("  size = ").append(i).append('\n');
+			sb.append("  ratio = ").append(i / 7.0).append('\n');
+			sb.append("  tags = [a, b, c]\n");
+			sb.append("  ref = ${object0.name}\n");
+			sb.append("}\n");
+		}
+		String data = sb.toString();
+		HoconParser parser = new HoconParser();
+
+		Config config = parser.parse(data);
+		com.typesafe.config.Config typesafe = ConfigFactory.parseString(data).resolve();
+		assertEquals("object 0", config.get("object499.ref"));
+		assertEquals(typesafe.getString("object499.ref"), config.get("object499.ref"));
+		assertEquals(typesafe.getInt("object42.size"), config.<Integer>get("object42.size"));
+		assertEquals(typesafe.getStringList("object7.tags"), config.get("object7.tags"));
+		assertEquals(typesafe.root().size(), config.size());
+	}
 }
\ No newline at end of file
@@ -1,14 +1,14 @@
 package com.electronwill.nightconfig.json;
 
 import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.UnmodifiableEntryData;
 import com.electronwill.nightconfig.core.impl.CharacterOutput;
-import com.electronwill.nightconfig.core.impl.Utils;
-import com.electronwill.nightconfig.core.impl.WriterOutput;
+import com.electronwill.nightconfig.core.impl.ParallelWriting;
 import com.electronwill.nightconfig.core.io.*;
 
-import java.io.Writer;
 import java.lang.reflect.Array;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
 
 import static com.electronwill.nightconfig.core.NullObject.NULL_OBJECT;
@@ -28,13 +28,44 @@ public final class FancyJsonWriter implements ConfigWriter {
 	private boolean newlineAfterObjectStart;
 	private char[] newline = NewlineStyle.system().chars;
 	private char[] indent = IndentStyle.TABS.chars;
+	private ParallelWriting parallelWriting;// null to write sequentially
 	private int currentIndentLevel;
+	private char[][] indentCache = new char[8][];// indentCache[n] = indent repeated n times
+
+	public FancyJsonWriter() {}
+
+	/**
+	 * Creates a writer with the same settings as another one, to write a part of a config in
+	 * parallel.
+	 */
+	private FancyJsonWriter(FancyJsonWriter settings, int indentLevel) {
+		this.indentObjectElementsPredicate = settings.indentObjectElementsPredicate;
+		this.indentArrayElementsPredicate = settings.indentArrayElementsPredicate;
+		this.newlineAfterObjectStart = settings.newlineAfterObjectStart;
+		this.newline = settings.newline;
+		this.indent = settings.indent;
+		this.parallelWriting = settings.parallelWriting;
+		this.currentIndentLevel = indentLevel;
+	}
+
+	/**
+	 * Returns a writer that writes the values of a small object or array sequentially. These
+	 * values are small too, so their size doesn't need to be estimated again.
+	 */
+	private FancyJsonWriter sequentialWriter() {
+		if (parallelWriting == null) {
+			return this;
+		}
+		FancyJsonWriter writer = new FancyJsonWriter(this, currentIndentLevel);
+		writer.parallelWriting = null;
+		return writer;
+	}
 
 	// --- Writer's methods --
 	@Override
-	public void write(UnmodifiableConfig config, Writer writer) {
+	public void write(UnmodifiableConfig config, CharacterOutput output) {
 		currentIndentLevel = 0;
-		writeObject(config, new WriterOutput(writer));
+		writeObject(config, output);
 	}
 
 	private void writeObject(UnmodifiableConfig config, CharacterOutput output) {
@@ -42,38 +73,50 @@ public final class FancyJsonWriter implements ConfigWriter {
 			output.write(EMPTY_OBJECT);
 			return;
 		}
-		Iterator<Map.Entry<String, Object>> it = config.valueMap().entrySet().iterator();
 		output.write('{');
 		if (newlineAfterObjectStart) {
 			output.write(newline);
 		}
-		boolean indentElements = indentObjectElementsPredicate.test(config);
+		final boolean indentElements = indentObjectElementsPredicate.test(config);
 		if (indentElements) {
 			output.write(newline);
 			increaseIndentLevel();
 		}
-		while (true) {
-			final Map.Entry<String, Object> entry = it.next();
-			final String key = entry.getKey();
-			final Object value = entry.getValue();
-
-			if (indentElements) {
-				writeIndent(output);// Indents the line
+		final Map<String, ? extends UnmodifiableEntryData> dataMap = config.dataMap();
+		if (parallelWriting != null && parallelWriting.isLarge(config)) {
+			final int size = dataMap.size();
+			final String[] keys = new String[size];
+			final Object[] values = new Object[size];
+			int i = 0;
+			for (Map.Entry<String, ? extends UnmodifiableEntryData> entry : dataMap.entrySet()) {
+				keys[i] = entry.getKey();
+				values[i] = entry.getValue().getValue();
+				i++;
 			}
-			writeString(key, output);// key
-			output.write(ENTRY_SEPARATOR);// separator
-			writeValue(value, output);// value
-			if (it.hasNext()) {
-				output.write(',');
-				if (indentElements) {
-					output.write(newline);
+			int[] bounds = parallelWriting.split(values);
+			final int level = currentIndentLevel;
+			ParallelWriting.RangeWriter rangeWriter = (from, to, out) -> {
+				FancyJsonWriter segmentWriter = new FancyJsonWriter(this, level);
+				for (int j = from; j < to; j++) {
+					boolean last = (j == size - 1);
+					segmentWriter.writeEntry(keys[j], values[j], out, indentElements, last);
 				}
+			};
+			if (bounds != null) {
+				parallelWriting.write(bounds, rangeWriter, output);
 			} else {
-				if (indentElements) {
-					output.write(newline);
-				}
-				break;
+				rangeWriter.write(0, size, output);
 			}
+		} else {
+			final FancyJsonWriter writer = sequentialWriter();
+			Iterator<? extends Map.Entry<String, ? extends UnmodifiableEntryData>> it =
+				dataMap.entrySet().iterator();
+			do {
+				final Map.Entry<String, ? extends UnmodifiableEntryData> entry = it.next();
+				final String key = entry.getKey();
+				final Object value = entry.getValue().getValue();
+				writer.writeEntry(key, value, output, indentElements, !it.hasNext());
+			} while (it.hasNext());
 		}
 		if (indentElements) {
 			decreaseIndentLevel();
@@ -82,6 +125,25 @@ public final class FancyJsonWriter implements ConfigWriter {
 		output.write('}');
 	}
 
+	/**
+	 * Writes an entry of a JSON object, followed by a separator if it's not the last one.
+	 */
+	private void writeEntry(String key, Object value, CharacterOutput output,
+							boolean indentElements, boolean last) {
+		if (indentElements) {
+			writeIndent(output);// Indents the line
+		}
+		writeString(key, output);// key
+		output.write(ENTRY_SEPARATOR);// separator
+		writeValue(value, output);// value
+		if (!last) {
+			output.write(',');
+		}
+		if (indentElements) {
+			output.write(newline);
+		}
+	}
+
 	/**
 	 * Writes some value in the JSON format.
 	 *
@@ -123,33 +185,37 @@ public final class FancyJsonWriter implements ConfigWriter {
 			output.write(EMPTY_ARRAY);
 			return;
 		}
-		Iterator<?> it = collection.iterator();
 		output.write('[');
 		if (newlineAfterObjectStart) {
 			output.write(newline);
 		}
-		boolean indentElements = indentArrayElementsPredicate.test(collection);
+		final boolean indentElements = indentArrayElementsPredicate.test(collection);
 		if (indentElements) {
 			output.write(newline);
 			increaseIndentLevel();
 		}
-		while (true) {
-			Object value = it.next();
-			if (indentElements) {
-				writeIndent(output);
-			}
-			writeValue(value, output);
-			if (it.hasNext()) {
-				output.write(VALUE_SEPARATOR);
-				if (indentElements) {
-					output.write(newline);
+		if (parallelWriting != null && parallelWriting.isLarge(collection)) {
+			final Object[] values = collection.toArray();
+			final int size = values.length;
+			int[] bounds = parallelWriting.split(values);
+			final int level = currentIndentLevel;
+			ParallelWriting.RangeWriter rangeWriter = (from, to, out) -> {
+				FancyJsonWriter segmentWriter = new FancyJsonWriter(this, level);
+				for (int j = from; j < to; j++) {
+					segmentWriter.writeElement(values[j], out, indentElements, j == size - 1);
 				}
+			};
+			if (bounds != null) {
+				parallelWriting.write(bounds, rangeWriter, output);
 			} else {
-				if (indentElements) {
-					output.write(newline);
-				}
-				break;
+				rangeWriter.write(0, size, output);
 			}
+		} else {
+			final FancyJsonWriter writer = sequentialWriter();
+			Iterator<?> it = collection.iterator();
+			do {
+				writer.writeElement(it.next(), output, indentElements, !it.hasNext());
+			} while (it.hasNext());
 		}
 		if (indentElements) {
 			decreaseIndentLevel();
@@ -158,6 +224,23 @@ public final class FancyJsonWriter implements ConfigWriter {
 		output.write(']');
 	}
 
+	/**
+	 * Writes an element of a JSON array, followed by a separator if it's not the last one.
+	 */
+	private void writeElement(Object value, CharacterOutput output, boolean indentElements,
+							  boolean last) {
+		if (indentElements) {
+			writeIndent(output);
+		}
+		writeValue(value, output);
+		if (!last) {
+			output.write(VALUE_SEPARATOR);
+		}
+		if (indentElements) {
+			output.write(newline);
+		}
+	}
+
 	private void writeArray(Object array, CharacterOutput output) {
 		// Converts the array into a List:
 		int length = Array.getLength(array);
@@ -190,20 +273,7 @@ public final class FancyJsonWriter implements ConfigWriter {
 	 * @param output the output to write to
 	 */
 	private void writeString(CharSequence s, CharacterOutput output) {
-		output.write('"');
-		final int length = s.length();
-		for (int i = 0; i < length; i++) {
-			char c = s.charAt(i);
-			int escapeIndex = Utils.arrayIndexOf(TO_ESCAPE, c);
-			if (escapeIndex == -1) {
-				output.write(c);
-			} else {// This character must be escaped
-				char escaped = ESCAPED[escapeIndex];
-				output.write('\\');
-				output.write(escaped);
-			}
-		}
-		output.write('"');
+		writeEscaped(s, output);
 	}
 
 	private void increaseIndentLevel() {
@@ -215,9 +285,23 @@ public final class FancyJsonWriter implements ConfigWriter {
 	}
 
 	private void writeIndent(CharacterOutput output) {
-		for (int i = 0; i < currentIndentLevel; i++) {
-			output.write(indent);
+		final int level = currentIndentLevel;
+		if (level == 0) {
+			return;
+		}
+		if (level >= indentCache.length) {
+			indentCache = Arrays.copyOf(indentCache, level * 2);
 		}
+		char[] chars = indentCache[level];
+		if (chars == null) {
+			final int indentLength = indent.length;
+			chars = new char[indentLength * level];
+			for (int i = 0; i < level; i++) {
+				System.arraycopy(indent, 0, chars, i * indentLength, indentLength);
+			}
+			indentCache[level] = chars;
+		}
+		output.write(chars);
 	}
 
 	// --- Settings ---
@@ -240,14 +324,42 @@ public final class FancyJsonWriter implements ConfigWriter {
 
 	public FancyJsonWriter setIndent(IndentStyle indentStyle) {
 		this.indent = indentStyle.chars;
+		this.indentCache = new char[8][];
 		return this;
 	}
 
 	public FancyJsonWriter setIndent(String indent) {
 		this.indent = indent.toCharArray();
+		this.indentCache = new char[8][];
 		return this;
 	}
 
+	/**
+	 * Enables or disables the parallel writing. When enabled, the large objects and arrays are
+	 * split in segments that are written concurrently, then concatenated in the right order.
+	 * The result is the same as the one of the sequential writing.
+	 *
+	 * @param pool      the pool that executes the writing tasks, or null to write sequentially
+	 * @param threshold the approximate number of values (counted recursively) per task
+	 * @return this writer
+	 */
+	public FancyJsonWriter setParallelWriting(ForkJoinPool pool, int threshold) {
+		this.parallelWriting = (pool == null) ? null : new ParallelWriting(pool, threshold);
+		return this;
+	}
+
+	/**
+	 * Enables or disables the parallel writing on the common pool, with the default threshold.
+	 *
+	 * @param parallel true to write the large objects and arrays in parallel
+	 * @return this writer
+	 * @see #setParallelWriting(ForkJoinPool, int)
+	 */
+	public FancyJsonWriter setParallelWriting(boolean parallel) {
+		ForkJoinPool pool = parallel ? ForkJoinPool.commonPool() : null;
+		return setParallelWriting(pool, ParallelWriting.DEFAULT_THRESHOLD);
+	}
+
 	public FancyJsonWriter setNewline(NewlineStyle newlineStyle) {
 		this.newline = newlineStyle.chars;
 		return this;
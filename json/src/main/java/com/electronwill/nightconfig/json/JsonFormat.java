@@ -3,14 +3,25 @@ package com.electronwill.nightconfig.json;
 import com.electronwill.nightconfig.core.Config;
 import com.electronwill.nightconfig.core.ConfigFormat;
 import com.electronwill.nightconfig.core.file.FormatDetector;
+import com.electronwill.nightconfig.core.impl.CharacterInput;
+import com.electronwill.nightconfig.core.impl.ReaderInput;
 import com.electronwill.nightconfig.core.io.ConfigParser;
 import com.electronwill.nightconfig.core.io.ConfigWriter;
+import com.electronwill.nightconfig.core.io.ParsingException;
 import com.electronwill.nightconfig.core.utils.WriterSupplier;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * @author TheElectronWill
@@ -109,6 +120,76 @@ public abstract class JsonFormat<W extends ConfigWriter> implements ConfigFormat
 		return FANCY.createConcurrentConfig();
 	}
 
+	/**
+	 * Lazily parses a JSON document that consists of a single top-level array of objects.
+	 * Each object is parsed only when it's requested, which makes it possible to process very
+	 * large arrays with a bounded amount of memory.
+	 *
+	 * @param reader data source
+	 * @return an iterator over the objects of the array
+	 */
+	public static Iterator<Config> iterateArray(Reader reader) {
+		return new JsonParser(false).iterateArray(reader);
+	}
+
+	/**
+	 * Lazily parses a JSON document that consists of a single top-level array of objects.
+	 *
+	 * @param reader data source
+	 * @return a sequential stream of the objects of the array
+	 * @see #iterateArray(Reader)
+	 */
+	public static Stream<Config> streamArray(Reader reader) {
+		return new JsonParser(false).streamArray(reader);
+	}
+
+	/**
+	 * Lazily parses a JSON file that consists of a single top-level array of objects.
+	 * The file is closed when the returned stream is closed, therefore it should be used in a
+	 * try-with-resources statement.
+	 *
+	 * @param file data source
+	 * @param cs   file encoding
+	 * @return a sequential stream of the objects of the array
+	 * @see #iterateArray(Reader)
+	 */
+	public static Stream<Config> streamArray(Path file, Charset cs) {
+		BufferedReader reader;
+		try {
+			reader = Files.newBufferedReader(file, cs);
+		} catch (IOException e) {
+			throw new ParsingException("An I/O error occured", e);
+		}
+		Runnable closeAction = () -> {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				throw new ParsingException("Unable to close the file " + file, e);
+			}
+		};
+		try {
+			CharacterInput input = new ReaderInput(reader);
+			if (input.peek() == '\uFEFF') {
+				input.skipPeeks(); // skips the BOM
+			}
+			return new JsonParser(false).streamArray(input).onClose(closeAction);
+		} catch (RuntimeException e) {
+			closeAction.run();
+			throw e;
+		}
+	}
+
+	/**
+	 * Lazily parses a JSON file that consists of a single top-level array of objects.
+	 *
+	 * @param file data source, <b>UTF-8 encoded</b>
+	 * @return a sequential stream of the objects of the array
+	 * @see #streamArray(Path, Charset)
+	 */
+	public static Stream<Config> streamArray(Path file) {
+		return streamArray(file, StandardCharsets.UTF_8);
+	}
+
 	static {
 		FormatDetector.registerExtension("json", FANCY);
 	}
@@ -0,0 +1,322 @@
+package com.electronwill.nightconfig.json;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.impl.ArrayInput;
+import com.electronwill.nightconfig.core.io.ParsingException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A parser for the <a href="https://jsonlines.org/">JSON Lines</a> format (also known as NDJSON),
+ * where each line of the data is a separate JSON object. Blank lines are ignored.
+ * <p>
+ * The parser keeps no state between two parsing operations: once configured, one instance can be
+ * used by several threads at the same time. Its settings must not be modified while it's in use.
+ */
+public final class JsonLinesParser {
+	/** Default size of the chunks parsed in parallel, in bytes */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 20; // 1 MiB
+
+	private final JsonParser lineParser = new JsonParser(false);
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	private Charset charset = StandardCharsets.UTF_8;
+
+	/**
+	 * Sets the approximate size of the chunks that {@link #parseParallel(Path, ForkJoinPool,
+	 * boolean)} parses in parallel. The actual chunks are extended to the next line break.
+	 *
+	 * @param chunkSize the size in bytes, must be positive
+	 * @return this parser
+	 */
+	public JsonLinesParser setChunkSize(int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Invalid chunk size " + chunkSize + ": must be > 0");
+		}
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * Sets the encoding of the files read by this parser. The default is UTF-8.
+	 * Only encodings where '\n' is encoded as the single byte 0x0A (UTF-8, ASCII, ISO-8859-x...)
+	 * can be split by {@link #parseParallel(Path, ForkJoinPool, boolean)}.
+	 *
+	 * @param charset the encoding
+	 * @return this parser
+	 */
+	public JsonLinesParser setCharset(Charset charset) {
+		this.charset = Objects.requireNonNull(charset, "The charset must not be null.");
+		return this;
+	}
+
+	/**
+	 * Parses one line of JSON Lines data.
+	 *
+	 * @param line the line, which must contain exactly one JSON object
+	 * @return a new config containing the object's entries
+	 */
+	public Config parseLine(CharSequence line) {
+		char[] chars = line.toString().toCharArray();
+		return lineParser.parse(new ArrayInput(chars));
+	}
+
+	/**
+	 * Parses JSON Lines data sequentially. The returned stream is lazy: each line is read and
+	 * parsed when the stream is consumed. Closing the stream closes the reader.
+	 *
+	 * @param reader data source
+	 * @return an ordered stream of the objects, one per non-blank line
+	 */
+	public Stream<Config> parse(Reader reader) {
+		Iterator<Config> it = new LineIterator(new BufferedReader(reader));
+		int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+		Stream<Config> stream = StreamSupport.stream(
+			Spliterators.spliteratorUnknownSize(it, characteristics), false);
+		return stream.onClose(() -> {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				throw new ParsingException("Unable to close the reader", e);
+			}
+		});
+	}
+
+	/**
+	 * Parses a JSON Lines file sequentially. The file is closed when the stream is closed.
+	 *
+	 * @param file the file to read
+	 * @return an ordered stream of the objects, one per non-blank line
+	 * @see #parse(Reader)
+	 */
+	public Stream<Config> parse(Path file) {
+		try {
+			return parse(Files.newBufferedReader(file, charset));
+		} catch (IOException e) {
+			throw new ParsingException("An I/O error occured", e);
+		}
+	}
+
+	/**
+	 * Parses a JSON Lines file in parallel. The file is memory-mapped and split in chunks of
+	 * about {@link #setChunkSize(int) chunkSize} bytes, each ending at a line break. The chunks
+	 * are decoded and parsed concurrently on the given pool.
+	 * <p>
+	 * If {@code preserveOrder} is true, the stream returns the objects in the order of the lines.
+	 * Otherwise, the objects of each chunk are returned as soon as the chunk is parsed, which
+	 * avoids waiting for a slow chunk but mixes the lines of different chunks.
+	 * <p>
+	 * If a line is invalid, the {@link ParsingException} is thrown by the stream when the
+	 * objects of the corresponding chunk are consumed.
+	 *
+	 * @param file          the file to read
+	 * @param pool          the pool that executes the parsing tasks
+	 * @param preserveOrder true to keep the order of the lines
+	 * @return a stream of the objects, one per non-blank line
+	 */
+	public Stream<Config> parseParallel(Path file, ForkJoinPool pool, boolean preserveOrder) {
+		List<ByteBuffer> chunks;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			chunks = mapChunks(channel);
+		} catch (IOException e) {
+			throw new ParsingException("An I/O error occured", e);
+		}
+		if (preserveOrder) {
+			List<ForkJoinTask<List<Config>>> tasks = new ArrayList<>(chunks.size());
+			for (int i = 0; i < chunks.size(); i++) {
+				final ByteBuffer chunk = chunks.get(i);
+				final boolean first = (i == 0);
+				tasks.add(pool.submit(() -> parseChunk(chunk, first)));
+			}
+			return tasks.stream().flatMap(task -> task.join().stream());
+		} else {
+			CompletionService<List<Config>> completion = new ExecutorCompletionService<>(pool);
+			for (int i = 0; i < chunks.size(); i++) {
+				final ByteBuffer chunk = chunks.get(i);
+				final boolean first = (i == 0);
+				completion.submit(() -> parseChunk(chunk, first));
+			}
+			return IntStream.range(0, chunks.size())
+							.mapToObj(i -> takeCompleted(completion))
+							.flatMap(List::stream);
+		}
+	}
+
+	/**
+	 * Parses a JSON Lines file in parallel on the common pool, preserving the order of the lines.
+	 *
+	 * @param file the file to read
+	 * @return an ordered stream of the objects, one per non-blank line
+	 * @see #parseParallel(Path, ForkJoinPool, boolean)
+	 */
+	public Stream<Config> parseParallel(Path file) {
+		return parseParallel(file, ForkJoinPool.commonPool(), true);
+	}
+
+	/**
+	 * Maps the file in chunks that end just after a line break (or at the end of the file).
+	 * The mappings stay valid after the channel is closed.
+	 */
+	private List<ByteBuffer> mapChunks(FileChannel channel) throws IOException {
+		final long size = channel.size();
+		final ByteBuffer probe = ByteBuffer.allocate(4096);
+		final List<ByteBuffer> chunks = new ArrayList<>((int)(size / chunkSize) + 1);
+		long start = 0;
+		while (start < size) {
+			long end = nextLineStart(channel, Math.min(start + chunkSize, size), size, probe);
+			chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+			start = end;
+		}
+		return chunks;
+	}
+
+	/**
+	 * Returns the position just after the first '\n' found at or after pos, or the size of the
+	 * file if there is no such character.
+	 */
+	private static long nextLineStart(FileChannel channel, long pos, long size, ByteBuffer probe)
+		throws IOException {
+		while (pos < size) {
+			probe.clear();
+			int read = channel.read(probe, pos);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (probe.get(i) == '\n') {
+					return pos + i + 1;
+				}
+			}
+			pos += read;
+		}
+		return size;
+	}
+
+	/**
+	 * Parses the lines of a chunk.
+	 *
+	 * @param bytes the content of the chunk
+	 * @param first true if the chunk is at the beginning of the file, where there may be a BOM
+	 */
+	private List<Config> parseChunk(ByteBuffer bytes, boolean first) {
+		CharBuffer decoded;
+		try {
+			decoded = charset.newDecoder().decode(bytes);
+		} catch (CharacterCodingException e) {
+			throw new ParsingException("Invalid " + charset.name() + " data", e);
+		}
+		char[] chars = decoded.array();
+		int start = decoded.arrayOffset() + decoded.position();
+		int end = decoded.arrayOffset() + decoded.limit();
+		if (first && start < end && chars[start] == '\uFEFF') {
+			start++;// skips the BOM at the beginning of the file
+		}
+		List<Config> configs = new ArrayList<>();
+		int lineStart = start;
+		for (int i = start; i <= end; i++) {
+			if (i == end || chars[i] == '\n') {
+				if (!isBlank(chars, lineStart, i)) {
+					configs.add(lineParser.parse(new ArrayInput(chars, lineStart, i)));
+				}
+				lineStart = i + 1;
+			}
+		}
+		return configs;
+	}
+
+	private static boolean isBlank(char[] chars, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (chars[i] > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isBlank(String line) {
+		for (int i = 0; i < line.length(); i++) {
+			if (line.charAt(i) > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static List<Config> takeCompleted(CompletionService<List<Config>> completion) {
+		try {
+			return completion.take().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ParsingException("Interrupted while waiting for the parsing tasks", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			throw new ParsingException("Failed to parse a chunk of JSON Lines data", cause);
+		}
+	}
+
+	/**
+	 * Reads and parses the lines one by one.
+	 */
+	private final class LineIterator implements Iterator<Config> {
+		private final BufferedReader reader;
+		private String nextLine;
+		private int lineNumber;
+
+		LineIterator(BufferedReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (nextLine != null) {
+				return true;
+			}
+			try {
+				String line;
+				do {
+					line = reader.readLine();
+					lineNumber++;
+					if (lineNumber == 1 && line != null && line.startsWith("\uFEFF")) {
+						line = line.substring(1);// skips the BOM
+					}
+				} while (line != null && isBlank(line));
+				nextLine = line;
+			} catch (IOException e) {
+				throw ParsingException.readFailed(e);
+			}
+			return nextLine != null;
+		}
+
+		@Override
+		public Config next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			String line = nextLine;
+			nextLine = null;
+			try {
+				return lineParser.parse(new ArrayInput(line.toCharArray()));
+			} catch (ParsingException e) {
+				throw new ParsingException("Invalid JSON object at line " + lineNumber, e);
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.electronwill.nightconfig.json;
+
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.impl.CharacterOutput;
+import com.electronwill.nightconfig.core.impl.WriterOutput;
+import com.electronwill.nightconfig.core.io.ConfigWriter;
+import com.electronwill.nightconfig.core.io.WritingException;
+import com.electronwill.nightconfig.core.io.WritingMode;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A writer for the <a href="https://jsonlines.org/">JSON Lines</a> format (also known as NDJSON).
+ * Each config is written as one compact JSON object (like {@link MinimalJsonWriter} does),
+ * followed by a line break. Writing a config to a file with {@link WritingMode#APPEND} therefore
+ * adds one line to the file.
+ */
+public final class JsonLinesWriter implements ConfigWriter {
+	private final MinimalJsonWriter objectWriter = new MinimalJsonWriter();
+
+	/**
+	 * Writes a configuration as one JSON line.
+	 */
+	@Override
+	public void write(UnmodifiableConfig config, CharacterOutput output) {
+		objectWriter.writeConfig(config, output);
+		output.write('\n');
+	}
+
+	/**
+	 * Writes several configurations, one per line.
+	 */
+	public void writeAll(Iterable<? extends UnmodifiableConfig> configs, CharacterOutput output) {
+		for (UnmodifiableConfig config : configs) {
+			write(config, output);
+		}
+	}
+
+	/**
+	 * Writes several configurations, one per line.
+	 */
+	public void writeAll(Iterable<? extends UnmodifiableConfig> configs, Writer writer) {
+		writeAll(configs, new WriterOutput(writer));
+	}
+
+	/**
+	 * Writes several configurations to a file, one per line. With {@link WritingMode#APPEND},
+	 * the lines are added at the end of the file.
+	 *
+	 * @param configs the configs to write
+	 * @param file    where to write
+	 * @param cs      the encoding to use
+	 * @param mode    the writing mode
+	 * @throws WritingException if an error occurs
+	 */
+	public void writeAll(Iterable<? extends UnmodifiableConfig> configs, Path file, Charset cs,
+						 WritingMode mode) {
+		StandardOpenOption[] options;
+		if (mode == WritingMode.APPEND) {
+			options = new StandardOpenOption[] { WRITE, CREATE, APPEND };
+		} else {
+			options = new StandardOpenOption[] { WRITE, CREATE, TRUNCATE_EXISTING };
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(file, cs, options)) {
+			writeAll(configs, writer);
+		} catch (IOException e) {
+			throw new WritingException("An I/O error occured", e);
+		}
+	}
+
+	/**
+	 * Writes several configurations to a file <b>in UTF-8</b>, one per line.
+	 *
+	 * @see #writeAll(Iterable, Path, Charset, WritingMode)
+	 */
+	public void writeAll(Iterable<? extends UnmodifiableConfig> configs, Path file,
+						 WritingMode mode) {
+		writeAll(configs, file, StandardCharsets.UTF_8, mode);
+	}
+}
\ No newline at end of file
@@ -1,17 +1,20 @@
 package com.electronwill.nightconfig.json;
 
+import com.electronwill.nightconfig.core.AbstractConfig;
 import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.ConfigFormat;
 import com.electronwill.nightconfig.core.MemoryConfig;
+import com.electronwill.nightconfig.core.impl.CharacterInput;
 import com.electronwill.nightconfig.core.impl.ReaderInput;
 import com.electronwill.nightconfig.core.io.ConfigParser;
 import com.electronwill.nightconfig.core.io.ParsingException;
 import com.electronwill.nightconfig.core.io.ParsingMode;
 
 import java.io.Reader;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import static com.electronwill.nightconfig.core.utils.StringUtils.single;
 import static com.electronwill.nightconfig.json.JsonToken.*;
 
 /**
@@ -29,52 +32,135 @@ public final class JsonParser implements ConfigParser {
 
 	public Object parseElement(Reader reader) {
 		JsonTokenizer tokenizer = new JsonTokenizer(new ReaderInput(reader));
-		return parseValue(tokenizer, tokenizer.next());
+		AbstractConfig.Builder builder = new AbstractConfig.Builder(new MemoryConfig());
+		return parseValue(tokenizer, tokenizer.next(), builder);
 	}
 
-	private Config parseConfigContent(JsonTokenizer tokenizer, Config dst) {
+	/**
+	 * Parses a JSON array of objects one element at a time. Unlike {@link #parseElement(Reader)},
+	 * this method doesn't read the whole array in memory: each call to {@link Iterator#next()}
+	 * parses only the next object of the array.
+	 * <p>
+	 * The returned iterator throws a {@link ParsingException} if the data isn't a valid array
+	 * of objects.
+	 *
+	 * @param input data source, which must contain a single top-level array
+	 * @return an iterator over the objects of the array
+	 */
+	public Iterator<Config> iterateArray(CharacterInput input) {
+		return new ArrayIterator(new JsonTokenizer(input));
+	}
+
+	/**
+	 * Parses a JSON array of objects one element at a time.
+	 *
+	 * @param reader data source, which must contain a single top-level array
+	 * @return an iterator over the objects of the array
+	 * @see #iterateArray(CharacterInput)
+	 */
+	public Iterator<Config> iterateArray(Reader reader) {
+		return iterateArray(new ReaderInput(reader));
+	}
+
+	/**
+	 * Parses a JSON array of objects one element at a time. The returned stream is sequential
+	 * and lazy: the elements are parsed when the stream is consumed.
+	 *
+	 * @param input data source, which must contain a single top-level array
+	 * @return an ordered stream of the objects of the array
+	 * @see #iterateArray(CharacterInput)
+	 */
+	public Stream<Config> streamArray(CharacterInput input) {
+		Iterator<Config> it = iterateArray(input);
+		int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, characteristics), false);
+	}
+
+	/**
+	 * Parses a JSON array of objects one element at a time.
+	 *
+	 * @param reader data source, which must contain a single top-level array
+	 * @return an ordered stream of the objects of the array
+	 * @see #streamArray(CharacterInput)
+	 */
+	public Stream<Config> streamArray(Reader reader) {
+		return streamArray(new ReaderInput(reader));
+	}
+
+	@Override
+	public ConfigFormat getFormat() {
+		return JsonFormat.fancyInstance();
+	}
+
+	@Override
+	public void parse(CharacterInput input, Config dst, ParsingMode mode) {
+		JsonTokenizer tokenizer = new JsonTokenizer(input);
+		AbstractConfig.Builder builder = new AbstractConfig.Builder(dst);
+		JsonToken first = tokenizer.next();
+		if (first == END_OF_DATA) {
+			if (!allowEmptyDoc)
+				throw new ParsingException("Empty JSON data");
+			builder.finish(mode);
+			return;
+		}
+		if (first != OBJECT_START)
+			throw new ParsingException("Invalid JSON data: expected an object, got " + first);
+
+		parseConfigContent(tokenizer, builder);
+		JsonToken after = tokenizer.next();
+		if (after != END_OF_DATA)
+			throw new ParsingException("Invalid data after the end of the object: " + after);
+		builder.finish(mode);
+	}
+
+	/**
+	 * Parses the members of an object and adds them to the current object of the builder.
+	 */
+	private void parseConfigContent(JsonTokenizer tokenizer, AbstractConfig.Builder builder) {
 		JsonToken token = tokenizer.next();
 		if (token == OBJECT_END)
-			return dst;
-		parseKeyValue(tokenizer, token, dst);
+			return;
+		parseKeyValue(tokenizer, token, builder);
 		while ((token = tokenizer.next()) == ELEMENT_SEPARATOR) {
-			parseKeyValue(tokenizer, tokenizer.next(), dst);
+			parseKeyValue(tokenizer, tokenizer.next(), builder);
 		}
 		if (token != OBJECT_END)
 			throw new ParsingException("");
-		return dst;
 	}
 
-	private void parseKeyValue(JsonTokenizer tokenizer, JsonToken keyToken, Config dst) {
+	private void parseKeyValue(JsonTokenizer tokenizer, JsonToken keyToken,
+							   AbstractConfig.Builder builder) {
 		if (keyToken != VALUE_STRING)
 			throw new ParsingException("");
 
-		CharSequence key = tokenizer.textValue();
+		String key = tokenizer.textValue().toString(); // copied because the buffer is reused
 		JsonToken separator = tokenizer.next();
 		if (separator != KV_SEPARATOR)
 			throw new ParsingException("");
 
-		Object value = parseValue(tokenizer, tokenizer.next());
-		dst.set(single(key.toString()), value);
+		Object value = parseValue(tokenizer, tokenizer.next(), builder);
+		builder.put(key, value);
 	}
 
-	private List<?> parseListContent(JsonTokenizer tokenizer, List<Object> dst) {
+	private List<?> parseListContent(JsonTokenizer tokenizer, List<Object> dst,
+									 AbstractConfig.Builder builder) {
 		JsonToken token = tokenizer.next();
 		if (token == ARRAY_END)
 			return dst;
-		dst.add(parseValue(tokenizer, token));
+		dst.add(parseValue(tokenizer, token, builder));
 		while ((token = tokenizer.next()) == ELEMENT_SEPARATOR) {
-			dst.add(parseValue(tokenizer, tokenizer.next()));
+			dst.add(parseValue(tokenizer, tokenizer.next(), builder));
 		}
 		if (token != ARRAY_END)
 			throw new ParsingException("");
 		return dst;
 	}
 
-	private Object parseValue(JsonTokenizer tokenizer, JsonToken token) {
+	private Object parseValue(JsonTokenizer tokenizer, JsonToken token,
+							  AbstractConfig.Builder builder) {
 		switch (token) {
 			case VALUE_STRING:
-				return tokenizer.textValue();
+				return tokenizer.textValue().toString();
 			case VALUE_INTEGER:
 				return tokenizer.intValue();
 			case VALUE_FLOATING:
@@ -86,11 +172,59 @@ public final class JsonParser implements ConfigParser {
 			case VALUE_NULL:
 				return null;
 			case ARRAY_START:
-				return parseListContent(tokenizer, new ArrayList<>());
+				return parseListContent(tokenizer, new ArrayList<>(), builder);
 			case OBJECT_START:
-				return parseConfigContent(tokenizer, new MemoryConfig());
+				builder.beginObject();
+				parseConfigContent(tokenizer, builder);
+				return builder.endObject();
 			default:
 				throw new ParsingException("");
 		}
 	}
+
+	/**
+	 * Iterates over the elements of a JSON array, parsing them lazily with the same tokenizer.
+	 */
+	private final class ArrayIterator implements Iterator<Config> {
+		private final JsonTokenizer tokenizer;
+		private final AbstractConfig.Builder builder = new AbstractConfig.Builder(new MemoryConfig());
+		private JsonToken nextToken; // first token of the next element, or ARRAY_END
+
+		ArrayIterator(JsonTokenizer tokenizer) {
+			this.tokenizer = tokenizer;
+			JsonToken first = tokenizer.next();
+			if (first != ARRAY_START)
+				throw new ParsingException("Invalid JSON data: expected an array, got " + first);
+			this.nextToken = tokenizer.next();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextToken != ARRAY_END;
+		}
+
+		@Override
+		public Config next() {
+			if (nextToken == ARRAY_END)
+				throw new NoSuchElementException();
+			if (nextToken != OBJECT_START)
+				throw new ParsingException(
+					"Invalid array element: expected an object, got " + nextToken);
+
+			builder.beginObject();
+			parseConfigContent(tokenizer, builder);
+			Config element = builder.endObject();
+			JsonToken after = tokenizer.next();
+			if (after == ELEMENT_SEPARATOR) {
+				nextToken = tokenizer.next();
+				if (nextToken == ARRAY_END)
+					throw new ParsingException("Invalid trailing comma at the end of the array");
+			} else if (after == ARRAY_END) {
+				nextToken = ARRAY_END;
+			} else {
+				throw new ParsingException("Invalid array: expected ',' or ']', got " + after);
+			}
+			return element;
+		}
+	}
 }
\ No newline at end of file
@@ -15,13 +15,16 @@ public final class JsonTokenizer implements Tokenizer<JsonToken> {
 	private static final char[] TRUE_TAIL = {'r', 'u', 'e'},
 								FALSE_TAIL = {'a', 'l', 's', 'e'},
 								NULL_TAIL = {'u', 'l', 'l'};
-	private static final Charray VALID_NUMBER_END = new Charray(" \t\n,:");
+	private static final Charray VALID_NUMBER_END = new Charray(" \t\n\r,:]}");
 
 	private final CharacterInput input;
 	private long integerValue;
 	private double floatingValue;
 	private CharSequence stringValue;
 
+	// Buffers reused from one token to another, to avoid allocating them for each value
+	private final Charray stringBuffer = new Charray(), numberBuffer = new Charray(32);
+
 	public JsonTokenizer(CharacterInput input) {
 		this.input = input;
 	}
@@ -63,6 +66,13 @@ public final class JsonTokenizer implements Tokenizer<JsonToken> {
 		}
 	}
 
+	/**
+	 * Returns the value of the last {@link JsonToken#VALUE_STRING} token. The returned sequence
+	 * is a buffer that is reused by the tokenizer: it's only valid until the next call to
+	 * {@link #next()}, and must be copied, for instance with {@code toString()}, to be kept.
+	 *
+	 * @return the text of the last string token
+	 */
 	@Override
 	public CharSequence textValue() {
 		return stringValue;
@@ -94,13 +104,25 @@ public final class JsonTokenizer implements Tokenizer<JsonToken> {
 	}
 
 	private JsonToken detectNumberType(CharacterInput input) {
-		Charray chars = input.readUntilAny(VALID_NUMBER_END);
+		Charray chars = numberBuffer;
+		chars.clear();
+		int c;
+		while ((c = input.read()) != -1 && !VALID_NUMBER_END.contains((char)c)) {
+			chars.append((char)c);
+		}
+		if (c != -1) {
+			input.pushBack((char)c); // the end of the number may be a meaningful token
+		}
 		try {
 			integerValue = Utils.parseLong(chars, 10);
 			floatingValue = (double)integerValue;
 			return VALUE_INTEGER;
 		} catch (Exception ex) {
-			floatingValue = Utils.parseDouble(chars);
+			try {
+				floatingValue = Utils.parseDouble(chars);
+			} catch (NumberFormatException e) {
+				throw new ParsingException("Invalid value: " + chars, e);
+			}
 			integerValue = (long)floatingValue;
 			return VALUE_FLOATING;
 		}
@@ -113,8 +135,13 @@ public final class JsonTokenizer implements Tokenizer<JsonToken> {
 		}
 	}
 
+	/**
+	 * Reads a string into the internal buffer. The returned Charray is only valid until the next
+	 * call to {@link #next()}.
+	 */
 	private CharSequence readString() {
-		Charray cha = new Charray();
+		Charray cha = stringBuffer;
+		cha.clear();
 		boolean escape = false;
 		int c;
 		while ((c = input.read()) != '"' || escape) {
@@ -127,7 +154,7 @@ public final class JsonTokenizer implements Tokenizer<JsonToken> {
 			} else if (c == '\\') {
 				escape = true;
 			} else {
-				cha.append(c);
+				cha.append((char)c);
 			}
 		}
 		return cha;
@@ -1,13 +1,15 @@
 package com.electronwill.nightconfig.json;
 
 import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.UnmodifiableEntryData;
 import com.electronwill.nightconfig.core.impl.CharacterOutput;
-import com.electronwill.nightconfig.core.impl.Utils;
+import com.electronwill.nightconfig.core.impl.ParallelWriting;
 import com.electronwill.nightconfig.core.impl.WriterOutput;
 import com.electronwill.nightconfig.core.io.*;
 
 import java.io.Writer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.electronwill.nightconfig.core.NullObject.NULL_OBJECT;
 
@@ -21,16 +23,66 @@ public final class MinimalJsonWriter implements ConfigWriter {
 	static final char[] NULL_CHARS = {'n', 'u', 'l', 'l'};
 	static final char[] TRUE_CHARS = {'t', 'r', 'u', 'e'};
 	static final char[] FALSE_CHARS = {'f', 'a', 'l', 's', 'e'};
-	static final char[] TO_ESCAPE = {'"', '\n', '\r', '\t', '\\'};
-	static final char[] ESCAPED = {'"', 'n', 'r', 't', '\\'};
 	static final char[] EMPTY_OBJECT = {'{', '}'}, EMPTY_ARRAY = {'[', ']'};
 
+	/**
+	 * Escapes of the ASCII characters, indexed by character: 0 if the character can be written
+	 * as is, 'u' if it must be written as an unicode escape sequence, and otherwise the
+	 * character to write after the backslash.
+	 */
+	private static final char[] ESCAPES = new char[128];
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	static {
+		for (int c = 0; c < 0x20; c++) {
+			ESCAPES[c] = 'u';// control characters
+		}
+		ESCAPES['"'] = '"';
+		ESCAPES['\\'] = '\\';
+		ESCAPES['\n'] = 'n';
+		ESCAPES['\r'] = 'r';
+		ESCAPES['\t'] = 't';
+		ESCAPES['\b'] = 'b';
+		ESCAPES['\f'] = 'f';
+	}
+
+	/** Writes the small values, whose size doesn't need to be estimated again */
+	private static final MinimalJsonWriter SEQUENTIAL = new MinimalJsonWriter();
+
+	private ParallelWriting parallelWriting;// null to write sequentially
+
 	/**
 	 * Writes a configuration in the JSON object format.
 	 */
 	@Override
-	public void write(UnmodifiableConfig config, Writer writer) {
-		writeConfig(config, new WriterOutput(writer));
+	public void write(UnmodifiableConfig config, CharacterOutput output) {
+		writeConfig(config, output);
+	}
+
+	/**
+	 * Enables or disables the parallel writing. When enabled, the large objects and arrays are
+	 * split in segments that are written concurrently, then concatenated in the right order.
+	 * The result is the same as the one of the sequential writing.
+	 *
+	 * @param pool      the pool that executes the writing tasks, or null to write sequentially
+	 * @param threshold the approximate number of values (counted recursively) per task
+	 * @return this writer
+	 */
+	public MinimalJsonWriter setParallelWriting(ForkJoinPool pool, int threshold) {
+		this.parallelWriting = (pool == null) ? null : new ParallelWriting(pool, threshold);
+		return this;
+	}
+
+	/**
+	 * Enables or disables the parallel writing on the common pool, with the default threshold.
+	 *
+	 * @param parallel true to write the large objects and arrays in parallel
+	 * @return this writer
+	 * @see #setParallelWriting(ForkJoinPool, int)
+	 */
+	public MinimalJsonWriter setParallelWriting(boolean parallel) {
+		ForkJoinPool pool = parallel ? ForkJoinPool.commonPool() : null;
+		return setParallelWriting(pool, ParallelWriting.DEFAULT_THRESHOLD);
 	}
 
 	/**
@@ -54,24 +106,55 @@ public final class MinimalJsonWriter implements ConfigWriter {
 		writeValue(value, new WriterOutput(writer));
 	}
 
-	private void writeConfig(UnmodifiableConfig config, CharacterOutput output) {
+	void writeConfig(UnmodifiableConfig config, CharacterOutput output) {
 		if (config.isEmpty()) {
 			output.write(EMPTY_OBJECT);
 			return;
 		}
-		Iterator<Map.Entry<String, Object>> it = config.valueMap().entrySet().iterator();
+		final Map<String, ? extends UnmodifiableEntryData> dataMap = config.dataMap();
 		output.write('{');
-		while (true) {
-			final Map.Entry<String, Object> entry = it.next();
-			final String key = entry.getKey();
-			final Object value = entry.getValue();
-			writeString(key, output);// key
-			output.write(':');// separator
-			writeValue(value, output);// value
-			if (it.hasNext()) {
-				output.write(',');
+		if (parallelWriting != null && parallelWriting.isLarge(config)) {
+			final int size = dataMap.size();
+			final String[] keys = new String[size];
+			final Object[] values = new Object[size];
+			int i = 0;
+			for (Map.Entry<String, ? extends UnmodifiableEntryData> entry : dataMap.entrySet()) {
+				keys[i] = entry.getKey();
+				values[i] = entry.getValue().getValue();
+				i++;
+			}
+			int[] bounds = parallelWriting.split(values);
+			ParallelWriting.RangeWriter rangeWriter = (from, to, out) -> {
+				for (int j = from; j < to; j++) {
+					writeString(keys[j], out);// key
+					out.write(':');// separator
+					writeValue(values[j], out);// value
+					if (j < size - 1) {
+						out.write(',');
+					}
+				}
+			};
+			if (bounds != null) {
+				parallelWriting.write(bounds, rangeWriter, output);
 			} else {
-				break;
+				rangeWriter.write(0, size, output);
+			}
+		} else {
+			final MinimalJsonWriter writer = (parallelWriting == null) ? this : SEQUENTIAL;
+			Iterator<? extends Map.Entry<String, ? extends UnmodifiableEntryData>> it =
+				dataMap.entrySet().iterator();
+			while (true) {
+				final Map.Entry<String, ? extends UnmodifiableEntryData> entry = it.next();
+				final String key = entry.getKey();
+				final Object value = entry.getValue().getValue();
+				writeString(key, output);// key
+				output.write(':');// separator
+				writer.writeValue(value, output);// value
+				if (it.hasNext()) {
+					output.write(',');
+				} else {
+					break;
+				}
 			}
 		}
 		output.write('}');
@@ -118,20 +201,39 @@ public final class MinimalJsonWriter implements ConfigWriter {
 			return;
 		}
 		output.write('[');
-		if (collection instanceof RandomAccess) {
+		if (parallelWriting != null && parallelWriting.isLarge(collection)) {
+			final Object[] values = collection.toArray();
+			final int size = values.length;
+			int[] bounds = parallelWriting.split(values);
+			ParallelWriting.RangeWriter rangeWriter = (from, to, out) -> {
+				for (int j = from; j < to; j++) {
+					writeValue(values[j], out);
+					if (j < size - 1) {
+						out.write(',');
+					}
+				}
+			};
+			if (bounds != null) {
+				parallelWriting.write(bounds, rangeWriter, output);
+			} else {
+				rangeWriter.write(0, size, output);
+			}
+		} else if (collection instanceof RandomAccess) {
+			final MinimalJsonWriter writer = (parallelWriting == null) ? this : SEQUENTIAL;
 			List<?> list = (List<?>)collection;// A class implementing RandomAccess should be a List
 			int lastIndex = list.size() - 1;
 			for (int i = 0; i < lastIndex; i++) {
 				Object value = list.get(i);
-				writeValue(value, output);
+				writer.writeValue(value, output);
 				output.write(',');
 			}
-			writeValue(list.get(lastIndex), output);
+			writer.writeValue(list.get(lastIndex), output);
 		} else {
+			final MinimalJsonWriter writer = (parallelWriting == null) ? this : SEQUENTIAL;
 			Iterator<?> it = collection.iterator();
 			while (true) {
 				Object value = it.next();
-				writeValue(value, output);// the value
+				writer.writeValue(value, output);// the value
 				if (it.hasNext()) {
 					output.write(',');// the separator
 				} else {
@@ -151,19 +253,42 @@ public final class MinimalJsonWriter implements ConfigWriter {
 	}
 
 	private void writeString(CharSequence csq, CharacterOutput output) {
+		writeEscaped(csq, output);
+	}
+
+	/**
+	 * Writes a JSON string. The runs of characters that don't need to be escaped are written
+	 * in bulk.
+	 *
+	 * @param csq    the characters to write
+	 * @param output the output to write to
+	 */
+	static void writeEscaped(CharSequence csq, CharacterOutput output) {
+		final String s = csq.toString();
+		final int length = s.length();
+		int runStart = 0;
 		output.write('"');
-		final int length = csq.length();
 		for (int i = 0; i < length; i++) {
-			char c = csq.charAt(i);
-			int escapeIndex = Utils.arrayIndexOf(TO_ESCAPE, c);
-			if (escapeIndex == -1) {
-				output.write(c);
-			} else {// the character must be escaped
-				char escaped = ESCAPED[escapeIndex];
+			final char c = s.charAt(i);
+			if (c < 128 && ESCAPES[c] != 0) {// the character must be escaped
+				if (i > runStart) {
+					output.write(s, runStart, i - runStart);
+				}
+				final char escaped = ESCAPES[c];
 				output.write('\\');
 				output.write(escaped);
+				if (escaped == 'u') {
+					output.write('0');
+					output.write('0');
+					output.write(HEX_DIGITS[c >> 4]);
+					output.write(HEX_DIGITS[c & 0xF]);
+				}
+				runStart = i + 1;
 			}
 		}
+		if (runStart < length) {
+			output.write(s, runStart, length - runStart);
+		}
 		output.write('"');
 	}
 }
\ No newline at end of file
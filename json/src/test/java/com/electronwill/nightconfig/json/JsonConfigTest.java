@@ -1,11 +1,14 @@
 package com.electronwill.nightconfig.json;
 
 import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.MemoryConfig;
 import com.electronwill.nightconfig.core.TestEnum;
 import com.electronwill.nightconfig.core.file.FileConfig;
 import com.electronwill.nightconfig.core.file.FileNotFoundAction;
 import com.electronwill.nightconfig.core.io.IndentStyle;
+import com.electronwill.nightconfig.core.io.NewlineStyle;
 import com.electronwill.nightconfig.core.io.ParsingException;
+import com.electronwill.nightconfig.core.io.WritingException;
 import com.electronwill.nightconfig.core.io.WritingMode;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -14,7 +17,10 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -195,6 +201,35 @@ public class JsonConfigTest {
 		}
 	}
 
+	@Test
+	public void testIterateArray() {
+		String json = "[{\"id\": 1, \"name\": \"a\"},"
+					+ " {\"id\": 2, \"tags\": [\"x\", \"y\"]},{}]";
+		Iterator<Config> it = JsonFormat.iterateArray(new StringReader(json));
+		assertTrue(it.hasNext());
+		Config first = it.next();
+		assertEquals(1, first.<Number>get("id").intValue());
+		assertEquals("a", first.get("name"));
+
+		Config second = it.next();
+		assertEquals(2, second.<Number>get("id").intValue());
+		assertEquals(Arrays.asList("x", "y"), second.get("tags"));
+
+		assertTrue(it.next().isEmpty());
+		assertFalse(it.hasNext());
+
+		List<Config> empty = JsonFormat.streamArray(new StringReader(" [ ] "))
+										.collect(Collectors.toList());
+		assertTrue(empty.isEmpty());
+
+		assertThrows(ParsingException.class, () -> JsonFormat.iterateArray(new StringReader("{}")));
+		assertThrows(ParsingException.class, () -> {
+			Iterator<Config> invalid = JsonFormat.iterateArray(new StringReader("[{}, 12]"));
+			invalid.next();
+			invalid.next();
+		});
+	}
+
 	@Test
 	public void testFancyWriter() throws IOException {
 		try (Writer fileWriter = new BufferedWriter(
@@ -211,4 +246,55 @@ public class JsonConfigTest {
 		writer.write(config, sw);
 		System.out.println("Written:\n" + sw);
 	}
+
+	@Test
+	public void testEscapedStrings() {
+		Config escaped = new MemoryConfig();
+		escaped.set("s", "quote\" backslash\\ tab\t\u0001\u001f\b\f é/");
+		String json = new MinimalJsonWriter().writeToString(escaped);
+		assertEquals("{\"s\":\"quote\\\" backslash\\\\ tab\\t\\u0001\\u001f\\b\\f é/\"}", json);
+
+		Config parsed = new JsonParser(false).parse(json);
+		assertEquals(escaped.<String>get("s"), parsed.get("s"));
+
+		String fancy = new FancyJsonWriter().setNewline(NewlineStyle.UNIX).writeToString(escaped);
+		assertEquals("{\n\t\"s\": \"quote\\\" backslash\\\\ tab\\t\\u0001\\u001f\\b\\f é/\"\n}",
+					 fancy);
+	}
+
+	@Test
+	public void testParallelWriting() {
+		Config big = new MemoryConfig();
+		for (int i = 0; i < 200; i++) {
+			Config sub = new MemoryConfig();
+			sub.set("id", i);
+			sub.set("name", "element \"" + i + '"');
+			sub.set("values", Arrays.asList(i, i * 0.5, Arrays.asList("a", "b")));
+			big.set("e" + i, sub);
+		}
+		big.set("list", Arrays.asList(big.<Config>get("e0"), big.<Config>get("e1"), 1, 2, 3, 4, 5, 6, 7, 8));
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			FancyJsonWriter fancy = new FancyJsonWriter();
+			String expected = fancy.writeToString(big);
+			assertEquals(expected, fancy.setParallelWriting(pool, 8).writeToString(big));
+
+			MinimalJsonWriter minimal = new MinimalJsonWriter();
+			expected = minimal.writeToString(big);
+			assertEquals(expected, minimal.setParallelWriting(pool, 8).writeToString(big));
+			assertEquals(big.size(), new JsonParser(false).parse(expected).size());
+
+			// A value that can't be written: the other segments are awaited, then it fails
+			Config invalid = new MemoryConfig();
+			for (int i = 0; i < 100; i++) {
+				invalid.set("v" + i, i);
+			}
+			invalid.set("invalid", new Object());
+			assertThrows(WritingException.class, () -> minimal.writeToString(invalid));
+			assertThrows(WritingException.class, () -> fancy.writeToString(invalid));
+			assertEquals(expected, minimal.writeToString(big));
+		} finally {
+			pool.shutdown();
+		}
+	}
 }
\ No newline at end of file
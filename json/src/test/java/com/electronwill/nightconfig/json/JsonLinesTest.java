@@ -0,0 +1,107 @@
+package com.electronwill.nightconfig.json;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.MemoryConfig;
+import com.electronwill.nightconfig.core.io.ParsingException;
+import com.electronwill.nightconfig.core.io.WritingMode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonLinesTest {
+	private static final int COUNT = 2000;
+
+	private static List<Integer> ids(Stream<Config> stream) {
+		return stream.map(c -> c.<Integer>get("id")).collect(Collectors.toList());
+	}
+
+	private static Path writeTestFile() throws IOException {
+		List<Config> configs = new ArrayList<>();
+		for (int i = 0; i < COUNT; i++) {
+			Config config = new MemoryConfig();
+			config.set("id", i);
+			config.set("name", "line \"" + i + "\"\n");
+			configs.add(config);
+		}
+		Path file = Files.createTempFile("nightconfig-test", ".jsonl");
+		file.toFile().deleteOnExit();
+		JsonLinesWriter writer = new JsonLinesWriter();
+		writer.writeAll(configs.subList(0, COUNT / 2), file, WritingMode.REPLACE);
+		for (Config config : configs.subList(COUNT / 2, COUNT)) {
+			writer.write(config, file, WritingMode.APPEND);
+		}
+		return file;
+	}
+
+	@Test
+	public void testWriteAndParse() throws IOException {
+		Path file = writeTestFile();
+		assertEquals(COUNT, Files.readAllLines(file).size());
+
+		List<Integer> expected = IntStream.range(0, COUNT).boxed().collect(Collectors.toList());
+		JsonLinesParser parser = new JsonLinesParser().setChunkSize(512);
+		try (Stream<Config> stream = parser.parse(file)) {
+			assertEquals(expected, ids(stream));
+		}
+		assertEquals(expected, ids(parser.parseParallel(file)));
+
+		List<Integer> unordered = ids(parser.parseParallel(file, ForkJoinPool.commonPool(), false));
+		unordered.sort(null);
+		assertEquals(expected, unordered);
+
+		try (Stream<Config> stream = parser.parse(file)) {
+			Config first = stream.findFirst().get();
+			assertEquals("line \"0\"\n", first.get("name"));
+		}
+	}
+
+	@Test
+	public void testBlankLinesAndErrors() {
+		JsonLinesParser parser = new JsonLinesParser();
+		String data = "{\"a\": 1}\n\n   \r\n{\"b\": [1, 2]}\r\n";
+		List<Config> configs = parser.parse(new StringReader(data)).collect(Collectors.toList());
+		assertEquals(2, configs.size());
+		assertEquals(1, (int)configs.get(0).get("a"));
+		assertEquals(2, configs.get(1).<List<?>>get("b").size());
+
+		assertThrows(ParsingException.class,
+			() -> parser.parse(new StringReader("{\"a\": 1}\n[1, 2]\n")).count());
+		assertThrows(ParsingException.class,
+			() -> parser.parse(new StringReader("{\"a\": 1} {\"b\": 2}")).count());
+		assertThrows(ParsingException.class, () -> parser.parseLine("{\"a\": 1x}"));
+	}
+
+	@Test
+	public void testByteOrderMark() throws IOException {
+		Path file = Files.createTempFile("nightconfig-test", ".jsonl");
+		file.toFile().deleteOnExit();
+		Files.write(file, "\uFEFF{\"id\": 0}\n{\"id\": 1}\n".getBytes(StandardCharsets.UTF_8));
+		JsonLinesParser parser = new JsonLinesParser().setChunkSize(4);// one chunk per line
+		try (Stream<Config> stream = parser.parse(file)) {
+			assertEquals(Arrays.asList(0, 1), ids(stream));
+		}
+		assertEquals(Arrays.asList(0, 1), ids(parser.parseParallel(file)));
+
+		// Only the BOM at the beginning of the file is skipped, not the one of the other lines
+		Files.write(file, "{\"id\": 0}\n\uFEFF{\"id\": 1}\n".getBytes(StandardCharsets.UTF_8));
+		assertThrows(ParsingException.class, () -> {
+			try (Stream<Config> stream = parser.parse(file)) {
+				stream.count();
+			}
+		});
+		assertThrows(ParsingException.class, () -> parser.parseParallel(file).count());
+	}
+}
\ No newline at end of file
@@ -14,24 +14,24 @@ final class ArrayWriter {
 	/**
 	 * Writes a plain array, not an array of tables.
 	 */
-	static void write(List<?> values, CharacterOutput output, TomlWriter writer) {
+	static void write(List<?> values, CharacterOutput output, WritingContext context) {
 		if (values.isEmpty()) {
 			output.write(EMPTY_ARRAY);
 			return;
 		}
 		output.write('[');
-		boolean indent = writer.writesIndented(values);
+		boolean indent = context.writesIndented(values);
 		if (indent) {
-			writer.increaseIndentLevel();
+			context.increaseIndentLevel();
 		}
 		Iterator<?> iterator = values.iterator();
 		for (boolean hasNext = iterator.hasNext(); hasNext; ) {
 			if (indent) {
-				writer.writeNewline(output);
-				writer.writeIndent(output);
+				context.writeNewline(output);
+				context.writeIndent(output);
 			}
 			Object value = iterator.next();
-			ValueWriter.write(value, output, writer);
+			ValueWriter.write(value, output, context);
 			if ((hasNext = iterator.hasNext())) {
 				if (indent) {
 					output.write(',');
@@ -41,8 +41,8 @@ final class ArrayWriter {
 			}
 		}
 		if (indent) {
-			writer.decreaseIndentLevel();
-			writer.writeNewline(output);
+			context.decreaseIndentLevel();
+			context.writeNewline(output);
 		}
 		output.write(']');
 	}
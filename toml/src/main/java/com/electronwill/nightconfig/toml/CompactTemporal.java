@@ -0,0 +1,208 @@
+package com.electronwill.nightconfig.toml;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalField;
+import java.time.temporal.TemporalUnit;
+
+/**
+ * A TOML date or time stored as a number of days since the epoch and a number of nanoseconds
+ * since the beginning of the day. It is created by the {@link TomlParser} when
+ * {@link TomlParser#setCompactTemporals(boolean)} is enabled, and takes less memory than the
+ * java.time objects until it's used.
+ * <p>
+ * The corresponding LocalTime, LocalDate, LocalDateTime or OffsetDateTime is created the first
+ * time it's needed, either by {@link #toTemporal()} or by the methods of {@link Temporal}, which
+ * are delegated to it.
+ *
+ * @author TheElectronWill
+ */
+public final class CompactTemporal implements Temporal {
+	private static final byte LOCAL_TIME = 0, LOCAL_DATE = 1, LOCAL_DATE_TIME = 2,
+		OFFSET_DATE_TIME = 3;
+	private static final long DAYS_0000_TO_1970 = 719528L;
+
+	private final byte kind;
+	private final long epochDay, nanoOfDay;
+	private final ZoneOffset offset;// null if there is no offset
+	private Temporal temporal;// created on demand
+
+	private CompactTemporal(byte kind, long epochDay, long nanoOfDay, ZoneOffset offset) {
+		this.kind = kind;
+		this.epochDay = epochDay;
+		this.nanoOfDay = nanoOfDay;
+		this.offset = offset;
+	}
+
+	static CompactTemporal ofTime(long nanoOfDay) {
+		return new CompactTemporal(LOCAL_TIME, 0, nanoOfDay, null);
+	}
+
+	static CompactTemporal ofDate(int year, int month, int day) {
+		return new CompactTemporal(LOCAL_DATE, epochDay(year, month, day), 0, null);
+	}
+
+	static CompactTemporal ofDateTime(int year, int month, int day, long nanoOfDay) {
+		return new CompactTemporal(LOCAL_DATE_TIME, epochDay(year, month, day), nanoOfDay, null);
+	}
+
+	static CompactTemporal ofOffsetDateTime(int year, int month, int day, long nanoOfDay,
+											ZoneOffset offset) {
+		long epochDay = epochDay(year, month, day);
+		return new CompactTemporal(OFFSET_DATE_TIME, epochDay, nanoOfDay, offset);
+	}
+
+	/**
+	 * @return the number of days since 1970-01-01, or 0 if this is a time without a date
+	 */
+	public long getEpochDay() {
+		return epochDay;
+	}
+
+	/**
+	 * @return the number of nanoseconds since the beginning of the day, or 0 if this is a date
+	 * without a time
+	 */
+	public long getNanoOfDay() {
+		return nanoOfDay;
+	}
+
+	/**
+	 * @return the offset from UTC, or null if this is a local date or time
+	 */
+	public ZoneOffset getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Gets the java.time object that corresponds to this value: a LocalTime, LocalDate,
+	 * LocalDateTime or OffsetDateTime. It's created the first time this method is called.
+	 *
+	 * @return the corresponding Temporal
+	 */
+	public Temporal toTemporal() {
+		Temporal t = temporal;
+		if (t == null) {
+			switch (kind) {
+				case LOCAL_TIME:
+					t = LocalTime.ofNanoOfDay(nanoOfDay);
+					break;
+				case LOCAL_DATE:
+					t = LocalDate.ofEpochDay(epochDay);
+					break;
+				case LOCAL_DATE_TIME:
+					t = LocalDateTime.of(LocalDate.ofEpochDay(epochDay),
+										 LocalTime.ofNanoOfDay(nanoOfDay));
+					break;
+				default:
+					t = OffsetDateTime.of(LocalDate.ofEpochDay(epochDay),
+										  LocalTime.ofNanoOfDay(nanoOfDay), offset);
+			}
+			temporal = t;// java.time objects are immutable, it's fine if two threads do this
+		}
+		return t;
+	}
+
+	// --- Temporal's methods, delegated to toTemporal() ---
+	@Override
+	public boolean isSupported(TemporalUnit unit) {
+		return toTemporal().isSupported(unit);
+	}
+
+	@Override
+	public boolean isSupported(TemporalField field) {
+		return toTemporal().isSupported(field);
+	}
+
+	@Override
+	public long getLong(TemporalField field) {
+		return toTemporal().getLong(field);
+	}
+
+	@Override
+	public Temporal with(TemporalField field, long newValue) {
+		return toTemporal().with(field, newValue);
+	}
+
+	@Override
+	public Temporal plus(long amountToAdd, TemporalUnit unit) {
+		return toTemporal().plus(amountToAdd, unit);
+	}
+
+	@Override
+	public long until(Temporal endExclusive, TemporalUnit unit) {
+		return toTemporal().until(endExclusive, unit);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof CompactTemporal)) {
+			return false;
+		}
+		CompactTemporal other = (CompactTemporal)obj;
+		return kind == other.kind
+			   && epochDay == other.epochDay
+			   && nanoOfDay == other.nanoOfDay
+			   && (offset == null ? other.offset == null : offset.equals(other.offset));
+	}
+
+	@Override
+	public int hashCode() {
+		// Uses the packed fields, like equals, so that hashing doesn't create the java.time object
+		int result = kind;
+		result = 31 * result + Long.hashCode(epochDay);
+		result = 31 * result + Long.hashCode(nanoOfDay);
+		return 31 * result + (offset == null ? 0 : offset.hashCode());
+	}
+
+	@Override
+	public String toString() {
+		return toTemporal().toString();
+	}
+
+	// --- Date computations, like in LocalDate ---
+	static boolean isLeapYear(int year) {
+		return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+	}
+
+	static int lengthOfMonth(int year, int month) {
+		switch (month) {
+			case 2:
+				return isLeapYear(year) ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+
+	private static long epochDay(int year, int month, int day) {
+		long y = year;
+		long m = month;
+		long total = 365 * y;
+		if (y >= 0) {
+			total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+		} else {
+			total -= y / -4 - y / -100 + y / -400;
+		}
+		total += (367 * m - 362) / 12;
+		total += day - 1;
+		if (m > 2) {
+			total--;
+			if (!isLeapYear(year)) {
+				total--;
+			}
+		}
+		return total - DAYS_0000_TO_1970;
+	}
+}
\ No newline at end of file
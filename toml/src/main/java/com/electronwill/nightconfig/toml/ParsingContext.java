@@ -0,0 +1,117 @@
+package com.electronwill.nightconfig.toml;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.impl.Charray;
+import com.electronwill.nightconfig.core.io.ParsingMode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The state of one parsing operation. A new context is created each time the {@link TomlParser}
+ * parses some data, so that the parser itself doesn't change and can be used by several threads.
+ *
+ * @author TheElectronWill
+ */
+final class ParsingContext {
+	private final TomlParser parser;
+	private final Config destination;
+	private final ParsingMode parsingMode;
+	private final boolean configWasEmpty;
+	private final TableCursor tableCursor;
+	private String currentComment;
+
+	ParsingContext(TomlParser parser, Config destination, ParsingMode parsingMode,
+				   boolean configWasEmpty) {
+		this.parser = parser;
+		this.destination = destination;
+		this.parsingMode = parsingMode;
+		this.configWasEmpty = configWasEmpty;
+		this.tableCursor = new TableCursor(configWasEmpty);
+	}
+
+	/**
+	 * Creates a new context with the same settings and destination, to parse another section of
+	 * the data independently of this one.
+	 */
+	ParsingContext forSection() {
+		return new ParsingContext(parser, destination, parsingMode, configWasEmpty);
+	}
+
+	// --- Parser's settings ---
+	boolean isLenientWithSeparators() {
+		return parser.isLenientWithSeparators();
+	}
+
+	boolean isLenientWithBareKeys() {
+		return parser.isLenientWithBareKeys();
+	}
+
+	boolean isCompactTemporals() {
+		return parser.isCompactTemporals();
+	}
+
+	// --- Parsing state ---
+	boolean configWasEmpty() {
+		return configWasEmpty;
+	}
+
+	ParsingMode getParsingMode() {
+		return parsingMode;
+	}
+
+	TableCursor getTableCursor() {
+		return tableCursor;
+	}
+
+	// --- Configured objects creation ---
+	<T> List<T> createList() {
+		return new ArrayList<>(parser.getInitialListCapacity());
+	}
+
+	/**
+	 * Creates a new table, of the same type as the subconfigs of the destination config.
+	 */
+	Config createTable() {
+		return destination.createSubConfig();
+	}
+
+	Charray createBuilder() {
+		return new Charray(parser.getInitialStringBuilderCapacity());
+	}
+
+	// --- Comment management ---
+	boolean hasPendingComment() {
+		return currentComment != null;
+	}
+
+	String consumeComment() {
+		String comment = currentComment;
+		currentComment = null;
+		return comment;
+	}
+
+	void setComment(Charray comment) {
+		if (comment != null) {
+			if (currentComment == null) {
+				currentComment = comment.toString();
+			} else {
+				currentComment = currentComment + '\n' + comment.toString();
+			}
+		}
+	}
+
+	void setComment(List<Charray> commentsList) {
+		Charray builder = new Charray(32);
+		if (!commentsList.isEmpty()) {
+			Iterator<Charray> it = commentsList.iterator();
+			builder.append(it.next());
+			while (it.hasNext()) {
+				builder.append('\n');
+				builder.append(it.next());
+			}
+			setComment(builder);// Appends the builder to the current comment if any
+		}
+	}
+}
\ No newline at end of file
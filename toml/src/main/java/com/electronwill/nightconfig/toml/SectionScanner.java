@@ -0,0 +1,185 @@
+package com.electronwill.nightconfig.toml;
+
+import java.util.Arrays;
+
+/**
+ * Quickly finds the table declarations of some TOML data, without parsing it, to split it in
+ * sections that can be parsed in parallel.
+ *
+ * @author TheElectronWill
+ */
+final class SectionScanner {
+	/**
+	 * Finds the table declarations, that is, the lines whose first non-space character is '['
+	 * and that aren't part of a multiline array or string.
+	 *
+	 * @param chars the TOML data
+	 * @return the positions of the '[' that begin the declarations, in ascending order
+	 */
+	static int[] findHeaders(char[] chars) {
+		final int n = chars.length;
+		int[] headers = new int[16];
+		int count = 0;
+		int arrayDepth = 0;
+		boolean lineStart = true;
+		int i = 0;
+		while (i < n) {
+			final char c = chars[i];
+			if (lineStart) {
+				if (c == ' ' || c == '\t') {
+					i++;
+					continue;
+				}
+				lineStart = false;
+				if (c == '[' && arrayDepth == 0) {// Table declaration
+					if (count == headers.length) {
+						headers = Arrays.copyOf(headers, count * 2);
+					}
+					headers[count++] = i;
+					i = skipDeclaration(chars, i + 1);
+					continue;
+				}
+			}
+			switch (c) {
+				case '\n':
+					lineStart = true;
+					i++;
+					break;
+				case '#':
+					i = skipComment(chars, i);
+					break;
+				case '"':
+					i = skipBasicString(chars, i);
+					break;
+				case '\'':
+					i = skipLiteralString(chars, i);
+					break;
+				case '[':
+					arrayDepth++;
+					i++;
+					break;
+				case ']':
+					if (arrayDepth > 0) {
+						arrayDepth--;
+					}
+					i++;
+					break;
+				default:
+					i++;
+			}
+		}
+		return Arrays.copyOf(headers, count);
+	}
+
+	/**
+	 * Skips the rest of a table declaration, which may contain quoted keys and a comment.
+	 *
+	 * @return the position of the newline that ends the declaration, or chars.length
+	 */
+	private static int skipDeclaration(char[] chars, int i) {
+		while (i < chars.length && chars[i] != '\n') {
+			final char c = chars[i];
+			if (c == '"') {
+				i = skipBasicString(chars, i);
+			} else if (c == '\'') {
+				i = skipLiteralString(chars, i);
+			} else if (c == '#') {
+				i = skipComment(chars, i);
+			} else {
+				i++;
+			}
+		}
+		return i;
+	}
+
+	/**
+	 * @return the position of the newline that ends the comment, or chars.length
+	 */
+	static int skipComment(char[] chars, int i) {
+		while (i < chars.length && chars[i] != '\n') {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Skips a basic string, which may be multiline. chars[i] must be the opening quote.
+	 *
+	 * @return the position just after the closing quote(s)
+	 */
+	static int skipBasicString(char[] chars, int i) {
+		final int n = chars.length;
+		if (i + 2 < n && chars[i + 1] == '"' && chars[i + 2] == '"') {// Multiline: """
+			int j = i + 3;
+			while (j < n) {
+				final char c = chars[j];
+				if (c == '\\') {
+					j += 2;// skips the escaped character
+				} else if (c == '"' && j + 2 < n && chars[j + 1] == '"' && chars[j + 2] == '"') {
+					return skipExtraQuotes(chars, j + 3, '"');
+				} else {
+					j++;
+				}
+			}
+			return n;
+		}
+		int j = i + 1;
+		while (j < n) {
+			final char c = chars[j];
+			if (c == '\\') {
+				j += 2;
+			} else if (c == '"') {
+				return j + 1;
+			} else if (c == '\n') {
+				return j;// invalid, the parser will report it
+			} else {
+				j++;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Skips a literal string, which may be multiline. chars[i] must be the opening quote.
+	 *
+	 * @return the position just after the closing quote(s)
+	 */
+	static int skipLiteralString(char[] chars, int i) {
+		final int n = chars.length;
+		if (i + 2 < n && chars[i + 1] == '\'' && chars[i + 2] == '\'') {// Multiline: '''
+			int j = i + 3;
+			while (j < n) {
+				if (chars[j] == '\'' && j + 2 < n && chars[j + 1] == '\'' && chars[j + 2] == '\'') {
+					return skipExtraQuotes(chars, j + 3, '\'');
+				}
+				j++;
+			}
+			return n;
+		}
+		int j = i + 1;
+		while (j < n) {
+			final char c = chars[j];
+			if (c == '\'') {
+				return j + 1;
+			} else if (c == '\n') {
+				return j;
+			}
+			j++;
+		}
+		return n;
+	}
+
+	/**
+	 * A multiline string may end with up to two quotes just before its closing delimiter, like
+	 * in {@code """a""""}.
+	 */
+	private static int skipExtraQuotes(char[] chars, int j, char quote) {
+		int max = Math.min(chars.length, j + 2);
+		while (j < max && chars[j] == quote) {
+			j++;
+		}
+		return j;
+	}
+
+	private SectionScanner() {}
+}
\ No newline at end of file
@@ -0,0 +1,251 @@
+package com.electronwill.nightconfig.toml;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the position, in the TOML text, of the value of each key/value pair. Like the
+ * {@link SectionScanner}, it doesn't parse the values: it only skips them, which is enough to
+ * know where they start and end.
+ *
+ * @author TheElectronWill
+ */
+final class SpanScanner {
+	/**
+	 * The location of a key/value pair in the TOML text.
+	 */
+	static final class Span {
+		/** the path of the value: String keys, and Integer indexes in the arrays of tables */
+		final List<Object> path;
+		/** the position of the first char of the key */
+		int keyStart;
+		/** the positions of the first char of the value and of the char just after it */
+		int valueStart, valueEnd;
+		/** a copy of the value as it's written in the text */
+		Object writtenValue;
+
+		Span(List<Object> path, int keyStart, int valueStart, int valueEnd) {
+			this.path = path;
+			this.keyStart = keyStart;
+			this.valueStart = valueStart;
+			this.valueEnd = valueEnd;
+		}
+
+		void shift(int delta) {
+			keyStart += delta;
+			valueStart += delta;
+			valueEnd += delta;
+		}
+	}
+
+	/**
+	 * Finds the key/value pairs of some TOML data, except the ones that are inside an inline table
+	 * or an array, because the whole table or array is one value.
+	 *
+	 * @param chars the TOML data
+	 * @return the spans of the key/value pairs, in the order of the text
+	 */
+	static List<Span> scan(char[] chars) {
+		final int n = chars.length;
+		final List<Span> spans = new ArrayList<>();
+		final Map<List<Object>, Integer> arraySizes = new HashMap<>();
+		List<Object> table = new ArrayList<>();
+		int i = 0;
+		while (i < n) {
+			i = skipSpaces(chars, i);
+			if (i == n) {
+				break;
+			}
+			final char c = chars[i];
+			if (c == '\n' || c == '\r') {
+				i++;
+			} else if (c == '#') {
+				i = SectionScanner.skipComment(chars, i);
+			} else if (c == '[') {// Table declaration
+				boolean isArray = (i + 1 < n && chars[i + 1] == '[');
+				List<String> keys = new ArrayList<>(4);
+				int end = readKeys(chars, isArray ? i + 2 : i + 1, keys);
+				table = resolve(keys, isArray, arraySizes);
+				i = SectionScanner.skipComment(chars, end);
+			} else {// Key/value pair
+				List<String> keys = new ArrayList<>(2);
+				int separator = readKeys(chars, i, keys);
+				int valueStart = skipSpaces(chars, Math.min(separator + 1, n));
+				int valueEnd = skipValue(chars, valueStart);
+				List<Object> path = new ArrayList<>(table.size() + keys.size());
+				path.addAll(table);
+				path.addAll(keys);
+				spans.add(new Span(path, i, valueStart, valueEnd));
+				i = SectionScanner.skipComment(chars, valueEnd);
+			}
+		}
+		return spans;
+	}
+
+	/**
+	 * Resolves the path of a table declaration: each time a part of the path designates an array
+	 * of tables, the index of its last element is inserted after it.
+	 */
+	private static List<Object> resolve(List<String> keys, boolean isArray,
+										Map<List<Object>, Integer> arraySizes) {
+		List<Object> path = new ArrayList<>(keys.size() * 2);
+		for (int k = 0; k < keys.size(); k++) {
+			path.add(keys.get(k));
+			if (isArray && k == keys.size() - 1) {
+				int size = arraySizes.merge(new ArrayList<>(path), 1, Integer::sum);
+				path.add(size - 1);
+			} else {
+				Integer size = arraySizes.get(path);
+				if (size != null) {
+					path.add(size - 1);
+				}
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * Reads a dotted key, until a char that isn't part of it ('=', ':' or ']').
+	 *
+	 * @return the position of the char that ends the key
+	 */
+	private static int readKeys(char[] chars, int i, List<String> keys) {
+		final int n = chars.length;
+		while (true) {
+			i = skipSpaces(chars, i);
+			if (i == n) {
+				return n;
+			}
+			final char c = chars[i];
+			int end;
+			if (c == '"') {
+				end = SectionScanner.skipBasicString(chars, i);
+				keys.add(unescape(chars, i + 1, end - 1));
+			} else if (c == '\'') {
+				end = SectionScanner.skipLiteralString(chars, i);
+				keys.add(new String(chars, i + 1, end - i - 2));
+			} else {
+				end = i;
+				while (end < n && isBareKeyChar(chars[end])) {
+					end++;
+				}
+				keys.add(new String(chars, i, end - i));
+			}
+			i = skipSpaces(chars, end);
+			if (i == n || chars[i] != '.') {
+				return i;
+			}
+			i++;// skips the dot
+		}
+	}
+
+	private static boolean isBareKeyChar(char c) {
+		return c != ' ' && c != '\t' && c != '.' && c != '=' && c != ':' && c != ']'
+			   && c != '\n' && c != '\r' && c != '#';
+	}
+
+	/**
+	 * Skips a value: string, array, inline table, or anything else that ends at the end of the
+	 * line or at the beginning of a comment.
+	 *
+	 * @return the position just after the value
+	 */
+	private static int skipValue(char[] chars, int i) {
+		final int n = chars.length;
+		if (i == n) {
+			return n;
+		}
+		final char first = chars[i];
+		if (first == '"') {
+			return SectionScanner.skipBasicString(chars, i);
+		} else if (first == '\'') {
+			return SectionScanner.skipLiteralString(chars, i);
+		} else if (first == '[' || first == '{') {
+			int depth = 0;
+			while (i < n) {
+				final char c = chars[i];
+				if (c == '"') {
+					i = SectionScanner.skipBasicString(chars, i);
+					continue;
+				} else if (c == '\'') {
+					i = SectionScanner.skipLiteralString(chars, i);
+					continue;
+				} else if (c == '#') {
+					i = SectionScanner.skipComment(chars, i);
+					continue;
+				} else if (c == '[' || c == '{') {
+					depth++;
+				} else if (c == ']' || c == '}') {
+					depth--;
+					if (depth == 0) {
+						return i + 1;
+					}
+				}
+				i++;
+			}
+			return n;
+		}
+		// Number, boolean or date: ends at the end of the line or at a comment
+		int end = i;
+		while (end < n && chars[end] != '\n' && chars[end] != '#') {
+			end++;
+		}
+		while (end > i && Character.isWhitespace(chars[end - 1])) {
+			end--;
+		}
+		return end;
+	}
+
+	private static int skipSpaces(char[] chars, int i) {
+		while (i < chars.length && (chars[i] == ' ' || chars[i] == '\t')) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Unescapes a quoted key. The key has already been checked by the parser.
+	 */
+	private static String unescape(char[] chars, int start, int end) {
+		StringBuilder sb = new StringBuilder(end - start);
+		for (int i = start; i < end; i++) {
+			char c = chars[i];
+			if (c != '\\' || i + 1 == end) {
+				sb.append(c);
+				continue;
+			}
+			char escaped = chars[++i];
+			switch (escaped) {
+				case 'b':
+					sb.append('\b');
+					break;
+				case 't':
+					sb.append('\t');
+					break;
+				case 'n':
+					sb.append('\n');
+					break;
+				case 'f':
+					sb.append('\f');
+					break;
+				case 'r':
+					sb.append('\r');
+					break;
+				case 'u':
+				case 'U':
+					int length = (escaped == 'u') ? 4 : 8;
+					int codePoint = Integer.parseInt(new String(chars, i + 1, length), 16);
+					sb.appendCodePoint(codePoint);
+					i += length;
+					break;
+				default:// '"' or '\\'
+					sb.append(escaped);
+			}
+		}
+		return sb.toString();
+	}
+
+	private SpanScanner() {}
+}
\ No newline at end of file
@@ -1,7 +1,7 @@
 package com.electronwill.nightconfig.toml;
 
 import com.electronwill.nightconfig.core.impl.CharacterInput;
-import com.electronwill.nightconfig.core.impl.CharsWrapper;
+import com.electronwill.nightconfig.core.impl.Charray;
 import com.electronwill.nightconfig.core.io.ParsingException;
 import com.electronwill.nightconfig.core.impl.Utils;
 
@@ -16,18 +16,18 @@ final class StringParser {
 	 * Parses a basic string (surrounded by "). The opening quote must be parse before calling this
 	 * method.
 	 */
-	static String parseBasic(CharacterInput input, TomlParser parser) {
-		CharsWrapper.Builder builder = parser.createBuilder();
+	static String parseBasic(CharacterInput input, ParsingContext context) {
+		Charray builder = context.createBuilder();
 		boolean escape = false;
 		char c;
-		while ((c = input.readChar()) != '\"' || escape) {
+		while ((c = Toml.readChar(input)) != '\"' || escape) {
 			if (escape) {
-				builder.write(escape(c, input));
+				builder.append(escape(c, input));
 				escape = false;
 			} else if (c == '\\') {
 				escape = true;
 			} else {
-				builder.write(c);
+				builder.append(c);
 			}
 		}
 		return builder.toString();
@@ -37,9 +37,9 @@ final class StringParser {
 	 * Parses a literal string (surrounded by '). The opening quote must be read before calling
 	 * this method.
 	 */
-	static String parseLiteral(CharacterInput input, TomlParser parser) {
-		String str = input.readCharsUntil(SINGLE_QUOTE).toString();
-		input.readChar();// skips the last single quote
+	static String parseLiteral(CharacterInput input, ParsingContext context) {
+		String str = Toml.readCharsUntil(input, SINGLE_QUOTE).toString();
+		Toml.readChar(input);// skips the last single quote
 		return str;
 	}
 
@@ -47,14 +47,16 @@ final class StringParser {
 	 * Parses a multiline basic string (surrounded by """). The 3 opening quotes must be read
 	 * before calling this method.
 	 */
-	static String parseMultiBasic(CharacterInput input, TomlParser parser) {
-		CharsWrapper.Builder builder = parser.createBuilder();
+	static String parseMultiBasic(CharacterInput input, ParsingContext context) {
+		Charray builder = context.createBuilder();
 		char c;
-		while ((c = input.readChar()) != '\"' || input.peek() != '\"' || input.peek(1) != '\"') {
+		while ((c = Toml.readChar(input)) != '\"'
+			   || input.peek() != '\"'
+			   || input.peekAfter(1) != '\"') {
 			if (c == '\\') {
-				final char next = input.readChar();
+				final char next = Toml.readChar(input);
 				if (next == '\n'
-					|| (next == '\r' && input.peekChar() == '\n')
+					|| (next == '\r' && Toml.peekChar(input) == '\n')
 					|| (next == '\t' || next == ' ') && isWhitespace(Toml.readLine(input))) {
 					// Goes to the next non-space char (skips newlines too)
 					char nextNonSpace = Toml.readNonSpaceChar(input, true);
@@ -63,9 +65,9 @@ final class StringParser {
 				} else if (next == '\t' || next == ' ') {
 					throw new ParsingException("Invalid escapement: \\" + next);
 				}
-				builder.write(escape(next, input));
+				builder.append(escape(next, input));
 			} else {
-				builder.write(c);
+				builder.append(c);
 			}
 		}
 		input.skipPeeks();// Don't include the closing quotes in the String
@@ -76,10 +78,12 @@ final class StringParser {
 	 * Parses a multiline literal string (surrounded by '''). The 3 opening quotes must be parse
 	 * before calling this method.
 	 */
-	static String parseMultiLiteral(CharacterInput input, TomlParser parser) {
-		CharsWrapper.Builder builder = parser.createBuilder();
+	static String parseMultiLiteral(CharacterInput input, ParsingContext context) {
+		Charray builder = context.createBuilder();
 		char c;
-		while ((c = input.readChar()) != '\'' || input.peek() != '\'' || input.peek(1) != '\'') {
+		while ((c = Toml.readChar(input)) != '\''
+			   || input.peek() != '\''
+			   || input.peekAfter(1) != '\'') {
 			builder.append(c);
 		}
 		input.skipPeeks();// Don't include the closing quotes in the String
@@ -90,12 +94,12 @@ final class StringParser {
 	 * Builds a multiline string with the content of a Builder. Trims the first line break if it's
 	 * at the beginning of the string.
 	 */
-	private static String buildMultilineString(CharsWrapper.Builder builder) {
-		if (builder.get(0) == '\n') {
-			return builder.toString(1);
+	private static String buildMultilineString(Charray builder) {
+		if (builder.length() > 0 && builder.get(0) == '\n') {
+			return builder.sub(1).toString();
 		}
-		if (builder.get(0) == '\r' && builder.get(1) == '\n') {
-			return builder.toString(2);
+		if (builder.length() > 1 && builder.get(0) == '\r' && builder.get(1) == '\n') {
+			return builder.sub(2).toString();
 		}
 		return builder.toString();
 	}
@@ -121,10 +125,10 @@ final class StringParser {
 			case 't':
 				return '\t';
 			case 'u':
-				CharsWrapper chars = input.readChars(4);
+				Charray chars = input.readExactly(4);
 				return (char)Utils.parseInt(chars, 16);
 			case 'U':
-				chars = input.readChars(8);
+				chars = input.readExactly(8);
 				return (char)Utils.parseInt(chars, 16);
 			default:
 				throw new ParsingException("Invalid escapement: \\" + c);
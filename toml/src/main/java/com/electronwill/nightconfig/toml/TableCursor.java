@@ -0,0 +1,109 @@
+package com.electronwill.nightconfig.toml;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.EntryData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves the parent tables of the table declarations, and remembers the tables it has resolved.
+ * <p>
+ * The declarations of a TOML document often share a prefix, like {@code [a.b.c]} followed by
+ * {@code [a.b.d]}. The cursor keeps the path of the last resolution and the table at each of its
+ * levels, so that the next resolution only walks the part of the path that differs. The tables
+ * are read with {@link Config#dataMap()}, which doesn't wrap the values like valueMap() does.
+ *
+ * @author TheElectronWill
+ */
+final class TableCursor {
+	/**
+	 * If false, the cursor doesn't remember anything. This is needed when the parsed config isn't
+	 * empty, because the parser may then replace a table by another value.
+	 */
+	private final boolean enabled;
+	private final List<String> keys = new ArrayList<>();
+	private final List<Config> tables = new ArrayList<>();// tables.get(i) is at keys[0..i]
+
+	TableCursor(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Gets the table at the given path, creating the missing tables. When a level of the path is
+	 * an array of tables, its last element is used.
+	 *
+	 * @param root    the root table
+	 * @param path    the path
+	 * @param length  the number of elements of the path to use
+	 * @param context the parsing context, which creates the missing tables
+	 * @return the table, or null if an element of the path isn't a table
+	 */
+	Config resolve(Config root, List<String> path, int length, ParsingContext context) {
+		int depth = 0;
+		Config current = root;
+		if (enabled) {
+			final int max = Math.min(length, keys.size());
+			while (depth < max && keys.get(depth).equals(path.get(depth))) {
+				depth++;
+			}
+			if (depth > 0) {
+				current = tables.get(depth - 1);
+			}
+			truncate(depth);
+		}
+		for (int i = depth; i < length; i++) {
+			final String key = path.get(i);
+			final EntryData data = current.dataMap().get(key);
+			final Object value = (data == null) ? null : data.getValue();
+			if (value == null) {
+				Config sub = context.createTable();
+				current.set(new String[]{key}, sub);
+				current = sub;
+			} else if (value instanceof Config) {
+				current = (Config)value;
+			} else if (value instanceof List) {
+				List<?> list = (List<?>)value;
+				if (!list.isEmpty() && list.get(0) instanceof Config) {// Arrays of tables
+					int lastIndex = list.size() - 1;
+					current = (Config)list.get(lastIndex);
+				} else {
+					return null;
+				}
+			} else {
+				return null;
+			}
+			if (enabled) {
+				keys.add(key);
+				tables.add(current);
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Must be called when an element is added to an array of tables, because the resolved tables
+	 * that are in that array are no longer its last element.
+	 *
+	 * @param arrayPath the full path of the array of tables
+	 */
+	void elementAdded(List<String> arrayPath) {
+		final int arrayLength = arrayPath.size();
+		if (keys.size() < arrayLength) {
+			return;
+		}
+		for (int i = 0; i < arrayLength; i++) {
+			if (!keys.get(i).equals(arrayPath.get(i))) {
+				return;// the cursor isn't in the array
+			}
+		}
+		truncate(arrayLength - 1);
+	}
+
+	private void truncate(int depth) {
+		for (int i = keys.size() - 1; i >= depth; i--) {
+			keys.remove(i);
+			tables.remove(i);
+		}
+	}
+}
\ No newline at end of file
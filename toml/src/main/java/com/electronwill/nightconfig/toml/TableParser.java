@@ -1,8 +1,8 @@
 package com.electronwill.nightconfig.toml;
 
-import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.Config;
 import com.electronwill.nightconfig.core.impl.CharacterInput;
-import com.electronwill.nightconfig.core.impl.CharsWrapper;
+import com.electronwill.nightconfig.core.impl.Charray;
 import com.electronwill.nightconfig.core.io.ParsingException;
 
 import java.util.ArrayList;
@@ -17,19 +17,19 @@ final class TableParser {
 
 	private static final char[] KEY_END = {'\t', ' ', '=', '.', '\n', '\r', ']', ':'};
 
-	static CommentedConfig parseInline(CharacterInput input, TomlParser parser) {
-		CommentedConfig config = TomlFormat.instance().createConfig();
+	static Config parseInline(CharacterInput input, ParsingContext context) {
+		Config config = context.createTable();
 		while (true) {
 			char keyFirst = Toml.readNonSpaceChar(input, false);
 			if (keyFirst == '}') {
 				return config;// handles {} and {k1=v1,... ,}
 			}
-			String key = parseKey(input, keyFirst, parser);
+			String key = parseKey(input, keyFirst, context);
 			char sep = Toml.readNonSpaceChar(input, false);
-			checkInvalidSeparator(sep, key, parser);
+			checkInvalidSeparator(sep, key, context);
 
-			Object value = ValueParser.parse(input, parser);
-			Object previous = parser.getParsingMode().put(config.valueMap(), key, value);
+			Object value = ValueParser.parse(input, context);
+			Object previous = config.set(new String[]{key}, value);// the table is new
 			checkDuplicateKey(key, previous, true);
 
 			char after = Toml.readNonSpaceChar(input, false);
@@ -43,27 +43,28 @@ final class TableParser {
 		}
 	}
 
-	static <T extends CommentedConfig> T parseNormal(CharacterInput input, TomlParser parser,
-													 T config) {
+	static <T extends Config> T parseNormal(CharacterInput input, ParsingContext context,
+											T config) {
 		while (true) {
-			List<CharsWrapper> commentsList = new ArrayList<>(2);
+			List<Charray> commentsList = new ArrayList<>(2);
 			int keyFirst = Toml.readUseful(input, commentsList);
 			if (keyFirst == -1 || keyFirst == '[') {
-				parser.setComment(commentsList);// Saves the comments that are above the next table
+				context.setComment(commentsList);// Saves the comments above the next table
 				return config;// No more data, or beginning of an other table
 			}
-			List<String> key = parseDottedKey(input, (char)keyFirst, parser);
+			List<String> key = parseDottedKey(input, (char)keyFirst, context);
+			String[] path = key.toArray(new String[0]);
 
-			Object value = ValueParser.parse(input, parser);
-			Object previous = parser.getParsingMode().put(config, key, value);
-			checkDuplicateKey(key, previous, parser.configWasEmpty());
+			Object value = ValueParser.parse(input, context);
+			Object previous = context.getParsingMode().put(config, path, value);
+			checkDuplicateKey(key, previous, context.configWasEmpty());
 
 			int after = Toml.readNonSpace(input, false);
 			if (after == -1) {// End of the stream
 				return config;
 			}
 			if (after == '#') {
-				CharsWrapper comment = Toml.readLine(input);
+				Charray comment = Toml.readLine(input);
 				commentsList.add(comment);
 			} else if (after != '\n' && after != '\r') {
 				throw new ParsingException("Invalid character '"
@@ -73,8 +74,11 @@ final class TableParser {
 										   + "\" = "
 										   + value);
 			}
-			parser.setComment(commentsList);
-			config.setComment(key, parser.consumeComment());
+			context.setComment(commentsList);
+			String comment = context.consumeComment();
+			if (comment != null) {
+				config.setComment(path, comment);
+			}
 		}
 	}
 
@@ -90,31 +94,32 @@ final class TableParser {
 		}
 	}
 
-	private static void checkInvalidSeparator(char sep, String key, TomlParser parser) {
-		if (!Toml.isKeyValueSeparator(sep, parser.isLenientWithSeparators())) {
+	private static void checkInvalidSeparator(char sep, String key, ParsingContext context) {
+		if (!Toml.isKeyValueSeparator(sep, context.isLenientWithSeparators())) {
 			throw new ParsingException(
 					"Invalid separator '" + sep + "'after key \"" + key + "\" in some table.");
 		}
 	}
 
-	static CommentedConfig parseNormal(CharacterInput input, TomlParser parser) {
-		return parseNormal(input, parser, TomlFormat.instance().createConfig());
+	static Config parseNormal(CharacterInput input, ParsingContext context) {
+		return parseNormal(input, context, context.createTable());
 	}
 
-	static List<String> parseTableName(CharacterInput input, TomlParser parser, boolean array) {
-		List<String> list = parser.createList();
+	static List<String> parseTableName(CharacterInput input, ParsingContext context,
+									   boolean array) {
+		List<String> list = context.createList();
 		while (true) {
 			char firstChar = Toml.readNonSpaceChar(input, false);
 			if (firstChar == ']') {
 				throw new ParsingException("Tables names must not be empty.");
 			}
-			String key = parseKey(input, firstChar, parser);
+			String key = parseKey(input, firstChar, context);
 			list.add(key);
 
 			char separator = Toml.readNonSpaceChar(input, false);
 			if (separator == ']') {// End of the declaration
 				if (array) {
-					char after = input.readChar();
+					char after = Toml.readChar(input);
 					if (after != ']') {
 						throw new ParsingException("Invalid declaration of an element of an array"
 												   + " of tables: it ends by ]"
@@ -125,8 +130,8 @@ final class TableParser {
 				}
 				char after = Toml.readNonSpaceChar(input, false);
 				if (after == '#') {// Comment
-					CharsWrapper comment = Toml.readLine(input);
-					parser.setComment(comment);
+					Charray comment = Toml.readLine(input);
+					context.setComment(comment);
 				} else if (after != '\n' && after != '\r') {
 					throw new ParsingException(
 							"Invalid character '" + after + "' after a table " + "declaration.");
@@ -138,15 +143,16 @@ final class TableParser {
 		}
 	}
 
-	static List<String> parseDottedKey(CharacterInput input, char firstChar, TomlParser parser) {
-		List<String> list = parser.createList();
+	static List<String> parseDottedKey(CharacterInput input, char firstChar,
+									   ParsingContext context) {
+		List<String> list = context.createList();
 		char first = firstChar;
 		while (true) {
-			String part = parseKey(input, first, parser);
+			String part = parseKey(input, first, context);
 			list.add(part);
 
 			char sep = Toml.readNonSpaceChar(input, false);
-			if (Toml.isKeyValueSeparator(sep, parser.isLenientWithSeparators())) {
+			if (Toml.isKeyValueSeparator(sep, context.isLenientWithSeparators())) {
 				return list;
 			} else if (sep != '.') {
 				throw new ParsingException("Invalid character '" + sep + "' after key " + list);
@@ -155,23 +161,23 @@ final class TableParser {
 		}
 	}
 
-	static String parseKey(CharacterInput input, char firstChar, TomlParser parser) {
+	static String parseKey(CharacterInput input, char firstChar, ParsingContext context) {
 		// Note that a key can't be multiline
 		// Empty keys are allowed if and only if they are quoted (with double or single quotes)
 		if (firstChar == '\"') {
-			return StringParser.parseBasic(input, parser);
+			return StringParser.parseBasic(input, context);
 		} else if (firstChar == '\'') {
-			return StringParser.parseLiteral(input, parser);
+			return StringParser.parseLiteral(input, context);
 		} else {
-			CharsWrapper restOfKey = input.readCharsUntil(KEY_END);
-			String bareKey = new CharsWrapper.Builder(restOfKey.length() + 1).append(firstChar)
-																			 .append(restOfKey)
-																			 .toString();
+			Charray restOfKey = Toml.readCharsUntil(input, KEY_END);
+			String bareKey = new Charray(restOfKey.length() + 1).append(firstChar)
+																.append(restOfKey)
+																.toString();
 			// Checks that the bare key is conform to the specification
 			if (bareKey.isEmpty()) {
 				throw new ParsingException("Empty bare keys aren't allowed.");
 			}
-			if (!Toml.isValidBareKey(bareKey, parser.isLenientWithBareKeys())) {
+			if (!Toml.isValidBareKey(bareKey, context.isLenientWithBareKeys())) {
 				throw new ParsingException("Invalid bare key: " + bareKey);
 			}
 			return bareKey;
@@ -1,8 +1,7 @@
 package com.electronwill.nightconfig.toml;
 
-import com.electronwill.nightconfig.core.impl.CharsWrapper;
+import com.electronwill.nightconfig.core.impl.Charray;
 import com.electronwill.nightconfig.core.io.ParsingException;
-import com.electronwill.nightconfig.core.impl.Utils;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -11,6 +10,8 @@ import java.time.ZoneOffset;
 import java.time.temporal.Temporal;
 
 /**
+ * Parses TOML dates and times in a single pass, by decoding the digits directly from the chars.
+ *
  * @author TheElectronWill
  * @see <a href="https://github.com/toml-lang/toml#user-content-offset-date-time">TOML specification - OffsetDateTime</a>
  * @see <a href="https://github.com/toml-lang/toml#user-content-local-date-time">TOML specification - LocalDateTime</a>
@@ -18,73 +19,191 @@ import java.time.temporal.Temporal;
  * @see <a href="https://github.com/toml-lang/toml#user-content-local-time">TOML specification - LocalTime</a>
  */
 final class TemporalParser {
+	/** TOML offsets are in hours and minutes, between -18:00 and +18:00 */
+	private static final int MAX_OFFSET_MINUTES = 18 * 60;
 
-	private static final char[] ALLOWED_DT_SEPARATORS = {'T', 't', ' '};
-	private static final char[] OFFSET_INDICATORS = {'Z', '+', '-'};
+	/**
+	 * Cache of the ZoneOffsets, indexed by offset in minutes + MAX_OFFSET_MINUTES. A ZoneOffset is
+	 * immutable, therefore it's safe to share it without synchronization.
+	 */
+	private static final ZoneOffset[] OFFSETS = new ZoneOffset[2 * MAX_OFFSET_MINUTES + 1];
 
 	/**
 	 * Parses a Temporal value, to either a LocalTime, a LocalDate, a LocalDateTime or
-	 * OffsetDateTime.
+	 * OffsetDateTime. The trailing spaces are ignored.
 	 *
-	 * @param chars the CharsWrapper to parse, <b>must be trimmed</b>
+	 * @param chars the Charray to parse
 	 * @return a Temporal value
 	 */
-	static Temporal parse(CharsWrapper chars) {
-		if (chars.get(2) == ':') {// LocalTime
-			return parseTime(chars);
+	static Temporal parse(Charray chars) {
+		return parse(chars, false);
+	}
+
+	/**
+	 * Parses a Temporal value. If {@code compact} is true, returns a {@link CompactTemporal}
+	 * instead of a LocalTime, LocalDate, LocalDateTime or OffsetDateTime.
+	 *
+	 * @param chars   the Charray to parse
+	 * @param compact true to return a CompactTemporal
+	 * @return a Temporal value
+	 */
+	static Temporal parse(Charray chars, boolean compact) {
+		int end = chars.length();
+		while (end > 0 && (chars.get(end - 1) == ' ' || chars.get(end - 1) == '\t')) {
+			end--;
+		}
+		if (end >= 3 && chars.get(2) == ':') {// LocalTime
+			long nanoOfDay = parseTime(chars, 0, end);
+			return compact ? CompactTemporal.ofTime(nanoOfDay) : LocalTime.ofNanoOfDay(nanoOfDay);
 		}
-		LocalDate date = parseDate(chars);
-		if (chars.length() == 10) {// LocalDate
-			return date;
+		// Date: yyyy-mm-dd
+		checkLength(chars, end, 10);
+		int year = parseDigits(chars, 0, 4);
+		checkChar(chars, 4, '-');
+		int month = parseDigits(chars, 5, 2);
+		checkChar(chars, 7, '-');
+		int day = parseDigits(chars, 8, 2);
+		checkDate(chars, year, month, day);
+		if (end == 10) {// LocalDate
+			return compact ? CompactTemporal.ofDate(year, month, day)
+						   : LocalDate.of(year, month, day);
 		}
 		char dateTimeSeparator = chars.get(10);
-		if (!Utils.arrayContains(ALLOWED_DT_SEPARATORS, dateTimeSeparator)) {
+		if (dateTimeSeparator != 'T' && dateTimeSeparator != 't' && dateTimeSeparator != ' ') {
 			throw new ParsingException(
 					"Invalid separator between date and time: '" + dateTimeSeparator + "'.");
 		}
-		CharsWrapper afterDate = chars.subView(11);
-		int offsetIndicatorIndex = afterDate.indexOfFirst(OFFSET_INDICATORS);
-		if (offsetIndicatorIndex == -1) {// LocalDateTime
-			LocalTime time = parseTime(afterDate);
-			return LocalDateTime.of(date, time);
+		// Time: hh:mm:ss[.fraction]
+		int timeEnd = 11;
+		while (timeEnd < end && !isOffsetIndicator(chars.get(timeEnd))) {
+			timeEnd++;
+		}
+		long nanoOfDay = parseTime(chars, 11, timeEnd);
+		if (timeEnd == end) {// LocalDateTime
+			return compact ? CompactTemporal.ofDateTime(year, month, day, nanoOfDay)
+						   : LocalDateTime.of(LocalDate.of(year, month, day),
+											  LocalTime.ofNanoOfDay(nanoOfDay));
+		}
+		// Offset: Z or +hh:mm or -hh:mm
+		ZoneOffset offset = parseOffset(chars, timeEnd, end);
+		if (compact) {
+			return CompactTemporal.ofOffsetDateTime(year, month, day, nanoOfDay, offset);
 		}
-		LocalTime time = parseTime(afterDate.subView(0, offsetIndicatorIndex));
-		ZoneOffset offset = ZoneOffset.of(afterDate.subView(offsetIndicatorIndex).toString());
-		return OffsetDateTime.of(date, time, offset);// OffsetDateTime
+		LocalDate date = LocalDate.of(year, month, day);
+		return OffsetDateTime.of(date, LocalTime.ofNanoOfDay(nanoOfDay), offset);
 	}
 
-	private static LocalDate parseDate(CharsWrapper chars) {
-		CharsWrapper yearChars = chars.subView(0, 4);
-		CharsWrapper monthChars = chars.subView(5, 7);
-		CharsWrapper dayChars = chars.subView(8, 10);
-		int year = Utils.parseInt(yearChars, 10);
-		int month = Utils.parseInt(monthChars, 10);
-		int day = Utils.parseInt(dayChars, 10);
-		return LocalDate.of(year, month, day);
+	/**
+	 * Parses a time hh:mm:ss[.fraction] that goes from start (inclusive) to end (exclusive).
+	 *
+	 * @return the time as a number of nanoseconds since the beginning of the day
+	 */
+	private static long parseTime(Charray chars, int start, int end) {
+		checkLength(chars, end - start, 8);
+		int hour = parseDigits(chars, start, 2);
+		checkChar(chars, start + 2, ':');
+		int minute = parseDigits(chars, start + 3, 2);
+		checkChar(chars, start + 5, ':');
+		int second = parseDigits(chars, start + 6, 2);
+		if (hour > 23 || minute > 59 || second > 59) {
+			throw new ParsingException("Invalid time: " + chars);
+		}
+		int nanos = 0;
+		int pos = start + 8;
+		if (pos < end) {
+			checkChar(chars, pos, '.');
+			pos++;
+			if (pos == end) {
+				throw new ParsingException("Invalid empty fraction of second in: " + chars);
+			}
+			int digits = 0;
+			for (; pos < end; pos++) {
+				int digit = digit(chars, pos);
+				if (digits < 9) {// truncates if too many digits
+					nanos = nanos * 10 + digit;
+					digits++;
+				}
+			}
+			for (; digits < 9; digits++) {
+				nanos *= 10;
+			}
+		}
+		return (hour * 3600L + minute * 60L + second) * 1_000_000_000L + nanos;
 	}
 
-	private static LocalTime parseTime(CharsWrapper chars) {
-		CharsWrapper hourChars = chars.subView(0, 2);
-		CharsWrapper minuteChars = chars.subView(3, 5);
-		CharsWrapper secondChars = chars.subView(6, 8);
-		int hour = Utils.parseInt(hourChars, 10);
-		int minutes = Utils.parseInt(minuteChars, 10);
-		int seconds = Utils.parseInt(secondChars, 10);
-		int nanos;
-
-		if (chars.length() > 8) {
-			CharsWrapper fractionChars = new CharsWrapper(chars.subView(9));
-			if (fractionChars.length() > 9) {
-				fractionChars = fractionChars.subView(0, 9);// truncates if too many digits
+	private static ZoneOffset parseOffset(Charray chars, int start, int end) {
+		char indicator = chars.get(start);
+		if (indicator == 'Z' || indicator == 'z') {
+			if (end != start + 1) {
+				throw new ParsingException("Invalid offset in: " + chars);
 			}
-			int value = Utils.parseInt(fractionChars, 10);
-			int coeff = (int)Math.pow(10, 9 - fractionChars.length());
-			nanos = value * coeff;
-		} else {
-			nanos = 0;
+			return ZoneOffset.UTC;
+		}
+		checkLength(chars, end - start, 6);
+		int hours = parseDigits(chars, start + 1, 2);
+		checkChar(chars, start + 3, ':');
+		int minutes = parseDigits(chars, start + 4, 2);
+		int totalMinutes = hours * 60 + minutes;
+		if (minutes > 59 || totalMinutes > MAX_OFFSET_MINUTES) {
+			throw new ParsingException("Invalid offset in: " + chars);
+		}
+		return offset(indicator == '-' ? -totalMinutes : totalMinutes);
+	}
+
+	/**
+	 * Gets a ZoneOffset from the cache, or creates it if it's not in the cache yet.
+	 *
+	 * @param totalMinutes the offset in minutes, between -18:00 and +18:00
+	 */
+	static ZoneOffset offset(int totalMinutes) {
+		int index = totalMinutes + MAX_OFFSET_MINUTES;
+		ZoneOffset offset = OFFSETS[index];
+		if (offset == null) {
+			offset = ZoneOffset.ofTotalSeconds(totalMinutes * 60);
+			OFFSETS[index] = offset;
+		}
+		return offset;
+	}
+
+	private static boolean isOffsetIndicator(char c) {
+		return c == 'Z' || c == 'z' || c == '+' || c == '-';
+	}
+
+	private static int parseDigits(Charray chars, int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			value = value * 10 + digit(chars, i);
+		}
+		return value;
+	}
+
+	private static int digit(Charray chars, int index) {
+		char c = chars.get(index);
+		if (c < '0' || c > '9') {
+			throw new ParsingException("Invalid character '" + c + "' in date/time: " + chars);
 		}
-		return LocalTime.of(hour, minutes, seconds, nanos);
+		return c - '0';
+	}
 
+	private static void checkChar(Charray chars, int index, char expected) {
+		if (chars.get(index) != expected) {
+			throw new ParsingException(
+					"Invalid date/time: expected '" + expected + "' at index " + index + " in "
+					+ chars);
+		}
+	}
+
+	private static void checkLength(Charray chars, int length, int minLength) {
+		if (length < minLength) {
+			throw new ParsingException("Invalid date/time: " + chars);
+		}
+	}
+
+	private static void checkDate(Charray chars, int year, int month, int day) {
+		if (month < 1 || month > 12
+			|| day < 1 || day > CompactTemporal.lengthOfMonth(year, month)) {
+			throw new ParsingException("Invalid date: " + chars);
+		}
 	}
 
 	private TemporalParser() {}
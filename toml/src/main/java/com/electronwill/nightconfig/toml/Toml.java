@@ -1,8 +1,9 @@
 package com.electronwill.nightconfig.toml;
 
 import com.electronwill.nightconfig.core.impl.CharacterInput;
-import com.electronwill.nightconfig.core.impl.CharsWrapper;
+import com.electronwill.nightconfig.core.impl.Charray;
 import com.electronwill.nightconfig.core.impl.Utils;
+import com.electronwill.nightconfig.core.io.ParsingException;
 import java.util.List;
 
 /**
@@ -19,10 +20,10 @@ final class Toml {
 	 * Returns the next "useful" character. Skips comments, spaces and newlines.
 	 */
 	static char readUsefulChar(CharacterInput input) {
-		char next = input.readCharSkipping(WHITESPACE_OR_NEWLINE);
+		char next = readCharSkipping(input, WHITESPACE_OR_NEWLINE);
 		while (next == '#') {
-			input.readCharsUntil(NEWLINE);
-			next = input.readCharSkipping(WHITESPACE_OR_NEWLINE);
+			readCharsUntil(input, NEWLINE);
+			next = readCharSkipping(input, WHITESPACE_OR_NEWLINE);
 		}
 		return next;
 	}
@@ -30,12 +31,12 @@ final class Toml {
 	/**
 	 * Returns the next "useful" character. Skips comments, spaces and newlines.
 	 */
-	static int readUseful(CharacterInput input, List<CharsWrapper> commentsList) {
-		int next = input.readSkipping(WHITESPACE_OR_NEWLINE);
+	static int readUseful(CharacterInput input, List<Charray> commentsList) {
+		int next = readSkipping(input, WHITESPACE_OR_NEWLINE);
 		while (next == '#') {
-			CharsWrapper comment = readLine(input);
+			Charray comment = readLine(input);
 			commentsList.add(comment);
-			next = input.readSkipping(WHITESPACE_OR_NEWLINE);
+			next = readSkipping(input, WHITESPACE_OR_NEWLINE);
 		}
 		return next;
 	}
@@ -44,30 +45,117 @@ final class Toml {
 	 * Reads the next non-space character. Doesn't skip comments.
 	 */
 	static char readNonSpaceChar(CharacterInput input, boolean skipNewlines) {
-		return skipNewlines ? input.readCharSkipping(WHITESPACE_OR_NEWLINE)
-							: input.readCharSkipping(WHITESPACE);
+		return skipNewlines ? readCharSkipping(input, WHITESPACE_OR_NEWLINE)
+							: readCharSkipping(input, WHITESPACE);
 	}
 
 	/**
 	 * Reads the next non-space character. Doesn't skip comments.
 	 */
 	static int readNonSpace(CharacterInput input, boolean skipNewlines) {
-		return skipNewlines ? input.readSkipping(WHITESPACE_OR_NEWLINE)
-							: input.readSkipping(WHITESPACE);
+		return skipNewlines ? readSkipping(input, WHITESPACE_OR_NEWLINE)
+							: readSkipping(input, WHITESPACE);
 	}
 
 	/**
 	 * Reads all the characters before the next newline or the end of the data.
 	 */
-	static CharsWrapper readLine(CharacterInput input) {
-		CharsWrapper chars = input.readUntil(NEWLINE);
+	static Charray readLine(CharacterInput input) {
+		Charray chars = readUntil(input, NEWLINE);
 		int lastIndex = chars.length() - 1;
 		if (lastIndex >= 0 && chars.get(lastIndex) == '\r') {
-			return chars.subView(0, lastIndex);
+			return chars.sub(0, lastIndex);
 		}
 		return chars;
 	}
 
+	/**
+	 * Reads the next character.
+	 *
+	 * @throws ParsingException if there is no more data
+	 */
+	static char readChar(CharacterInput input) {
+		int c = input.read();
+		if (c == -1) {
+			throw ParsingException.notEnoughData();
+		}
+		return (char)c;
+	}
+
+	/**
+	 * Returns the next character, without consuming it.
+	 *
+	 * @throws ParsingException if there is no more data
+	 */
+	static char peekChar(CharacterInput input) {
+		int c = input.peek();
+		if (c == -1) {
+			throw ParsingException.notEnoughData();
+		}
+		return (char)c;
+	}
+
+	/**
+	 * Reads the next character that isn't in {@code toSkip}.
+	 *
+	 * @throws ParsingException if there is no more data
+	 */
+	static char readCharSkipping(CharacterInput input, char[] toSkip) {
+		int c = readSkipping(input, toSkip);
+		if (c == -1) {
+			throw ParsingException.notEnoughData();
+		}
+		return (char)c;
+	}
+
+	/**
+	 * Reads the next character that isn't in {@code toSkip}, or returns -1 if there is no more
+	 * data.
+	 */
+	static int readSkipping(CharacterInput input, char[] toSkip) {
+		int c;
+		do {
+			c = input.read();
+		} while (c != -1 && Utils.arrayContains(toSkip, (char)c));
+		return c;
+	}
+
+	/**
+	 * Reads all the characters before the next character that is in {@code stop}. The stop
+	 * character isn't consumed.
+	 *
+	 * @throws ParsingException if there is no more data before a stop character
+	 */
+	static Charray readCharsUntil(CharacterInput input, char[] stop) {
+		Charray chars = new Charray();
+		if (readUntil(input, stop, chars) == -1) {
+			throw ParsingException.notEnoughData();
+		}
+		return chars;
+	}
+
+	/**
+	 * Reads all the characters before the next character that is in {@code stop}, or before
+	 * the end of the data. The stop character isn't consumed.
+	 */
+	static Charray readUntil(CharacterInput input, char[] stop) {
+		Charray chars = new Charray();
+		readUntil(input, stop, chars);
+		return chars;
+	}
+
+	private static int readUntil(CharacterInput input, char[] stop, Charray dst) {
+		int c;
+		while ((c = input.read()) != -1) {
+			if (Utils.arrayContains(stop, (char)c)) {
+				input.pushBack((char)c);
+				break;
+			}
+			dst.append((char)c);
+		}
+		return c;
+	}
+
 	static boolean isValidInBareKey(char c, boolean lenient) {
 		if (lenient) { return c > ' ' && !Utils.arrayContains(FORBIDDEN_IN_ALL_BARE_KEYS, c); }
 		return (c >= 'a' && c <= 'z')
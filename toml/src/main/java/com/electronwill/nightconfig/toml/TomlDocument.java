@@ -0,0 +1,320 @@
+package com.electronwill.nightconfig.toml;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.MemoryConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.UnmodifiableEntryData;
+import com.electronwill.nightconfig.core.impl.CharrayWriter;
+import com.electronwill.nightconfig.core.io.ParsingException;
+import com.electronwill.nightconfig.core.io.WritingException;
+import com.electronwill.nightconfig.toml.SpanScanner.Span;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static com.electronwill.nightconfig.core.StandardAttributes.COMMENT;
+
+/**
+ * A TOML configuration that remembers the text it was parsed from. When it's written again, the
+ * values that have been modified are replaced in the original text, and everything else (comments,
+ * spaces, order of the entries, formatting of the values) is kept as it is.
+ * <p>
+ * Only the values can be updated in place: if entries or tables have been added or removed, or
+ * if a comment has been modified, the whole configuration is written by the {@link TomlWriter},
+ * like a normal configuration. After that, the new text becomes the original one.
+ * <p>
+ * A TomlDocument isn't thread-safe.
+ *
+ * @author TheElectronWill
+ */
+public final class TomlDocument {
+	private final Config config;
+	private String text;
+
+	// --- Index of the text, updated by each writing operation ---
+	private List<Span> spans;
+	private final Map<List<Object>, Span> spansByPath = new HashMap<>();
+	private final Set<List<Object>> tables = new HashSet<>();
+	private final Map<List<Object>, String> comments = new HashMap<>();
+	private int nodeCount;
+	private boolean incremental;
+
+	private TomlDocument(Config config, String text) {
+		this.config = config;
+		this.text = text;
+		index();
+	}
+
+	/**
+	 * Parses some TOML data with a default {@link TomlParser}.
+	 *
+	 * @param text the data to parse
+	 * @return a new TomlDocument
+	 */
+	public static TomlDocument parse(String text) {
+		return parse(text, new TomlParser());
+	}
+
+	/**
+	 * Parses some TOML data.
+	 *
+	 * @param text   the data to parse
+	 * @param parser the parser to use
+	 * @return a new TomlDocument
+	 */
+	public static TomlDocument parse(String text, TomlParser parser) {
+		Config config = parser.parse(text);
+		return new TomlDocument(config, text);
+	}
+
+	/**
+	 * Parses a TOML file, encoded in UTF-8.
+	 *
+	 * @param file   the file to parse
+	 * @param parser the parser to use
+	 * @return a new TomlDocument
+	 */
+	public static TomlDocument parse(Path file, TomlParser parser) {
+		try {
+			String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+			return parse(text, parser);
+		} catch (IOException e) {
+			throw new ParsingException("An I/O error occured", e);
+		}
+	}
+
+	/**
+	 * @return the configuration, which may be modified before writing the document
+	 */
+	public Config getConfig() {
+		return config;
+	}
+
+	/**
+	 * @return the text of the document, as it was parsed or last written
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Updates the text of the document so that it corresponds to the current content of the
+	 * configuration. If possible, only the modified values are rewritten.
+	 *
+	 * @param writer the writer to use to write the modified values, or the whole configuration
+	 * @return the new text of the document
+	 */
+	public String write(TomlWriter writer) {
+		if (incremental) {
+			Map<Span, Object> changes = new IdentityHashMap<>();
+			int count = visit(config, new ArrayList<>(), false, changes);
+			if (count == nodeCount) {
+				if (!changes.isEmpty()) {
+					splice(changes, writer);
+				}
+				return text;
+			}
+		}
+		text = writer.writeToString(config);
+		index();
+		return text;
+	}
+
+	/**
+	 * Updates the text of the document, like {@link #write(TomlWriter)}, and writes it to a
+	 * Writer.
+	 *
+	 * @param writer the writer to use to write the modified values, or the whole configuration
+	 * @param output where to write the document
+	 */
+	public void write(TomlWriter writer, Writer output) {
+		try {
+			output.write(write(writer));
+		} catch (IOException e) {
+			throw new WritingException("An I/O error occured", e);
+		}
+	}
+
+	/**
+	 * Updates the text of the document, like {@link #write(TomlWriter)}, and writes it to a file,
+	 * in UTF-8.
+	 *
+	 * @param writer the writer to use to write the modified values, or the whole configuration
+	 * @param file   the file to write
+	 */
+	public void save(TomlWriter writer, Path file) {
+		try (Writer output = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			output.write(write(writer));
+		} catch (IOException e) {
+			throw new WritingException("An I/O error occured", e);
+		}
+	}
+
+	/**
+	 * Replaces the modified values in the text, and moves the spans that follow them.
+	 */
+	private void splice(Map<Span, Object> changes, TomlWriter writer) {
+		final StringBuilder sb = new StringBuilder(text.length() + 16 * changes.size());
+		final CharrayWriter buffer = new CharrayWriter();
+		final WritingContext context = new WritingContext(writer);
+		int copied = 0, delta = 0;
+		for (Span span : spans) {// in the order of the text
+			Object value = changes.get(span);
+			if (value == null) {
+				span.shift(delta);
+				continue;
+			}
+			buffer.getCharray().clear();
+			ValueWriter.write(value, buffer, context);
+			int oldLength = span.valueEnd - span.valueStart;
+			int newLength = buffer.getCharray().length();
+			sb.append(text, copied, span.valueStart).append(buffer.toString());
+			copied = span.valueEnd;
+			span.shift(delta);
+			span.valueEnd = span.valueStart + newLength;
+			span.writtenValue = copy(value);
+			delta += newLength - oldLength;
+		}
+		sb.append(text, copied, text.length());
+		text = sb.toString();
+	}
+
+	/**
+	 * Finds the spans of the text and takes a snapshot of the configuration's structure, values
+	 * and comments.
+	 */
+	private void index() {
+		spans = SpanScanner.scan(text.toCharArray());
+		spansByPath.clear();
+		tables.clear();
+		comments.clear();
+		boolean unique = true;
+		for (Span span : spans) {
+			unique &= (spansByPath.put(span.path, span) == null);
+		}
+		nodeCount = visit(config, new ArrayList<>(), true, null);
+		// Checks that the spans match the config. If not, the whole config is always written.
+		incremental = unique && nodeCount >= 0 && allSpansVisited();
+	}
+
+	private boolean allSpansVisited() {
+		for (Span span : spans) {
+			if (span.writtenValue == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Visits the entries of a table. In snapshot mode, records the structure, values and comments
+	 * of the table. Otherwise, compares them to the snapshot and collects the modified values.
+	 *
+	 * @return the number of entries visited recursively, or -1 if the structure or the comments
+	 * are different from the snapshot.
+	 */
+	private int visit(UnmodifiableConfig table, List<Object> path, boolean snapshot,
+					  Map<Span, Object> changes) {
+		int count = 0;
+		for (Map.Entry<String, ? extends UnmodifiableEntryData> entry :
+			table.dataMap().entrySet()) {
+			final UnmodifiableEntryData data = entry.getValue();
+			path.add(entry.getKey());
+			int c = visitValue(data.getValue(), data.get(COMMENT), path, snapshot, changes);
+			path.remove(path.size() - 1);
+			if (c < 0) {
+				return -1;
+			}
+			count += c;
+		}
+		return count;
+	}
+
+	private int visitValue(Object value, String comment, List<Object> path, boolean snapshot,
+						   Map<Span, Object> changes) {
+		if (snapshot) {
+			if (comment != null) {
+				comments.put(new ArrayList<>(path), comment);
+			}
+		} else if (!Objects.equals(comment, comments.get(path))) {
+			return -1;// modified comment
+		}
+		Span span = spansByPath.get(path);
+		if (span != null) {// value written after a key
+			if (snapshot) {
+				span.writtenValue = copy(value);
+			} else if (!span.writtenValue.equals(value)) {
+				if (isTableArray(value)) {
+					return -1;// can't be written inline by the ValueWriter
+				}
+				changes.put(span, value);
+			}
+			return 1;
+		}
+		// Table declared with [table] or [[array]]
+		if (snapshot) {
+			tables.add(new ArrayList<>(path));
+		} else if (!tables.contains(path)) {
+			return -1;// new table or entry
+		}
+		if (value instanceof UnmodifiableConfig) {
+			int c = visit((UnmodifiableConfig)value, path, snapshot, changes);
+			return (c < 0) ? -1 : c + 1;
+		}
+		if (isTableArray(value)) {
+			List<?> list = (List<?>)value;
+			int count = 1;
+			for (int i = 0; i < list.size(); i++) {
+				path.add(i);
+				int c = visitValue(list.get(i), null, path, snapshot, changes);
+				path.remove(path.size() - 1);
+				if (c < 0) {
+					return -1;
+				}
+				count += c;
+			}
+			return count;
+		}
+		return -1;// value that isn't in the text
+	}
+
+	private static boolean isTableArray(Object value) {
+		if (!(value instanceof List) || ((List<?>)value).isEmpty()) {
+			return false;
+		}
+		for (Object element : (List<?>)value) {
+			if (!(element instanceof UnmodifiableConfig)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Copies a value deeply, so that it can be compared to the current value even if the
+	 * configurations and lists have been modified in place.
+	 */
+	private static Object copy(Object value) {
+		if (value instanceof UnmodifiableConfig) {
+			Config copy = new MemoryConfig();
+			for (Map.Entry<String, Object> entry : ((UnmodifiableConfig)value).valueMap()
+																		.entrySet()) {
+				copy.set(new String[]{entry.getKey()}, copy(entry.getValue()));
+			}
+			return copy;
+		}
+		if (value instanceof List) {
+			List<?> list = (List<?>)value;
+			List<Object> copy = new ArrayList<>(list.size());
+			for (Object element : list) {
+				copy.add(copy(element));
+			}
+			return copy;
+		}
+		return value;
+	}
+}
\ No newline at end of file
@@ -1,17 +1,23 @@
 package com.electronwill.nightconfig.toml;
 
-import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.AttributeType;
 import com.electronwill.nightconfig.core.ConfigFormat;
+import com.electronwill.nightconfig.core.NullObject;
+import com.electronwill.nightconfig.core.StandardAttributes;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.check.ConfigChecker;
+import com.electronwill.nightconfig.core.check.IncorrectUpdateException;
 import com.electronwill.nightconfig.core.file.FormatDetector;
+import com.electronwill.nightconfig.core.utils.WriterSupplier;
 
+import java.io.IOException;
 import java.time.temporal.Temporal;
-import java.util.Map;
-import java.util.function.Supplier;
+import java.util.List;
 
 /**
  * @author TheElectronWill
  */
-public final class TomlFormat implements ConfigFormat<CommentedConfig> {
+public final class TomlFormat implements ConfigFormat {
 	private static final TomlFormat INSTANCE = new TomlFormat();
 
 	/**
@@ -21,27 +27,6 @@ public final class TomlFormat implements ConfigFormat<CommentedConfig> {
 		return INSTANCE;
 	}
 
-	/**
-	 * @return a new config with the toml format
-	 */
-	public static CommentedConfig newConfig() {
-		return INSTANCE.createConfig();
-	}
-
-	/**
-	 * @return a new config with the given map creator
-	 */
-	public static CommentedConfig newConfig(Supplier<Map<String, Object>> s) {
-		return INSTANCE.createConfig(s);
-	}
-
-	/**
-	 * @return a new thread-safe config with the toml format
-	 */
-	public static CommentedConfig newConcurrentConfig() {
-		return INSTANCE.createConcurrentConfig();
-	}
-
 	static {
 		FormatDetector.registerExtension("toml", INSTANCE);
 	}
@@ -59,8 +44,17 @@ public final class TomlFormat implements ConfigFormat<CommentedConfig> {
 	}
 
 	@Override
-	public CommentedConfig createConfig(Supplier<Map<String, Object>> mapCreator) {
-		return CommentedConfig.of(mapCreator, this);
+	public ConfigChecker checker() {
+		return (attribute, path, oldValue, newValue) -> {
+			if (attribute == StandardAttributes.VALUE && !supportsValue(newValue)) {
+				throw new IncorrectUpdateException(path, attribute, newValue);
+			}
+		};
+	}
+
+	@Override
+	public boolean supportsAttribute(AttributeType<?> attribute) {
+		return attribute == StandardAttributes.VALUE || attribute == StandardAttributes.COMMENT;
 	}
 
 	@Override
@@ -68,8 +62,25 @@ public final class TomlFormat implements ConfigFormat<CommentedConfig> {
 		return true;
 	}
 
+	@Override
+	public boolean supportsValue(Object value) {
+		// TOML has no null value
+		return value != null && value != NullObject.NULL_OBJECT && supportsType(value.getClass());
+	}
+
 	@Override
 	public boolean supportsType(Class<?> type) {
-		return ConfigFormat.super.supportsType(type) || Temporal.class.isAssignableFrom(type);
+		return type == String.class
+			   || type == Boolean.class
+			   || Number.class.isAssignableFrom(type)
+			   || Enum.class.isAssignableFrom(type)
+			   || Temporal.class.isAssignableFrom(type)
+			   || List.class.isAssignableFrom(type)
+			   || UnmodifiableConfig.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public void initEmptyFile(WriterSupplier ws) throws IOException {
+		ws.get().close();// an empty TOML file is an empty table
 	}
 }
\ No newline at end of file
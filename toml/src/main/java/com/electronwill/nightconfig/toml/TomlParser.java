@@ -1,146 +1,287 @@
 package com.electronwill.nightconfig.toml;
 
-import com.electronwill.nightconfig.core.CommentedConfig;
 import com.electronwill.nightconfig.core.Config;
 import com.electronwill.nightconfig.core.ConfigFormat;
+import com.electronwill.nightconfig.core.EntryData;
+import com.electronwill.nightconfig.core.MemoryConfig;
+import com.electronwill.nightconfig.core.impl.ArrayInput;
 import com.electronwill.nightconfig.core.impl.CharacterInput;
-import com.electronwill.nightconfig.core.impl.CharsWrapper;
-import com.electronwill.nightconfig.core.impl.ReaderInput;
 import com.electronwill.nightconfig.core.io.*;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static com.electronwill.nightconfig.core.StandardAttributes.COMMENT;
 
 /**
- * A configurable parser of TOML configurations. It is not thread-safe.
+ * A configurable parser of TOML configurations.
+ * <p>
+ * The parser keeps no state between two parsing operations: once configured, one instance can be
+ * used by several threads at the same time. Its settings must not be modified while it's in use.
  *
  * @author TheElectronWill
  * @see <a href="https://github.com/toml-lang/toml">TOML specification</a>
  */
-public final class TomlParser implements ConfigParser<CommentedConfig> {
+public final class TomlParser implements ConfigParser {
 	// --- Parser's settings ---
 	private int initialStringBuilderCapacity = 16, initialListCapacity = 10;
 	private boolean lenientBareKeys = false;
 	private boolean lenientSeparators = false;
-	private boolean configWasEmpty = false;
-	private ParsingMode parsingMode;
+	private boolean compactTemporals = false;
 
 	// --- Parser's methods ---
 	@Override
-	public CommentedConfig parse(Reader reader) {
-		configWasEmpty = true;
-		return parse(new ReaderInput(reader), TomlFormat.instance().createConfig(), ParsingMode.MERGE);
-	}
-
-	@Override
-	public void parse(Reader reader, Config destination, ParsingMode parsingMode) {
-		if(parsingMode == ParsingMode.REPLACE) {
-			configWasEmpty = true;
-		}
-		parse(new ReaderInput(reader), destination, parsingMode);
+	public void parse(CharacterInput input, Config destination, ParsingMode parsingMode) {
+		boolean configWasEmpty = (parsingMode == ParsingMode.REPLACE);
+		ParsingContext context = new ParsingContext(this, destination, parsingMode,
+													configWasEmpty);
+		parse(input, destination, context);
 	}
 
-	private <T extends Config> T parse(CharacterInput input, T destination, ParsingMode parsingMode) {
-		this.parsingMode = parsingMode;
-		parsingMode.prepareParsing(destination);
-		CommentedConfig commentedConfig = CommentedConfig.fake(destination);
-		CommentedConfig rootTable = TableParser.parseNormal(input, this, commentedConfig);
+	private void parse(CharacterInput input, Config destination, ParsingContext context) {
+		context.getParsingMode().prepareParsing(destination);
+		Config rootTable = TableParser.parseNormal(input, context, destination);
 		int next;
 		while ((next = input.peek()) != -1) {
 			final boolean isArray = (next == '[');
 			if (isArray) {
 				input.skipPeeks();
 			}
-			final List<String> path = TableParser.parseTableName(input, this, isArray);
-			final int lastIndex = path.size() - 1;
-			final String lastKey = path.get(lastIndex);
-			final List<String> parentPath = path.subList(0, lastIndex);
-			final Config parentConfig = getSubTable(rootTable, parentPath);
-			final Map<String, Object> parentMap = (parentConfig != null) ? parentConfig.valueMap()
-																		 : null;
-			if (hasPendingComment()) {// Handles comments that are before the table declaration
-				String comment = consumeComment();
-				if (parentConfig instanceof CommentedConfig) {
-					List<String> lastPath = Collections.singletonList(lastKey);
-					((CommentedConfig)parentConfig).setComment(lastPath, comment);
-				}
-			}
-			if (isArray) {// It's an element of an array of tables
-				if (parentMap == null) {
-					throw new ParsingException("Cannot create entry "
-											   + path
-											   + " because of an invalid "
-											   + "parent that isn't a table.");
-				}
-				CommentedConfig table = TableParser.parseNormal(input, this);
-				List<CommentedConfig> arrayOfTables = (List)parentMap.get(lastKey);
-				if (arrayOfTables == null) {
-					arrayOfTables = createList();
-					parentMap.put(lastKey, arrayOfTables);
-				}
-				arrayOfTables.add(table);
-			} else {// It's a table
-				if (parentMap == null) {
-					throw new ParsingException("Cannot create entry "
-											   + path
-											   + " because of an invalid "
-											   + "parent that isn't a table.");
-				}
-				Object alreadyDeclared = parentMap.get(lastKey);
-				if (alreadyDeclared == null) {
-					CommentedConfig table = TableParser.parseNormal(input, this);
-					parentMap.put(lastKey, table);
-				} else {
-					if (alreadyDeclared instanceof Config) {
-						Config table = (Config)alreadyDeclared;
-						checkContainsOnlySubtables(table, path);
-						CommentedConfig commentedTable = CommentedConfig.fake(table);
-						TableParser.parseNormal(input, this, commentedTable);
-					} else if (configWasEmpty) {
-						throw new ParsingException("Entry " + path + " has been defined twice.");
-					}
-				}
-			}
+			final List<String> path = TableParser.parseTableName(input, context, isArray);
+			final String comment = context.consumeComment();// comments before the declaration
+			declareTable(rootTable, path, isArray, comment, context,
+						 () -> TableParser.parseNormal(input, context),
+						 table -> TableParser.parseNormal(input, context, table));
+		}
+	}
+
+	/**
+	 * Parses TOML data in parallel, with the given pool.
+	 * <p>
+	 * The data is read in memory and split in sections: the root table, and one section per
+	 * table or array of tables declaration ({@code [table]} or {@code [[array]]}). The sections
+	 * are parsed concurrently, then they are added to the root table in the order of the document,
+	 * with the same checks as {@link #parse(Reader)}. A table that is declared several times (or
+	 * that already exists in MERGE and ADD modes) is parsed again when its sections are added,
+	 * because its entries must be checked against the existing ones.
+	 * <p>
+	 * This is faster than the sequential parsing for large documents made of many tables.
+	 *
+	 * @param reader the reader to parse the data from
+	 * @param pool   the pool that executes the parsing tasks
+	 * @return a new config containing the parsed data
+	 */
+	public Config parseParallel(Reader reader, ForkJoinPool pool) {
+		Config config = new MemoryConfig();
+		parseParallel(reader, config, ParsingMode.REPLACE, true, pool);
+		return config;
+	}
+
+	/**
+	 * Parses TOML data in parallel, with the given pool, and puts the result in the given config.
+	 *
+	 * @param reader      the reader to parse the data from
+	 * @param destination the config where to put the data
+	 * @param parsingMode the parsing mode to use
+	 * @param pool        the pool that executes the parsing tasks
+	 * @see #parseParallel(Reader, ForkJoinPool)
+	 */
+	public void parseParallel(Reader reader, Config destination, ParsingMode parsingMode,
+							  ForkJoinPool pool) {
+		boolean configWasEmpty = (parsingMode == ParsingMode.REPLACE);
+		parseParallel(reader, destination, parsingMode, configWasEmpty, pool);
+	}
+
+	private void parseParallel(Reader reader, Config destination, ParsingMode parsingMode,
+							   boolean configWasEmpty, ForkJoinPool pool) {
+		final char[] chars = readAll(reader);
+		final int[] headers = SectionScanner.findHeaders(chars);
+		final ParsingContext context = new ParsingContext(this, destination, parsingMode,
+														  configWasEmpty);
+		if (headers.length < 2) {// not worth it
+			parse(new ArrayInput(chars), destination, context);
+			return;
+		}
+		// Parses the tables in parallel
+		final List<ForkJoinTask<Section>> tasks = new ArrayList<>(headers.length);
+		for (int i = 0; i < headers.length; i++) {
+			final int start = headers[i] + 1;// skips the first '[', like parseNormal does
+			final int end = (i + 1 < headers.length) ? headers[i + 1] : chars.length;
+			tasks.add(pool.submit(() -> parseSection(chars, start, end, destination,
+													 parsingMode, configWasEmpty)));
+		}
+		// Meanwhile, parses the root table
+		parsingMode.prepareParsing(destination);
+		Config rootTable = TableParser.parseNormal(new ArrayInput(chars, 0, headers[0]), context,
+												   destination);
+
+		// Adds the tables to the root, in the order of the document
+		String pendingComment = context.consumeComment();// comments before the first table
+		for (ForkJoinTask<Section> task : tasks) {
+			final Section section = task.join();
+			String comment = joinComments(pendingComment, section.headerComment);
+			declareTable(rootTable, section.path, section.isArray, comment, context,
+						 () -> section.table,
+						 table -> parseSectionInto(chars, section, table, context));
+			pendingComment = section.trailingComment;
+		}
+	}
+
+	/**
+	 * Parses a section of the data: a table declaration, followed by the table's content and by
+	 * the comments that are before the next declaration.
+	 */
+	private Section parseSection(char[] chars, int start, int end, Config destination,
+								 ParsingMode parsingMode, boolean configWasEmpty) {
+		ParsingContext context = new ParsingContext(this, destination, parsingMode,
+													configWasEmpty);
+		CharacterInput input = new ArrayInput(chars, start, end);
+		boolean isArray = (input.peek() == '[');
+		if (isArray) {
+			input.skipPeeks();
 		}
-		return destination;
+		List<String> path = TableParser.parseTableName(input, context, isArray);
+		String headerComment = context.consumeComment();
+		Config table = TableParser.parseNormal(input, context);
+		String trailingComment = context.consumeComment();
+		return new Section(start, end, path, isArray, table, headerComment, trailingComment);
+	}
+
+	/**
+	 * Parses the content of a section into a table that has already been declared. This is only
+	 * used for tables, not for arrays of tables.
+	 */
+	private void parseSectionInto(char[] chars, Section section, Config table,
+								  ParsingContext context) {
+		CharacterInput input = new ArrayInput(chars, section.start, section.end);
+		ParsingContext sectionContext = context.forSection();
+		TableParser.parseTableName(input, sectionContext, section.isArray);
+		sectionContext.consumeComment();
+		TableParser.parseNormal(input, sectionContext, table);
 	}
 
-	private Config getSubTable(Config parentTable, List<String> path) {
-		if (path.isEmpty()) {
-			return parentTable;
+	/**
+	 * Adds a table (or an element of an array of tables) to the root table.
+	 *
+	 * @param rootTable     the root table
+	 * @param path          the table's full path
+	 * @param isArray       true if the table is an element of an array of tables
+	 * @param comment       the table's comment, may be null
+	 * @param context       the parsing context
+	 * @param newTable      parses the content of a new table
+	 * @param existingTable parses the content of the table into an existing one
+	 */
+	private void declareTable(Config rootTable, List<String> path, boolean isArray,
+							  String comment, ParsingContext context, Supplier<Config> newTable,
+							  Consumer<Config> existingTable) {
+		final int lastIndex = path.size() - 1;
+		final String lastKey = path.get(lastIndex);
+		final Config parentConfig = context.getTableCursor().resolve(rootTable, path, lastIndex,
+																	 context);
+		if (parentConfig == null) {
+			throw new ParsingException("Cannot create entry "
+									   + path
+									   + " because of an invalid "
+									   + "parent that isn't a table.");
 		}
-		Config currentConfig = parentTable;
-		for (String key : path) {
-			Object value = currentConfig.valueMap().get(key);
-			if (value == null) {
-				Config sub = TomlFormat.instance().createConfig();
-				currentConfig.valueMap().put(key, sub);
-				currentConfig = sub;
-			} else if (value instanceof Config) {
-				currentConfig = (Config)value;
-			} else if (value instanceof List) {
-				List<?> list = (List<?>)value;
-				if (!list.isEmpty() && list.get(0) instanceof Config) {// Arrays of tables
-					int lastIndex = list.size() - 1;
-					currentConfig = (Config)list.get(lastIndex);
-				} else {
-					return null;
+		// Reads the entry directly: valueMap() would wrap every access, and the config's get
+		// would walk the path again
+		final String[] key = {lastKey};
+		EntryData data = parentConfig.dataMap().get(lastKey);
+		final Object existing = (data == null) ? null : data.getValue();
+		if (isArray) {// It's an element of an array of tables
+			Config table = newTable.get();
+			List<Config> arrayOfTables = (List<Config>)existing;
+			if (arrayOfTables == null) {
+				arrayOfTables = context.createList();
+				parentConfig.set(key, arrayOfTables);
+				data = null;// the entry may have been replaced
+			}
+			arrayOfTables.add(table);
+			context.getTableCursor().elementAdded(path);
+		} else {// It's a table
+			if (existing == null) {
+				Config table = newTable.get();
+				parentConfig.set(key, table);
+				data = null;
+			} else {
+				if (existing instanceof Config) {
+					Config table = (Config)existing;
+					checkContainsOnlySubtables(table, path);
+					existingTable.accept(table);
+				} else if (context.configWasEmpty()) {
+					throw new ParsingException("Entry " + path + " has been defined twice.");
 				}
+			}
+		}
+		if (comment != null) {// Handles comments that are before the table declaration
+			if (data != null) {
+				data.set(COMMENT, comment);
 			} else {
-				return null;
+				parentConfig.setComment(key, comment);
 			}
 		}
-		return currentConfig;
 	}
 
 	private void checkContainsOnlySubtables(Config table, List<String> path) {
-		for (Object value : table.valueMap().values()) {
-			if (!(value instanceof Config)) {
+		for (EntryData data : table.dataMap().values()) {
+			if (!(data.getValue() instanceof Config)) {
 				throw new ParsingException("Table with path " + path + " has been declared twice.");
 			}
 		}
 	}
 
+	private static String joinComments(String before, String after) {
+		if (before == null) {
+			return after;
+		}
+		return (after == null) ? before : before + '\n' + after;
+	}
+
+	private static char[] readAll(Reader reader) {
+		char[] buffer = new char[8192];
+		int length = 0, read;
+		try {
+			while ((read = reader.read(buffer, length, buffer.length - length)) != -1) {
+				length += read;
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+			}
+		} catch (IOException e) {
+			throw ParsingException.readFailed(e);
+		}
+		return Arrays.copyOf(buffer, length);
+	}
+
+	/**
+	 * A table declaration and its content, parsed independently of the rest of the document.
+	 */
+	private static final class Section {
+		final int start, end;
+		final List<String> path;
+		final boolean isArray;
+		final Config table;
+		final String headerComment;// comment on the declaration's line
+		final String trailingComment;// comments before the next declaration
+
+		Section(int start, int end, List<String> path, boolean isArray, Config table,
+				String headerComment, String trailingComment) {
+			this.start = start;
+			this.end = end;
+			this.path = path;
+			this.isArray = isArray;
+			this.table = table;
+			this.headerComment = headerComment;
+			this.trailingComment = trailingComment;
+		}
+	}
+
 	// --- Getters/setters for the settings ---
 	public boolean isLenientWithSeparators() {
 		return lenientSeparators;
@@ -176,6 +317,25 @@ public final class TomlParser implements ConfigParser<CommentedConfig> {
 		return this;
 	}
 
+	public boolean isCompactTemporals() {
+		return compactTemporals;
+	}
+
+	/**
+	 * Makes this parser return the dates and times as {@link CompactTemporal} values (if true)
+	 * or as LocalTime, LocalDate, LocalDateTime and OffsetDateTime values (if false - this is the
+	 * default). A CompactTemporal uses less memory, and only creates the java.time object when
+	 * it's used. This is useful for documents that contain a lot of dates and times that are
+	 * rarely read.
+	 *
+	 * @param compactTemporals true to use compact temporals
+	 * @return this parser
+	 */
+	public TomlParser setCompactTemporals(boolean compactTemporals) {
+		this.compactTemporals = compactTemporals;
+		return this;
+	}
+
 	public TomlParser setInitialStringBuilderCapacity(int initialStringBuilderCapacity) {
 		this.initialStringBuilderCapacity = initialStringBuilderCapacity;
 		return this;
@@ -187,60 +347,15 @@ public final class TomlParser implements ConfigParser<CommentedConfig> {
 	}
 
 	@Override
-	public ConfigFormat<CommentedConfig> getFormat() {
+	public ConfigFormat getFormat() {
 		return TomlFormat.instance();
 	}
 
-	boolean configWasEmpty() {
-		return configWasEmpty;
+	int getInitialStringBuilderCapacity() {
+		return initialStringBuilderCapacity;
 	}
 
-	ParsingMode getParsingMode() {
-		return parsingMode;
-	}
-
-	// --- Configured objects creation ---
-	<T> List<T> createList() {
-		return new ArrayList<>(initialListCapacity);
-	}
-
-	CharsWrapper.Builder createBuilder() {
-		return new CharsWrapper.Builder(initialStringBuilderCapacity);
-	}
-
-	// --- Comment management ---
-	private String currentComment;
-
-	boolean hasPendingComment() {
-		return currentComment != null;
-	}
-
-	String consumeComment() {
-		String comment = currentComment;
-		currentComment = null;
-		return comment;
-	}
-
-	void setComment(CharsWrapper comment) {
-		if (comment != null) {
-			if (currentComment == null) {
-				currentComment = comment.toString();
-			} else {
-				currentComment = currentComment + '\n' + comment.toString();
-			}
-		}
-	}
-
-	void setComment(List<CharsWrapper> commentsList) {
-		CharsWrapper.Builder builder = new CharsWrapper.Builder(32);
-		if (!commentsList.isEmpty()) {
-			Iterator<CharsWrapper> it = commentsList.iterator();
-			builder.append(it.next());
-			while (it.hasNext()) {
-				builder.append('\n');
-				builder.append(it.next());
-			}
-			setComment(builder.build());// Appends the builder to the current comment if any
-		}
+	int getInitialListCapacity() {
+		return initialListCapacity;
 	}
 }
\ No newline at end of file
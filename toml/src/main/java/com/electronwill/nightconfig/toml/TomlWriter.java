@@ -2,16 +2,18 @@ package com.electronwill.nightconfig.toml;
 
 import com.electronwill.nightconfig.core.UnmodifiableConfig;
 import com.electronwill.nightconfig.core.impl.CharacterOutput;
-import com.electronwill.nightconfig.core.impl.WriterOutput;
 import com.electronwill.nightconfig.core.io.*;
-import com.electronwill.nightconfig.core.utils.StringUtils;
 
-import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
 
 /**
+ * A configurable writer of TOML configurations.
+ * <p>
+ * The writer keeps no state between two writing operations: once configured, one instance can be
+ * used by several threads at the same time. Its settings must not be modified while it's in use.
+ *
  * @author TheElectronWill
  */
 public final class TomlWriter implements ConfigWriter {
@@ -22,14 +24,11 @@ public final class TomlWriter implements ConfigWriter {
 	private Predicate<List<?>> indentArrayElementsPredicate = c -> false;
 	private char[] indent = IndentStyle.TABS.chars;
 	private char[] newline = NewlineStyle.system().chars;
-	private int currentIndentLevel;
 
 	// --- Writer's methods ---
 	@Override
-	public void write(UnmodifiableConfig config, Writer writer) {
-		currentIndentLevel = -1;//-1 to make the root entries not indented
-		CharacterOutput output = new WriterOutput(writer);
-		TableWriter.writeNormal(config, new ArrayList<>(), output, this);
+	public void write(UnmodifiableConfig config, CharacterOutput output) {
+		TableWriter.writeNormal(config, new ArrayList<>(), output, new WritingContext(this));
 	}
 
 	// --- Getters/setters for the settings ---
@@ -70,42 +69,12 @@ public final class TomlWriter implements ConfigWriter {
 	}
 
 	// --- Methods used by the writing classes ---
-	void increaseIndentLevel() {
-		currentIndentLevel++;
+	char[] getIndent() {
+		return indent;
 	}
 
-	void decreaseIndentLevel() {
-		currentIndentLevel--;
-	}
-
-	void writeIndent(CharacterOutput output) {
-		for (int i = 0; i < currentIndentLevel; i++) {
-			output.write(indent);
-		}
-	}
-
-	void writeNewline(CharacterOutput output) {
-		output.write(newline);
-	}
-
-	void writeComment(String commentString, CharacterOutput output) {
-		List<String> comments = StringUtils.splitLines(commentString);
-		for (String comment : comments) {
-			writeIndent(output);
-			output.write('#');
-			output.write(comment);
-			output.write(newline);
-		}
-	}
-
-	void writeKey(String key, CharacterOutput output) {
-		if (Toml.isValidBareKey(key, lenientBareKeys)) {
-			output.write(key);
-		} else if (writeStringLiteralPredicate.test(key)) {
-			StringWriter.writeLiteral(key, output);
-		} else {
-			StringWriter.writeBasic(key, output);
-		}
+	char[] getNewline() {
+		return newline;
 	}
 
 	boolean writesInline(UnmodifiableConfig config) {
@@ -1,7 +1,7 @@
 package com.electronwill.nightconfig.toml;
 
 import com.electronwill.nightconfig.core.impl.CharacterInput;
-import com.electronwill.nightconfig.core.impl.CharsWrapper;
+import com.electronwill.nightconfig.core.impl.Charray;
 import com.electronwill.nightconfig.core.io.ParsingException;
 import com.electronwill.nightconfig.core.impl.Utils;
 
@@ -24,24 +24,24 @@ final class ValueParser {
 	 * Parses a TOML value. The value's type is determinated with the first character, and with
 	 * the next ones if necessary.
 	 */
-	static Object parse(CharacterInput input, char firstChar, TomlParser parser) {
+	static Object parse(CharacterInput input, char firstChar, ParsingContext context) {
 		switch (firstChar) {
 			case '{':
-				return TableParser.parseInline(input, parser);
+				return TableParser.parseInline(input, context);
 			case '[':
-				return ArrayParser.parse(input, parser);
+				return ArrayParser.parse(input, context);
 			case '\'':
-				if (input.peek() == '\'' && input.peek(1) == '\'') {
+				if (input.peek() == '\'' && input.peekAfter(1) == '\'') {
 					input.skipPeeks();// Don't include the opening quotes in the String
-					return StringParser.parseMultiLiteral(input, parser);
+					return StringParser.parseMultiLiteral(input, context);
 				}
-				return StringParser.parseLiteral(input, parser);
+				return StringParser.parseLiteral(input, context);
 			case '\"':
-				if (input.peek() == '\"' && input.peek(1) == '\"') {
+				if (input.peek() == '\"' && input.peekAfter(1) == '\"') {
 					input.skipPeeks();// Don't include the opening quotes in the String
-					return StringParser.parseMultiBasic(input, parser);
+					return StringParser.parseMultiBasic(input, context);
 				}
-				return StringParser.parseBasic(input, parser);
+				return StringParser.parseBasic(input, context);
 			case 't':
 				return parseTrue(input);
 			case 'f':
@@ -49,14 +49,14 @@ final class ValueParser {
 			case '+':
 			case '-':
 				input.pushBack(firstChar);
-				return parseNumber(input.readUntil(END_OF_VALUE));
+				return parseNumber(Toml.readUntil(input, END_OF_VALUE));
 			default:
 				input.pushBack(firstChar);
-				CharsWrapper valueChars = input.readUntil(END_OF_VALUE_DATE);
+				Charray valueChars = Toml.readUntil(input, END_OF_VALUE_DATE);
 				if (shouldBeTemporal(valueChars)) {
-					return TemporalParser.parse(valueChars);
+					return TemporalParser.parse(valueChars, context.isCompactTemporals());
 				}
-				CharsWrapper trimmed = valueChars.trimmedView();
+				Charray trimmed = valueChars.trimmed();
 				if (trimmed.isEmpty()) {
 					throw new ParsingException("Invalid value containing only whitespaces");
 				}
@@ -64,27 +64,27 @@ final class ValueParser {
 		}
 	}
 
-	static Object parse(CharacterInput input, TomlParser parser) {
-		return parse(input, Toml.readNonSpaceChar(input, false), parser);
+	static Object parse(CharacterInput input, ParsingContext context) {
+		return parse(input, Toml.readNonSpaceChar(input, false), context);
 	}
 
-	private static boolean shouldBeTemporal(CharsWrapper valueChars) {
+	private static boolean shouldBeTemporal(Charray valueChars) {
 		return (valueChars.length() >= 8)
 			   && (valueChars.get(2) == ':' || (valueChars.get(4) == '-' && valueChars.get(7) == '-'));
 	}
 
-	private static Number parseNumber(CharsWrapper valueChars) {
+	private static Number parseNumber(Charray valueChars) {
 		valueChars = simplifyNumber(valueChars);
 		// Parse +-inf and +-nan
 		char first = valueChars.get(0);
-		CharsWrapper remaining;
+		Charray remaining;
 		if (first == '-') {
-			remaining = valueChars.subView(1);
+			remaining = valueChars.sub(1);
 			if (remaining.contentEquals(FP_INFINITY)) {
 				return Double.NEGATIVE_INFINITY;
 			}
 		} else if (first == '+') {
-			remaining = valueChars.subView(1);
+			remaining = valueChars.sub(1);
 		} else {
 			remaining = valueChars;
 		}
@@ -102,10 +102,10 @@ final class ValueParser {
 			}
 		}
 		// Parse integers
-		CharsWrapper numberChars = valueChars;
+		Charray numberChars = valueChars;
 		int base = 10;
 		if (valueChars.length() > 2) {
-			switch (valueChars.subView(0, 2).toString()) {
+			switch (valueChars.sub(0, 2).toString()) {
 				case "0x":
 					base = 16;
 					break;
@@ -117,7 +117,7 @@ final class ValueParser {
 					break;
 			}
 			if (base != 10) {
-				numberChars = valueChars.subView(2);
+				numberChars = valueChars.sub(2);
 			}
 		}
 		long longValue;
@@ -133,16 +133,17 @@ final class ValueParser {
 		return longValue;
 	}
 
-	private static CharsWrapper simplifyNumber(CharsWrapper numberChars) {
+	private static Charray simplifyNumber(Charray numberChars) {
 		if (numberChars.charAt(0) == '_') {
 			throw new ParsingException("Invalid leading underscore in number " + numberChars);
 		}
 		if (numberChars.charAt(numberChars.length() - 1) == '_') {
 			throw new ParsingException("Invalid trailing underscore in number " + numberChars);
 		}
-		CharsWrapper.Builder builder = new CharsWrapper.Builder(16);
+		Charray builder = new Charray(16);
 		boolean nextCannotBeUnderscore = false;
-		for (char c : numberChars) {
+		for (int i = 0; i < numberChars.length(); i++) {
+			final char c = numberChars.get(i);
 			if (c == '_') {
 				if (nextCannotBeUnderscore) {
 					throw new ParsingException("Invalid underscore followed by another one in "
@@ -157,11 +158,11 @@ final class ValueParser {
 				builder.append(c);
 			}
 		}
-		return builder.build();
+		return builder;
 	}
 
 	private static Boolean parseFalse(CharacterInput input) {
-		CharsWrapper remaining = input.readUntil(END_OF_VALUE);
+		Charray remaining = Toml.readUntil(input, END_OF_VALUE);
 		if (!remaining.contentEquals(FALSE_END)) {
 			throw new ParsingException(
 					"Invalid value f" + remaining + " - Expected the boolean value false.");
@@ -170,7 +171,7 @@ final class ValueParser {
 	}
 
 	private static Boolean parseTrue(CharacterInput input) {
-		CharsWrapper remaining = input.readUntil(END_OF_VALUE);
+		Charray remaining = Toml.readUntil(input, END_OF_VALUE);
 		if (!remaining.contentEquals(TRUE_END)) {
 			throw new ParsingException(
 					"Invalid value t" + remaining + " - Expected the boolean value true.");
@@ -13,8 +13,8 @@ import static com.electronwill.nightconfig.core.NullObject.NULL_OBJECT;
  * @author TheElectronWill
  */
 final class ValueWriter {
-	private static void writeString(String string, CharacterOutput output, TomlWriter writer) {
-		if (writer.writesLiteral(string)) {
+	private static void writeString(String string, CharacterOutput output, WritingContext context) {
+		if (context.writesLiteral(string)) {
 			StringWriter.writeLiteral(string, output);
 		} else {
 			StringWriter.writeBasic(string, output);
@@ -23,22 +23,22 @@ final class ValueWriter {
 	/**
 	 * Writes a value. This method calls the correct writing method based on the value's type.
 	 */
-	static void write(Object value, CharacterOutput output, TomlWriter writer) {
+	static void write(Object value, CharacterOutput output, WritingContext context) {
 		if (value instanceof Config) {
-			TableWriter.writeInline((Config)value, output, writer);
+			TableWriter.writeInline((Config)value, output, context);
 		} else if (value instanceof List) {
 			List<?> list = (List<?>)value;
 			if (!list.isEmpty() && list.get(0) instanceof Config) {// Array of tables
 				for (Object table : list) {
-					TableWriter.writeInline((Config)table, output, writer);
+					TableWriter.writeInline((Config)table, output, context);
 				}
 			} else {// Normal array
-				ArrayWriter.write((List<?>)value, output, writer);
+				ArrayWriter.write((List<?>)value, output, context);
 			}
 		} else if (value instanceof CharSequence) {// String
-			writeString(value.toString(), output, writer);
+			writeString(value.toString(), output, context);
 		} else if (value instanceof Enum) {// Enum value
-			writeString(((Enum<?>)value).name(), output, writer);
+			writeString(((Enum<?>)value).name(), output, context);
 		} else if (value instanceof Temporal) {// Date or DateTime
 			TemporalWriter.write((Temporal)value, output);
 		} else if (value instanceof Float || value instanceof Double) {// Floating-point number
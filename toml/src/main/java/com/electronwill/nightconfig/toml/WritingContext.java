@@ -0,0 +1,77 @@
+package com.electronwill.nightconfig.toml;
+
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.impl.CharacterOutput;
+import com.electronwill.nightconfig.core.utils.StringUtils;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The state of one writing operation. A new context is created each time the {@link TomlWriter}
+ * writes a config, so that the writer itself doesn't change and can be used by several threads.
+ *
+ * @author TheElectronWill
+ */
+final class WritingContext {
+	private final TomlWriter writer;
+	private int currentIndentLevel = -1;// -1 to make the root entries not indented
+
+	WritingContext(TomlWriter writer) {
+		this.writer = writer;
+	}
+
+	void increaseIndentLevel() {
+		currentIndentLevel++;
+	}
+
+	void decreaseIndentLevel() {
+		currentIndentLevel--;
+	}
+
+	void writeIndent(CharacterOutput output) {
+		char[] indent = writer.getIndent();
+		for (int i = 0; i < currentIndentLevel; i++) {
+			output.write(indent);
+		}
+	}
+
+	void writeNewline(CharacterOutput output) {
+		output.write(writer.getNewline());
+	}
+
+	void writeComment(String commentString, CharacterOutput output) {
+		if (commentString == null) {
+			return;
+		}
+		Iterator<String> lines = StringUtils.iterateLines(commentString);
+		while (lines.hasNext()) {
+			writeIndent(output);
+			output.write('#');
+			output.write(lines.next());
+			writeNewline(output);
+		}
+	}
+
+	void writeKey(String key, CharacterOutput output) {
+		if (Toml.isValidBareKey(key, writer.isLenientWithBareKeys())) {
+			output.write(key);
+		} else if (writer.writesLiteral(key)) {
+			StringWriter.writeLiteral(key, output);
+		} else {
+			StringWriter.writeBasic(key, output);
+		}
+	}
+
+	boolean writesInline(UnmodifiableConfig config) {
+		return writer.writesInline(config);
+	}
+
+	boolean writesLiteral(String string) {
+		return writer.writesLiteral(string);
+	}
+
+	boolean writesIndented(List<?> list) {
+		return writer.writesIndented(list);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.electronwill.nightconfig.toml;
+
+import com.electronwill.nightconfig.core.Config;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author TheElectronWill
+ */
+public class TomlDocumentTest {
+	private static final String DATA = "# The title\n"
+									   + "title = 'TOML'   # inline comment\n"
+									   + "ports = [ 8001, 8001, 8002 ]\n"
+									   + "\n"
+									   + "[database]\n"
+									   + "  server = \"192.168.1.1\"\n"
+									   + "  enabled   =   true\n"
+									   + "\n"
+									   + "[[servers]]\n"
+									   + "  name = \"alpha\"\n"
+									   + "[[servers]]\n"
+									   + "  name = \"beta\"\n";
+
+	@Test
+	public void unmodifiedDocument() {
+		TomlDocument document = TomlDocument.parse(DATA);
+		assertEquals(DATA, document.write(new TomlWriter()));
+	}
+
+	@Test
+	public void modifiedValues() {
+		TomlDocument document = TomlDocument.parse(DATA);
+		Config config = document.getConfig();
+		config.set("title", "New title");
+		config.set("database.enabled", false);
+		config.<List<Config>>get("servers").get(1).set("name", "gamma");
+		config.<List<Integer>>get("ports").add(8003);
+
+		String expected = DATA.replace("'TOML'", "\"New title\"")
+							  .replace("[ 8001, 8001, 8002 ]", "[8001, 8001, 8002, 8003]")
+							  .replace("=   true", "=   false")
+							  .replace("\"beta\"", "\"gamma\"");
+		assertEquals(expected, document.write(new TomlWriter()));
+
+		// The spans have been moved: the next modification is still done in place
+		config.set("database.server", "localhost");
+		expected = expected.replace("\"192.168.1.1\"", "\"localhost\"");
+		assertEquals(expected, document.write(new TomlWriter()));
+	}
+
+	@Test
+	public void modifiedInlineTable() {
+		String data = "t = {x = 1, y = 2}\n";
+		TomlDocument document = TomlDocument.parse(data);
+		Config config = document.getConfig();
+		config.set("t.x", 9);
+
+		String written = document.write(new TomlWriter());
+		assertEquals("t = {x = 9, y = 2}\n", written);
+		assertEquals(config, new TomlParser().parse(written));
+	}
+
+	@Test
+	public void modifiedStructure() {
+		TomlDocument document = TomlDocument.parse(DATA);
+		Config config = document.getConfig();
+		config.set("database.port", 5432);
+
+		TomlWriter writer = new TomlWriter();
+		String written = document.write(writer);
+		assertEquals(writer.writeToString(config), written);
+
+		// The new text is used as the original text for the next modifications
+		config.set("database.port", 5433);
+		assertEquals(written.replace("5432", "5433"), document.write(writer));
+	}
+
+	@Test
+	public void modifiedComment() {
+		TomlDocument document = TomlDocument.parse(DATA);
+		Config config = document.getConfig();
+		config.setComment("ports", " The ports");
+
+		TomlWriter writer = new TomlWriter();
+		assertEquals(writer.writeToString(config), document.write(writer));
+	}
+
+	@Test
+	public void repeatedSaves() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			sb.append("# table ").append(i).append('\n');
+			sb.append("[table").append(i).append("]\n");
+			for (int j = 0; j < 10; j++) {
+				sb.append("key").append(j).append(" = \"value ").append(j).append("\"\n");
+			}
+		}
+		String original = sb.toString();
+		TomlDocument document = TomlDocument.parse(original);
+		Config config = document.getConfig();
+		// Counts the strings that are written, to check the work done by each save
+		AtomicInteger writtenStrings = new AtomicInteger();
+		TomlWriter writer = new TomlWriter();
+		writer.setWriteStringLiteralPredicate(s -> {
+			writtenStrings.incrementAndGet();
+			return false;
+		});
+
+		String previous = "\"value 5\"";
+		int position = original.indexOf(previous, original.indexOf("[table1000]"));
+		for (int i = 0; i < 20; i++) {
+			String modified = "\"modified " + i + "\"";
+			config.set("table1000.key5", "modified " + i);
+			String text = document.write(writer);
+			// Only the modified value is replaced, the rest of the text is kept as it is
+			assertEquals(original.substring(0, position) + modified
+						 + original.substring(position + previous.length()), text);
+			// The unmodified values aren't written again
+			assertEquals(i + 1, writtenStrings.get());
+		}
+
+		// A full rewrite writes all the values
+		writer.writeToString(config);
+		assertEquals(20 + 2000 * 10, writtenStrings.get());
+	}
+}
\ No newline at end of file
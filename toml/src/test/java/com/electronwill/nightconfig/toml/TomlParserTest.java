@@ -1,6 +1,6 @@
 package com.electronwill.nightconfig.toml;
 
-import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.Config;
 import com.electronwill.nightconfig.core.TestEnum;
 import com.electronwill.nightconfig.core.file.FileNotFoundAction;
 import com.electronwill.nightconfig.core.io.ParsingException;
@@ -9,6 +9,13 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,14 +26,14 @@ public class TomlParserTest {
 
 	private static void parseAndPrint(String tomlString) {
 		TomlParser parser = new TomlParser();
-		CommentedConfig parsed = parser.parse(new StringReader(tomlString));
+		Config parsed = parser.parse(new StringReader(tomlString));
 		System.out.println("parsed: " + parsed);
 	}
 
 	@Test
 	public void readWriteReadAgain() {
 		File file = new File("test.toml");
-		CommentedConfig parsed = new TomlParser().parse(file, FileNotFoundAction.THROW_ERROR);
+		Config parsed = new TomlParser().parse(file, FileNotFoundAction.THROW_ERROR);
 
 		System.out.println("--- parsed --- \n" + parsed);
 		System.out.println("--------------------------------------------");
@@ -41,11 +48,140 @@ public class TomlParserTest {
 		System.out.println("--- written --- \n" + sw);
 		System.out.println("--------------------------------------------");
 
-		CommentedConfig reparsed = new TomlParser().parse(new StringReader(sw.toString()));
+		Config reparsed = new TomlParser().parse(new StringReader(sw.toString()));
 		System.out.println("--- reparsed --- \n" + reparsed);
 		assertEquals(parsed, reparsed);
 	}
 
+	@Test
+	public void sharedParserAndWriter() throws Exception {
+		TomlParser parser = TomlFormat.instance().parser();
+		TomlWriter writer = TomlFormat.instance().writer();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 0; i < 400; i++) {
+				final int n = i;
+				results.add(executor.submit(() -> {
+					String toml = "# comment " + n + "\n"
+								  + "id = " + n + "\n"
+								  + "name = 'document " + n + "'\n"
+								  + "# table " + n + "\n"
+								  + "[table]\n"
+								  + "values = [" + n + ", " + (n + 1) + "]\n"
+								  + "[[array]]\n"
+								  + "a = " + n + "\n"
+								  + "[[array]]\n"
+								  + "b = " + n + "\n";
+					Config parsed = parser.parse(new StringReader(toml));
+					assertEquals(n, parsed.<Integer>get("id"));
+					assertEquals(" comment " + n, parsed.getComment("id"));
+					assertEquals(" table " + n, parsed.getComment("table"));
+
+					StringWriter sw = new StringWriter();
+					writer.write(parsed, sw);
+					Config reparsed = parser.parse(new StringReader(sw.toString()));
+					assertEquals(parsed, reparsed);
+					assertEquals(" comment " + n, reparsed.getComment("id"));
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();// rethrows the assertion errors, if any
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void parallelParsing() {
+		StringBuilder sb = new StringBuilder("title = 'parallel'\n# before the first table\n");
+		for (int i = 0; i < 100; i++) {
+			sb.append("[table").append(i).append(".sub] # table ").append(i).append('\n');
+			sb.append("value = ").append(i).append('\n');
+			sb.append("text = \"\"\"\n[not_a_table]\n\"\"\"\n");
+			sb.append("list = [\n  [1, 2],\n  [3]\n]\n");
+			sb.append("# element ").append(i).append('\n');
+			sb.append("[[array]]\n");
+			sb.append("id = ").append(i).append('\n');
+		}
+		sb.append("[table0] # declared after its subtable\n");
+		sb.append("late = true\n");
+		String toml = sb.toString();
+
+		TomlParser parser = new TomlParser();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Config sequential = parser.parse(new StringReader(toml));
+			Config parallel = parser.parseParallel(new StringReader(toml), pool);
+			assertEquals(sequential, parallel);
+			assertEquals(100, parallel.<List<?>>get("array").size());
+			assertEquals(Boolean.TRUE, parallel.get("table0.late"));
+			assertEquals(" before the first table\n table 0", parallel.getComment("table0.sub"));
+			assertEquals(" element 99", parallel.getComment("array"));
+
+			String duplicate = toml + "[table1.sub]\nvalue = 2\n";
+			assertThrows(ParsingException.class,
+						 () -> parser.parseParallel(new StringReader(duplicate), pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void subtablesOfArraysOfTables() {
+		String toml = "[a.b.c]\nx = 1\n"
+					  + "[a.b.d]\ny = 2\n"
+					  + "[[fruit]]\nname = 'apple'\n"
+					  + "[fruit.variety]\nname = 'red'\n"
+					  + "[[fruit]]\nname = 'banana'\n"
+					  + "[fruit.variety]\nname = 'plantain'\n"
+					  + "[a.b]\nz = 3\n";
+		Config parsed = new TomlParser().parse(new StringReader(toml));
+		List<Config> fruits = parsed.get("fruit");
+		assertEquals(2, fruits.size());
+		assertEquals("red", fruits.get(0).get("variety.name"));
+		assertEquals("plantain", fruits.get(1).get("variety.name"));
+		assertEquals(1, parsed.<Integer>get("a.b.c.x"));
+		assertEquals(2, parsed.<Integer>get("a.b.d.y"));
+		assertEquals(3, parsed.<Integer>get("a.b.z"));
+	}
+
+	@Test
+	public void temporals() {
+		String toml = "time = 07:32:00.999\n"
+					  + "date = 1979-05-27 # comment\n"
+					  + "local = 1979-05-27T07:32:00\n"
+					  + "offset = 1979-05-27T00:32:00.999999-07:00\n"
+					  + "utc = 1979-05-27 07:32:00Z\n";
+		Config parsed = new TomlParser().parse(new StringReader(toml));
+		assertEquals(LocalTime.of(7, 32, 0, 999_000_000), parsed.get("time"));
+		assertEquals(LocalDate.of(1979, 5, 27), parsed.get("date"));
+		assertEquals(LocalDateTime.of(1979, 5, 27, 7, 32), parsed.get("local"));
+		assertEquals(OffsetDateTime.of(1979, 5, 27, 0, 32, 0, 999_999_000, ZoneOffset.ofHours(-7)),
+					 parsed.get("offset"));
+		assertEquals(OffsetDateTime.of(1979, 5, 27, 7, 32, 0, 0, ZoneOffset.UTC),
+					 parsed.get("utc"));
+
+		TomlParser compactParser = new TomlParser().setCompactTemporals(true);
+		Config compact = compactParser.parse(new StringReader(toml));
+		Config compactAgain = compactParser.parse(new StringReader(toml));
+		for (String key : new String[] {"time", "date", "local", "offset", "utc"}) {
+			CompactTemporal value = compact.get(key);
+			CompactTemporal sameValue = compactAgain.get(key);
+			assertEquals(value, sameValue);
+			assertEquals(value.hashCode(), sameValue.hashCode());
+			assertEquals(parsed.<Object>get(key), value.toTemporal());
+		}
+		StringWriter sw = new StringWriter();
+		new TomlWriter().write(compact, sw);
+		assertEquals(parsed, new TomlParser().parse(new StringReader(sw.toString())));
+
+		assertThrows(ParsingException.class,
+					 () -> new TomlParser().parse(new StringReader("d = 2001-02-29")));
+	}
+
 	@Test
 	public void readInvalidString() {
 		assertThrows(ParsingException.class, this::testAlreadyDefinedTable);
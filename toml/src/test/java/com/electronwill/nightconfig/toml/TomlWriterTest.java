@@ -1,6 +1,7 @@
 package com.electronwill.nightconfig.toml;
 
 import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.MemoryConfig;
 import com.electronwill.nightconfig.core.NullObject;
 import com.electronwill.nightconfig.core.TestEnum;
 import com.electronwill.nightconfig.core.io.WritingException;
@@ -21,17 +22,17 @@ public class TomlWriterTest {
 
 	@Test
 	public void writeToString() {
-		Config subConfig = TomlFormat.instance().createConfig();
+		Config subConfig = new MemoryConfig();
 		subConfig.set("string", "test");
 		subConfig.set("dateTime", ZonedDateTime.now());
-		subConfig.set("sub", TomlFormat.instance().createConfig());
+		subConfig.set("sub", new MemoryConfig());
 
 		List<Config> tableArray = new ArrayList<>();
 		tableArray.add(subConfig);
 		tableArray.add(subConfig);
 		tableArray.add(subConfig);
 
-		Config config = TomlFormat.instance().createConfig();
+		Config config = new MemoryConfig();
 		config.set("string", "\"value\"");
 		config.set("integer", 2);
 		config.set("long", 123456789L);
@@ -53,7 +54,7 @@ public class TomlWriterTest {
 
 	@Test
 	public void noNulls() {
-		Config config = TomlFormat.newConfig();
+		Config config = new MemoryConfig();
 		Executable tryToWrite = () -> TomlFormat.instance().writer().writeToString(config);
 
 		config.set("null", null);
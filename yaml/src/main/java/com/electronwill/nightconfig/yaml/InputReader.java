@@ -0,0 +1,40 @@
+package com.electronwill.nightconfig.yaml;
+
+import com.electronwill.nightconfig.core.impl.CharacterInput;
+
+import java.io.Reader;
+
+/**
+ * A Reader that reads a {@link CharacterInput}, to give it to SnakeYAML.
+ *
+ * @author TheElectronWill
+ */
+final class InputReader extends Reader {
+	private final CharacterInput input;
+
+	InputReader(CharacterInput input) {
+		this.input = input;
+	}
+
+	@Override
+	public int read() {
+		return input.read();
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		final int end = off + len;
+		int i = off;
+		int c;
+		while (i < end && (c = input.read()) != -1) {
+			cbuf[i++] = (char)c;
+		}
+		return (i == off) ? -1 : i - off;
+	}
+
+	@Override
+	public void close() {}
+}
\ No newline at end of file
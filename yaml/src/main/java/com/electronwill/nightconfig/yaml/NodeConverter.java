@@ -0,0 +1,289 @@
+package com.electronwill.nightconfig.yaml;
+
+import com.electronwill.nightconfig.core.AbstractConfig;
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.io.ParsingException;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.nodes.*;
+
+import java.util.*;
+
+/**
+ * Converts the nodes composed by SnakeYAML to configs and lists, without building the
+ * intermediate maps of {@link org.yaml.snakeyaml.Yaml#load(java.io.Reader)}. The configs are
+ * created with the right size by an {@link AbstractConfig.Builder}.
+ * <p>
+ * The standard scalars (strings, integers, booleans and nulls) are converted directly. The
+ * other nodes, like timestamps, binary data or nodes with a custom tag, are constructed by a
+ * SnakeYAML {@link Constructor}.
+ * <p>
+ * The mappings that are used several times, with YAML aliases, are converted only once. Each
+ * place where they are used gets a {@link SharedConfig} that shares the converted content.
+ * <p>
+ * A NodeConverter isn't thread-safe: a new one is used for each parsing operation.
+ *
+ * @author TheElectronWill
+ */
+final class NodeConverter {
+	private final AbstractConfig.Builder builder;
+
+	/** The collections being converted, to detect the recursive structures */
+	private final Set<Node> converting = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/** The mappings that have been visited by {@link #findAliases(Node)} */
+	private final Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/** The mappings that are used several times */
+	private final Set<Node> aliased = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/** The content of the aliased mappings, shared by SharedConfigs */
+	private final Map<Node, AbstractConfig> sharedContents = new IdentityHashMap<>();
+
+	private FallbackConstructor constructor;
+
+	/**
+	 * @param builder the builder of the configs, which determines their type
+	 */
+	NodeConverter(AbstractConfig.Builder builder) {
+		this.builder = builder;
+	}
+
+	/**
+	 * Puts the content of a document's root mapping in the current object of the builder.
+	 *
+	 * @param root the root node of the document, may be null if the document is empty
+	 */
+	void convertRoot(Node root) {
+		if (root == null || (root instanceof ScalarNode && Tag.NULL.equals(root.getTag()))) {
+			return;// empty document
+		}
+		if (!(root instanceof MappingNode) || !Tag.MAP.equals(root.getTag())) {
+			throw new ParsingException("Invalid YAML document: the root must be a mapping, not "
+									   + root.getTag());
+		}
+		visited.add(root);
+		enter(root);
+		findAliasesInContent((MappingNode)root);
+		visited.clear();// no longer needed
+
+		convertMappingContent((MappingNode)root);
+		converting.remove(root);
+	}
+
+	// --- Aliases ---
+	/**
+	 * Finds the mappings that are used several times in the document. The nodes are visited in
+	 * the same way as they are converted, except that the content of a mapping is visited once.
+	 */
+	private void findAliases(Node node) {
+		if (node instanceof MappingNode && Tag.MAP.equals(node.getTag())) {
+			if (!visited.add(node)) {
+				aliased.add(node);
+				return;
+			}
+			enter(node);
+			findAliasesInContent((MappingNode)node);
+			converting.remove(node);
+		} else if (node instanceof SequenceNode && Tag.SEQ.equals(node.getTag())) {
+			enter(node);
+			for (Node element : ((SequenceNode)node).getValue()) {
+				findAliases(element);
+			}
+			converting.remove(node);
+		}
+	}
+
+	private void findAliasesInContent(MappingNode node) {
+		for (NodeTuple tuple : node.getValue()) {
+			final Node value = tuple.getValueNode();
+			if (!Tag.MERGE.equals(tuple.getKeyNode().getTag())) {
+				findAliases(value);
+			} else if (value instanceof SequenceNode) {
+				for (Node merged : ((SequenceNode)value).getValue()) {
+					findAliasesInMerged(merged);
+				}
+			} else {
+				findAliasesInMerged(value);
+			}
+		}
+	}
+
+	/**
+	 * The content of a merged mapping is copied at each place it's merged.
+	 */
+	private void findAliasesInMerged(Node node) {
+		if (node instanceof MappingNode) {// otherwise the error is reported by the conversion
+			enter(node);
+			findAliasesInContent((MappingNode)node);
+			converting.remove(node);
+		}
+	}
+
+	// --- Conversion ---
+	/**
+	 * Converts a node to a value that can be stored in a config.
+	 */
+	Object convert(Node node) {
+		final Tag tag = node.getTag();
+		switch (node.getNodeId()) {
+			case scalar:
+				return convertScalar((ScalarNode)node, tag);
+			case sequence:
+				if (Tag.SEQ.equals(tag)) {
+					return convertSequence((SequenceNode)node);
+				}
+				break;
+			case mapping:
+				if (Tag.MAP.equals(tag)) {
+					return convertMapping((MappingNode)node);
+				}
+				break;
+		}
+		return construct(node);
+	}
+
+	private Object convertScalar(ScalarNode node, Tag tag) {
+		final String value = node.getValue();
+		if (Tag.STR.equals(tag)) {
+			return value;
+		}
+		if (Tag.NULL.equals(tag)) {
+			return null;
+		}
+		if (Tag.BOOL.equals(tag)) {
+			if (value.equals("true")) {
+				return Boolean.TRUE;
+			}
+			if (value.equals("false")) {
+				return Boolean.FALSE;
+			}
+		} else if (Tag.INT.equals(tag) && isSmallDecimal(value)) {
+			return Integer.parseInt(value);
+		}
+		// yes/no, hexadecimal and octal integers, floats, timestamps, custom tags, etc.
+		return construct(node);
+	}
+
+	/**
+	 * Checks if a string is a decimal integer that always fits in an int.
+	 */
+	private static boolean isSmallDecimal(String value) {
+		final int length = value.length();
+		int i = (length > 1 && (value.charAt(0) == '-' || value.charAt(0) == '+')) ? 1 : 0;
+		if (i == length || length - i > 9 || (value.charAt(i) == '0' && length - i > 1)) {
+			return false;// empty, may be too big, or octal
+		}
+		for (; i < length; i++) {
+			final char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private List<Object> convertSequence(SequenceNode node) {
+		enter(node);
+		final List<Node> elements = node.getValue();
+		final List<Object> list = new ArrayList<>(elements.size());
+		for (Node element : elements) {
+			list.add(convert(element));
+		}
+		converting.remove(node);
+		return list;
+	}
+
+	private Config convertMapping(MappingNode node) {
+		if (aliased.contains(node)) {
+			AbstractConfig content = sharedContents.get(node);
+			if (content == null) {
+				content = convertObject(node);
+				sharedContents.put(node, content);
+			}
+			return new SharedConfig(content);
+		}
+		return convertObject(node);
+	}
+
+	private AbstractConfig convertObject(MappingNode node) {
+		enter(node);
+		builder.beginObject();
+		convertMappingContent(node);
+		converting.remove(node);
+		return builder.endObject();
+	}
+
+	/**
+	 * Puts the entries of a mapping in the current object of the builder. The merge keys
+	 * {@code <<} are handled like SnakeYAML does: the explicit entries have precedence over the
+	 * merged ones, and the first merged mappings have precedence over the next ones. Since the
+	 * builder keeps the last value of a key, the entries are put by increasing precedence.
+	 */
+	private void convertMappingContent(MappingNode node) {
+		final List<NodeTuple> tuples = node.getValue();
+		for (NodeTuple tuple : tuples) {
+			if (Tag.MERGE.equals(tuple.getKeyNode().getTag())) {
+				Node merged = tuple.getValueNode();
+				if (merged instanceof SequenceNode) {
+					List<Node> mappings = ((SequenceNode)merged).getValue();
+					for (int i = mappings.size() - 1; i >= 0; i--) {
+						merge(mappings.get(i));
+					}
+				} else {
+					merge(merged);
+				}
+			}
+		}
+		for (NodeTuple tuple : tuples) {
+			final Node keyNode = tuple.getKeyNode();
+			if (!Tag.MERGE.equals(keyNode.getTag())) {
+				builder.put(key(keyNode), convert(tuple.getValueNode()));
+			}
+		}
+	}
+
+	private void merge(Node node) {
+		if (!(node instanceof MappingNode)) {
+			throw new ParsingException("Invalid YAML merge: expected a mapping, got "
+									   + node.getTag());
+		}
+		enter(node);
+		convertMappingContent((MappingNode)node);
+		converting.remove(node);
+	}
+
+	private static String key(Node keyNode) {
+		if (!(keyNode instanceof ScalarNode)) {
+			throw new ParsingException("Unsupported YAML key: " + keyNode.getTag()
+									   + ", only the scalar keys are supported");
+		}
+		return ((ScalarNode)keyNode).getValue();
+	}
+
+	private void enter(Node node) {
+		if (!converting.add(node)) {
+			throw new ParsingException("Unsupported recursive YAML structure: " + node.getTag());
+		}
+	}
+
+	private Object construct(Node node) {
+		if (constructor == null) {
+			constructor = new FallbackConstructor();
+		}
+		try {
+			return constructor.construct(node);
+		} catch (IndexOutOfBoundsException | NumberFormatException e) {
+			// SnakeYAML doesn't check some invalid scalars, like !!int ''
+			throw new ParsingException("Invalid " + node.getTag() + " value", e);
+		}
+	}
+
+	/**
+	 * Constructs the nodes that aren't converted by the NodeConverter.
+	 */
+	private static final class FallbackConstructor extends Constructor {
+		Object construct(Node node) {
+			return constructDocument(node);
+		}
+	}
+}
\ No newline at end of file
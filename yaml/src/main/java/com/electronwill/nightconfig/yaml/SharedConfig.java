@@ -0,0 +1,544 @@
+package com.electronwill.nightconfig.yaml;
+
+import com.electronwill.nightconfig.core.*;
+
+import java.util.*;
+
+/**
+ * A config that shares the content of a YAML anchor with the other places where the anchor is
+ * used with an alias. The shared content is never modified: it's copied by the first operation
+ * that modifies the config, therefore the sharing is invisible.
+ * <p>
+ * The reads are served by the shared content. The entries, sub configs and lists that they
+ * return are wrappers that copy the shared content when they are modified: the sub configs
+ * become SharedConfigs and the lists become SharedLists, so that only the modified parts of the
+ * anchor are copied. A modified sub config or list copies its parents too, up to the root of
+ * the anchor. The YamlWriter writes the SharedConfigs that haven't been copied with an anchor
+ * and aliases, like they were in the parsed document.
+ *
+ * @author TheElectronWill
+ */
+final class SharedConfig extends AbstractConfig {
+	SharedConfig(AbstractConfig source) {
+		this(source, null);
+	}
+
+	/**
+	 * @param source the shared content
+	 * @param onCopy called when the content is copied, may be null
+	 */
+	private SharedConfig(AbstractConfig source, Runnable onCopy) {
+		super(NightConfig.getDefaultMapSupplier(), new SharedStorage(source, onCopy));
+	}
+
+	/**
+	 * @return true if the content is still shared, false if it has been copied
+	 */
+	boolean isShared() {
+		return ((SharedStorage)storage).own == null;
+	}
+
+	/**
+	 * @return the shared content
+	 */
+	AbstractConfig source() {
+		return ((SharedStorage)storage).source;
+	}
+
+	@Override
+	public AbstractConfig createSubConfig() {
+		return new MemoryConfig(mapSupplier);
+	}
+
+	@Override
+	public AbstractConfig createSubConfig(int expectedSize) {
+		return new MemoryConfig(mapSupplier, expectedSize);
+	}
+
+	@Override
+	public AbstractConfig clone() {
+		return isShared() ? new SharedConfig(source()) : new MemoryConfig(this);
+	}
+
+	/**
+	 * Shares a value of a shared config. The configs and the lists aren't copied: they are
+	 * wrapped in a SharedConfig or a SharedList.
+	 *
+	 * @param value the shared value
+	 * @param onCopy called when the wrapper copies the value, may be null
+	 */
+	private static Object share(Object value, Runnable onCopy) {
+		if (value instanceof SharedConfig && ((SharedConfig)value).isShared()) {
+			return new SharedConfig(((SharedConfig)value).source(), onCopy);
+		}
+		if (value instanceof AbstractConfig) {
+			return new SharedConfig((AbstractConfig)value, onCopy);
+		}
+		if (value instanceof List) {
+			return new SharedList((List<?>)value, onCopy);
+		}
+		return value;
+	}
+
+	/**
+	 * The storage of a SharedConfig: reads the map of the shared config until it's modified.
+	 * Then the map is copied and all the operations use the copy.
+	 */
+	private static final class SharedStorage extends AbstractMap<String, EntryData> {
+		private final AbstractConfig source;
+		private final Runnable onCopy;
+		private Map<String, EntryData> own;
+
+		/** The entries returned by {@link #get(Object)} while the map is shared */
+		private Map<String, SharedEntry> entries;
+
+		SharedStorage(AbstractConfig source, Runnable onCopy) {
+			this.source = source;
+			this.onCopy = onCopy;
+		}
+
+		/** @return the map for the read-only operations */
+		private Map<String, EntryData> current() {
+			return (own == null) ? source.dataMap() : own;
+		}
+
+		/** @return the map for the other operations, which is copied if needed */
+		private Map<String, EntryData> own() {
+			if (own == null) {
+				final Map<String, EntryData> sourceMap = source.dataMap();
+				final AbstractConfig copy = source.createSubConfig(sourceMap.size());
+				for (Map.Entry<String, EntryData> entry : sourceMap.entrySet()) {
+					final String[] key = {entry.getKey()};
+					final EntryData data = entry.getValue();
+					// Keeps the values that have been read, they may have been modified
+					final SharedEntry read = (entries == null) ? null : entries.get(key[0]);
+					final Object value = (read == null) ? share(data.getValue(), null)
+														: read.value();
+					copy.set(key, value);
+					for (Config.AttributeEntry<?> attribute : data.attributes()) {
+						if (attribute.attribute() != StandardAttributes.VALUE) {
+							copyAttribute(copy, key, attribute);
+						}
+					}
+				}
+				own = copy.dataMap();
+				copied();
+			}
+			return own;
+		}
+
+		private void copied() {
+			entries = null;
+			if (onCopy != null) {
+				onCopy.run();
+			}
+		}
+
+		private static <T> void copyAttribute(Config dst, String[] key,
+											  Config.AttributeEntry<T> attribute) {
+			dst.set(attribute.attribute(), key, attribute.get());
+		}
+
+		@Override
+		public int size() {
+			return current().size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return current().isEmpty();
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return current().containsKey(key);
+		}
+
+		@Override
+		public EntryData get(Object key) {
+			if (own != null) {
+				return own.get(key);
+			}
+			final EntryData data = source.dataMap().get(key);
+			if (data == null) {
+				return null;
+			}
+			if (entries == null) {
+				entries = new HashMap<>();
+			}
+			return entries.computeIfAbsent((String)key, k -> new SharedEntry(k, data));
+		}
+
+		@Override
+		public EntryData put(String key, EntryData value) {
+			return own().put(key, value);
+		}
+
+		@Override
+		public EntryData remove(Object key) {
+			return own().remove(key);
+		}
+
+		@Override
+		public void clear() {
+			if (own == null) {
+				own = source.createSubConfig().dataMap();
+				copied();
+			} else {
+				own.clear();
+			}
+		}
+
+		@Override
+		public Set<Entry<String, EntryData>> entrySet() {
+			return new AbstractSet<Entry<String, EntryData>>() {
+				@Override
+				public Iterator<Entry<String, EntryData>> iterator() {
+					if (own != null) {
+						return own.entrySet().iterator();
+					}
+					return new SharedIterator(source.dataMap().keySet().iterator());
+				}
+
+				@Override
+				public int size() {
+					return SharedStorage.this.size();
+				}
+			};
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o == this || current().equals(o);
+		}
+
+		@Override
+		public int hashCode() {
+			return current().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return current().toString();
+		}
+
+		/** Iterates over the entries of the shared map, with the SharedEntries */
+		private final class SharedIterator implements Iterator<Entry<String, EntryData>> {
+			private final Iterator<String> keys;
+			private String last;
+
+			SharedIterator(Iterator<String> keys) {
+				this.keys = keys;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return keys.hasNext();
+			}
+
+			@Override
+			public Entry<String, EntryData> next() {
+				final String key = keys.next();
+				last = key;
+				return new Entry<String, EntryData>() {
+					@Override
+					public String getKey() {
+						return key;
+					}
+
+					@Override
+					public EntryData getValue() {
+						return get(key);
+					}
+
+					@Override
+					public EntryData setValue(EntryData value) {
+						return put(key, value);
+					}
+				};
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				SharedStorage.this.remove(last);
+				last = null;
+			}
+		}
+
+		/**
+		 * An entry of the shared map. Its value is shared and its setters copy the map before
+		 * modifying the copied entry.
+		 */
+		@SuppressWarnings("unchecked")
+		private final class SharedEntry implements EntryData {
+			private final String key;
+			private final EntryData data;
+			private Object value;
+			private boolean shared;
+
+			SharedEntry(String key, EntryData data) {
+				this.key = key;
+				this.data = data;
+			}
+
+			/** @return the shared value, which copies this map when it's modified */
+			Object value() {
+				if (!shared) {
+					value = share(data.getValue(), SharedStorage.this::own);
+					shared = true;
+				}
+				return value;
+			}
+
+			/** @return the data that this entry reads: the copied entry or the shared one */
+			private EntryData readData() {
+				if (own != null) {
+					final EntryData copied = own.get(key);
+					if (copied != null) {
+						return copied;
+					}
+				}
+				return data;
+			}
+
+			/** @return the copied entry, may be null if it has been removed */
+			private EntryData writeData() {
+				return own().get(key);
+			}
+
+			@Override
+			public <T> T getValue() {
+				final EntryData read = readData();
+				return (read == data) ? (T)value() : read.getValue();
+			}
+
+			@Override
+			public <T> T addValue(Object value) {
+				final EntryData write = writeData();
+				return (write == null) ? null : write.addValue(value);
+			}
+
+			@Override
+			public <T> T setValue(Object value) {
+				final EntryData write = writeData();
+				return (write == null) ? null : write.setValue(value);
+			}
+
+			@Override
+			public <T> T set(AttributeType<T> attribute, T value) {
+				final EntryData write = writeData();
+				return (write == null) ? null : write.set(attribute, value);
+			}
+
+			@Override
+			public <T> T add(AttributeType<T> attribute, T value) {
+				final EntryData write = writeData();
+				return (write == null) ? null : write.add(attribute, value);
+			}
+
+			@Override
+			public <T> T remove(AttributeType<T> attribute) {
+				final EntryData write = writeData();
+				return (write == null) ? null : write.remove(attribute);
+			}
+
+			@Override
+			public void clearExtraAttributes() {
+				final EntryData write = writeData();
+				if (write != null) {
+					write.clearExtraAttributes();
+				}
+			}
+
+			@Override
+			public boolean has(AttributeType<?> attribute) {
+				return readData().has(attribute);
+			}
+
+			@Override
+			public <T> T get(AttributeType<T> attribute) {
+				if (attribute == StandardAttributes.VALUE) {
+					return getValue();
+				}
+				return readData().get(attribute);
+			}
+
+			@Override
+			public <T> Optional<T> getOptional(AttributeType<T> attribute) {
+				return Optional.ofNullable(get(attribute));
+			}
+
+			@Override
+			public Iterable<? extends Config.AttributeEntry<?>> attributes() {
+				final EntryData read = readData();
+				if (read != data) {
+					return read.attributes();
+				}
+				final List<Config.AttributeEntry<?>> attributes = new ArrayList<>();
+				for (Config.AttributeEntry<?> attribute : data.attributes()) {
+					attributes.add(sharedAttribute(attribute.attribute()));
+				}
+				return attributes;
+			}
+
+			private <T> Config.AttributeEntry<T> sharedAttribute(AttributeType<T> attribute) {
+				return new Config.AttributeEntry<T>() {
+					@Override
+					public void set(T value) {
+						SharedEntry.this.set(attribute, value);
+					}
+
+					@Override
+					public AttributeType<T> attribute() {
+						return attribute;
+					}
+
+					@Override
+					public T get() {
+						return SharedEntry.this.get(attribute);
+					}
+				};
+			}
+
+			@Override
+			public Config.Entry toConfigEntry(String key) {
+				return new Config.Entry() {
+					@Override
+					public <T> T set(AttributeType<T> attribute, T value) {
+						return SharedEntry.this.set(attribute, value);
+					}
+
+					@Override
+					public String getKey() {
+						return key;
+					}
+
+					@Override
+					public <T> T get(AttributeType<T> attribute) {
+						return SharedEntry.this.get(attribute);
+					}
+
+					@Override
+					public <T> Optional<T> getOptional(AttributeType<T> attribute) {
+						return SharedEntry.this.getOptional(attribute);
+					}
+
+					@Override
+					public Iterable<? extends Config.AttributeEntry<?>> attributes() {
+						return SharedEntry.this.attributes();
+					}
+				};
+			}
+
+			@Override
+			public <K, V> Map.Entry<K, V> toMapEntry(K key) {
+				return new Map.Entry<K, V>() {
+					@Override
+					public K getKey() {
+						return key;
+					}
+
+					@Override
+					public V getValue() {
+						return SharedEntry.this.getValue();
+					}
+
+					@Override
+					public V setValue(V value) {
+						return SharedEntry.this.setValue(value);
+					}
+				};
+			}
+
+			@Override
+			public String toString() {
+				return readData().toString();
+			}
+
+			@Override
+			public boolean equals(Object o) {
+				return o == this || readData().equals(o);
+			}
+
+			@Override
+			public int hashCode() {
+				return readData().hashCode();
+			}
+		}
+	}
+
+	/**
+	 * A list of a shared config: reads the shared list until it's modified. Then the list is
+	 * copied and all the operations use the copy.
+	 */
+	private static final class SharedList extends AbstractList<Object> implements RandomAccess {
+		private final List<?> source;
+		private final Runnable onCopy;
+		private List<Object> own;
+
+		/** The shared elements returned by {@link #get(int)} while the list is shared */
+		private Object[] elements;
+
+		SharedList(List<?> source, Runnable onCopy) {
+			this.source = source;
+			this.onCopy = onCopy;
+		}
+
+		private Object element(int index) {
+			if (elements == null) {
+				elements = new Object[source.size()];
+			}
+			Object element = elements[index];
+			if (element == null) {
+				element = share(source.get(index), this::own);
+				elements[index] = element;
+			}
+			return element;
+		}
+
+		private List<Object> own() {
+			if (own == null) {
+				final List<Object> copy = new ArrayList<>(source.size());
+				for (int i = 0; i < source.size(); i++) {
+					copy.add(element(i));
+				}
+				own = copy;
+				elements = null;
+				if (onCopy != null) {
+					onCopy.run();
+				}
+			}
+			return own;
+		}
+
+		@Override
+		public Object get(int index) {
+			return (own == null) ? element(index) : own.get(index);
+		}
+
+		@Override
+		public int size() {
+			return (own == null) ? source.size() : own.size();
+		}
+
+		@Override
+		public Object set(int index, Object element) {
+			return own().set(index, element);
+		}
+
+		@Override
+		public void add(int index, Object element) {
+			modCount++;
+			own().add(index, element);
+		}
+
+		@Override
+		public Object remove(int index) {
+			modCount++;
+			return own().remove(index);
+		}
+	}
+}
\ No newline at end of file
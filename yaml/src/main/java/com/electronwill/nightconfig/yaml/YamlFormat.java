@@ -1,21 +1,28 @@
 package com.electronwill.nightconfig.yaml;
 
+import com.electronwill.nightconfig.core.AttributeType;
 import com.electronwill.nightconfig.core.Config;
 import com.electronwill.nightconfig.core.ConfigFormat;
+import com.electronwill.nightconfig.core.NullObject;
+import com.electronwill.nightconfig.core.StandardAttributes;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.check.ConfigChecker;
+import com.electronwill.nightconfig.core.check.IncorrectUpdateException;
 import com.electronwill.nightconfig.core.file.FormatDetector;
-import com.electronwill.nightconfig.core.io.ConfigParser;
-import com.electronwill.nightconfig.core.io.ConfigWriter;
+import com.electronwill.nightconfig.core.utils.WriterSupplier;
 import org.yaml.snakeyaml.Yaml;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 import java.util.Set;
-import java.util.Map;
-import java.util.function.Supplier;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 /**
  * @author TheElectronWill
  */
-public final class YamlFormat implements ConfigFormat<Config> {
+public final class YamlFormat implements ConfigFormat {
 	private static final ThreadLocal<YamlFormat> LOCAL_DEFAULT_FORMAT = ThreadLocal.withInitial(
 			() -> new YamlFormat(new Yaml()));
 
@@ -36,27 +43,6 @@ public final class YamlFormat implements ConfigFormat<Config> {
 		return new YamlFormat(yaml);
 	}
 
-	/**
-	 * @return a new config with the format {@link YamlFormat#defaultInstance()}.
-	 */
-	public static Config newConfig() {
-		return defaultInstance().createConfig();
-	}
-
-	/**
-	 * @return a new config with the given map creator
-	 */
-	public static Config newConfig(Supplier<Map<String, Object>> mapCreator) {
-		return defaultInstance().createConfig(mapCreator);
-	}
-
-	/**
-	 * @return a new concurrent config with the format {@link YamlFormat#defaultInstance()}.
-	 */
-	public static Config newConcurrentConfig() {
-		return defaultInstance().createConcurrentConfig();
-	}
-
 	static {
 		FormatDetector.registerExtension("yaml", YamlFormat::defaultInstance);
 		FormatDetector.registerExtension("yml", YamlFormat::defaultInstance);
@@ -69,18 +55,51 @@ public final class YamlFormat implements ConfigFormat<Config> {
 	}
 
 	@Override
-	public ConfigWriter writer() {
+	public YamlWriter writer() {
 		return new YamlWriter(yaml);
 	}
 
 	@Override
-	public ConfigParser<Config> parser() {
+	public YamlParser parser() {
 		return new YamlParser(this);
 	}
 
 	@Override
-	public Config createConfig(Supplier<Map<String, Object>> mapCreator) {
-		return Config.of(mapCreator, this);
+	public ConfigChecker checker() {
+		return (attribute, path, oldValue, newValue) -> {
+			if (attribute == StandardAttributes.VALUE && !supportsValue(newValue)) {
+				throw new IncorrectUpdateException(path, attribute, newValue);
+			}
+		};
+	}
+
+	/**
+	 * Reads a stream of YAML documents, separated by {@code ---}, one document at a time.
+	 *
+	 * @param reader data source
+	 * @return an ordered and lazy stream of the documents
+	 * @see YamlParser#streamDocuments(Reader)
+	 */
+	public Stream<Config> streamDocuments(Reader reader) {
+		return new YamlParser(this).streamDocuments(reader);
+	}
+
+	/**
+	 * Reads a stream of YAML documents, separated by {@code ---}, and converts them to configs on
+	 * the given executor while the next documents are being read.
+	 *
+	 * @param reader   data source
+	 * @param executor the executor that converts the documents
+	 * @return an ordered and lazy stream of the documents
+	 * @see YamlParser#streamDocuments(Reader, Executor)
+	 */
+	public Stream<Config> streamDocuments(Reader reader, Executor executor) {
+		return new YamlParser(this).streamDocuments(reader, executor);
+	}
+
+	@Override
+	public boolean supportsAttribute(AttributeType<?> attribute) {
+		return attribute == StandardAttributes.VALUE;
 	}
 
 	@Override
@@ -88,6 +107,11 @@ public final class YamlFormat implements ConfigFormat<Config> {
 		return false;
 	}
 
+	@Override
+	public boolean supportsValue(Object value) {
+		return value == null || value == NullObject.NULL_OBJECT || supportsType(value.getClass());
+	}
+
 	@Override
 	public boolean supportsType(Class<?> type) {
 		return type == null
@@ -102,6 +126,11 @@ public final class YamlFormat implements ConfigFormat<Config> {
             || Number.class.isAssignableFrom(type)
             || Set.class.isAssignableFrom(type)
             || List.class.isAssignableFrom(type)
-            || Config.class.isAssignableFrom(type);
+            || UnmodifiableConfig.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public void initEmptyFile(WriterSupplier ws) throws IOException {
+		ws.get().close();// an empty YAML document is an empty mapping
 	}
 }
\ No newline at end of file
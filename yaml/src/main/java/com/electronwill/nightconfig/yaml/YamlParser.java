@@ -1,27 +1,45 @@
 package com.electronwill.nightconfig.yaml;
 
+import com.electronwill.nightconfig.core.AbstractConfig;
 import com.electronwill.nightconfig.core.Config;
 import com.electronwill.nightconfig.core.ConfigFormat;
+import com.electronwill.nightconfig.core.MemoryConfig;
+import com.electronwill.nightconfig.core.impl.CharacterInput;
 import com.electronwill.nightconfig.core.io.ConfigParser;
 import com.electronwill.nightconfig.core.io.ParsingException;
 import com.electronwill.nightconfig.core.io.ParsingMode;
-import com.electronwill.nightconfig.core.utils.TransformingMap;
 import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.nodes.Node;
 
 import java.io.Reader;
-import java.util.Map;
-
-import static com.electronwill.nightconfig.core.NullObject.NULL_OBJECT;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A YAML parser that uses the snakeYaml library.
+ * <p>
+ * The data is composed into a tree of SnakeYAML nodes, which is then converted to configs and
+ * lists. The configs are built directly with the right size, and the nested maps don't need to
+ * be wrapped.
+ * <p>
+ * A stream of several documents separated by {@code ---} can be read one document at a time with
+ * {@link #iterateDocuments(Reader)} and {@link #streamDocuments(Reader)}.
  *
  * @author TheElectronWill
  */
-public final class YamlParser implements ConfigParser<Config> {
+public final class YamlParser implements ConfigParser {
+	/** How many documents can be converted in advance by the parallel iterators */
+	private static final int MAX_PENDING_DOCUMENTS =
+		Math.max(2, Runtime.getRuntime().availableProcessors());
+
 	private final Yaml yaml;
-	private final ConfigFormat<Config> configFormat;
+	private final ConfigFormat configFormat;
 
 	public YamlParser(YamlFormat configFormat) {
 		this.yaml = configFormat.yaml;
@@ -38,46 +56,208 @@ public final class YamlParser implements ConfigParser<Config> {
 	}
 
 	@Override
-	public ConfigFormat<Config> getFormat() {
+	public ConfigFormat getFormat() {
 		return configFormat;
 	}
 
 	@Override
 	public Config parse(Reader reader) {
-		Config config = configFormat.createConfig();
-		parse(reader, config, ParsingMode.MERGE);
+		Config config = new MemoryConfig();
+		parse(reader, config, ParsingMode.REPLACE);
 		return config;
 	}
 
+	@Override
+	public void parse(CharacterInput input, Config destination, ParsingMode parsingMode) {
+		parse(new InputReader(input), destination, parsingMode);
+	}
+
 	@Override
 	public void parse(Reader reader, Config destination, ParsingMode parsingMode) {
+		AbstractConfig.Builder builder = new AbstractConfig.Builder(destination);
 		try {
-			Map<String, Object> wrappedMap = wrap(yaml.loadAs(reader, Map.class));
-			parsingMode.prepareParsing(destination);
-			if (parsingMode == ParsingMode.ADD) {
-				for (Map.Entry<String, Object> entry : wrappedMap.entrySet()) {
-					destination.valueMap().putIfAbsent(entry.getKey(), entry.getValue());
-				}
-			} else {
-				destination.valueMap().putAll(wrappedMap);
-			}
-		} catch (Exception e) {
+			Node root = yaml.compose(reader);
+			new NodeConverter(builder).convertRoot(root);
+		} catch (YAMLException e) {
 			throw new ParsingException("YAML parsing failed", e);
 		}
+		builder.finish(parsingMode);
+	}
+
+	/**
+	 * Parses a stream of YAML documents one document at a time. Each call to
+	 * {@link Iterator#next()} reads and converts only the next document.
+	 * <p>
+	 * The returned iterator throws a {@link ParsingException} if a document isn't valid.
+	 *
+	 * @param reader data source, which may contain several documents separated by {@code ---}
+	 * @return an iterator over the documents
+	 */
+	public Iterator<Config> iterateDocuments(Reader reader) {
+		return new DocumentIterator(reader);
+	}
+
+	/**
+	 * Parses a stream of YAML documents, and converts them to configs on the given executor.
+	 * The documents are read on the calling thread: while a document is converted by the
+	 * executor, the next one is already being read. The configs are returned in the same order
+	 * as the documents.
+	 *
+	 * @param reader   data source, which may contain several documents separated by {@code ---}
+	 * @param executor the executor that converts the documents, for instance a ForkJoinPool
+	 * @return an iterator over the documents
+	 * @see #iterateDocuments(Reader)
+	 */
+	public Iterator<Config> iterateDocuments(Reader reader, Executor executor) {
+		return new ParallelDocumentIterator(reader, executor);
+	}
+
+	/**
+	 * Parses a stream of YAML documents one document at a time. The returned stream is sequential
+	 * and lazy: the documents are parsed when the stream is consumed.
+	 *
+	 * @param reader data source, which may contain several documents separated by {@code ---}
+	 * @return an ordered stream of the documents
+	 * @see #iterateDocuments(Reader)
+	 */
+	public Stream<Config> streamDocuments(Reader reader) {
+		return stream(iterateDocuments(reader));
+	}
+
+	/**
+	 * Parses a stream of YAML documents, and converts them to configs on the given executor.
+	 *
+	 * @param reader   data source, which may contain several documents separated by {@code ---}
+	 * @param executor the executor that converts the documents
+	 * @return an ordered stream of the documents
+	 * @see #iterateDocuments(Reader, Executor)
+	 */
+	public Stream<Config> streamDocuments(Reader reader, Executor executor) {
+		return stream(iterateDocuments(reader, executor));
 	}
 
-	private Map<String, Object> wrap(Map<String, Object> map) {
-		return new TransformingMap<>(map, this::wrap, v -> v, v -> v);
+	private static Stream<Config> stream(Iterator<Config> it) {
+		int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, characteristics), false);
+	}
+
+	/**
+	 * Converts a document to a new config. Used by the sequential and the parallel iterators.
+	 *
+	 * @throws ParsingException if a value can't be constructed, like {@code !!timestamp foo}
+	 */
+	private static Config convertDocument(Node root) {
+		Config config = new MemoryConfig();
+		AbstractConfig.Builder builder = new AbstractConfig.Builder(config);
+		try {
+			new NodeConverter(builder).convertRoot(root);
+		} catch (YAMLException e) {
+			throw new ParsingException("YAML parsing failed", e);
+		}
+		builder.finish(ParsingMode.REPLACE);
+		return config;
 	}
 
-	private Object wrap(Object value) {
-		if (value instanceof Map) {
-			Map<String, Object> map = wrap((Map)value);
-			return Config.wrap(map, configFormat);
+	/**
+	 * Iterates over the documents composed by SnakeYAML, and converts them on the current thread.
+	 */
+	private class DocumentIterator implements Iterator<Config> {
+		private final Iterator<Node> nodes;
+
+		DocumentIterator(Reader reader) {
+			this.nodes = yaml.composeAll(reader).iterator();
 		}
-		if (value == null) {
-			return NULL_OBJECT;
+
+		/**
+		 * Composes the next document.
+		 *
+		 * @return the node of the document, or null if there are no more documents
+		 */
+		Node nextNode() {
+			try {
+				return nodes.hasNext() ? nodes.next() : null;
+			} catch (YAMLException e) {
+				throw new ParsingException("YAML parsing failed", e);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			try {
+				return nodes.hasNext();
+			} catch (YAMLException e) {
+				throw new ParsingException("YAML parsing failed", e);
+			}
+		}
+
+		@Override
+		public Config next() {
+			Node node = nextNode();
+			if (node == null) {
+				throw new NoSuchElementException();
+			}
+			return convertDocument(node);
+		}
+	}
+
+	/**
+	 * Composes the documents on the calling thread, and converts them on an executor. At most
+	 * {@link #MAX_PENDING_DOCUMENTS} documents are composed in advance, to bound the memory used.
+	 */
+	private final class ParallelDocumentIterator extends DocumentIterator {
+		private final Executor executor;
+		private final Deque<CompletableFuture<Config>> pending = new ArrayDeque<>();
+		private boolean failed;
+
+		ParallelDocumentIterator(Reader reader, Executor executor) {
+			super(reader);
+			this.executor = executor;
+		}
+
+		private void fill() {
+			while (!failed && pending.size() < MAX_PENDING_DOCUMENTS) {
+				final Node root;
+				try {
+					root = nextNode();
+				} catch (ParsingException e) {
+					// Reported after the previous documents, like the sequential iterator does
+					CompletableFuture<Config> error = new CompletableFuture<>();
+					error.completeExceptionally(e);
+					pending.add(error);
+					failed = true;
+					return;
+				}
+				if (root == null) {
+					return;
+				}
+				pending.add(CompletableFuture.supplyAsync(() -> convertDocument(root), executor));
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (pending.isEmpty()) {
+				fill();
+			}
+			return !pending.isEmpty();
+		}
+
+		@Override
+		public Config next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			CompletableFuture<Config> future = pending.poll();
+			fill();// reads the next documents while this one is being converted
+			try {
+				return future.join();
+			} catch (CompletionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException)cause;
+				}
+				throw e;
+			}
 		}
-		return value;
 	}
 }
\ No newline at end of file
@@ -1,19 +1,23 @@
 package com.electronwill.nightconfig.yaml;
 
+import com.electronwill.nightconfig.core.AbstractConfig;
 import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.impl.CharacterOutput;
 import com.electronwill.nightconfig.core.io.ConfigWriter;
 import com.electronwill.nightconfig.core.io.WritingException;
-import com.electronwill.nightconfig.core.utils.TransformingMap;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.Writer;
-import java.util.Map;
+import java.util.*;
 
 import static com.electronwill.nightconfig.core.NullObject.NULL_OBJECT;
 
 /**
  * A YAML writer that uses the snakeYaml library.
+ * <p>
+ * The configs that share the content of a YAML anchor, and haven't been modified since the
+ * parsing, are written with an anchor and aliases instead of being duplicated.
  *
  * @author TheElectronWill
  */
@@ -32,27 +36,66 @@ public final class YamlWriter implements ConfigWriter {
 		this(new Yaml(options));
 	}
 
+	@Override
+	public void write(UnmodifiableConfig config, CharacterOutput output) {
+		write(config, new OutputWriter(output));
+	}
+
 	@Override
 	public void write(UnmodifiableConfig config, Writer writer) {
 		try {
-			Map<String, Object> unwrappedMap = unwrap(config);
+			Map<String, Object> unwrappedMap = new Unwrapper().unwrap(config);
 			yaml.dump(unwrappedMap, writer);
 		} catch (Exception e) {
 			throw new WritingException("YAML writing failed", e);
 		}
 	}
 
-	private static Map<String, Object> unwrap(UnmodifiableConfig config) {
-		return new TransformingMap<>(config.valueMap(), YamlWriter::unwrap, v -> v, v -> v);
-	}
+	/**
+	 * Converts the configs to maps for SnakeYAML. The shared content of several
+	 * {@link SharedConfig}s is converted to one map, which SnakeYAML writes once, with an anchor,
+	 * and then refers to with aliases.
+	 */
+	private static final class Unwrapper {
+		private final Map<AbstractConfig, Map<String, Object>> sharedMaps = new IdentityHashMap<>();
 
-	private static Object unwrap(Object value) {
-		if (value instanceof UnmodifiableConfig) {
-			return unwrap((UnmodifiableConfig)value);
+		Map<String, Object> unwrap(UnmodifiableConfig config) {
+			if (config instanceof SharedConfig && ((SharedConfig)config).isShared()) {
+				AbstractConfig source = ((SharedConfig)config).source();
+				Map<String, Object> map = sharedMaps.get(source);
+				if (map == null) {
+					map = unwrapEntries(source);
+					sharedMaps.put(source, map);
+				}
+				return map;
+			}
+			return unwrapEntries(config);
 		}
-		if (value == NULL_OBJECT) {
-			return null;
+
+		private Map<String, Object> unwrapEntries(UnmodifiableConfig config) {
+			Map<String, Object> map = new LinkedHashMap<>((int)(config.size() / 0.75f) + 1);
+			for (UnmodifiableConfig.Entry entry : config.entries()) {
+				map.put(entry.getKey(), unwrap(entry.<Object>getValue()));
+			}
+			return map;
+		}
+
+		private Object unwrap(Object value) {
+			if (value instanceof UnmodifiableConfig) {
+				return unwrap((UnmodifiableConfig)value);
+			}
+			if (value instanceof List) {
+				List<?> list = (List<?>)value;
+				List<Object> unwrappedList = new ArrayList<>(list.size());
+				for (Object element : list) {
+					unwrappedList.add(unwrap(element));
+				}
+				return unwrappedList;
+			}
+			if (value == NULL_OBJECT) {
+				return null;
+			}
+			return value;
 		}
-		return value;
 	}
 }
\ No newline at end of file
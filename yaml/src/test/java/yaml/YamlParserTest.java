@@ -0,0 +1,215 @@
+package yaml;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.io.ParsingException;
+import com.electronwill.nightconfig.core.io.ParsingMode;
+import com.electronwill.nightconfig.yaml.YamlParser;
+import com.electronwill.nightconfig.yaml.YamlWriter;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class YamlParserTest {
+
+	private final YamlParser parser = new YamlParser(new Yaml());
+
+	@Test
+	public void testValues() {
+		Config config = parser.parse("string: text\n"
+									 + "quoted: '123'\n"
+									 + "int: -42\n"
+									 + "long: 12345678901\n"
+									 + "hex: 0x1F\n"
+									 + "double: 3.5\n"
+									 + "bool: true\n"
+									 + "yes: yes\n"
+									 + "null: ~\n"
+									 + "date: 2019-01-02\n"
+									 + "list: [1, a, [b]]\n"
+									 + "sub:\n"
+									 + "  key: value\n"
+									 + "  subsub: {k: v}\n"
+									 + "1: integer key");
+		assertEquals("text", config.get("string"));
+		assertEquals("123", config.get("quoted"));
+		assertEquals(-42, config.<Integer>get("int"));
+		assertEquals(12345678901L, config.<Long>get("long"));
+		assertEquals(31, config.<Integer>get("hex"));
+		assertEquals(3.5, config.<Double>get("double"));
+		assertEquals(true, config.<Boolean>get("bool"));
+		assertEquals(true, config.<Boolean>get("yes"));
+		assertTrue(config.contains("null"));
+		assertNull(config.get("null"));
+		assertTrue(config.get("date") instanceof Date);
+		assertEquals(Arrays.asList(1, "a", Arrays.asList("b")), config.get("list"));
+		assertEquals("value", config.get("sub.key"));
+		assertEquals("v", config.get("sub.subsub.k"));
+		assertTrue(config.get("sub.subsub") instanceof Config);
+		assertEquals("integer key", config.get("1"));
+	}
+
+	@Test
+	public void testMergeKeys() {
+		Config config = parser.parse("base: &base {a: 1, b: 2}\n"
+									 + "other: &other {b: 3, c: 4}\n"
+									 + "single: {<<: *base, a: 0}\n"
+									 + "multiple: {<<: [*base, *other], d: 5}");
+		assertEquals(0, config.<Integer>get("single.a"));
+		assertEquals(2, config.<Integer>get("single.b"));
+		assertEquals(1, config.<Integer>get("multiple.a"));
+		assertEquals(2, config.<Integer>get("multiple.b"));
+		assertEquals(4, config.<Integer>get("multiple.c"));
+		assertEquals(5, config.<Integer>get("multiple.d"));
+		assertEquals(4, config.<Config>get("multiple").size());
+	}
+
+	@Test
+	public void testAnchors() {
+		String data = "base: &base {image: nginx, ports: [80, 443], env: &env {a: 1}}\n"
+					  + "web: *base\n"
+					  + "api: *base\n"
+					  + "worker: {env: *env}";
+		Config config = parser.parse(data);
+		assertEquals(config.<Config>get("base"), config.get("web"));
+		assertEquals(config.<Config>get("base"), config.get("api"));
+
+		// The aliases are written again
+		String written = new YamlWriter().writeToString(config);
+		assertTrue(written.contains("&"));
+		assertTrue(written.contains("*"));
+		assertEquals(config, parser.parse(written));
+
+		// Copy on write: the modifications aren't visible through the other aliases
+		config.set("web.image", "httpd");
+		config.<List<Object>>get("api.ports").add(8080);
+		config.set("worker.env.b", 2);
+		assertEquals("httpd", config.get("web.image"));
+		assertEquals("nginx", config.get("base.image"));
+		assertEquals("nginx", config.get("api.image"));
+		assertEquals(Arrays.asList(80, 443, 8080), config.get("api.ports"));
+		assertEquals(Arrays.asList(80, 443), config.get("base.ports"));
+		assertEquals(Arrays.asList(80, 443), config.get("web.ports"));
+		assertEquals(2, config.<Integer>get("worker.env.b"));
+		assertFalse(config.contains("base.env.b"));
+		assertFalse(config.contains("web.env.b"));
+		assertEquals(config, parser.parse(new YamlWriter().writeToString(config)));
+	}
+
+	@Test
+	public void testAliasReads() {
+		String data = "base: &base {image: nginx, ports: [80, 443], env: {a: 1}}\n"
+					  + "web: *base\n"
+					  + "api: *base";
+		Config config = parser.parse(data);
+		for (String alias : Arrays.asList("base", "web", "api")) {
+			Config aliased = config.get(alias);
+			assertEquals("nginx", aliased.get("image"));
+			assertEquals(Arrays.asList(80, 443), aliased.get("ports"));
+			assertEquals(1, aliased.<Integer>get("env.a"));
+			for (Config.Entry entry : aliased.entries()) {
+				assertNotNull(entry.getValue());
+			}
+			assertEquals(3, aliased.valueMap().size());
+		}
+
+		// The reads don't copy the shared content
+		String written = new YamlWriter().writeToString(config);
+		assertTrue(written.contains("&"));
+		assertTrue(written.contains("*"));
+		assertEquals(config, parser.parse(written));
+	}
+
+	@Test
+	public void testParsingModes() {
+		Config config = parser.parse("");
+		assertEquals(0, config.size());
+
+		parser.parse(new StringReader("a: 1\nb: 2"), config, ParsingMode.MERGE);
+		parser.parse(new StringReader("b: 3\nc: 4"), config, ParsingMode.MERGE);
+		assertEquals(1, config.<Integer>get("a"));
+		assertEquals(3, config.<Integer>get("b"));
+		parser.parse(new StringReader("c: 5"), config, ParsingMode.REPLACE);
+		assertFalse(config.contains("a"));
+		assertEquals(5, config.<Integer>get("c"));
+
+		assertThrows(ParsingException.class, () -> parser.parse("- a\n- b"));
+		assertThrows(ParsingException.class, () -> parser.parse("a: [b"));
+		assertThrows(ParsingException.class, () -> parser.parse("a: &a [*a]"));
+		assertThrows(ParsingException.class, () -> parser.parse("a: !!int ''"));
+		assertThrows(ParsingException.class, () -> parser.parse("a: !!int '-'"));
+	}
+
+	@Test
+	public void testDocuments() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			sb.append("---\nindex: ").append(i).append("\nsub: {value: v").append(i).append("}\n");
+		}
+		String data = sb.toString();
+		List<Config> sequential = parser.streamDocuments(new StringReader(data))
+										.collect(Collectors.toList());
+		assertEquals(100, sequential.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, sequential.get(i).<Integer>get("index"));
+			assertEquals("v" + i, sequential.get(i).get("sub.value"));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Config> parallel = parser.streamDocuments(new StringReader(data), executor)
+										  .collect(Collectors.toList());
+			assertEquals(sequential, parallel);
+
+			Iterator<Config> it = parser.iterateDocuments(new StringReader("a: 1\n---\n---\nb: ["),
+														  executor);
+			assertEquals(1, it.next().<Integer>get("a"));
+			assertThrows(ParsingException.class, () -> {
+				while (it.hasNext()) {
+					it.next();
+				}
+			});
+
+			// Invalid values are detected by the conversion, on the executor
+			String invalid = "a: 1\n---\nb: !!timestamp foo";
+			Iterator<Config> it2 = parser.iterateDocuments(new StringReader(invalid), executor);
+			assertEquals(1, it2.next().<Integer>get("a"));
+			assertThrows(ParsingException.class, it2::next);
+			Iterator<Config> it3 = parser.iterateDocuments(new StringReader(invalid));
+			assertEquals(1, it3.next().<Integer>get("a"));
+			assertThrows(ParsingException.class, it3::next);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testLargeDocument() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			sb.append("object").append(i).append(":\n");
+			sb.append("  name: object ").append(i).append('\n');
+			sb.append("  size: ").append(i).append('\n');
+			sb.append("  enabled: ").append(i % 2 == 0).append('\n');
+			sb.append("  tags: [a, b, c]\n");
+			sb.append("  nested: {x: 1, y: 2, z: 3}\n");
+		}
+		String data = sb.toString();
+		Yaml yaml = new Yaml();
+
+		Config config = parser.parse(data);
+		Map<?, ?> map = yaml.load(data);
+		assertEquals(map.size(), config.size());
+		assertEquals(1999, config.<Integer>get("object1999.size"));
+	}
+}
\ No newline at end of file